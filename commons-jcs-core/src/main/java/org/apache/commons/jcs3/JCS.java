@@ -21,6 +21,7 @@ package org.apache.commons.jcs3;
 
 import java.util.Properties;
 
+import org.apache.commons.jcs3.access.AsyncCacheAccess;
 import org.apache.commons.jcs3.access.CacheAccess;
 import org.apache.commons.jcs3.access.GroupCacheAccess;
 import org.apache.commons.jcs3.access.exception.CacheException;
@@ -176,6 +177,20 @@ public abstract class JCS
         return new CacheAccess<>( cache );
     }
 
+    /**
+     * Get an AsyncCacheAccess which accesses the provided region without blocking the caller.
+     * <p>
+     * @param region Region that return AsyncCacheAccess will provide access to
+     * @return An AsyncCacheAccess which provides access to a given region.
+     * @throws CacheException
+     */
+    public static <K, V> AsyncCacheAccess<K, V> getAsyncInstance( final String region )
+        throws CacheException
+    {
+        final CompositeCache<K, V> cache = getCacheManager().getCache( region );
+        return new AsyncCacheAccess<>( cache );
+    }
+
     /**
      * Get a GroupCacheAccess which accesses the provided region.
      * <p>
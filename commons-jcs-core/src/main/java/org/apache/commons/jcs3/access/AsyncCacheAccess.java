@@ -0,0 +1,186 @@
+package org.apache.commons.jcs3.access;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.apache.commons.jcs3.access.behavior.IAsyncCacheAccess;
+import org.apache.commons.jcs3.access.exception.CacheException;
+import org.apache.commons.jcs3.access.exception.InvalidArgumentException;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+
+/**
+ * This class provides non-blocking access to a cache region.
+ * <p>
+ * Gets are answered from the memory cache on the calling thread. Misses continue in the auxiliary
+ * caches on the executor of the region, see {@link CompositeCache#getAsyncExecutor()}. Puts and
+ * removes are handed to the same executor. The pool can be chosen per region with the
+ * AsyncThreadPoolName cache attribute.
+ * <p>
+ * The JCS class is the preferred way to get instances of this class.
+ */
+public class AsyncCacheAccess<K, V>
+    extends AbstractCacheAccess<K, V>
+    implements IAsyncCacheAccess<K, V>
+{
+    /**
+     * Constructor for the AsyncCacheAccess object.
+     * <p>
+     * @param cacheControl The cache which the created instance accesses
+     */
+    public AsyncCacheAccess( final CompositeCache<K, V> cacheControl )
+    {
+        super( cacheControl );
+    }
+
+    /**
+     * Retrieve an object from the cache region this instance provides access to.
+     * <p>
+     * @param name Key the object is stored as
+     * @return a future for the object, completed with null if not found
+     */
+    @Override
+    public CompletableFuture<V> getAsync( final K name )
+    {
+        return getCacheElementAsync( name ).thenApply( element -> element != null ? element.getVal() : null );
+    }
+
+    /**
+     * This method returns the ICacheElement&lt;K, V&gt; wrapper which provides access to element info and other
+     * attributes. No defensive copy is made.
+     * <p>
+     * @param name Key the object is stored as
+     * @return a future for the element, completed with null if not found
+     */
+    @Override
+    public CompletableFuture<ICacheElement<K, V>> getCacheElementAsync( final K name )
+    {
+        if ( name == null )
+        {
+            throw new InvalidArgumentException( "Key must not be null" );
+        }
+
+        return this.getCacheControl().getAsync( name );
+    }
+
+    /**
+     * Get multiple objects from the cache based on a set of cache keys.
+     * <p>
+     * @param names set of cache keys
+     * @return a future for the map of key to value, containing only the keys that were found
+     */
+    @Override
+    public CompletableFuture<Map<K, V>> getMultipleAsync( final Set<K> names )
+    {
+        if ( names == null )
+        {
+            throw new InvalidArgumentException( "Keys must not be null" );
+        }
+
+        return this.getCacheControl().getMultipleAsync( names ).thenApply( elements ->
+            elements.entrySet()
+                .stream()
+                .filter( entry -> entry.getValue() != null )
+                .collect( Collectors.toMap(
+                        Entry::getKey,
+                        entry -> entry.getValue().getVal() ) ) );
+    }
+
+    /**
+     * Place a new object in the cache, associated with key name. If there is currently an object
+     * associated with name in the region it is replaced.
+     * <p>
+     * @param name Key object will be stored with
+     * @param obj Object to store
+     * @return a future completed when the element has been put
+     */
+    @Override
+    public CompletableFuture<Void> putAsync( final K name, final V obj )
+    {
+        // the attributes are copied by the cacheControl
+        return putAsync( name, obj, this.getCacheControl().getElementAttributes() );
+    }
+
+    /**
+     * Constructs a cache element with these attributes, and puts it into the cache on the
+     * executor of the region.
+     * <p>
+     * If the key or the value is null, and InvalidArgumentException is thrown.
+     * <p>
+     * @param key Key object will be stored with
+     * @param val Object to store
+     * @param attr the attributes of the element
+     * @return a future completed when the element has been put, or exceptionally with a
+     *         CacheException if the put failed
+     */
+    @Override
+    public CompletableFuture<Void> putAsync( final K key, final V val, final IElementAttributes attr )
+    {
+        if ( key == null )
+        {
+            throw new InvalidArgumentException( "Key must not be null" );
+        }
+
+        if ( val == null )
+        {
+            throw new InvalidArgumentException( "Value must not be null" );
+        }
+
+        final CacheElement<K, V> ce = new CacheElement<>( this.getCacheControl().getCacheName(), key, val );
+        ce.setElementAttributes( attr );
+
+        return CompletableFuture.runAsync( () -> {
+            try
+            {
+                this.getCacheControl().update( ce );
+            }
+            catch ( final IOException e )
+            {
+                throw new CacheException( e );
+            }
+        }, this.getCacheControl().getAsyncExecutor() );
+    }
+
+    /**
+     * Removes a single item by name on the executor of the region.
+     * <p>
+     * @param name the name of the item to remove.
+     * @return a future for whether an item was removed
+     */
+    @Override
+    public CompletableFuture<Boolean> removeAsync( final K name )
+    {
+        if ( name == null )
+        {
+            throw new InvalidArgumentException( "Key must not be null" );
+        }
+
+        return CompletableFuture.supplyAsync( () -> Boolean.valueOf( this.getCacheControl().remove( name ) ),
+                this.getCacheControl().getAsyncExecutor() );
+    }
+}
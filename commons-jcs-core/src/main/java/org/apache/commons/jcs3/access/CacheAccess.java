@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -81,6 +82,9 @@ public class CacheAccess<K, V>
      * If the object cannot be found in the cache, it will be retrieved by
      * calling the supplier and subsequently storing it in the cache.
      * <p>
+     * If several threads miss the same key at the same time, only one of them
+     * calls the supplier. The others wait for its result.
+     * <p>
      * @param name
      * @param supplier supplier to be called if the value is not found
      * @return Object.
@@ -88,15 +92,45 @@ public class CacheAccess<K, V>
     @Override
     public V get(final K name, final Supplier<V> supplier)
     {
-        V value = get(name);
+        if ( name == null )
+        {
+            throw new InvalidArgumentException( "Key must not be null" );
+        }
+
+        try
+        {
+            final ICacheElement<K, V> element = this.getCacheControl().getOrLoad( name, () -> {
+                final V value = supplier.get();
+
+                if ( value == null )
+                {
+                    throw new InvalidArgumentException( "Value must not be null" );
+                }
+
+                final CacheElement<K, V> ce = new CacheElement<>( this.getCacheControl().getCacheName(), name,
+                        value );
+                ce.setElementAttributes( this.getCacheControl().getElementAttributes() );
+                return ce;
+            });
 
-        if (value == null)
+            return element.getVal();
+        }
+        catch ( final IOException e )
         {
-            value = supplier.get();
-            put(name, value);
+            throw new CacheException( e );
         }
+    }
 
-        return value;
+    /**
+     * Registers the loader for refresh-ahead of the region.
+     * <p>
+     * @param loader returns the current value for a key, or null to let the element expire
+     * @see org.apache.commons.jcs3.access.behavior.ICacheAccess#setRefreshAheadLoader(Function)
+     */
+    @Override
+    public void setRefreshAheadLoader( final Function<K, V> loader )
+    {
+        this.getCacheControl().setRefreshAheadLoader( loader );
     }
 
     /**
@@ -0,0 +1,90 @@
+package org.apache.commons.jcs3.access.behavior;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
+
+/**
+ * IAsyncCacheAccess defines the non-blocking behavior for client access. Lookups that miss the
+ * memory cache continue in the auxiliary caches on a separate thread pool, so the caller is never
+ * parked for the round-trip to a remote server or a database.
+ * <p>
+ * Invalid arguments are reported by throwing immediately, failures of the cache by completing the
+ * future exceptionally.
+ */
+public interface IAsyncCacheAccess<K, V>
+    extends ICacheAccessManagement
+{
+    /**
+     * Basic get method.
+     * <p>
+     * @param name
+     * @return a future for the object, completed with null if not found.
+     */
+    CompletableFuture<V> getAsync(K name);
+
+    /**
+     * Get the element wrapper which provides access to element info and other attributes.
+     * <p>
+     * @param name
+     * @return a future for the element, completed with null if not found.
+     */
+    CompletableFuture<ICacheElement<K, V>> getCacheElementAsync(K name);
+
+    /**
+     * Get multiple objects from the cache based on a set of cache keys.
+     * <p>
+     * @param names set of cache keys
+     * @return a future for the map of key to value, containing only the keys that were found
+     */
+    CompletableFuture<Map<K, V>> getMultipleAsync(Set<K> names);
+
+    /**
+     * Puts and/or overrides an element with the name in that region.
+     * <p>
+     * @param name
+     * @param obj
+     * @return a future completed when the element has been put
+     */
+    CompletableFuture<Void> putAsync(K name, V obj);
+
+    /**
+     * Puts and/or overrides an element with the name in that region, using the given attributes.
+     * <p>
+     * @param name
+     * @param obj
+     * @param attr
+     * @return a future completed when the element has been put
+     */
+    CompletableFuture<Void> putAsync(K name, V obj, IElementAttributes attr);
+
+    /**
+     * Removes an item from the cache.
+     * <p>
+     * @param name
+     * @return a future for whether an item was removed
+     */
+    CompletableFuture<Boolean> removeAsync(K name);
+}
@@ -21,6 +21,7 @@ package org.apache.commons.jcs3.access.behavior;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.apache.commons.jcs3.access.exception.CacheException;
@@ -44,6 +45,7 @@ public interface ICacheAccess<K, V>
     /**
      * Basic get method. If the object cannot be found in the cache, it will be
      * retrieved by calling the supplier and subsequently storing it in the cache.
+     * Concurrent callers missing the same key share a single call of the supplier.
      * <p>
      * @param name
      * @param supplier supplier to be called if the value is not found
@@ -51,6 +53,16 @@ public interface ICacheAccess<K, V>
      */
     V get(K name, Supplier<V> supplier);
 
+    /**
+     * Registers the loader for refresh-ahead. Elements with a RefreshAheadPercent that are read
+     * after that part of their max life has passed are reloaded in the background, while the
+     * reader still gets the current value.
+     * <p>
+     * @param loader returns the current value for a key, or null to let the element expire. Null
+     *            turns refresh-ahead off.
+     */
+    void setRefreshAheadLoader(Function<K, V> loader);
+
     /**
      * Retrieve matching objects from the cache region this instance provides access to.
      * <p>
@@ -22,7 +22,9 @@ package org.apache.commons.jcs3.auxiliary.disk;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -32,6 +34,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.jcs3.auxiliary.AbstractAuxiliaryCacheEventLogging;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCache;
 import org.apache.commons.jcs3.auxiliary.disk.behavior.IDiskCacheAttributes;
+import org.apache.commons.jcs3.engine.AbstractCacheEventQueue;
 import org.apache.commons.jcs3.engine.CacheEventQueueFactory;
 import org.apache.commons.jcs3.engine.CacheInfo;
 import org.apache.commons.jcs3.engine.CacheStatus;
@@ -39,6 +42,8 @@ import org.apache.commons.jcs3.engine.behavior.ICache;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICacheEventQueue;
 import org.apache.commons.jcs3.engine.behavior.ICacheListener;
+import org.apache.commons.jcs3.engine.logging.behavior.ICacheEvent;
+import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
 import org.apache.commons.jcs3.engine.stats.StatElement;
 import org.apache.commons.jcs3.engine.stats.Stats;
 import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
@@ -121,6 +126,10 @@ public abstract class AbstractDiskCache<K, V>
                 new MyCacheListener(), CacheInfo.listenerId, cacheName,
                    diskCacheAttributes.getEventQueuePoolName(),
                    diskCacheAttributes.getEventQueueType() );
+        if ( cacheEventQueue instanceof AbstractCacheEventQueue )
+        {
+            ( (AbstractCacheEventQueue<K, V>) cacheEventQueue ).setMaxBatchSize( diskCacheAttributes.getEventQueueBatchSize() );
+        }
 
         // create purgatory
         initPurgatory();
@@ -284,6 +293,70 @@ public abstract class AbstractDiskCache<K, V>
         return null;
     }
 
+    /**
+     * Gets the items in purgatory and looks up the others on disk all at once, see
+     * {@link #processGetMultiple(Set)}.
+     * <p>
+     * @param keys
+     * @return a map of K key to ICacheElement&lt;K, V&gt; element, or an empty map if there is no
+     *         data in cache for any of these keys
+     * @see AuxiliaryCache#getMultiple
+     */
+    @Override
+    public Map<K, ICacheElement<K, V>> getMultiple( final Set<K> keys )
+    {
+        // If not alive, always return an empty map.
+        if (!alive.get())
+        {
+            log.debug( "getMultiple was called, but the disk cache is not alive." );
+            return new HashMap<>();
+        }
+
+        final Set<K> missing = new HashSet<>();
+        final Map<K, ICacheElement<K, V>> result = getMultipleFromPurgatory( keys, missing );
+
+        if ( !missing.isEmpty() )
+        {
+            try
+            {
+                result.putAll( doGetMultiple( missing ) );
+            }
+            catch (final IOException e)
+            {
+                log.error( e );
+                cacheEventQueue.destroy();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Looks the keys up in purgatory.
+     * <p>
+     * @param keys the keys
+     * @param missing gets the keys that are not in purgatory
+     * @return the elements found in purgatory
+     */
+    private Map<K, ICacheElement<K, V>> getMultipleFromPurgatory( final Set<K> keys, final Set<K> missing )
+    {
+        final Map<K, ICacheElement<K, V>> result = new HashMap<>();
+        for ( final K key : keys )
+        {
+            final PurgatoryElement<K, V> pe = purgatory.get( key );
+            if ( pe != null )
+            {
+                purgHits++;
+                result.put( key, pe.getCacheElement() );
+            }
+            else
+            {
+                missing.add( key );
+            }
+        }
+        return result;
+    }
+
     /**
      * Gets items from the cache matching the given pattern. Items from memory will replace those
      * from remote sources.
@@ -307,8 +380,8 @@ public abstract class AbstractDiskCache<K, V>
 
         final Set<K> matchingKeys = getKeyMatcher().getMatchingKeysFromArray(pattern, keyArray);
 
-        // call getMultiple with the set
-        final Map<K, ICacheElement<K, V>> result = processGetMultiple( matchingKeys );
+        // the keys that left purgatory in the meantime are found on disk
+        final Map<K, ICacheElement<K, V>> result = getMultipleFromPurgatory( matchingKeys, new HashSet<>() );
 
         // Get the keys from disk
         final Map<K, ICacheElement<K, V>> diskMatches = doGetMatching( pattern );
@@ -620,6 +693,69 @@ public abstract class AbstractDiskCache<K, V>
             }
         }
 
+        /**
+         * Writes the elements that are still spoolable in one call. An element that was removed
+         * while the batch was written is removed from the disk again, so it does not come back.
+         * <p>
+         * @param elements
+         * @throws IOException
+         * @see ICacheListener#handlePutBatch
+         */
+        @Override
+        public void handlePutBatch( final List<ICacheElement<K, V>> elements )
+            throws IOException
+        {
+            if (!alive.get())
+            {
+                elements.forEach( element -> purgatory.remove( element.getKey() ) );
+                return;
+            }
+
+            final List<ICacheElement<K, V>> spooled = new ArrayList<>( elements.size() );
+            removeAllLock.readLock().lock();
+            try
+            {
+                for ( final ICacheElement<K, V> element : elements )
+                {
+                    if ( element instanceof PurgatoryElement )
+                    {
+                        final PurgatoryElement<K, V> pe = (PurgatoryElement<K, V>) element;
+                        if ( purgatory.containsKey( pe.getKey() ) && pe.isSpoolable() )
+                        {
+                            spooled.add( pe.getCacheElement() );
+                        }
+                    }
+                    else
+                    {
+                        spooled.add( element );
+                    }
+                }
+
+                if ( !spooled.isEmpty() )
+                {
+                    doUpdateBatch( spooled );
+                }
+            }
+            finally
+            {
+                removeAllLock.readLock().unlock();
+            }
+
+            for ( final ICacheElement<K, V> element : elements )
+            {
+                if ( element instanceof PurgatoryElement )
+                {
+                    final PurgatoryElement<K, V> pe = (PurgatoryElement<K, V>) element;
+                    purgatory.remove( pe.getKey(), pe );
+                    if ( !pe.isSpoolable() )
+                    {
+                        // removed while we were writing
+                        doRemove( pe.getKey() );
+                    }
+                }
+            }
+        }
+
         /**
          * @param cacheName
          * @param key
@@ -692,6 +828,24 @@ public abstract class AbstractDiskCache<K, V>
         return super.getWithEventLogging( key );
     }
 
+    /**
+     * Get several values from the persistent store.
+     *
+     * Before the event logging layer, the subclasses implemented the do* methods. Now the do*
+     * methods call the *EventLogging method on the super. The *WithEventLogging methods call the
+     * abstract process* methods. The children implement the process methods.
+     *
+     * @param keys Keys to locate values for.
+     * @return A map of the elements found.
+     * @throws IOException
+     * @since 3.2
+     */
+    protected final Map<K, ICacheElement<K, V>> doGetMultiple( final Set<K> keys )
+        throws IOException
+    {
+        return super.getMultipleWithEventLogging( keys );
+    }
+
     /**
      * Get a value from the persistent store.
      *
@@ -725,6 +879,46 @@ public abstract class AbstractDiskCache<K, V>
         super.updateWithEventLogging( cacheElement );
     }
 
+    /**
+     * Add several cache elements to the persistent store in one call. Every element is logged as
+     * an update.
+     *
+     * @param cacheElements the elements, in the order they were queued
+     * @throws IOException
+     * @since 3.2
+     */
+    protected final void doUpdateBatch( final List<ICacheElement<K, V>> cacheElements )
+        throws IOException
+    {
+        final List<ICacheEvent<K>> cacheEvents = new ArrayList<>( cacheElements.size() );
+        cacheElements.forEach( element -> cacheEvents.add( createICacheEvent( element, ICacheEventLogger.UPDATE_EVENT ) ) );
+        try
+        {
+            processUpdateBatch( cacheElements );
+        }
+        finally
+        {
+            cacheEvents.forEach( this::logICacheEvent );
+        }
+    }
+
+    /**
+     * Implementation of a batch of puts. The default writes the elements one at a time, persistent
+     * stores that can write several elements at once should override this.
+     *
+     * @param cacheElements the elements, in the order they were queued
+     * @throws IOException
+     * @since 3.2
+     */
+    protected void processUpdateBatch( final List<ICacheElement<K, V>> cacheElements )
+        throws IOException
+    {
+        for ( final ICacheElement<K, V> cacheElement : cacheElements )
+        {
+            processUpdate( cacheElement );
+        }
+    }
+
     /**
      * Remove an object from the persistent store if found.
      *
@@ -58,6 +58,9 @@ public abstract class AbstractDiskCacheAttributes extends AbstractAuxiliaryCache
     /** Type of disk limit: SIZE or COUNT */
     private DiskLimitType diskLimitType = DiskLimitType.COUNT;
 
+    /** The maximum number of queued updates written in one call, 1 writes them one at a time */
+    private int eventQueueBatchSize = 1;
+
     /**
      * Sets the diskPath attribute of the DiskCacheAttributes object
      * <p>
@@ -195,6 +198,7 @@ public abstract class AbstractDiskCacheAttributes extends AbstractAuxiliaryCache
         str.append("\n maxPurgatorySize   = " + getMaxPurgatorySize());
         str.append("\n allowRemoveAll   = " + isAllowRemoveAll());
         str.append("\n ShutdownSpoolTimeLimit   = " + getShutdownSpoolTimeLimit());
+        str.append("\n eventQueueBatchSize   = " + getEventQueueBatchSize());
         return str.toString();
     }
 
@@ -218,4 +222,22 @@ public abstract class AbstractDiskCacheAttributes extends AbstractAuxiliaryCache
     {
         return diskLimitType;
     }
+
+    /**
+     * @param eventQueueBatchSize the eventQueueBatchSize to set
+     */
+    @Override
+    public void setEventQueueBatchSize(final int eventQueueBatchSize)
+    {
+        this.eventQueueBatchSize = eventQueueBatchSize;
+    }
+
+    /**
+     * @return the eventQueueBatchSize
+     */
+    @Override
+    public int getEventQueueBatchSize()
+    {
+        return eventQueueBatchSize;
+    }
 }
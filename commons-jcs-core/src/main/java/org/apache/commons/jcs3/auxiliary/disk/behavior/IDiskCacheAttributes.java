@@ -128,4 +128,19 @@ public interface IDiskCacheAttributes
      * @return active DiskLimitType
      */
     DiskLimitType getDiskLimitType();
+
+    /**
+     * The maximum number of queued updates written to the disk in one call. Batches are only
+     * collected by the COALESCING event queue.
+     * <p>
+     * @param eventQueueBatchSize the eventQueueBatchSize to set
+     * @since 3.2
+     */
+    void setEventQueueBatchSize( int eventQueueBatchSize );
+
+    /**
+     * @return the eventQueueBatchSize
+     * @since 3.2
+     */
+    int getEventQueueBatchSize();
 }
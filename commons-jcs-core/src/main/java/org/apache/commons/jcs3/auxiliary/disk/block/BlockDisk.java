@@ -189,12 +189,28 @@ public class BlockDisk implements AutoCloseable
         // allocate blocks
         final int[] blocks = allocateBlocks(numBlocksNeeded);
 
+        writeBlocks(data, blocks);
+
+        return blocks;
+    }
+
+    /**
+     * Writes the serialized data to the allocated blocks. Every block but the last one is filled
+     * completely.
+     * <p>
+     * @param data the serialized object
+     * @param blocks the blocks to write to
+     * @throws IOException
+     */
+    protected void writeBlocks(final byte[] data, final int[] blocks)
+        throws IOException
+    {
         int offset = 0;
         final int maxChunkSize = blockSizeBytes - HEADER_SIZE_BYTES;
         final ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_SIZE_BYTES);
         final ByteBuffer dataBuffer = ByteBuffer.wrap(data);
 
-        for (int i = 0; i < numBlocksNeeded; i++)
+        for (int i = 0; i < blocks.length; i++)
         {
             headerBuffer.clear();
             final int length = Math.min(maxChunkSize, data.length - offset);
@@ -217,8 +233,6 @@ public class BlockDisk implements AutoCloseable
         }
 
         //fc.force(false);
-
-        return blocks;
     }
 
     /**
@@ -268,6 +282,19 @@ public class BlockDisk implements AutoCloseable
      */
     protected <T> T read(final int[] blockNumbers)
         throws IOException, ClassNotFoundException
+    {
+        return elementSerializer.deSerialize(readBlocks(blockNumbers), null);
+    }
+
+    /**
+     * Reads the data stored in the specified blocks.
+     * <p>
+     * @param blockNumbers
+     * @return the serialized object, possibly followed by unused bytes
+     * @throws IOException
+     */
+    protected byte[] readBlocks(final int[] blockNumbers)
+        throws IOException
     {
         final ByteBuffer data;
 
@@ -290,7 +317,7 @@ public class BlockDisk implements AutoCloseable
 
         log.debug("read, total post combination data.length = {0}", () -> data.limit());
 
-        return elementSerializer.deSerialize(data.array(), null);
+        return data.array();
     }
 
     /**
@@ -399,6 +426,14 @@ public class BlockDisk implements AutoCloseable
         return dividend;
     }
 
+    /**
+     * @return the file channel for subclasses that do their own I/O
+     */
+    protected FileChannel getFileChannel()
+    {
+        return fc;
+    }
+
     /**
      * Returns the file length.
      * <p>
@@ -0,0 +1,531 @@
+package org.apache.commons.jcs3.auxiliary.disk.block;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+
+/**
+ * Reads and writes the compact binary format of the block disk key file.
+ * <p>
+ * The file starts with a signature and a version. The keys follow in segments, each record
+ * holding the key and its block list:
+ * <ul>
+ * <li>a type byte: String, Long and Integer keys are written directly, other keys are written
+ * in their serialized form</li>
+ * <li>the key: strings and serialized keys as a length and the bytes</li>
+ * <li>the number of blocks, the first block and the differences between the following blocks,
+ * all as variable length integers, so runs of consecutive blocks take one byte per block</li>
+ * </ul>
+ * The footer lists offset, length, number of keys and a CRC32 checksum of every segment, and the
+ * file ends with the offset of the footer and an end marker. Segments are checked and parsed in
+ * parallel from memory mapped regions of the file.
+ */
+public class BlockDiskBinaryKeyFile<K>
+{
+    /** The signature of binary key files, "jcsB" */
+    public static final int SIGNATURE = 0x6A637342;
+
+    /** The version of the format */
+    private static final int VERSION = 1;
+
+    /** Marks the end of the file, "jcsE" */
+    private static final int END_MARKER = 0x6A637345;
+
+    /** Size of the signature and version */
+    private static final int HEADER_SIZE_BYTES = 8;
+
+    /** Size of the footer offset and the end marker */
+    private static final int TRAILER_SIZE_BYTES = 12;
+
+    /** Size of a segment entry in the footer */
+    private static final int SEGMENT_ENTRY_SIZE_BYTES = 20;
+
+    /** Type of a String key */
+    private static final byte STRING_KEY = 0;
+
+    /** Type of a Long key */
+    private static final byte LONG_KEY = 1;
+
+    /** Type of an Integer key */
+    private static final byte INTEGER_KEY = 2;
+
+    /** Type of a serialized key */
+    private static final byte SERIALIZED_KEY = 3;
+
+    /** Maximum number of keys in a segment */
+    private static final int MAX_SEGMENT_KEYS = 65536;
+
+    /** A segment is closed once it reaches this size */
+    private static final int MAX_SEGMENT_SIZE_BYTES = 4 * 1024 * 1024;
+
+    /** Serializer for keys of other types */
+    private final IElementSerializer serializer;
+
+    /**
+     * @param serializer serializer for keys that are not strings or numbers
+     */
+    public BlockDiskBinaryKeyFile(final IElementSerializer serializer)
+    {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Writes the keys to an empty file.
+     * <p>
+     * @param fc the key file, opened for writing and truncated
+     * @param keys the keys and their blocks
+     * @throws IOException
+     */
+    public void write(final FileChannel fc, final Iterable<Map.Entry<K, int[]>> keys)
+        throws IOException
+    {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE_BYTES);
+        header.putInt(SIGNATURE).putInt(VERSION).flip();
+        writeFully(fc, header);
+
+        final ByteArrayOutputStream footer = new ByteArrayOutputStream();
+        final DataOutputStream footerOut = new DataOutputStream(footer);
+        final ByteArrayOutputStream segment = new ByteArrayOutputStream(64 * 1024);
+        final DataOutputStream out = new DataOutputStream(segment);
+        int segmentCount = 0;
+        int segmentKeys = 0;
+
+        for (final Map.Entry<K, int[]> entry : keys)
+        {
+            writeRecord(out, entry.getKey(), entry.getValue());
+            segmentKeys++;
+
+            if (segmentKeys == MAX_SEGMENT_KEYS || segment.size() >= MAX_SEGMENT_SIZE_BYTES)
+            {
+                writeSegment(fc, segment, segmentKeys, footerOut);
+                segmentCount++;
+                segmentKeys = 0;
+            }
+        }
+        if (segmentKeys > 0)
+        {
+            writeSegment(fc, segment, segmentKeys, footerOut);
+            segmentCount++;
+        }
+
+        final long footerOffset = fc.position();
+        final ByteBuffer count = ByteBuffer.allocate(4);
+        count.putInt(segmentCount).flip();
+        writeFully(fc, count);
+        writeFully(fc, ByteBuffer.wrap(footer.toByteArray()));
+
+        final ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE_BYTES);
+        trailer.putLong(footerOffset).putInt(END_MARKER).flip();
+        writeFully(fc, trailer);
+    }
+
+    /**
+     * Reads the keys from the file. The segments are checked and parsed in parallel, the keys
+     * are then passed to the consumer in the order they were written.
+     * <p>
+     * @param file the key file
+     * @param consumer receives the keys and their blocks
+     * @return the number of keys read
+     * @throws IOException if the file is damaged or can not be read
+     */
+    public int read(final File file, final BiConsumer<K, int[]> consumer)
+        throws IOException
+    {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+        try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            final long size = fc.size();
+            if (size < HEADER_SIZE_BYTES + 4 + TRAILER_SIZE_BYTES)
+            {
+                throw new IOException("Key file is truncated: " + file);
+            }
+
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE_BYTES);
+            readFully(fc, header, 0);
+            if (header.getInt() != SIGNATURE || header.getInt() != VERSION)
+            {
+                throw new IOException("Unsupported key file format: " + file);
+            }
+
+            final ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE_BYTES);
+            readFully(fc, trailer, size - TRAILER_SIZE_BYTES);
+            final long footerOffset = trailer.getLong();
+            if (trailer.getInt() != END_MARKER || footerOffset < HEADER_SIZE_BYTES
+                    || footerOffset > size - TRAILER_SIZE_BYTES - 4)
+            {
+                throw new IOException("Key file is truncated: " + file);
+            }
+
+            final ByteBuffer footer = ByteBuffer.allocate((int) (size - TRAILER_SIZE_BYTES - footerOffset));
+            readFully(fc, footer, footerOffset);
+            final int segmentCount = footer.getInt();
+            if (footer.remaining() != segmentCount * SEGMENT_ENTRY_SIZE_BYTES)
+            {
+                throw new IOException("Key file footer is damaged: " + file);
+            }
+
+            final long[] offsets = new long[segmentCount];
+            final int[] lengths = new int[segmentCount];
+            final int[] keyCounts = new int[segmentCount];
+            final int[] checksums = new int[segmentCount];
+            for (int i = 0; i < segmentCount; i++)
+            {
+                offsets[i] = footer.getLong();
+                lengths[i] = footer.getInt();
+                keyCounts[i] = footer.getInt();
+                checksums[i] = footer.getInt();
+                if (offsets[i] < HEADER_SIZE_BYTES || lengths[i] < 0 || offsets[i] + lengths[i] > footerOffset
+                        || keyCounts[i] < 0 || keyCounts[i] > lengths[i])
+                {
+                    throw new IOException("Key file footer is damaged: " + file);
+                }
+            }
+
+            final List<Segment<K>> segments;
+            try
+            {
+                segments = IntStream.range(0, segmentCount).parallel()
+                    .mapToObj(i -> readSegment(fc, offsets[i], lengths[i], keyCounts[i], checksums[i], loader))
+                    .collect(Collectors.toList());
+            }
+            catch (final UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+
+            int count = 0;
+            for (final Segment<K> segment : segments)
+            {
+                for (int i = 0; i < segment.keys.length; i++)
+                {
+                    consumer.accept(segment.keys[i], segment.blocks[i]);
+                }
+                count += segment.keys.length;
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * Maps, checks and parses one segment.
+     * <p>
+     * @param fc the file
+     * @param offset start of the segment
+     * @param length length of the segment
+     * @param keyCount number of keys in the segment
+     * @param checksum CRC32 of the segment
+     * @param loader class loader for serialized keys
+     * @return the parsed segment
+     */
+    private Segment<K> readSegment(final FileChannel fc, final long offset, final int length,
+            final int keyCount, final int checksum, final ClassLoader loader)
+    {
+        try
+        {
+            final MappedByteBuffer buffer = fc.map(MapMode.READ_ONLY, offset, length);
+
+            final CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != checksum)
+            {
+                throw new IOException("Checksum mismatch in key file segment at " + offset);
+            }
+
+            final Segment<K> segment = new Segment<>(keyCount);
+            for (int i = 0; i < keyCount; i++)
+            {
+                segment.keys[i] = readKey(buffer, loader);
+
+                final int[] blocks = new int[readVarInt(buffer)];
+                int block = 0;
+                for (int j = 0; j < blocks.length; j++)
+                {
+                    block = j == 0 ? readVarInt(buffer) : block + zigZagDecode(readVarInt(buffer));
+                    blocks[j] = block;
+                }
+                segment.blocks[i] = blocks;
+            }
+
+            if (buffer.hasRemaining())
+            {
+                throw new IOException("Unexpected data in key file segment at " + offset);
+            }
+
+            return segment;
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        catch (final ClassNotFoundException | RuntimeException e)
+        {
+            throw new UncheckedIOException(new IOException("Failed to read key file segment at " + offset, e));
+        }
+    }
+
+    /**
+     * @param out the segment
+     * @param key the key
+     * @param blocks the blocks of the key
+     * @throws IOException
+     */
+    private void writeRecord(final DataOutputStream out, final K key, final int[] blocks)
+        throws IOException
+    {
+        if (key instanceof String)
+        {
+            out.writeByte(STRING_KEY);
+            writeBytes(out, ((String) key).getBytes(StandardCharsets.UTF_8));
+        }
+        else if (key instanceof Long)
+        {
+            out.writeByte(LONG_KEY);
+            out.writeLong(((Long) key).longValue());
+        }
+        else if (key instanceof Integer)
+        {
+            out.writeByte(INTEGER_KEY);
+            out.writeInt(((Integer) key).intValue());
+        }
+        else
+        {
+            out.writeByte(SERIALIZED_KEY);
+            writeBytes(out, serializer.serialize(key));
+        }
+
+        writeVarInt(out, blocks.length);
+        for (int j = 0; j < blocks.length; j++)
+        {
+            writeVarInt(out, j == 0 ? blocks[0] : zigZagEncode(blocks[j] - blocks[j - 1]));
+        }
+    }
+
+    /**
+     * @param buffer the segment
+     * @param loader class loader for serialized keys
+     * @return the key
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @SuppressWarnings("unchecked")
+    private K readKey(final ByteBuffer buffer, final ClassLoader loader)
+        throws IOException, ClassNotFoundException
+    {
+        final byte type = buffer.get();
+        switch (type)
+        {
+            case STRING_KEY:
+                return (K) new String(readBytes(buffer), StandardCharsets.UTF_8);
+            case LONG_KEY:
+                return (K) Long.valueOf(buffer.getLong());
+            case INTEGER_KEY:
+                return (K) Integer.valueOf(buffer.getInt());
+            case SERIALIZED_KEY:
+                return serializer.deSerialize(readBytes(buffer), loader);
+            default:
+                throw new IOException("Unknown key type " + type);
+        }
+    }
+
+    /**
+     * Writes the segment, adds its entry to the footer and clears it.
+     * <p>
+     * @param fc the file
+     * @param segment the records
+     * @param keyCount the number of keys in the segment
+     * @param footer the footer
+     * @throws IOException
+     */
+    private static void writeSegment(final FileChannel fc, final ByteArrayOutputStream segment,
+            final int keyCount, final DataOutputStream footer)
+        throws IOException
+    {
+        final byte[] data = segment.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+
+        footer.writeLong(fc.position());
+        footer.writeInt(data.length);
+        footer.writeInt(keyCount);
+        footer.writeInt((int) crc.getValue());
+
+        writeFully(fc, ByteBuffer.wrap(data));
+        segment.reset();
+    }
+
+    /**
+     * @param out the stream
+     * @param bytes written with their length
+     * @throws IOException
+     */
+    private static void writeBytes(final DataOutputStream out, final byte[] bytes)
+        throws IOException
+    {
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @param buffer the buffer
+     * @return bytes written by writeBytes
+     */
+    private static byte[] readBytes(final ByteBuffer buffer)
+    {
+        final byte[] bytes = new byte[readVarInt(buffer)];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes a non-negative int in 7 bit groups, least significant first.
+     * <p>
+     * @param out the stream
+     * @param value the value
+     * @throws IOException
+     */
+    private static void writeVarInt(final DataOutputStream out, final int value)
+        throws IOException
+    {
+        int v = value;
+        while ((v & ~0x7F) != 0)
+        {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    /**
+     * @param buffer the buffer
+     * @return an int written by writeVarInt
+     */
+    private static int readVarInt(final ByteBuffer buffer)
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+            {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed variable length integer");
+    }
+
+    /**
+     * @param value a signed int
+     * @return the value with the sign in the lowest bit
+     */
+    private static int zigZagEncode(final int value)
+    {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * @param value a zig-zag encoded int
+     * @return the signed int
+     */
+    private static int zigZagDecode(final int value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @param fc the file
+     * @param buffer the data to write
+     * @throws IOException
+     */
+    private static void writeFully(final FileChannel fc, final ByteBuffer buffer)
+        throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            fc.write(buffer);
+        }
+    }
+
+    /**
+     * Fills the buffer from the position in the file and flips it.
+     * <p>
+     * @param fc the file
+     * @param buffer the buffer to fill
+     * @param position the position in the file
+     * @throws IOException
+     */
+    private static void readFully(final FileChannel fc, final ByteBuffer buffer, final long position)
+        throws IOException
+    {
+        long pos = position;
+        while (buffer.hasRemaining())
+        {
+            final int read = fc.read(buffer, pos);
+            if (read < 0)
+            {
+                throw new IOException("Unexpected end of key file");
+            }
+            pos += read;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * The keys and blocks of a segment.
+     */
+    private static class Segment<K>
+    {
+        /** The keys */
+        final K[] keys;
+
+        /** The blocks of the keys */
+        final int[][] blocks;
+
+        /**
+         * @param keyCount the number of keys
+         */
+        @SuppressWarnings("unchecked")
+        Segment(final int keyCount)
+        {
+            this.keys = (K[]) new Object[keyCount];
+            this.blocks = new int[keyCount][];
+        }
+    }
+}
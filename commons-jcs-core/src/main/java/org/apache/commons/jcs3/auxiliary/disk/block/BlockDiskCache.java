@@ -121,17 +121,7 @@ public class BlockDiskCache<K, V>
 
         try
         {
-            if ( this.blockDiskCacheAttributes.getBlockSizeBytes() > 0 )
-            {
-                this.dataFile = new BlockDisk( new File( rootDirectory, fileName + ".data" ),
-                                               this.blockDiskCacheAttributes.getBlockSizeBytes(),
-                                               getElementSerializer() );
-            }
-            else
-            {
-                this.dataFile = new BlockDisk( new File( rootDirectory, fileName + ".data" ),
-                                               getElementSerializer() );
-            }
+            this.dataFile = createBlockDisk( new File( rootDirectory, fileName + ".data" ) );
 
             keyStore = new BlockDiskKeyStore<>( this.blockDiskCacheAttributes, this );
 
@@ -153,6 +143,30 @@ public class BlockDiskCache<K, V>
         }
     }
 
+    /**
+     * Creates the data file as configured.
+     * <p>
+     * @param file the data file
+     * @return a BlockDisk or a DirectBufferBlockDisk
+     * @throws IOException
+     */
+    private BlockDisk createBlockDisk( final File file )
+        throws IOException
+    {
+        final int blockSizeBytes = this.blockDiskCacheAttributes.getBlockSizeBytes();
+
+        if ( this.blockDiskCacheAttributes.isUseDirectBuffers() )
+        {
+            return blockSizeBytes > 0
+                ? new DirectBufferBlockDisk( file, blockSizeBytes, getElementSerializer() )
+                : new DirectBufferBlockDisk( file, getElementSerializer() );
+        }
+
+        return blockSizeBytes > 0
+            ? new BlockDisk( file, blockSizeBytes, getElementSerializer() )
+            : new BlockDisk( file, getElementSerializer() );
+    }
+
     /**
      * @see org.apache.commons.jcs3.engine.behavior.IRequireScheduler#setScheduledExecutorService(java.util.concurrent.ScheduledExecutorService)
      */
@@ -47,6 +47,18 @@ public class BlockDiskCacheAttributes
     /** The keys will be persisted at this interval.  -1 mean never. */
     private long keyPersistenceIntervalSeconds = DEFAULT_KEY_PERSISTENCE_INTERVAL_SECONDS;
 
+    /** Should the data file be accessed through pooled direct buffers. */
+    private static final boolean DEFAULT_USE_DIRECT_BUFFERS = false;
+
+    /** Use a DirectBufferBlockDisk for the data file. */
+    private boolean useDirectBuffers = DEFAULT_USE_DIRECT_BUFFERS;
+
+    /** Should the keys be saved in the binary format. */
+    private static final boolean DEFAULT_USE_BINARY_KEY_FILE = false;
+
+    /** Save the keys in the compact binary format. */
+    private boolean useBinaryKeyFile = DEFAULT_USE_BINARY_KEY_FILE;
+
     /**
      * The size of the blocks. All blocks are the same size.
      * <p>
@@ -97,6 +109,44 @@ public class BlockDiskCacheAttributes
         return keyPersistenceIntervalSeconds;
     }
 
+    /**
+     * If true, the data file is read and written through pooled direct buffers, one call per run
+     * of consecutive blocks.
+     * <p>
+     * @param useDirectBuffers The useDirectBuffers to set.
+     */
+    public void setUseDirectBuffers( final boolean useDirectBuffers )
+    {
+        this.useDirectBuffers = useDirectBuffers;
+    }
+
+    /**
+     * @return Returns the useDirectBuffers.
+     */
+    public boolean isUseDirectBuffers()
+    {
+        return useDirectBuffers;
+    }
+
+    /**
+     * If true, the keys are saved in a compact binary format that is loaded in parallel. Key
+     * files in the serialized formats can still be read.
+     * <p>
+     * @param useBinaryKeyFile The useBinaryKeyFile to set.
+     */
+    public void setUseBinaryKeyFile( final boolean useBinaryKeyFile )
+    {
+        this.useBinaryKeyFile = useBinaryKeyFile;
+    }
+
+    /**
+     * @return Returns the useBinaryKeyFile.
+     */
+    public boolean isUseBinaryKeyFile()
+    {
+        return useBinaryKeyFile;
+    }
+
     /**
      * Write out the values for debugging purposes.
      * <p>
@@ -112,6 +162,8 @@ public class BlockDiskCacheAttributes
         str.append( "\n MaxPurgatorySize [" + this.getMaxPurgatorySize() + "]" );
         str.append( "\n BlockSizeBytes [" + this.getBlockSizeBytes() + "]" );
         str.append( "\n KeyPersistenceIntervalSeconds [" + this.getKeyPersistenceIntervalSeconds() + "]" );
+        str.append( "\n UseDirectBuffers [" + this.isUseDirectBuffers() + "]" );
+        str.append( "\n UseBinaryKeyFile [" + this.isUseBinaryKeyFile() + "]" );
         str.append( "\n DiskLimitType [" + this.getDiskLimitType() + "]" );
         return str.toString();
     }
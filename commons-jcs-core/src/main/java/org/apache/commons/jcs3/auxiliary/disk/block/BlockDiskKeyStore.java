@@ -21,11 +21,13 @@ import java.io.EOFException;
  * under the License.
  */
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
@@ -42,6 +44,7 @@ import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.io.ObjectInputStreamClassLoaderAware;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.serialization.FrameBuffer;
 import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 import org.apache.commons.jcs3.utils.struct.AbstractLRUMap;
 import org.apache.commons.jcs3.utils.struct.LRUMap;
@@ -227,6 +230,9 @@ public class BlockDiskKeyStore<K>
     /** The key file signature for new-style key files */
     private final static int KEY_FILE_SIGNATURE = 0x6A63734B; // "jcsK"
 
+    /** Number of key file bytes collected before they are written or read at once */
+    private static final int KEY_FILE_BUFFER_SIZE = 32 * 1024;
+
     /** The name to prefix log messages with. */
     protected final String logCacheName;
 
@@ -409,14 +415,23 @@ public class BlockDiskKeyStore<K>
                 signature.flip();
                 fileSignature = signature.getInt();
 
-                if (fileSignature == KEY_FILE_SIGNATURE)
+                if (fileSignature == BlockDiskBinaryKeyFile.SIGNATURE)
+                {
+                    loadBinaryKeys();
+                    return;
+                }
+                else if (fileSignature == KEY_FILE_SIGNATURE)
                 {
+                    // read ahead and reuse the frame memory instead of two reads
+                    // and an allocation per key
+                    final InputStream is = new BufferedInputStream(Channels.newInputStream(bc), KEY_FILE_BUFFER_SIZE);
+                    final FrameBuffer frame = new FrameBuffer();
                     while (true)
                     {
                         try
                         {
                             final BlockDiskElementDescriptor<K> descriptor =
-                                    serializer.deSerializeFrom(bc, null);
+                                    serializer.deSerializeFrom(frame.readFrom(is), null);
                             if (descriptor != null)
                             {
                                 keys.put(descriptor.getKey(), descriptor.getBlocks());
@@ -473,6 +488,31 @@ public class BlockDiskKeyStore<K>
         }
     }
 
+    /**
+     * Loads the keys from a key file in the binary format. Nothing is loaded if the file is
+     * damaged.
+     * (guarded by the key file)
+     */
+    private void loadBinaryKeys()
+    {
+        final ElapsedTimer timer = new ElapsedTimer();
+
+        try
+        {
+            // the keys are passed on only after the whole file has been checked
+            new BlockDiskBinaryKeyFile<K>(serializer).read(keyFile, keyHash::put);
+        }
+        catch (final IOException e)
+        {
+            log.error("{0}: Problem loading keys (binary) for file {1}", logCacheName, fileName, e);
+            return;
+        }
+
+        log.info("{0}: Loaded keys from [{1}] in {2}, key count: {3}; up to {4} will be available.",
+                () -> logCacheName, () -> fileName, timer::getElapsedTimeString, this::size,
+                () -> maxKeySize);
+    }
+
     /**
      * Puts a int[] in the keyStore.
      * <p>
@@ -531,19 +571,33 @@ public class BlockDiskKeyStore<K>
                     throw new IOException("Inconsistent key file");
                 }
 
-                // Write signature to distinguish old format from new one
-                ByteBuffer signature = ByteBuffer.allocate(4);
-                signature.putInt(KEY_FILE_SIGNATURE).flip();
-                bc.write(signature);
-
-                // don't need to synchronize, since the underlying
-                // collection makes a copy
-                for (final Map.Entry<K, int[]> entry : keyHash.entrySet())
+                if (blockDiskCacheAttributes.isUseBinaryKeyFile())
                 {
-                    final BlockDiskElementDescriptor<K> descriptor =
-                            new BlockDiskElementDescriptor<>(entry.getKey(),entry.getValue());
-                    // stream these out in the loop.
-                    serializer.serializeTo(descriptor, bc);
+                    new BlockDiskBinaryKeyFile<K>(serializer).write(bc, keyHash.entrySet());
+                }
+                else
+                {
+                    // Write signature to distinguish old format from new one
+                    ByteBuffer signature = ByteBuffer.allocate(4);
+                    signature.putInt(KEY_FILE_SIGNATURE).flip();
+                    bc.write(signature);
+
+                    // don't need to synchronize, since the underlying
+                    // collection makes a copy
+                    final FrameBuffer frames = new FrameBuffer(true);
+                    for (final Map.Entry<K, int[]> entry : keyHash.entrySet())
+                    {
+                        final BlockDiskElementDescriptor<K> descriptor =
+                                new BlockDiskElementDescriptor<>(entry.getKey(),entry.getValue());
+                        // collect these and write them in large chunks
+                        serializer.serializeTo(descriptor, frames);
+                        if (frames.size() >= KEY_FILE_BUFFER_SIZE)
+                        {
+                            frames.writeTo(bc);
+                            frames.reset();
+                        }
+                    }
+                    frames.writeTo(bc);
                 }
             }
             catch (final IOException e)
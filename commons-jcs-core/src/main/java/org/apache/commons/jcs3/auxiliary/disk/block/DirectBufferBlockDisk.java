@@ -0,0 +1,288 @@
+package org.apache.commons.jcs3.auxiliary.disk.block;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+
+/**
+ * A BlockDisk that does its I/O through pooled direct buffers.
+ * <p>
+ * The plain BlockDisk writes the header and the data of every block with two separate calls and
+ * allocates two heap buffers per block when reading. This one copies the header and data of a run
+ * of consecutive blocks into a direct buffer and transfers the whole run with a single positional
+ * call. Reads fetch a run of blocks the same way and copy the data into the result array directly.
+ * Since newly allocated blocks are consecutive, most elements take a single call each way.
+ * <p>
+ * The buffers are kept in a pool and reused. A buffer holds up to {@link #MAX_BUFFER_SIZE_BYTES},
+ * longer runs are split.
+ */
+public class DirectBufferBlockDisk
+    extends BlockDisk
+{
+    /** The logger */
+    private static final Log log = LogManager.getLog(DirectBufferBlockDisk.class);
+
+    /** Upper limit of the size of a pooled buffer, 64kb */
+    public static final int MAX_BUFFER_SIZE_BYTES = 64 * 1024;
+
+    /** Maximum number of idle buffers kept in the pool */
+    private static final int MAX_POOLED_BUFFERS = 2 * Runtime.getRuntime().availableProcessors();
+
+    /** Number of blocks per buffer */
+    private final int blocksPerBuffer;
+
+    /** Idle buffers */
+    private final ConcurrentLinkedQueue<ByteBuffer> bufferPool = new ConcurrentLinkedQueue<>();
+
+    /** Number of idle buffers */
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+    /**
+     * Constructor for the Disk object
+     * <p>
+     * @param file
+     * @param elementSerializer
+     * @throws IOException
+     */
+    public DirectBufferBlockDisk(final File file, final IElementSerializer elementSerializer)
+        throws IOException
+    {
+        super(file, elementSerializer);
+        this.blocksPerBuffer = Math.max(1, MAX_BUFFER_SIZE_BYTES / getBlockSizeBytes());
+    }
+
+    /**
+     * Creates the file and set the block size in bytes.
+     * <p>
+     * @param file
+     * @param blockSizeBytes
+     * @param elementSerializer
+     * @throws IOException
+     */
+    public DirectBufferBlockDisk(final File file, final int blockSizeBytes, final IElementSerializer elementSerializer)
+        throws IOException
+    {
+        super(file, blockSizeBytes, elementSerializer);
+        this.blocksPerBuffer = Math.max(1, MAX_BUFFER_SIZE_BYTES / getBlockSizeBytes());
+    }
+
+    /**
+     * Writes the data run by run. The blocks of a run are contiguous in the file since all but
+     * the last block of an element are full.
+     * <p>
+     * @param data the serialized object
+     * @param blocks the blocks to write to
+     * @throws IOException
+     */
+    @Override
+    protected void writeBlocks(final byte[] data, final int[] blocks)
+        throws IOException
+    {
+        final FileChannel fc = getFileChannel();
+        final int maxChunkSize = getBlockSizeBytes() - HEADER_SIZE_BYTES;
+        final ByteBuffer buffer = borrowBuffer();
+
+        try
+        {
+            int offset = 0;
+            int start = 0;
+            while (start < blocks.length)
+            {
+                final int end = endOfRun(blocks, start);
+
+                buffer.clear();
+                for (int i = start; i < end; i++)
+                {
+                    final int length = Math.min(maxChunkSize, data.length - offset);
+                    buffer.putInt(length);
+                    buffer.put(data, offset, length);
+                    offset += length;
+                }
+                buffer.flip();
+
+                long position = calculateByteOffsetForBlockAsLong(blocks[start]);
+                while (buffer.hasRemaining())
+                {
+                    position += fc.write(buffer, position);
+                }
+
+                start = end;
+            }
+        }
+        finally
+        {
+            returnBuffer(buffer);
+        }
+    }
+
+    /**
+     * Reads the data run by run and copies it into an array of the exact length.
+     * <p>
+     * @param blockNumbers
+     * @return the serialized object
+     * @throws IOException
+     */
+    @Override
+    protected byte[] readBlocks(final int[] blockNumbers)
+        throws IOException
+    {
+        final FileChannel fc = getFileChannel();
+        final int blockSize = getBlockSizeBytes();
+        final int maxChunkSize = blockSize - HEADER_SIZE_BYTES;
+        final ByteBuffer buffer = borrowBuffer();
+
+        try
+        {
+            byte[] data = null;
+            int offset = 0;
+            int start = 0;
+            while (start < blockNumbers.length)
+            {
+                final int end = endOfRun(blockNumbers, start);
+                final long runPosition = calculateByteOffsetForBlockAsLong(blockNumbers[start]);
+
+                buffer.clear();
+                buffer.limit((end - start) * blockSize);
+                long position = runPosition;
+                while (buffer.hasRemaining())
+                {
+                    final int read = fc.read(buffer, position);
+                    if (read < 0)
+                    {
+                        // the last block of the file is not padded
+                        break;
+                    }
+                    position += read;
+                }
+                final int available = buffer.position();
+
+                for (int i = start; i < end; i++)
+                {
+                    final int blockOffset = (i - start) * blockSize;
+                    final int datalen = blockOffset + HEADER_SIZE_BYTES <= available
+                            ? buffer.getInt(blockOffset) : -1;
+                    if (datalen < 0 || datalen > maxChunkSize
+                            || blockOffset + HEADER_SIZE_BYTES + datalen > available)
+                    {
+                        log.warn("\n The file is corrupt: \n Record {0} exceeds file length.",
+                                runPosition + blockOffset);
+                        throw new IOException("The File Is Corrupt, need to reset");
+                    }
+
+                    if (data == null)
+                    {
+                        // all but the last block are full
+                        data = new byte[blockNumbers.length == 1 ? datalen : blockNumbers.length * maxChunkSize];
+                    }
+
+                    final ByteBuffer chunk = buffer.duplicate();
+                    chunk.limit(blockOffset + HEADER_SIZE_BYTES + datalen);
+                    chunk.position(blockOffset + HEADER_SIZE_BYTES);
+                    chunk.get(data, offset, datalen);
+                    offset += datalen;
+                }
+
+                start = end;
+            }
+
+            final int length = offset;
+            log.debug("read, total post combination data.length = {0}", length);
+
+            return data.length == length ? data : Arrays.copyOf(data, length);
+        }
+        finally
+        {
+            returnBuffer(buffer);
+        }
+    }
+
+    /**
+     * Finds the end of a run of consecutive blocks that fits into a buffer.
+     * <p>
+     * @param blocks the block numbers
+     * @param start index of the first block of the run
+     * @return index after the last block of the run
+     */
+    private int endOfRun(final int[] blocks, final int start)
+    {
+        int end = start + 1;
+        while (end < blocks.length && end - start < blocksPerBuffer
+                && blocks[end] == blocks[end - 1] + 1)
+        {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @return an idle buffer from the pool or a new one
+     */
+    private ByteBuffer borrowBuffer()
+    {
+        final ByteBuffer buffer = bufferPool.poll();
+        if (buffer != null)
+        {
+            pooledBuffers.decrementAndGet();
+            return buffer;
+        }
+
+        return ByteBuffer.allocateDirect(blocksPerBuffer * getBlockSizeBytes());
+    }
+
+    /**
+     * Puts a buffer back into the pool unless the pool is full.
+     * <p>
+     * @param buffer the buffer
+     */
+    private void returnBuffer(final ByteBuffer buffer)
+    {
+        if (pooledBuffers.incrementAndGet() <= MAX_POOLED_BUFFERS)
+        {
+            bufferPool.offer(buffer);
+        }
+        else
+        {
+            pooledBuffers.decrementAndGet();
+        }
+    }
+
+    /**
+     * For debugging only.
+     * <p>
+     * @return String with details.
+     */
+    @Override
+    public String toString()
+    {
+        return super.toString()
+            + "\n  Direct Buffer Size [" + blocksPerBuffer * getBlockSizeBytes() + "]"
+            + "\n  Pooled Buffers [" + pooledBuffers.get() + "]";
+    }
+}
@@ -21,9 +21,17 @@ package org.apache.commons.jcs3.auxiliary.disk.indexed;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.log.Log;
@@ -41,12 +49,24 @@ public class IndexedDisk implements AutoCloseable
     /** The logger */
     private static final Log log = LogManager.getLog(IndexedDisk.class);
 
+    /** Releases a mapped region right away, null if the JVM does not allow it. */
+    private static final Consumer<MappedByteBuffer> UNMAPPER = createUnmapper();
+
     /** The path to the log directory. */
     private final String filepath;
 
     /** The data file. */
     private final FileChannel fc;
 
+    /** Size of the mapped regions of the file, 0 if reads are not memory mapped. */
+    private final int mapRegionSize;
+
+    /** The mapped regions by index. Only regions that lie completely within the file are mapped. */
+    private final ConcurrentMap<Integer, MappedByteBuffer> mappedRegions = new ConcurrentHashMap<>();
+
+    /** Held to read from the mapped regions, and exclusively to unmap them. */
+    private final ReentrantReadWriteLock mapLock = new ReentrantReadWriteLock();
+
     /**
      * Constructor for the Disk object
      * <p>
@@ -56,9 +76,38 @@ public class IndexedDisk implements AutoCloseable
      */
     public IndexedDisk(final File file, final IElementSerializer elementSerializer)
         throws IOException
+    {
+        this(file, elementSerializer, 0);
+    }
+
+    /**
+     * Constructor for the Disk object
+     * <p>
+     * If the region size is greater than 0, records are read from read-only memory mapped regions
+     * of the file instead of through the channel. Writes always go through the channel; they are
+     * visible in the mapped regions since both share the page cache. The regions are unmapped
+     * before the file is truncated, so reads are not memory mapped if the JVM does not allow
+     * unmapping them.
+     * <p>
+     * @param file
+     * @param elementSerializer
+     * @param mapRegionSize size of the mapped regions in bytes, 0 to read through the channel
+     * @throws IOException
+     */
+    public IndexedDisk(final File file, final IElementSerializer elementSerializer, final int mapRegionSize)
+        throws IOException
     {
         this.filepath = file.getAbsolutePath();
         this.elementSerializer = elementSerializer;
+        if (mapRegionSize > 0 && UNMAPPER == null)
+        {
+            log.warn("Mapped regions cannot be released, reading [{0}] through the file channel", filepath);
+            this.mapRegionSize = 0;
+        }
+        else
+        {
+            this.mapRegionSize = Math.max(0, mapRegionSize);
+        }
         this.fc = FileChannel.open(file.toPath(),
                 StandardOpenOption.CREATE,
                 StandardOpenOption.READ,
@@ -89,10 +138,7 @@ public class IndexedDisk implements AutoCloseable
         }
         else
         {
-            final ByteBuffer datalength = ByteBuffer.allocate(HEADER_SIZE_BYTES);
-            fc.read(datalength, ded.pos);
-            datalength.flip();
-            final int datalen = datalength.getInt();
+            final int datalen = readHeader(ded.pos);
             if (ded.len != datalen)
             {
                 corrupted = true;
@@ -111,6 +157,12 @@ public class IndexedDisk implements AutoCloseable
             throw new IOException("The File Is Corrupt, need to reset");
         }
 
+        final byte[] mapped = readMapped(ded.pos + HEADER_SIZE_BYTES, ded.len);
+        if (mapped != null)
+        {
+            return elementSerializer.deSerialize(mapped, null);
+        }
+
         final ByteBuffer data = ByteBuffer.allocate(ded.len);
         fc.read(data, ded.pos + HEADER_SIZE_BYTES);
         data.flip();
@@ -118,6 +170,205 @@ public class IndexedDisk implements AutoCloseable
         return elementSerializer.deSerialize(data.array(), null);
     }
 
+    /**
+     * Reads the length header of a record.
+     * <p>
+     * @param pos the position of the record
+     * @return the length of the data stored in the record
+     * @throws IOException
+     */
+    private int readHeader(final long pos)
+        throws IOException
+    {
+        final byte[] mapped = readMapped(pos, HEADER_SIZE_BYTES);
+        if (mapped != null)
+        {
+            return ByteBuffer.wrap(mapped).getInt();
+        }
+
+        final ByteBuffer datalength = ByteBuffer.allocate(HEADER_SIZE_BYTES);
+        fc.read(datalength, pos);
+        datalength.flip();
+        return datalength.getInt();
+    }
+
+    /**
+     * Copies a part of the file from the mapped regions.
+     * <p>
+     * @param pos the position in the file
+     * @param length the length of the part
+     * @return the bytes, or null if the part is not mapped
+     * @throws IOException
+     */
+    private byte[] readMapped(final long pos, final int length)
+        throws IOException
+    {
+        if (mapRegionSize == 0)
+        {
+            return null;
+        }
+
+        mapLock.readLock().lock();
+        try
+        {
+            final ByteBuffer mapped = mappedSlice(pos, length);
+            if (mapped == null)
+            {
+                return null;
+            }
+
+            final byte[] data = new byte[length];
+            mapped.get(data);
+            return data;
+        }
+        finally
+        {
+            mapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a view of a part of the file from the mapped regions. Only regions that lie
+     * completely within the file are mapped, once. Parts in the growing tail of the file, and
+     * parts that cross the border of two regions, are read through the channel instead.
+     * <p>
+     * The view is valid as long as the read lock is held.
+     * <p>
+     * @param pos the position in the file
+     * @param length the length of the part
+     * @return a buffer positioned at the part and limited to its length, or null if the part is
+     *         not mapped
+     * @throws IOException
+     */
+    private ByteBuffer mappedSlice(final long pos, final int length)
+        throws IOException
+    {
+        if (mapRegionSize == 0)
+        {
+            return null;
+        }
+
+        final long regionStart = pos - pos % mapRegionSize;
+        final int offset = (int) (pos - regionStart);
+        if (offset + (long) length > mapRegionSize)
+        {
+            return null;
+        }
+
+        final Integer index = Integer.valueOf((int) (pos / mapRegionSize));
+        MappedByteBuffer region = mappedRegions.get(index);
+        if (region == null)
+        {
+            if (regionStart + mapRegionSize > fc.size())
+            {
+                return null;
+            }
+
+            region = mappedRegions.computeIfAbsent(index, key -> {
+                try
+                {
+                    log.debug("Mapping region {0} of [{1}]", key, filepath);
+                    return fc.map(MapMode.READ_ONLY, regionStart, mapRegionSize);
+                }
+                catch (final IOException e)
+                {
+                    log.warn("Failed to map region {0} of [{1}]", key, filepath, e);
+                    return null;
+                }
+            });
+
+            if (region == null)
+            {
+                return null;
+            }
+        }
+
+        final ByteBuffer slice = region.duplicate();
+        slice.position(offset);
+        slice.limit(offset + length);
+        return slice;
+    }
+
+    /**
+     * Unmaps all regions. Called with the write lock held before the file shrinks, since a mapped
+     * region past the end of the file cannot be read, and on some platforms keeps the file from
+     * being truncated.
+     */
+    private void unmapRegions()
+    {
+        mappedRegions.values().forEach(UNMAPPER);
+        mappedRegions.clear();
+    }
+
+    /**
+     * @return the number of mapped regions
+     */
+    protected int getMappedRegionCount()
+    {
+        return mappedRegions.size();
+    }
+
+    /**
+     * Looks up how mapped regions can be released. Java 9 and later offer
+     * sun.misc.Unsafe.invokeCleaner, Java 8 the cleaner of the direct buffer.
+     * <p>
+     * @return the unmapper, or null if the JVM does not allow unmapping
+     */
+    private static Consumer<MappedByteBuffer> createUnmapper()
+    {
+        try
+        {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            final Object unsafe = theUnsafe.get(null);
+            return buffer -> invoke(invokeCleaner, unsafe, buffer);
+        }
+        catch (final ReflectiveOperationException | RuntimeException e)
+        {
+            log.debug("sun.misc.Unsafe.invokeCleaner is not available", e);
+        }
+
+        try
+        {
+            final Class<?> directBuffer = Class.forName("sun.nio.ch.DirectBuffer");
+            final Method cleaner = directBuffer.getMethod("cleaner");
+            final Method clean = cleaner.getReturnType().getMethod("clean");
+            return buffer -> {
+                final Object bufferCleaner = invoke(cleaner, buffer);
+                if (bufferCleaner != null)
+                {
+                    invoke(clean, bufferCleaner);
+                }
+            };
+        }
+        catch (final ReflectiveOperationException | RuntimeException e)
+        {
+            log.debug("The cleaner of direct buffers is not available", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * @param method the method
+     * @param target the target object
+     * @param args the arguments
+     * @return the result
+     */
+    private static Object invoke(final Method method, final Object target, final Object... args)
+    {
+        try
+        {
+            return method.invoke(target, args);
+        }
+        catch (final ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Failed to unmap a region", e);
+        }
+    }
+
     /**
      * Moves the data stored from one position to another. The descriptor's position is updated.
      * <p>
@@ -128,10 +379,7 @@ public class IndexedDisk implements AutoCloseable
     protected void move(final IndexedDiskElementDescriptor ded, final long newPosition)
         throws IOException
     {
-        final ByteBuffer datalength = ByteBuffer.allocate(HEADER_SIZE_BYTES);
-        fc.read(datalength, ded.pos);
-        datalength.flip();
-        final int length = datalength.getInt();
+        final int length = readHeader(ded.pos);
 
         if (length != ded.len)
         {
@@ -145,6 +393,31 @@ public class IndexedDisk implements AutoCloseable
 
         // header len + data len
         int remaining = HEADER_SIZE_BYTES + length;
+
+        // Write straight from the mapped region if source and target do not overlap
+        if (mapRegionSize > 0 && (newPosition + remaining <= ded.pos || ded.pos + remaining <= newPosition))
+        {
+            mapLock.readLock().lock();
+            try
+            {
+                final ByteBuffer mapped = mappedSlice(readPos, remaining);
+                if (mapped != null)
+                {
+                    while (mapped.hasRemaining())
+                    {
+                        writePos += fc.write(mapped, writePos);
+                    }
+
+                    ded.pos = newPosition;
+                    return;
+                }
+            }
+            finally
+            {
+                mapLock.readLock().unlock();
+            }
+        }
+
         final ByteBuffer buffer = ByteBuffer.allocate(16384);
 
         while (remaining > 0)
@@ -238,7 +511,16 @@ public class IndexedDisk implements AutoCloseable
     public void close()
         throws IOException
     {
-        fc.close();
+        mapLock.writeLock().lock();
+        try
+        {
+            unmapRegions();
+            fc.close();
+        }
+        finally
+        {
+            mapLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -250,7 +532,16 @@ public class IndexedDisk implements AutoCloseable
         throws IOException
     {
         log.debug("Resetting Indexed File [{0}]", filepath);
-        fc.truncate(0);
+        mapLock.writeLock().lock();
+        try
+        {
+            unmapRegions();
+            fc.truncate(0);
+        }
+        finally
+        {
+            mapLock.writeLock().unlock();
+        }
         fc.force(true);
     }
 
@@ -264,7 +555,16 @@ public class IndexedDisk implements AutoCloseable
         throws IOException
     {
         log.info("Truncating file [{0}] to {1}", filepath, length);
-        fc.truncate(length);
+        mapLock.writeLock().lock();
+        try
+        {
+            unmapRegions();
+            fc.truncate(length);
+        }
+        finally
+        {
+            mapLock.writeLock().unlock();
+        }
     }
 
     /**
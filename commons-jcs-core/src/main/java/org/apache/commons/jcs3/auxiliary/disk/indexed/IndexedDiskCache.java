@@ -78,6 +78,12 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
     /** The IndexedDisk manages reads and writes to the key file. */
     private IndexedDisk keyFile;
 
+    /** The journal of the changes to the keys, null if the keys are saved on shutdown only. */
+    private IndexedDiskKeyJournal<K> keyJournal;
+
+    /** The file of the key journal. */
+    private File keyJournalFile;
+
     /** Map containing the keys and disk offsets. */
     private final Map<K, IndexedDiskElementDescriptor> keyHash;
 
@@ -223,8 +229,10 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
      */
     private void initializeKeysAndData(final IndexedDiskCacheAttributes cattr) throws IOException
     {
-        this.dataFile = new IndexedDisk(new File(rafDir, fileName + ".data"), getElementSerializer());
+        this.dataFile = new IndexedDisk(new File(rafDir, fileName + ".data"), getElementSerializer(),
+                getMapRegionSize());
         this.keyFile = new IndexedDisk(new File(rafDir, fileName + ".key"), getElementSerializer());
+        this.keyJournalFile = new File(rafDir, fileName + ".keylog");
 
         if (cattr.isClearDiskOnStartup())
         {
@@ -232,7 +240,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
                     logCacheName);
             initializeEmptyStore();
         }
-        else if (!keyFile.isEmpty())
+        else if (!keyFile.isEmpty() || keyJournalFile.length() > 0)
         {
             // If the key file has contents, try to initialize the keys
             // from it. In no keys are loaded reset the data file.
@@ -244,6 +252,41 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
             // the data file if it has contents.
             initializeEmptyStore();
         }
+
+        initializeKeyJournal(cattr);
+    }
+
+    /**
+     * Opens the key journal if it is enabled. The journal then starts with a snapshot of the keys
+     * loaded on startup if they did not come from the journal, and the key file is emptied. If the
+     * journal is disabled, an old journal is deleted; the keys are saved to the key file on
+     * shutdown again.
+     * <p>
+     *
+     * @param cattr
+     * @throws IOException
+     */
+    private void initializeKeyJournal(final IndexedDiskCacheAttributes cattr) throws IOException
+    {
+        if (cattr.isUseKeyJournal())
+        {
+            keyJournal = new IndexedDiskKeyJournal<>(keyJournalFile, getElementSerializer(),
+                    cattr.getKeyJournalCompactionFactor());
+
+            if (!keyFile.isEmpty() || keyHash.isEmpty() || keyJournal.isCompactionNeeded(keyHash.size()))
+            {
+                keyJournal.compact(keyHash);
+                keyFile.reset();
+            }
+        }
+        else if (keyJournalFile.exists())
+        {
+            if (!keyHash.isEmpty())
+            {
+                saveKeys();
+            }
+            Files.delete(keyJournalFile.toPath());
+        }
     }
 
     /**
@@ -312,8 +355,25 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
             // clear a key map to use.
             keyHash.clear();
 
-            final HashMap<K, IndexedDiskElementDescriptor> keys = keyFile.readObject(
-                new IndexedDiskElementDescriptor(0, (int) keyFile.length() - IndexedDisk.HEADER_SIZE_BYTES));
+            final Map<K, IndexedDiskElementDescriptor> keys;
+            if (keyJournal != null)
+            {
+                keys = keyJournal.replay();
+            }
+            else if (keyJournalFile != null && keyJournalFile.length() > 0)
+            {
+                // the journal is newer than the key file
+                try (IndexedDiskKeyJournal<K> journal = new IndexedDiskKeyJournal<>(keyJournalFile,
+                        getElementSerializer(), cattr.getKeyJournalCompactionFactor()))
+                {
+                    keys = journal.replay();
+                }
+            }
+            else
+            {
+                keys = keyFile.readObject(
+                    new IndexedDiskElementDescriptor(0, (int) keyFile.length() - IndexedDisk.HEADER_SIZE_BYTES));
+            }
 
             if (keys != null)
             {
@@ -420,9 +480,24 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
 
     /**
      * Saves key file to disk. This converts the LRUMap to a HashMap for deserialization.
+     * <p>
+     * If the key journal is used, the keys are persisted already. It is only forced to disk.
      */
     protected void saveKeys()
     {
+        if (keyJournal != null)
+        {
+            try
+            {
+                keyJournal.sync();
+            }
+            catch (final IOException e)
+            {
+                log.error("{0}: Problem syncing key journal.", logCacheName, e);
+            }
+            return;
+        }
+
         try
         {
             log.info("{0}: Saving keys to: {1}, key count: {2}",
@@ -527,12 +602,19 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
                 }
 
                 dataFile.write(ded, data);
+
+                if (keyJournal != null)
+                {
+                    keyJournal.logPut(ce.getKey(), ded);
+                }
             }
             finally
             {
                 storageLock.writeLock().unlock();
             }
 
+            compactKeyJournalIfNeeded();
+
             log.debug("{0}: Put to file: {1}, key: {2}, position: {3}, size: {4}",
                     logCacheName, fileName, ce.getKey(), ded.pos, ded.len);
         }
@@ -735,6 +817,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         // there is no reason to call this if an item was not removed.
         if (removed)
         {
+            compactKeyJournalIfNeeded();
             doOptimizeRealTime();
         }
 
@@ -835,6 +918,11 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         removed = ded != null;
         addToRecycleBin(ded);
 
+        if (removed)
+        {
+            logKeyRemoval(key);
+        }
+
         log.debug("{0}: Disk removal: Removed from key hash, key [{1}] removed = {2}",
                 logCacheName, key, removed);
         return removed;
@@ -886,9 +974,14 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
             final File keyFileTemp = new File(rafDir, fileName + ".key");
             Files.delete(keyFileTemp.toPath());
 
-            dataFile = new IndexedDisk(dataFileTemp, getElementSerializer());
+            dataFile = new IndexedDisk(dataFileTemp, getElementSerializer(), getMapRegionSize());
             keyFile = new IndexedDisk(keyFileTemp, getElementSerializer());
 
+            if (keyJournal != null)
+            {
+                keyJournal.clear();
+            }
+
             this.recycle.clear();
             this.keyHash.clear();
         }
@@ -1012,6 +1105,11 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
             dataFile = null;
             keyFile.close();
             keyFile = null;
+            if (keyJournal != null)
+            {
+                keyJournal.close();
+                keyJournal = null;
+            }
         }
         catch (final IOException e)
         {
@@ -1022,6 +1120,65 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         log.info("{0}: Shutdown complete.", logCacheName);
     }
 
+    /**
+     * Appends the removal of a key to the key journal, if it is used.
+     * <p>
+     * This operates under the write lock.
+     * <p>
+     *
+     * @param key
+     */
+    private void logKeyRemoval(final K key)
+    {
+        if (keyJournal != null)
+        {
+            try
+            {
+                keyJournal.logRemove(key);
+            }
+            catch (final IOException e)
+            {
+                log.error("{0}: Failure logging removal of key {1}", logCacheName, key, e);
+            }
+        }
+    }
+
+    /**
+     * Compacts the key journal if its records outnumber the keys by more than the configured
+     * factor.
+     */
+    private void compactKeyJournalIfNeeded()
+    {
+        final IndexedDiskKeyJournal<K> journal = keyJournal;
+        if (journal != null && !isOptimizing && journal.isCompactionNeeded(keyHash.size()))
+        {
+            compactKeyJournal();
+        }
+    }
+
+    /**
+     * Replaces the key journal with a snapshot of the current keys.
+     */
+    private void compactKeyJournal()
+    {
+        storageLock.writeLock().lock();
+        try
+        {
+            if (keyJournal != null)
+            {
+                keyJournal.compact(keyHash);
+            }
+        }
+        catch (final IOException e)
+        {
+            log.error("{0}: Failure compacting key journal", logCacheName, e);
+        }
+        finally
+        {
+            storageLock.writeLock().unlock();
+        }
+    }
+
     /**
      * Add descriptor to recycle bin if it is not null. Adds the length of the item to the bytes
      * free.
@@ -1166,6 +1323,9 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
                 log.error("{0}: Error optimizing queued puts.", logCacheName, e);
             }
 
+            // the elements have moved
+            compactKeyJournal();
+
             // RESTORE NORMAL OPERATION
             removeCount = 0;
             resetBytesFree();
@@ -1438,6 +1598,11 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         elems.add(new StatElement<>("Recycle Count", Integer.valueOf(this.recycleCnt)));
         elems.add(new StatElement<>("Recycle Bin Size", Integer.valueOf(this.recycle.size())));
         elems.add(new StatElement<>("Startup Size", Integer.valueOf(this.startupSize)));
+        final IndexedDiskKeyJournal<K> journal = this.keyJournal;
+        if (journal != null)
+        {
+            elems.add(new StatElement<>("Key Journal Records", Long.valueOf(journal.getRecordCount())));
+        }
 
         // get the stats from the super too
         final IStats sStats = super.getStatistics();
@@ -1471,6 +1636,14 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         return dataFile.getFilePath();
     }
 
+    /**
+     * @return the size of the mapped regions of the data file, 0 if it is not memory mapped
+     */
+    private int getMapRegionSize()
+    {
+        return cattr.isMemoryMapped() ? cattr.getMemoryMapRegionSize() : 0;
+    }
+
     /**
      * Compares IndexedDiskElementDescriptor based on their position.
      * <p>
@@ -1600,6 +1773,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
             }
 
             addToRecycleBin(value);
+            logKeyRemoval(key);
 
             log.debug("{0}: Removing key: [{1}] from key store.", logCacheName, key);
             log.debug("{0}: Key store size: [{1}].", logCacheName, this.size());
@@ -1639,6 +1813,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         protected void processRemovedLRU(final K key, final IndexedDiskElementDescriptor value)
         {
             addToRecycleBin(value);
+            logKeyRemoval(key);
             log.debug("{0}: Removing key: [{1}] from key store.", logCacheName, key);
             log.debug("{0}: Key store size: [{1}].", logCacheName, this.size());
 
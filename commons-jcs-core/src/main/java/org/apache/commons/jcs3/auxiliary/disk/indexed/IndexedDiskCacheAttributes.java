@@ -51,6 +51,30 @@ public class IndexedDiskCacheAttributes
     /** Should we clear the disk on startup. If true the contents of disk are cleared. */
     private boolean clearDiskOnStartup = DEFAULT_CLEAR_DISK_ON_STARTUP;
 
+    /** Should reads of the data file be memory mapped. */
+    public static final boolean DEFAULT_MEMORY_MAPPED = false;
+
+    /** Should reads of the data file be memory mapped. */
+    private boolean memoryMapped = DEFAULT_MEMORY_MAPPED;
+
+    /** Default size of the mapped regions of the data file, 64 MB. */
+    public static final int DEFAULT_MEMORY_MAP_REGION_SIZE = 64 * 1024 * 1024;
+
+    /** Size of the mapped regions of the data file in bytes. */
+    private int memoryMapRegionSize = DEFAULT_MEMORY_MAP_REGION_SIZE;
+
+    /** Should changes to the keys be appended to a journal. */
+    public static final boolean DEFAULT_USE_KEY_JOURNAL = false;
+
+    /** Should changes to the keys be appended to a journal. */
+    private boolean useKeyJournal = DEFAULT_USE_KEY_JOURNAL;
+
+    /** Default factor by which the journal records may outnumber the keys. */
+    public static final int DEFAULT_KEY_JOURNAL_COMPACTION_FACTOR = 2;
+
+    /** The journal is compacted when its records outnumber the keys by this factor. */
+    private int keyJournalCompactionFactor = DEFAULT_KEY_JOURNAL_COMPACTION_FACTOR;
+
     /**
      * Constructor for the DiskCacheAttributes object
      */
@@ -131,6 +155,83 @@ public class IndexedDiskCacheAttributes
         return clearDiskOnStartup;
     }
 
+    /**
+     * If true, records are read from memory mapped regions of the data file instead of through
+     * the file channel. This saves a system call and a buffer per read for read-mostly caches.
+     * Writes still go through the channel.
+     * <p>
+     * @param memoryMapped the memoryMapped to set
+     */
+    public void setMemoryMapped( final boolean memoryMapped )
+    {
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * @return the memoryMapped
+     */
+    public boolean isMemoryMapped()
+    {
+        return memoryMapped;
+    }
+
+    /**
+     * The data file is mapped in regions of this size. Records that cross the border of two
+     * regions are read through the file channel.
+     * <p>
+     * @param memoryMapRegionSize the region size in bytes
+     */
+    public void setMemoryMapRegionSize( final int memoryMapRegionSize )
+    {
+        this.memoryMapRegionSize = memoryMapRegionSize;
+    }
+
+    /**
+     * @return the region size in bytes
+     */
+    public int getMemoryMapRegionSize()
+    {
+        return memoryMapRegionSize;
+    }
+
+    /**
+     * If true, every put and remove of a key is appended to a journal file as it happens, instead
+     * of writing all keys to the key file on shutdown. The journal is replayed on startup.
+     * <p>
+     * @param useKeyJournal the useKeyJournal to set
+     */
+    public void setUseKeyJournal( final boolean useKeyJournal )
+    {
+        this.useKeyJournal = useKeyJournal;
+    }
+
+    /**
+     * @return the useKeyJournal
+     */
+    public boolean isUseKeyJournal()
+    {
+        return useKeyJournal;
+    }
+
+    /**
+     * The key journal is compacted to a snapshot of the keys when its records outnumber the keys
+     * by this factor.
+     * <p>
+     * @param keyJournalCompactionFactor the keyJournalCompactionFactor to set
+     */
+    public void setKeyJournalCompactionFactor( final int keyJournalCompactionFactor )
+    {
+        this.keyJournalCompactionFactor = keyJournalCompactionFactor;
+    }
+
+    /**
+     * @return the keyJournalCompactionFactor
+     */
+    public int getKeyJournalCompactionFactor()
+    {
+        return keyJournalCompactionFactor;
+    }
+
     /**
      * Write out the values for debugging purposes.
      * <p>
@@ -148,6 +249,10 @@ public class IndexedDiskCacheAttributes
         str.append( "\n shutdownSpoolTimeLimit  = " + super.getShutdownSpoolTimeLimit() );
         str.append( "\n optimizeOnShutdown  = " + optimizeOnShutdown );
         str.append( "\n clearDiskOnStartup  = " + clearDiskOnStartup );
+        str.append( "\n memoryMapped  = " + memoryMapped );
+        str.append( "\n memoryMapRegionSize  = " + memoryMapRegionSize );
+        str.append( "\n useKeyJournal  = " + useKeyJournal );
+        str.append( "\n keyJournalCompactionFactor  = " + keyJournalCompactionFactor );
         return str.toString();
     }
 }
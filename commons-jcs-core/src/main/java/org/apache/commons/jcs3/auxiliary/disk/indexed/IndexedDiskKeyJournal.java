@@ -0,0 +1,455 @@
+package org.apache.commons.jcs3.auxiliary.disk.indexed;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+
+/**
+ * An append-only log of the changes to the keys of an indexed disk cache.
+ * <p>
+ * Every put and remove of a key is appended to the file as a record, so the cost of persisting
+ * the keys is proportional to the number of changes instead of the number of keys, and a crash
+ * only loses the records that had not been written yet. On startup the log is replayed. When it
+ * has grown too large compared to the number of live keys, it is compacted by writing a snapshot
+ * of the keys to a new file that replaces the log.
+ * <p>
+ * The file starts with a magic number. Each record consists of the length of its payload, a
+ * CRC32 of the payload and the payload: a type byte, for puts the position and length of the
+ * element in the data file, and the serialized key. A truncated or damaged record ends the replay
+ * and is cut off.
+ */
+public class IndexedDiskKeyJournal<K> implements AutoCloseable
+{
+    /** The logger */
+    private static final Log log = LogManager.getLog(IndexedDiskKeyJournal.class);
+
+    /** Identifies the file format, "JCSKJ" and version 1 */
+    private static final long MAGIC = 0x4A43534B4A000001L;
+
+    /** Size of the magic number */
+    private static final int FILE_HEADER_SIZE_BYTES = 8;
+
+    /** Size of the length and checksum of a record */
+    private static final int RECORD_HEADER_SIZE_BYTES = 8;
+
+    /** Record type of a put */
+    private static final byte PUT = 1;
+
+    /** Record type of a remove */
+    private static final byte REMOVE = 2;
+
+    /** The journal is never compacted below this number of records */
+    private static final long MIN_COMPACTION_RECORDS = 1000;
+
+    /** The log file */
+    private final File file;
+
+    /** The serializer for the keys */
+    private final IElementSerializer elementSerializer;
+
+    /** Records may outnumber the live keys by this factor before the log is compacted */
+    private final int compactionFactor;
+
+    /** The open log */
+    private FileChannel fc;
+
+    /** Number of records in the log */
+    private long recordCount;
+
+    /**
+     * Opens the log, creating it if needed.
+     * <p>
+     * @param file the log file
+     * @param elementSerializer serializer for the keys
+     * @param compactionFactor records may outnumber the live keys by this factor
+     * @throws IOException
+     */
+    public IndexedDiskKeyJournal(final File file, final IElementSerializer elementSerializer,
+            final int compactionFactor)
+        throws IOException
+    {
+        this.file = file;
+        this.elementSerializer = elementSerializer;
+        this.compactionFactor = Math.max(1, compactionFactor);
+        this.fc = open(file);
+    }
+
+    /**
+     * Reads all records and applies them in order. A damaged record at the end of the log, left
+     * by a crash while it was written, is cut off.
+     * <p>
+     * @return the live keys and their descriptors in the order they were last written
+     * @throws IOException if the log can not be read
+     */
+    public synchronized Map<K, IndexedDiskElementDescriptor> replay()
+        throws IOException
+    {
+        final Map<K, IndexedDiskElementDescriptor> keys = new LinkedHashMap<>();
+        long validLength = FILE_HEADER_SIZE_BYTES;
+        long count = 0;
+
+        try (InputStream in = Files.newInputStream(file.toPath());
+             DataInputStream dis = new DataInputStream(new BufferedInputStream(in, 65536)))
+        {
+            dis.readLong();
+            final CRC32 crc = new CRC32();
+
+            while (true)
+            {
+                final int length;
+                try
+                {
+                    length = dis.readInt();
+                }
+                catch (final EOFException e)
+                {
+                    break;
+                }
+
+                final byte[] payload;
+                try
+                {
+                    final int checksum = dis.readInt();
+                    if (length < 1 || validLength + RECORD_HEADER_SIZE_BYTES + length > fc.size())
+                    {
+                        log.warn("Invalid record length {0} at {1} in [{2}]", length, validLength, file);
+                        break;
+                    }
+                    payload = new byte[length];
+                    dis.readFully(payload);
+
+                    crc.reset();
+                    crc.update(payload, 0, length);
+                    if ((int) crc.getValue() != checksum)
+                    {
+                        log.warn("Checksum mismatch at {0} in [{1}]", validLength, file);
+                        break;
+                    }
+                }
+                catch (final EOFException e)
+                {
+                    log.warn("Truncated record at {0} in [{1}]", validLength, file);
+                    break;
+                }
+
+                apply(keys, payload);
+                validLength += RECORD_HEADER_SIZE_BYTES + length;
+                count++;
+            }
+        }
+        catch (final ClassNotFoundException e)
+        {
+            throw new IOException("Failed to read key from " + file, e);
+        }
+
+        if (validLength < fc.size())
+        {
+            log.warn("Cutting off {0} bytes at the end of [{1}]", fc.size() - validLength, file);
+            fc.truncate(validLength);
+        }
+
+        recordCount = count;
+        log.info("Replayed {0} records from [{1}], key count: {2}", count, file, keys.size());
+
+        return keys;
+    }
+
+    /**
+     * @param keys the keys to update
+     * @param payload a record
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void apply(final Map<K, IndexedDiskElementDescriptor> keys, final byte[] payload)
+        throws IOException, ClassNotFoundException
+    {
+        final ByteBuffer record = ByteBuffer.wrap(payload);
+        final byte type = record.get();
+
+        if (type == PUT)
+        {
+            final long pos = record.getLong();
+            final int len = record.getInt();
+            final K key = deserializeKey(payload, record.position());
+            // re-insert to keep the order of the writes
+            keys.remove(key);
+            keys.put(key, new IndexedDiskElementDescriptor(pos, len));
+        }
+        else if (type == REMOVE)
+        {
+            keys.remove(deserializeKey(payload, record.position()));
+        }
+        else
+        {
+            throw new IOException("Unknown record type " + type + " in " + file);
+        }
+    }
+
+    /**
+     * @param payload the record
+     * @param offset start of the key
+     * @return the key
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private K deserializeKey(final byte[] payload, final int offset)
+        throws IOException, ClassNotFoundException
+    {
+        final byte[] keyBytes = new byte[payload.length - offset];
+        System.arraycopy(payload, offset, keyBytes, 0, keyBytes.length);
+        return elementSerializer.deSerialize(keyBytes, null);
+    }
+
+    /**
+     * Appends a put of the key.
+     * <p>
+     * @param key the key
+     * @param ded the location of the element in the data file
+     * @throws IOException
+     */
+    public synchronized void logPut(final K key, final IndexedDiskElementDescriptor ded)
+        throws IOException
+    {
+        append(fc, createRecord(PUT, key, ded));
+    }
+
+    /**
+     * Appends a remove of the key.
+     * <p>
+     * @param key the key
+     * @throws IOException
+     */
+    public synchronized void logRemove(final K key)
+        throws IOException
+    {
+        append(fc, createRecord(REMOVE, key, null));
+    }
+
+    /**
+     * Replaces the log with a snapshot of the live keys.
+     * <p>
+     * The snapshot is written to a temporary file that is then moved over the log, so the old
+     * log stays intact until the snapshot is complete.
+     * <p>
+     * @param keys the live keys
+     * @throws IOException
+     */
+    public synchronized void compact(final Map<K, IndexedDiskElementDescriptor> keys)
+        throws IOException
+    {
+        final File tempFile = new File(file.getPath() + ".tmp");
+        Files.deleteIfExists(tempFile.toPath());
+
+        try (FileChannel temp = open(tempFile))
+        {
+            final ByteBuffer buffer = ByteBuffer.allocate(65536);
+            for (final Map.Entry<K, IndexedDiskElementDescriptor> e : keys.entrySet())
+            {
+                final ByteBuffer record = createRecord(PUT, e.getKey(), e.getValue());
+                if (record.remaining() > buffer.remaining())
+                {
+                    buffer.flip();
+                    append(temp, buffer);
+                    buffer.clear();
+                }
+                if (record.remaining() > buffer.remaining())
+                {
+                    append(temp, record);
+                }
+                else
+                {
+                    buffer.put(record);
+                }
+            }
+            buffer.flip();
+            append(temp, buffer);
+            temp.force(true);
+        }
+
+        fc.close();
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        fc = open(file);
+        recordCount = keys.size();
+
+        log.info("Compacted [{0}] to {1} keys", file, recordCount);
+    }
+
+    /**
+     * @param liveKeys the number of live keys
+     * @return true if the records outnumber the live keys by more than the compaction factor
+     */
+    public synchronized boolean isCompactionNeeded(final int liveKeys)
+    {
+        return recordCount > Math.max(MIN_COMPACTION_RECORDS, (long) compactionFactor * liveKeys);
+    }
+
+    /**
+     * Removes all records.
+     * <p>
+     * @throws IOException
+     */
+    public synchronized void clear()
+        throws IOException
+    {
+        fc.truncate(FILE_HEADER_SIZE_BYTES);
+        recordCount = 0;
+    }
+
+    /**
+     * Forces the records to the storage device.
+     * <p>
+     * @throws IOException
+     */
+    public synchronized void sync()
+        throws IOException
+    {
+        fc.force(false);
+    }
+
+    /**
+     * @return the number of records in the log
+     */
+    public synchronized long getRecordCount()
+    {
+        return recordCount;
+    }
+
+    /**
+     * Closes the log.
+     * <p>
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close()
+        throws IOException
+    {
+        fc.close();
+    }
+
+    /**
+     * @param type the record type
+     * @param key the key
+     * @param ded the descriptor of a put
+     * @return the record, ready to be written
+     * @throws IOException
+     */
+    private ByteBuffer createRecord(final byte type, final K key, final IndexedDiskElementDescriptor ded)
+        throws IOException
+    {
+        final byte[] keyBytes = elementSerializer.serialize(key);
+        final int length = 1 + (ded != null ? 12 : 0) + keyBytes.length;
+
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE_BYTES + length);
+        record.putInt(length);
+        record.putInt(0);
+        record.put(type);
+        if (ded != null)
+        {
+            record.putLong(ded.pos);
+            record.putInt(ded.len);
+        }
+        record.put(keyBytes);
+
+        final CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_SIZE_BYTES, length);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+
+        return record;
+    }
+
+    /**
+     * Appends a record and counts it.
+     * <p>
+     * @param channel the file to append to
+     * @param buffer the data to write
+     * @throws IOException
+     */
+    private void append(final FileChannel channel, final ByteBuffer buffer)
+        throws IOException
+    {
+        long position = channel.size();
+        while (buffer.hasRemaining())
+        {
+            position += channel.write(buffer, position);
+        }
+
+        if (channel == fc)
+        {
+            recordCount++;
+        }
+    }
+
+    /**
+     * Opens a log file and writes the magic number if it is new. Fails if an existing file has
+     * a different format.
+     * <p>
+     * @param logFile the file
+     * @return the open channel
+     * @throws IOException
+     */
+    private static FileChannel open(final File logFile)
+        throws IOException
+    {
+        final FileChannel channel = FileChannel.open(logFile.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        final ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE_BYTES);
+        if (channel.size() < FILE_HEADER_SIZE_BYTES)
+        {
+            header.putLong(MAGIC);
+            header.flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+        }
+        else
+        {
+            channel.read(header, 0);
+            header.flip();
+            if (header.getLong() != MAGIC)
+            {
+                channel.close();
+                throw new IOException("Not a key journal: " + logFile);
+            }
+        }
+
+        return channel;
+    }
+}
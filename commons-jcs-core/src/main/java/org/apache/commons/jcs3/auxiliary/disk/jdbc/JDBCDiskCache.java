@@ -25,12 +25,16 @@ import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.sql.DataSource;
 
@@ -73,7 +77,11 @@ import org.apache.commons.jcs3.log.LogManager;
  * 1000
  * <p>
  * To speed up the deletion the SYSTEM_EXPIRE_TIME_SECONDS is used instead. It is recommended that
- * an index be created on this column is you will have over a million records.
+ * an index be created on this column is you will have over a million records:
+ * <pre>
+ *                       create index JCS_STORE_EXPIRE_IDX on JCS_STORE (REGION, IS_ETERNAL, SYSTEM_EXPIRE_TIME_SECONDS);
+ * </pre>
+ * On large tables, set DeleteExpiredChunkSize so the expired records are deleted in small chunks.
  * <p>
  * @author Aaron Smuts
  */
@@ -95,6 +103,36 @@ public class JDBCDiskCache<K, V>
     /** # of times getMatching was called */
     private final AtomicInteger getMatchingCount = new AtomicInteger(0);
 
+    /** # of times getMultiple was called */
+    private final AtomicInteger getMultipleCount = new AtomicInteger(0);
+
+    /** # of queries run by getMultiple */
+    private final AtomicLong getMultipleQueryCount = new AtomicLong(0);
+
+    /** # of expiry sweeps run */
+    private final AtomicLong expirySweepCount = new AtomicLong(0);
+
+    /** # of expired elements deleted by all sweeps */
+    private final AtomicLong expiredDeleteCount = new AtomicLong(0);
+
+    /** The last completed expiry sweep, null before the first one */
+    private volatile ExpirySweep lastExpirySweep;
+
+    /** # of update batches written */
+    private final AtomicLong updateBatchCount = new AtomicLong(0);
+
+    /** # of elements written in update batches */
+    private final AtomicLong updateBatchElementCount = new AtomicLong(0);
+
+    /** # of update batches that failed and were written one element at a time */
+    private final AtomicLong updateBatchFailureCount = new AtomicLong(0);
+
+    /** total time spent writing and committing update batches, in nanoseconds */
+    private final AtomicLong updateBatchCommitNanos = new AtomicLong(0);
+
+    /** longest time spent writing and committing one update batch, in nanoseconds */
+    private final AtomicLong updateBatchCommitNanosMax = new AtomicLong(0);
+
     /** db connection pool */
     private final DataSourceFactory dsFactory;
 
@@ -202,10 +240,7 @@ public class JDBCDiskCache<K, V>
     private boolean insertRow( final ICacheElement<K, V> ce, final Connection con, final byte[] element )
     {
         boolean exists = false;
-        final String sqlI = String.format("insert into %s"
-                + " (CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME, UPDATE_TIME_SECONDS,"
-                + " SYSTEM_EXPIRE_TIME_SECONDS) "
-                + " values (?, ?, ?, ?, ?, ?, ?, ?)", getJdbcDiskCacheAttributes().getTableName());
+        final String sqlI = getInsertSql();
 
         try (PreparedStatement psInsert = con.prepareStatement( sqlI ))
         {
@@ -256,9 +291,7 @@ public class JDBCDiskCache<K, V>
      */
     private void updateRow( final ICacheElement<K, V> ce, final Connection con, final byte[] element )
     {
-        final String sqlU = String.format("update %s"
-                + " set ELEMENT  = ?, CREATE_TIME = ?, UPDATE_TIME_SECONDS = ?, " + " SYSTEM_EXPIRE_TIME_SECONDS = ? "
-                + " where CACHE_KEY = ? and REGION = ?", getJdbcDiskCacheAttributes().getTableName());
+        final String sqlU = getUpdateSql();
 
         try (PreparedStatement psUpdate = con.prepareStatement( sqlU ))
         {
@@ -285,6 +318,246 @@ public class JDBCDiskCache<K, V>
         }
     }
 
+    /**
+     * @return the statement that inserts a row, the parameters are the values of the columns in
+     *         the order CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME,
+     *         UPDATE_TIME_SECONDS, SYSTEM_EXPIRE_TIME_SECONDS
+     */
+    private String getInsertSql()
+    {
+        return String.format("insert into %s"
+                + " (CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME, UPDATE_TIME_SECONDS,"
+                + " SYSTEM_EXPIRE_TIME_SECONDS) "
+                + " values (?, ?, ?, ?, ?, ?, ?, ?)", getJdbcDiskCacheAttributes().getTableName());
+    }
+
+    /**
+     * @return the statement that updates a row
+     */
+    private String getUpdateSql()
+    {
+        return String.format("update %s"
+                + " set ELEMENT  = ?, CREATE_TIME = ?, UPDATE_TIME_SECONDS = ?, " + " SYSTEM_EXPIRE_TIME_SECONDS = ? "
+                + " where CACHE_KEY = ? and REGION = ?", getJdbcDiskCacheAttributes().getTableName());
+    }
+
+    /**
+     * Writes a batch of elements in one transaction. Each statement is sent to the database once
+     * for the whole batch. If the database has an upsert statement, see {@link #getUpsertSql},
+     * every element is written by it. Otherwise the existing rows are updated and the missing ones
+     * are inserted. If the batch fails, it is rolled back and the elements are written one at a
+     * time.
+     * <p>
+     * @param elements the elements, in the order they were queued
+     */
+    @Override
+    protected void processUpdateBatch( final List<ICacheElement<K, V>> elements )
+    {
+        if ( elements.size() == 1 )
+        {
+            processUpdate( elements.get( 0 ) );
+            return;
+        }
+
+        updateCount.addAndGet( elements.size() );
+
+        final List<ICacheElement<K, V>> serializedElements = new ArrayList<>( elements.size() );
+        final List<byte[]> serialized = new ArrayList<>( elements.size() );
+        for ( final ICacheElement<K, V> ce : elements )
+        {
+            try
+            {
+                serialized.add( getElementSerializer().serialize( ce ) );
+                serializedElements.add( ce );
+            }
+            catch ( final IOException e )
+            {
+                log.error( "Could not serialize element", e );
+            }
+        }
+
+        if ( serializedElements.isEmpty() )
+        {
+            return;
+        }
+
+        try (Connection con = getDataSource().getConnection())
+        {
+            final boolean autoCommit = con.getAutoCommit();
+            final long start = System.nanoTime();
+            try
+            {
+                con.setAutoCommit( false );
+                writeBatch( con, serializedElements, serialized );
+                con.commit();
+
+                final long nanos = System.nanoTime() - start;
+                updateBatchCount.incrementAndGet();
+                updateBatchElementCount.addAndGet( serializedElements.size() );
+                updateBatchCommitNanos.addAndGet( nanos );
+                updateBatchCommitNanosMax.accumulateAndGet( nanos, Math::max );
+
+                log.debug( "Wrote batch of {0} elements in {1} ms", serializedElements::size,
+                        () -> TimeUnit.NANOSECONDS.toMillis( nanos ) );
+            }
+            catch ( final SQLException e )
+            {
+                updateBatchFailureCount.incrementAndGet();
+                log.warn( "Could not write batch of {0} elements, writing them one at a time.",
+                        serializedElements.size(), e );
+                con.rollback();
+                con.setAutoCommit( true );
+
+                for ( int i = 0; i < serializedElements.size(); i++ )
+                {
+                    insertOrUpdate( serializedElements.get( i ), con, serialized.get( i ) );
+                }
+            }
+            finally
+            {
+                con.setAutoCommit( autoCommit );
+            }
+        }
+        catch ( final SQLException e )
+        {
+            log.error( "Problem getting connection.", e );
+        }
+    }
+
+    /**
+     * Sends the statements of a batch. The caller commits.
+     * <p>
+     * @param con a connection that does not auto commit
+     * @param elements the elements
+     * @param serialized the serialized elements, in the same order
+     * @throws SQLException if the batch failed
+     */
+    private void writeBatch( final Connection con, final List<ICacheElement<K, V>> elements, final List<byte[]> serialized )
+        throws SQLException
+    {
+        final long now = System.currentTimeMillis() / 1000;
+
+        final String upsertSql = getUpsertSql( con );
+        if ( upsertSql != null )
+        {
+            try (PreparedStatement psUpsert = con.prepareStatement( upsertSql ))
+            {
+                for ( int i = 0; i < elements.size(); i++ )
+                {
+                    setInsertParameters( psUpsert, elements.get( i ), serialized.get( i ), now );
+                    psUpsert.addBatch();
+                }
+                psUpsert.executeBatch();
+            }
+            return;
+        }
+
+        final int[] updated;
+        try (PreparedStatement psUpdate = con.prepareStatement( getUpdateSql() ))
+        {
+            for ( int i = 0; i < elements.size(); i++ )
+            {
+                final ICacheElement<K, V> ce = elements.get( i );
+                psUpdate.setBytes( 1, serialized.get( i ) );
+                psUpdate.setTimestamp( 2, new Timestamp( ce.getElementAttributes().getCreateTime() ) );
+                psUpdate.setLong( 3, now );
+                psUpdate.setLong( 4, now + ce.getElementAttributes().getMaxLife() );
+                psUpdate.setString( 5, ce.getKey().toString() );
+                psUpdate.setString( 6, this.getCacheName() );
+                psUpdate.addBatch();
+            }
+            updated = psUpdate.executeBatch();
+        }
+
+        boolean inserts = false;
+        try (PreparedStatement psInsert = con.prepareStatement( getInsertSql() ))
+        {
+            for ( int i = 0; i < elements.size(); i++ )
+            {
+                if ( updated[i] == Statement.SUCCESS_NO_INFO )
+                {
+                    throw new SQLException( "The driver does not report which rows were updated" );
+                }
+                if ( updated[i] == 0 )
+                {
+                    setInsertParameters( psInsert, elements.get( i ), serialized.get( i ), now );
+                    psInsert.addBatch();
+                    inserts = true;
+                }
+            }
+
+            if ( inserts )
+            {
+                psInsert.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Sets the parameters of the insert statement, see {@link #getInsertSql}. Upsert statements
+     * take the same parameters.
+     * <p>
+     * @param ps the statement
+     * @param ce the element
+     * @param element the serialized element
+     * @param now the current time in seconds
+     * @throws SQLException
+     */
+    private void setInsertParameters( final PreparedStatement ps, final ICacheElement<K, V> ce, final byte[] element,
+                                      final long now )
+        throws SQLException
+    {
+        ps.setString( 1, ce.getKey().toString() );
+        ps.setString( 2, this.getCacheName() );
+        ps.setBytes( 3, element );
+        ps.setLong( 4, ce.getElementAttributes().getMaxLife() );
+        ps.setString( 5, ce.getElementAttributes().getIsEternal() ? "T" : "F" );
+        ps.setTimestamp( 6, new Timestamp( ce.getElementAttributes().getCreateTime() ) );
+        ps.setLong( 7, now );
+        ps.setLong( 8, now + ce.getElementAttributes().getMaxLife() );
+    }
+
+    /**
+     * Returns a statement that inserts a row or updates it if it exists, used to write batches.
+     * It takes the parameters of the insert statement: CACHE_KEY, REGION, ELEMENT,
+     * MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME, UPDATE_TIME_SECONDS, SYSTEM_EXPIRE_TIME_SECONDS.
+     * An existing row gets the new ELEMENT, CREATE_TIME, UPDATE_TIME_SECONDS and
+     * SYSTEM_EXPIRE_TIME_SECONDS, like an update.
+     * <p>
+     * This returns a MERGE statement for HSQLDB 2 and later and null for all other databases, which
+     * makes the batch update the existing rows and insert the rest. Subclasses for other databases
+     * may return their own statement.
+     * <p>
+     * @param con the connection
+     * @return the statement, or null if there is none for the database
+     * @throws SQLException if the database cannot be determined
+     * @since 3.2
+     */
+    protected String getUpsertSql( final Connection con )
+        throws SQLException
+    {
+        final DatabaseMetaData dmd = con.getMetaData();
+        if ( !dmd.getDatabaseProductName().startsWith( "HSQL" ) || dmd.getDatabaseMajorVersion() < 2 )
+        {
+            return null;
+        }
+
+        return String.format("merge into %s t using (values("
+                + "cast(? as varchar(250)), cast(? as varchar(250)), cast(? as varbinary(16777216)), cast(? as bigint),"
+                + " cast(? as char(1)), cast(? as timestamp), cast(? as bigint), cast(? as bigint)))"
+                + " as v (CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME, UPDATE_TIME_SECONDS,"
+                + " SYSTEM_EXPIRE_TIME_SECONDS)"
+                + " on t.CACHE_KEY = v.CACHE_KEY and t.REGION = v.REGION"
+                + " when matched then update set t.ELEMENT = v.ELEMENT, t.CREATE_TIME = v.CREATE_TIME,"
+                + " t.UPDATE_TIME_SECONDS = v.UPDATE_TIME_SECONDS, t.SYSTEM_EXPIRE_TIME_SECONDS = v.SYSTEM_EXPIRE_TIME_SECONDS"
+                + " when not matched then insert"
+                + " (CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME, UPDATE_TIME_SECONDS,"
+                + " SYSTEM_EXPIRE_TIME_SECONDS)"
+                + " values (v.CACHE_KEY, v.REGION, v.ELEMENT, v.MAX_LIFE_SECONDS, v.IS_ETERNAL, v.CREATE_TIME,"
+                + " v.UPDATE_TIME_SECONDS, v.SYSTEM_EXPIRE_TIME_SECONDS)",
+                getJdbcDiskCacheAttributes().getTableName());
+    }
+
     /**
      * Does an element exist for this key?
      * <p>
@@ -384,6 +657,111 @@ public class JDBCDiskCache<K, V>
         return obj;
     }
 
+    /**
+     * Looks the keys up with IN queries. Each query takes up to GetMultipleChunkSize keys. The
+     * rows are deserialized as they are read.
+     * <p>
+     * @param keys
+     * @return a map of K key to ICacheElement&lt;K, V&gt; element, or an empty map if there is no
+     *         data in cache for any of these keys
+     */
+    @Override
+    protected Map<K, ICacheElement<K, V>> processGetMultiple( final Set<K> keys )
+    {
+        getMultipleCount.incrementAndGet();
+
+        log.debug( "Getting {0} keys from disk", keys.size() );
+
+        final Map<K, ICacheElement<K, V>> results = new HashMap<>();
+        if ( !isAlive() || keys.isEmpty() )
+        {
+            return results;
+        }
+
+        final int chunkSize = Math.max( 1, getJdbcDiskCacheAttributes().getGetMultipleChunkSize() );
+        final Map<String, K> chunk = new HashMap<>();
+
+        try (Connection con = getDataSource().getConnection())
+        {
+            for ( final K key : keys )
+            {
+                chunk.put( key.toString(), key );
+                if ( chunk.size() == chunkSize )
+                {
+                    getChunk( con, chunk, results );
+                    chunk.clear();
+                }
+            }
+
+            if ( !chunk.isEmpty() )
+            {
+                getChunk( con, chunk, results );
+            }
+        }
+        catch ( final SQLException sqle )
+        {
+            log.error( "Caught a SQL exception trying to get {0} items", keys.size(), sqle );
+        }
+
+        return results;
+    }
+
+    /**
+     * Runs one IN query.
+     * <p>
+     * @param con the connection
+     * @param chunk the keys to look up by their string value
+     * @param results gets the elements found
+     * @throws SQLException
+     */
+    private void getChunk( final Connection con, final Map<String, K> chunk, final Map<K, ICacheElement<K, V>> results )
+        throws SQLException
+    {
+        final StringBuilder selectString = new StringBuilder( String.format(
+                "select CACHE_KEY, ELEMENT from %s where REGION = ? and CACHE_KEY in (",
+                getJdbcDiskCacheAttributes().getTableName() ) );
+        for ( int i = 0; i < chunk.size(); i++ )
+        {
+            selectString.append( i == 0 ? "?" : ", ?" );
+        }
+        selectString.append( ')' );
+
+        try (PreparedStatement psSelect = con.prepareStatement( selectString.toString() ))
+        {
+            psSelect.setString( 1, this.getCacheName() );
+            int index = 2;
+            for ( final String key : chunk.keySet() )
+            {
+                psSelect.setString( index++, key );
+            }
+
+            getMultipleQueryCount.incrementAndGet();
+
+            try (ResultSet rs = psSelect.executeQuery())
+            {
+                while ( rs.next() )
+                {
+                    final String key = rs.getString( 1 );
+                    final byte[] data = rs.getBytes( 2 );
+                    if ( data == null )
+                    {
+                        continue;
+                    }
+
+                    try
+                    {
+                        final ICacheElement<K, V> ce = getElementSerializer().deSerialize( data, null );
+                        results.put( chunk.get( key ), ce );
+                    }
+                    catch ( final IOException | ClassNotFoundException e )
+                    {
+                        log.error( "Problem getting item for key [{0}]", key, e );
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * This will run a like query. It will try to construct a usable query but different
      * implementations will be needed to adjust the syntax.
@@ -556,6 +934,9 @@ public class JDBCDiskCache<K, V>
     /**
      * Removed the expired. (now - create time) &gt; max life seconds * 1000
      * <p>
+     * If DeleteExpiredChunkSize is set, the expired elements are deleted in chunks, see
+     * {@link #deleteExpiredInChunks}. Otherwise one statement deletes all of them.
+     * <p>
      * @return the number deleted
      */
     protected int deleteExpired()
@@ -574,19 +955,21 @@ public class JDBCDiskCache<K, V>
             {
                 getTableState().setState( TableState.DELETE_RUNNING );
                 final long now = System.currentTimeMillis() / 1000;
+                final ExpirySweep sweep = new ExpirySweep();
+                final int chunkSize = getJdbcDiskCacheAttributes().getDeleteExpiredChunkSize();
 
-                final String sql = String.format("delete from %s where IS_ETERNAL = ? and REGION = ?"
-                        + " and ? > SYSTEM_EXPIRE_TIME_SECONDS", getJdbcDiskCacheAttributes().getTableName());
-
-                try (PreparedStatement psDelete = con.prepareStatement( sql ))
+                try
                 {
-                    psDelete.setString( 1, "F" );
-                    psDelete.setString( 2, this.getCacheName() );
-                    psDelete.setLong( 3, now );
-
                     setAlive(true);
 
-                    deleted = psDelete.executeUpdate();
+                    if ( chunkSize > 0 )
+                    {
+                        deleteExpiredInChunks( con, now, chunkSize, sweep );
+                    }
+                    else
+                    {
+                        deleteExpiredAtOnce( con, now, sweep );
+                    }
                 }
                 catch ( final SQLException e )
                 {
@@ -594,6 +977,12 @@ public class JDBCDiskCache<K, V>
                     setAlive(false);
                 }
 
+                sweep.durationNanos = System.nanoTime() - sweep.startNanos;
+                deleted = sweep.deleted;
+                expirySweepCount.incrementAndGet();
+                expiredDeleteCount.addAndGet( deleted );
+                lastExpirySweep = sweep;
+
                 logApplicationEvent( getAuxiliaryCacheAttributes().getName(), "deleteExpired",
                                      "Deleted expired elements.  URL: " + getDiskLocation() );
             }
@@ -618,6 +1007,115 @@ public class JDBCDiskCache<K, V>
         return deleted;
     }
 
+    /**
+     * Deletes all expired elements of the region with one statement.
+     * <p>
+     * @param con the connection
+     * @param now the current time in seconds
+     * @param sweep gets the counts
+     * @throws SQLException
+     */
+    private void deleteExpiredAtOnce( final Connection con, final long now, final ExpirySweep sweep )
+        throws SQLException
+    {
+        final String sql = String.format("delete from %s where IS_ETERNAL = ? and REGION = ?"
+                + " and ? > SYSTEM_EXPIRE_TIME_SECONDS", getJdbcDiskCacheAttributes().getTableName());
+
+        try (PreparedStatement psDelete = con.prepareStatement( sql ))
+        {
+            psDelete.setString( 1, "F" );
+            psDelete.setString( 2, this.getCacheName() );
+            psDelete.setLong( 3, now );
+
+            final long start = System.nanoTime();
+            sweep.deleted = psDelete.executeUpdate();
+            sweep.lockNanos = System.nanoTime() - start;
+            sweep.chunks = 1;
+        }
+    }
+
+    /**
+     * Deletes the expired elements of the region in chunks, oldest first. Each chunk is a range of
+     * expiry times that holds about chunkSize elements, found by reading the expiry times in order.
+     * Elements that share the expiry time at the end of a range are deleted together, so a chunk
+     * may be larger. The sweep pauses for DeleteExpiredPauseMillis between chunks, so the locks
+     * are held briefly and the writes of the event queue get through. An index on REGION,
+     * IS_ETERNAL and SYSTEM_EXPIRE_TIME_SECONDS keeps the chunks cheap.
+     * <p>
+     * @param con the connection
+     * @param now the current time in seconds
+     * @param chunkSize the number of elements per chunk
+     * @param sweep gets the counts
+     * @throws SQLException
+     */
+    private void deleteExpiredInChunks( final Connection con, final long now, final int chunkSize,
+                                        final ExpirySweep sweep )
+        throws SQLException
+    {
+        final String selectSql = String.format("select SYSTEM_EXPIRE_TIME_SECONDS from %s where IS_ETERNAL = ?"
+                + " and REGION = ? and ? > SYSTEM_EXPIRE_TIME_SECONDS order by SYSTEM_EXPIRE_TIME_SECONDS",
+                getJdbcDiskCacheAttributes().getTableName());
+        final String deleteSql = String.format("delete from %s where IS_ETERNAL = ? and REGION = ?"
+                + " and ? > SYSTEM_EXPIRE_TIME_SECONDS and SYSTEM_EXPIRE_TIME_SECONDS <= ?",
+                getJdbcDiskCacheAttributes().getTableName());
+
+        try (PreparedStatement psSelect = con.prepareStatement( selectSql );
+             PreparedStatement psDelete = con.prepareStatement( deleteSql ))
+        {
+            psSelect.setMaxRows( chunkSize );
+            psSelect.setString( 1, "F" );
+            psSelect.setString( 2, this.getCacheName() );
+            psSelect.setLong( 3, now );
+
+            psDelete.setString( 1, "F" );
+            psDelete.setString( 2, this.getCacheName() );
+            psDelete.setLong( 3, now );
+
+            while ( true )
+            {
+                int found = 0;
+                long upperBound = 0;
+                try (ResultSet rs = psSelect.executeQuery())
+                {
+                    while ( rs.next() )
+                    {
+                        upperBound = rs.getLong( 1 );
+                        found++;
+                    }
+                }
+
+                if ( found == 0 )
+                {
+                    return;
+                }
+
+                psDelete.setLong( 4, upperBound );
+                final long start = System.nanoTime();
+                sweep.deleted += psDelete.executeUpdate();
+                sweep.lockNanos += System.nanoTime() - start;
+                sweep.chunks++;
+
+                if ( found < chunkSize || !isAlive() )
+                {
+                    return;
+                }
+
+                log.debug( "Deleted chunk {0} of expired elements for region [{1}], pausing for {2} ms.",
+                        sweep.chunks, getCacheName(), getJdbcDiskCacheAttributes().getDeleteExpiredPauseMillis() );
+
+                try
+                {
+                    Thread.sleep( getJdbcDiskCacheAttributes().getDeleteExpiredPauseMillis() );
+                }
+                catch ( final InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
     /**
      * Typically this is used to handle errors by last resort, force content update, or removeall
      */
@@ -736,6 +1234,34 @@ public class JDBCDiskCache<K, V>
         elems.add(new StatElement<>( "Update Count", updateCount ) );
         elems.add(new StatElement<>( "Get Count", getCount ) );
         elems.add(new StatElement<>( "Get Matching Count", getMatchingCount ) );
+        elems.add(new StatElement<>( "Get Multiple Count", getMultipleCount ) );
+        elems.add(new StatElement<>( "Get Multiple Query Count", getMultipleQueryCount ) );
+        elems.add(new StatElement<>( "Update Batch Count", updateBatchCount ) );
+        elems.add(new StatElement<>( "Update Batch Failure Count", updateBatchFailureCount ) );
+
+        final long batches = updateBatchCount.get();
+        if ( batches > 0 )
+        {
+            elems.add(new StatElement<>( "Average Update Batch Size",
+                    Long.valueOf( updateBatchElementCount.get() / batches ) ) );
+            elems.add(new StatElement<>( "Average Update Batch Commit Time (ms)",
+                    Double.valueOf( updateBatchCommitNanos.get() / 1_000_000.0 / batches ) ) );
+            elems.add(new StatElement<>( "Max Update Batch Commit Time (ms)",
+                    Double.valueOf( updateBatchCommitNanosMax.get() / 1_000_000.0 ) ) );
+        }
+        elems.add(new StatElement<>( "Expiry Sweep Count", expirySweepCount ) );
+        elems.add(new StatElement<>( "Expired Delete Count", expiredDeleteCount ) );
+
+        final ExpirySweep sweep = lastExpirySweep;
+        if ( sweep != null )
+        {
+            elems.add(new StatElement<>( "Last Expiry Sweep Deleted", Integer.valueOf( sweep.deleted ) ) );
+            elems.add(new StatElement<>( "Last Expiry Sweep Chunks", Integer.valueOf( sweep.chunks ) ) );
+            elems.add(new StatElement<>( "Last Expiry Sweep Lock Time (ms)",
+                    Long.valueOf( TimeUnit.NANOSECONDS.toMillis( sweep.lockNanos ) ) ) );
+            elems.add(new StatElement<>( "Last Expiry Sweep Duration (ms)",
+                    Long.valueOf( TimeUnit.NANOSECONDS.toMillis( sweep.durationNanos ) ) ) );
+        }
         elems.add(new StatElement<>( "DB URL", getJdbcDiskCacheAttributes().getUrl()) );
 
         stats.setStatElements( elems );
@@ -805,4 +1331,25 @@ public class JDBCDiskCache<K, V>
     {
         return this.getStats();
     }
+
+    /**
+     * The counts of one expiry sweep.
+     */
+    private static class ExpirySweep
+    {
+        /** When the sweep started */
+        final long startNanos = System.nanoTime();
+
+        /** The number of elements deleted */
+        int deleted;
+
+        /** The number of delete statements */
+        int chunks;
+
+        /** The time spent in delete statements, which hold the locks */
+        long lockNanos;
+
+        /** The time the whole sweep took, including the pauses */
+        long durationNanos;
+    }
 }
@@ -77,6 +77,21 @@ public class JDBCDiskCacheAttributes
     /** Should we remove expired in the background. */
     private boolean useDiskShrinker = true;
 
+    /** How many expired elements are deleted with one statement. 0 deletes all at once. */
+    private int deleteExpiredChunkSize = 0;
+
+    /** This is the default pause between two chunks of expired elements. */
+    public static final long DEFAULT_DELETE_EXPIRED_PAUSE_MILLIS = 100;
+
+    /** How long to pause between two chunks of expired elements. */
+    private long deleteExpiredPauseMillis = DEFAULT_DELETE_EXPIRED_PAUSE_MILLIS;
+
+    /** This is the default number of keys looked up with one query. */
+    public static final int DEFAULT_GET_MULTIPLE_CHUNK_SIZE = 100;
+
+    /** How many keys of a getMultiple are looked up with one query. */
+    private int getMultipleChunkSize = DEFAULT_GET_MULTIPLE_CHUNK_SIZE;
+
     /** The default Pool Name to which the connection pool will be keyed. */
     public static final String DEFAULT_POOL_NAME = "jcs";
 
@@ -290,6 +305,61 @@ public class JDBCDiskCacheAttributes
         return useDiskShrinker;
     }
 
+    /**
+     * @param deleteExpiredChunkSize The number of expired elements deleted with one statement, 0
+     *            to delete all of them at once.
+     * @since 3.2
+     */
+    public void setDeleteExpiredChunkSize( final int deleteExpiredChunkSize )
+    {
+        this.deleteExpiredChunkSize = deleteExpiredChunkSize;
+    }
+
+    /**
+     * @return Returns the number of expired elements deleted with one statement.
+     * @since 3.2
+     */
+    public int getDeleteExpiredChunkSize()
+    {
+        return deleteExpiredChunkSize;
+    }
+
+    /**
+     * @param deleteExpiredPauseMillis The pause between two chunks of expired elements.
+     * @since 3.2
+     */
+    public void setDeleteExpiredPauseMillis( final long deleteExpiredPauseMillis )
+    {
+        this.deleteExpiredPauseMillis = deleteExpiredPauseMillis;
+    }
+
+    /**
+     * @return Returns the pause between two chunks of expired elements.
+     * @since 3.2
+     */
+    public long getDeleteExpiredPauseMillis()
+    {
+        return deleteExpiredPauseMillis;
+    }
+
+    /**
+     * @param getMultipleChunkSize The number of keys looked up with one query.
+     * @since 3.2
+     */
+    public void setGetMultipleChunkSize( final int getMultipleChunkSize )
+    {
+        this.getMultipleChunkSize = getMultipleChunkSize;
+    }
+
+    /**
+     * @return Returns the number of keys looked up with one query.
+     * @since 3.2
+     */
+    public int getGetMultipleChunkSize()
+    {
+        return getMultipleChunkSize;
+    }
+
     /**
      * @param connectionPoolName the connectionPoolName to set
      */
@@ -326,6 +396,9 @@ public class JDBCDiskCacheAttributes
         buf.append( "\n AllowRemoveAll [" + isAllowRemoveAll() + "]" );
         buf.append( "\n ShrinkerIntervalSeconds [" + getShrinkerIntervalSeconds() + "]" );
         buf.append( "\n useDiskShrinker [" + isUseDiskShrinker() + "]" );
+        buf.append( "\n DeleteExpiredChunkSize [" + getDeleteExpiredChunkSize() + "]" );
+        buf.append( "\n DeleteExpiredPauseMillis [" + getDeleteExpiredPauseMillis() + "]" );
+        buf.append( "\n GetMultipleChunkSize [" + getGetMultipleChunkSize() + "]" );
         return buf.toString();
     }
 }
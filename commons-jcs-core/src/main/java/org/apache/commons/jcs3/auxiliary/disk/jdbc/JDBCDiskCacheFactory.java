@@ -19,6 +19,9 @@ package org.apache.commons.jcs3.auxiliary.disk.jdbc;
  * under the License.
  */
 
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
@@ -26,6 +29,8 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import javax.sql.DataSource;
+
 import org.apache.commons.jcs3.auxiliary.AbstractAuxiliaryCacheFactory;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheAttributes;
 import org.apache.commons.jcs3.auxiliary.disk.jdbc.dsfactory.DataSourceFactory;
@@ -199,6 +204,75 @@ public class JDBCDiskCacheFactory
         }
     }
 
+    /**
+     * The expiry sweeps of the shrinker look up the expired elements of a region by their expiry
+     * time. Without an index on SYSTEM_EXPIRE_TIME_SECONDS they scan the table.
+     * <p>
+     * @param tableName the table
+     * @return the statement that creates the index used by the expiry sweeps
+     * @since 3.2
+     */
+    protected static String getExpiryIndexSql( final String tableName )
+    {
+        return String.format( "create index %s_EXPIRE_IDX on %s (REGION, IS_ETERNAL, SYSTEM_EXPIRE_TIME_SECONDS)",
+                tableName, tableName );
+    }
+
+    /**
+     * @param con the connection
+     * @param tableName the table
+     * @return true if an index of the table covers SYSTEM_EXPIRE_TIME_SECONDS
+     * @throws SQLException
+     * @since 3.2
+     */
+    protected static boolean hasExpiryIndex( final Connection con, final String tableName )
+        throws SQLException
+    {
+        final DatabaseMetaData dmd = con.getMetaData();
+        try (ResultSet rs = dmd.getIndexInfo( null, null, tableName, false, true ))
+        {
+            while ( rs.next() )
+            {
+                if ( "SYSTEM_EXPIRE_TIME_SECONDS".equalsIgnoreCase( rs.getString( "COLUMN_NAME" ) ) )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Logs a warning with the recommended index if the table of the cache exists but has no index
+     * for the expiry sweeps.
+     * <p>
+     * @param ds the DataSource
+     * @param cattr the cache configuration
+     * @since 3.2
+     */
+    protected void checkExpiryIndex( final DataSource ds, final JDBCDiskCacheAttributes cattr )
+    {
+        if ( !cattr.isUseDiskShrinker() )
+        {
+            return;
+        }
+
+        try (Connection con = ds.getConnection();
+             ResultSet tables = con.getMetaData().getTables( null, null, cattr.getTableName(), null ))
+        {
+            if ( tables.next() && !hasExpiryIndex( con, cattr.getTableName() ) )
+            {
+                log.warn( "Table [{0}] has no index on SYSTEM_EXPIRE_TIME_SECONDS, the expiry sweeps "
+                        + "will scan the table. Recommended: {1}", cattr.getTableName(),
+                        getExpiryIndexSql( cattr.getTableName() ) );
+            }
+        }
+        catch ( final SQLException e )
+        {
+            log.warn( "Could not check the indexes of table [{0}]", cattr.getTableName(), e );
+        }
+    }
+
     /**
      * manages the DataSourceFactories.
      * <p>
@@ -93,7 +93,7 @@ public class HSQLDiskCacheFactory
     }
 
     /**
-     * SETUP TABLE FOR CACHE
+     * SETUP TABLE FOR CACHE. Also creates the index used by the expiry sweeps if it is missing.
      * <p>
      * @param cConn
      * @param tableName
@@ -125,5 +125,13 @@ public class HSQLDiskCacheFactory
                 sStatement.execute( createSql.toString() );
             }
         }
+
+        if ( !hasExpiryIndex( cConn, tableName ) )
+        {
+            try (Statement sStatement = cConn.createStatement())
+            {
+                sStatement.execute( getExpiryIndexSql( tableName ) );
+            }
+        }
     }
 }
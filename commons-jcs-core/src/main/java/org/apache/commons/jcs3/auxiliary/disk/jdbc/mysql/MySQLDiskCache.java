@@ -19,8 +19,12 @@ package org.apache.commons.jcs3.auxiliary.disk.jdbc.mysql;
  * under the License.
  */
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.jcs3.auxiliary.disk.jdbc.JDBCDiskCache;
 import org.apache.commons.jcs3.auxiliary.disk.jdbc.TableState;
@@ -101,6 +105,24 @@ public class MySQLDiskCache<K, V>
         return super.processGetMatching( pattern );
     }
 
+    /**
+     * This delegates to the generic JDBC disk cache. If we are currently optimizing, then this
+     * method will balk and return an empty map.
+     * <p>
+     * @param keys Keys to locate values for.
+     * @return The elements found.
+     */
+    @Override
+    protected Map<K, ICacheElement<K, V>> processGetMultiple( final Set<K> keys )
+    {
+        if (this.getTableState().getState() == TableState.OPTIMIZATION_RUNNING &&
+            this.mySQLDiskCacheAttributes.isBalkDuringOptimization())
+        {
+            return new HashMap<>();
+        }
+        return super.processGetMultiple( keys );
+    }
+
     /**
      * @param pattern
      * @return String to use in the like query.
@@ -133,6 +155,42 @@ public class MySQLDiskCache<K, V>
         super.processUpdate( element );
     }
 
+    /**
+     * This delegates to the generic JDBC disk cache. If we are currently optimizing, then this
+     * method will balk and do nothing.
+     * <p>
+     * @param elements
+     */
+    @Override
+    protected void processUpdateBatch( final List<ICacheElement<K, V>> elements )
+    {
+        if (this.getTableState().getState() == TableState.OPTIMIZATION_RUNNING &&
+            this.mySQLDiskCacheAttributes.isBalkDuringOptimization())
+        {
+            return;
+        }
+        super.processUpdateBatch( elements );
+    }
+
+    /**
+     * MySQL writes the elements of a batch with INSERT ... ON DUPLICATE KEY UPDATE.
+     * <p>
+     * @param con the connection
+     * @return the upsert statement
+     */
+    @Override
+    protected String getUpsertSql( final Connection con )
+    {
+        return String.format("insert into %s"
+                + " (CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME, UPDATE_TIME_SECONDS,"
+                + " SYSTEM_EXPIRE_TIME_SECONDS) "
+                + " values (?, ?, ?, ?, ?, ?, ?, ?)"
+                + " on duplicate key update ELEMENT = values(ELEMENT), CREATE_TIME = values(CREATE_TIME),"
+                + " UPDATE_TIME_SECONDS = values(UPDATE_TIME_SECONDS),"
+                + " SYSTEM_EXPIRE_TIME_SECONDS = values(SYSTEM_EXPIRE_TIME_SECONDS)",
+                getJdbcDiskCacheAttributes().getTableName());
+    }
+
     /**
      * Removed the expired. (now - create time) &gt; max life seconds * 1000
      * <p>
@@ -74,6 +74,7 @@ public class MySQLDiskCacheFactory
 
         // create a shrinker if we need it.
         createShrinkerWhenNeeded( cattr, cache );
+        checkExpiryIndex( cache.getDataSource(), cattr );
         scheduleOptimizations( cattr, tableState, cache.getDataSource() );
 
         return cache;
@@ -487,6 +487,16 @@ public class LateralCacheNoWaitFacade<K, V>
                     .collect(Collectors.toList()));
         }
 
+        final ILateralCacheListener<K, V> l = listener;
+        if (l != null)
+        {
+            final IStats listenerStats = l.getStatistics();
+            if (listenerStats != null)
+            {
+                elems.addAll(listenerStats.getStatElements());
+            }
+        }
+
         stats.setStatElements( elems );
 
         return stats;
@@ -51,6 +51,11 @@ public class LateralElementDescriptor<K, V>
      */
     public int valHashCode = -1;
 
+    /**
+     * The id the response to this request is tagged with, 0 if the response is sent untagged.
+     */
+    public long requestId;
+
     /** Constructor for the LateralElementDescriptor object */
     @Deprecated // Not used
     public LateralElementDescriptor()
@@ -136,6 +141,15 @@ public class LateralElementDescriptor<K, V>
         return valHashCode;
     }
 
+    /**
+     * @return the id the response is tagged with, 0 if the response is sent untagged
+     * @since 3.2
+     */
+    public long getRequestId()
+    {
+        return requestId;
+    }
+
     /**
      * @return String, all the important values that can be configured
      */
@@ -146,6 +160,7 @@ public class LateralElementDescriptor<K, V>
         buf.append( "\n LateralElementDescriptor " );
         buf.append( "\n command = [" + this.command + "]" );
         buf.append( "\n valHashCode = [" + this.valHashCode + "]" );
+        buf.append( "\n requestId = [" + this.requestId + "]" );
         buf.append( "\n ICacheElement = [" + this.ce + "]" );
         return buf.toString();
     }
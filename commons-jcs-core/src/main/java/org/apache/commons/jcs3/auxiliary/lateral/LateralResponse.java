@@ -0,0 +1,76 @@
+package org.apache.commons.jcs3.auxiliary.lateral;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Serializable;
+
+/**
+ * The response to a lateral request that carried a request id. It is sent even if the result is
+ * null, so that the requester does not have to wait for a timeout.
+ */
+public class LateralResponse<T>
+    implements Serializable
+{
+    /** Don't change */
+    private static final long serialVersionUID = 2803471262306125236L;
+
+    /** The id of the request this is the response to */
+    private final long requestId;
+
+    /** The result, may be null */
+    private final T payload;
+
+    /**
+     * Constructor for the LateralResponse object
+     * <p>
+     * @param requestId the id of the request
+     * @param payload the result, may be null
+     */
+    public LateralResponse( final long requestId, final T payload )
+    {
+        this.requestId = requestId;
+        this.payload = payload;
+    }
+
+    /**
+     * @return the id of the request
+     */
+    public long getRequestId()
+    {
+        return requestId;
+    }
+
+    /**
+     * @return the result, may be null
+     */
+    public T getPayload()
+    {
+        return payload;
+    }
+
+    /**
+     * @return String, all the important values
+     */
+    @Override
+    public String toString()
+    {
+        return "LateralResponse [requestId = " + requestId + ", payload = " + payload + "]";
+    }
+}
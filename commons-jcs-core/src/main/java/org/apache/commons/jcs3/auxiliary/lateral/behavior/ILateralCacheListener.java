@@ -21,6 +21,7 @@ package org.apache.commons.jcs3.auxiliary.lateral.behavior;
 
 import org.apache.commons.jcs3.engine.behavior.ICacheListener;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
 
 /**
  * Listens for lateral cache event notification.
@@ -48,4 +49,13 @@ public interface ILateralCacheListener<K, V>
      * Dispose this listener
      */
     void dispose();
+
+    /**
+     * @return the statistics of this listener, or null if it does not keep any
+     * @since 3.2
+     */
+    default IStats getStatistics()
+    {
+        return null;
+    }
 }
@@ -26,17 +26,29 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.jcs3.auxiliary.lateral.LateralElementDescriptor;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralResponse;
 import org.apache.commons.jcs3.auxiliary.lateral.behavior.ILateralCacheListener;
 import org.apache.commons.jcs3.auxiliary.lateral.socket.tcp.behavior.ITCPLateralCacheAttributes;
 import org.apache.commons.jcs3.engine.CacheInfo;
@@ -45,14 +57,29 @@ import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.engine.behavior.IShutdownObserver;
 import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.Stats;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.serialization.FrameBuffer;
 import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.apache.commons.jcs3.utils.threadpool.PoolConfiguration;
+import org.apache.commons.jcs3.utils.threadpool.PoolConfiguration.WhenBlockedPolicy;
+import org.apache.commons.jcs3.utils.threadpool.ThreadPoolManager;
 
 /**
  * Listens for connections from other TCP lateral caches and handles them. The initialization method
  * starts a listening thread, which creates a socket server. When messages are received they are
  * passed to a pooled executor which then calls the appropriate handle method.
+ * <p>
+ * The listening thread only accepts connections and assembles the length prefixed frames from
+ * whatever bytes are available, so a large or slow request never holds up the other peers. Each
+ * complete frame is queued on its connection, and the queue of a connection is worked off by one
+ * pooled thread at a time. This keeps the requests of one peer in order while several peers are
+ * served in parallel. Reading from a connection is suspended while too many of its requests are
+ * pending.
  */
 public class LateralTCPListener<K, V>
     implements ILateralCacheListener<K, V>, IShutdownObserver
@@ -82,13 +109,37 @@ public class LateralTCPListener<K, V>
     private IElementSerializer serializer;
 
     /** put count */
-    private int putCnt;
+    private final AtomicInteger putCnt = new AtomicInteger();
 
     /** remove count */
-    private int removeCnt;
+    private final AtomicInteger removeCnt = new AtomicInteger();
 
     /** get count */
-    private int getCnt;
+    private final AtomicInteger getCnt = new AtomicInteger();
+
+    /** The selector of the listener thread */
+    private volatile Selector selector;
+
+    /** Work that has to be done by the listener thread, such as changing the interest set of a key */
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+
+    /** Handles the received requests */
+    private ExecutorService pooledExecutor;
+
+    /** Number of received requests that have not been handled yet */
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+
+    /** Number of open connections */
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    /** Number of passes through the selector loop that had work to do */
+    private final AtomicLong selectorLoopCount = new AtomicLong();
+
+    /** Total time spent in those passes in nanoseconds */
+    private final AtomicLong selectorLoopTime = new AtomicLong();
+
+    /** Longest pass in nanoseconds */
+    private final AtomicLong selectorLoopMaxTime = new AtomicLong();
 
     /**
      * Use the vmid by default. This can be set for testing. If we ever need to run more than one
@@ -200,6 +251,15 @@ public class LateralTCPListener<K, V>
             serverSocket.bind(endPoint);
             serverSocket.configureBlocking(false);
 
+            final int poolSize = Math.max(1, getTcpLateralCacheAttributes().getTcpListenerThreadPoolSize());
+            // Unbounded, so that the listener thread never waits for or runs a request itself.
+            // A connection has at most one task queued and stops being read from while
+            // TcpListenerMaxPendingRequests of its requests are waiting.
+            pooledExecutor = ThreadPoolManager.getInstance().createPool(
+                    new PoolConfiguration(false, 0, poolSize, poolSize, 0,
+                            WhenBlockedPolicy.ABORT, poolSize),
+                    "JCS-LateralTCPListener-" + port + "-");
+
             listenerThread = new Thread(() -> runListener(serverSocket),
                     "JCS-LateralTCPListener-" + host + ":" + port);
             listenerThread.setDaemon(true);
@@ -257,7 +317,7 @@ public class LateralTCPListener<K, V>
     public void handlePut( final ICacheElement<K, V> element )
         throws IOException
     {
-        putCnt++;
+        putCnt.incrementAndGet();
         if ( log.isInfoEnabled() && getPutCnt() % 100 == 0 )
         {
             log.info( "Put Count (port {0}) = {1}",
@@ -282,7 +342,7 @@ public class LateralTCPListener<K, V>
     public void handleRemove( final String cacheName, final K key )
         throws IOException
     {
-        removeCnt++;
+        removeCnt.incrementAndGet();
         if ( log.isInfoEnabled() && getRemoveCnt() % 100 == 0 )
         {
             log.info( "Remove Count = {0}", this::getRemoveCnt);
@@ -318,7 +378,7 @@ public class LateralTCPListener<K, V>
     public ICacheElement<K, V> handleGet( final String cacheName, final K key )
         throws IOException
     {
-        getCnt++;
+        getCnt.incrementAndGet();
         if ( log.isInfoEnabled() && getGetCnt() % 100 == 0 )
         {
             log.info( "Get Count (port {0}) = {1}",
@@ -342,7 +402,7 @@ public class LateralTCPListener<K, V>
     public Map<K, ICacheElement<K, V>> handleGetMatching( final String cacheName, final String pattern )
         throws IOException
     {
-        getCnt++;
+        getCnt.incrementAndGet();
         if ( log.isInfoEnabled() && getGetCnt() % 100 == 0 )
         {
             log.info( "GetMatching Count (port {0}) = {1}",
@@ -414,7 +474,7 @@ public class LateralTCPListener<K, V>
      */
     public int getPutCnt()
     {
-        return putCnt;
+        return putCnt.get();
     }
 
     /**
@@ -422,7 +482,7 @@ public class LateralTCPListener<K, V>
      */
     public int getGetCnt()
     {
-        return getCnt;
+        return getCnt.get();
     }
 
     /**
@@ -430,7 +490,56 @@ public class LateralTCPListener<K, V>
      */
     public int getRemoveCnt()
     {
-        return removeCnt;
+        return removeCnt.get();
+    }
+
+    /**
+     * @return the number of received requests that have not been handled completely
+     */
+    public int getPendingRequests()
+    {
+        return pendingRequests.get();
+    }
+
+    /**
+     * Gets the statistics of the listener, including the time the listener thread spends per pass
+     * through the selector loop and the number of connections waiting for a worker thread.
+     * <p>
+     * @return IStats
+     */
+    @Override
+    public IStats getStatistics()
+    {
+        final IStats stats = new Stats();
+        stats.setTypeName( "Lateral TCP Listener" );
+
+        final List<IStatElement<?>> elems = new ArrayList<>();
+
+        elems.add(new StatElement<>( "Listener Port",
+                Integer.valueOf( getTcpLateralCacheAttributes().getTcpListenerPort() ) ) );
+        elems.add(new StatElement<>( "Connections", Integer.valueOf( connectionCount.get() ) ) );
+        elems.add(new StatElement<>( "Put Count", Integer.valueOf( getPutCnt() ) ) );
+        elems.add(new StatElement<>( "Remove Count", Integer.valueOf( getRemoveCnt() ) ) );
+        elems.add(new StatElement<>( "Get Count", Integer.valueOf( getGetCnt() ) ) );
+
+        final long loops = selectorLoopCount.get();
+        elems.add(new StatElement<>( "Selector Loops", Long.valueOf( loops ) ) );
+        elems.add(new StatElement<>( "Average Selector Loop Time (us)",
+                Long.valueOf( loops == 0 ? 0 : selectorLoopTime.get() / loops / 1000 ) ) );
+        elems.add(new StatElement<>( "Max Selector Loop Time (us)",
+                Long.valueOf( selectorLoopMaxTime.get() / 1000 ) ) );
+
+        int queueDepth = 0;
+        if ( pooledExecutor instanceof ThreadPoolExecutor )
+        {
+            queueDepth = ( (ThreadPoolExecutor) pooledExecutor ).getQueue().size();
+        }
+        elems.add(new StatElement<>( "Worker Queue Depth", Integer.valueOf( queueDepth ) ) );
+        elems.add(new StatElement<>( "Pending Requests", Integer.valueOf( getPendingRequests() ) ) );
+
+        stats.setStatElements( elems );
+
+        return stats;
     }
 
     /**
@@ -505,6 +614,7 @@ public class LateralTCPListener<K, V>
     {
         try (Selector selector = Selector.open())
         {
+            this.selector = selector;
             serverSocket.register(selector, SelectionKey.OP_ACCEPT);
             log.debug("Waiting for clients to connect");
 
@@ -512,6 +622,13 @@ public class LateralTCPListener<K, V>
             while (!terminated.get())
             {
                 int activeKeys = selector.select(acceptTimeOut);
+                final long start = System.nanoTime();
+
+                for (Runnable task = selectorTasks.poll(); task != null; task = selectorTasks.poll())
+                {
+                    task.run();
+                }
+
                 if (activeKeys == 0)
                 {
                     continue;
@@ -525,6 +642,7 @@ public class LateralTCPListener<K, V>
                     }
 
                     SelectionKey key = i.next();
+                    i.remove();
 
                     if (!key.isValid())
                     {
@@ -544,16 +662,27 @@ public class LateralTCPListener<K, V>
                         log.info("Connected to client at {0}", client.getRemoteAddress());
 
                         client.configureBlocking(false);
-                        client.register(selector, SelectionKey.OP_READ);
+                        final SelectionKey clientKey = client.register(selector, SelectionKey.OP_READ);
+                        clientKey.attach(new Connection(clientKey));
+                        connectionCount.incrementAndGet();
+                        continue;
                     }
 
+                    final LateralTCPListener<?, ?>.Connection connection =
+                            (LateralTCPListener<?, ?>.Connection) key.attachment();
+
                     if (key.isReadable())
                     {
-                        handleClient(key);
+                        connection.read();
                     }
 
-                    i.remove();
+                    if (key.isValid() && key.isWritable())
+                    {
+                        connection.flush();
+                    }
                 }
+
+                recordSelectorLoop(System.nanoTime() - start);
             }
 
             log.debug("Thread terminated, exiting gracefully");
@@ -576,6 +705,10 @@ public class LateralTCPListener<K, V>
         }
         finally
         {
+            selector = null;
+            selectorTasks.clear();
+            pooledExecutor.shutdownNow();
+
             try
             {
                 serverSocket.close();
@@ -587,6 +720,33 @@ public class LateralTCPListener<K, V>
         }
     }
 
+    /**
+     * Records the time of one pass through the selector loop.
+     * <p>
+     * @param nanos the time in nanoseconds
+     */
+    private void recordSelectorLoop(final long nanos)
+    {
+        selectorLoopCount.incrementAndGet();
+        selectorLoopTime.addAndGet(nanos);
+        selectorLoopMaxTime.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Runs the task on the listener thread and wakes it up.
+     * <p>
+     * @param task the task, typically a change of the interest set of a key
+     */
+    private void runOnSelector(final Runnable task)
+    {
+        final Selector sel = selector;
+        if (sel != null)
+        {
+            selectorTasks.add(task);
+            sel.wakeup();
+        }
+    }
+
     /**
      * A Separate thread that runs when a command comes into the LateralTCPReceiver.
      * @deprecated No longer used
@@ -656,23 +816,361 @@ public class LateralTCPListener<K, V>
     }
 
     /**
-     * A Separate thread that runs when a command comes into the LateralTCPReceiver.
+     * The state of one client connection. The frames are assembled by the listener thread. The
+     * requests are handled by the pooled executor in the order they were received. Tagged gets,
+     * which are answered by their request id, are handed on to the pool and run in parallel;
+     * everything else is handled one at a time, so the puts and removes stay in order.
      */
-    private void handleClient(final SelectionKey key)
+    private class Connection
     {
-        final SocketChannel socketChannel = (SocketChannel) key.channel();
+        /** The key of the connection */
+        private final SelectionKey key;
 
-        try
+        /** The channel of the connection */
+        private final SocketChannel socketChannel;
+
+        /** The length prefix of the frame being read */
+        private final ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+
+        /** The body of the frame being read, null while reading the length prefix */
+        private ByteBuffer frameBuffer;
+
+        /** Complete frames waiting to be handled (guarded by this) */
+        private final Queue<byte[]> frames = new ArrayDeque<>();
+
+        /** Whether a worker thread is handling the frames (guarded by this) */
+        private boolean scheduled;
+
+        /** Whether reading has been suspended because too many frames are pending (guarded by this) */
+        private boolean readSuspended;
+
+        /** The number of requests being handled, in order or in parallel (guarded by this) */
+        private int running;
+
+        /** Responses waiting to be written (guarded by itself) */
+        private final Queue<ByteBuffer> responses = new ArrayDeque<>();
+
+        /** The memory the responses are serialized into, used by the worker handling the frames in order */
+        private final FrameBuffer responseBuffer = new FrameBuffer(true);
+
+        /**
+         * @param key the key of the connection
+         */
+        Connection(final SelectionKey key)
+        {
+            this.key = key;
+            this.socketChannel = (SocketChannel) key.channel();
+        }
+
+        /**
+         * Reads whatever is available without blocking and queues the complete frames.
+         * Called by the listener thread.
+         */
+        void read()
+        {
+            try
+            {
+                while (true)
+                {
+                    if (frameBuffer == null)
+                    {
+                        if (socketChannel.read(lengthBuffer) < 0)
+                        {
+                            close("End of stream reached");
+                            return;
+                        }
+                        if (lengthBuffer.hasRemaining())
+                        {
+                            return;
+                        }
+
+                        lengthBuffer.flip();
+                        final int length = lengthBuffer.getInt();
+                        lengthBuffer.clear();
+                        if (length < 0)
+                        {
+                            throw new IOException("Invalid frame length " + length);
+                        }
+                        frameBuffer = ByteBuffer.allocate(length);
+                    }
+
+                    if (frameBuffer.hasRemaining() && socketChannel.read(frameBuffer) < 0)
+                    {
+                        close("End of stream reached (object)");
+                        return;
+                    }
+                    if (frameBuffer.hasRemaining())
+                    {
+                        return;
+                    }
+
+                    final byte[] frame = frameBuffer.array();
+                    frameBuffer = null;
+                    if (!enqueue(frame))
+                    {
+                        return;
+                    }
+                }
+            }
+            catch (final IOException e)
+            {
+                log.info("Caught {0}, closing connection.", e.getClass().getSimpleName(), e);
+                close(null);
+            }
+        }
+
+        /**
+         * Queues a complete frame and makes sure a worker thread will handle it.
+         * <p>
+         * @param frame the serialized request
+         * @return false if reading has been suspended
+         */
+        private boolean enqueue(final byte[] frame)
+        {
+            boolean schedule = false;
+            boolean suspend = false;
+
+            synchronized (this)
+            {
+                frames.add(frame);
+                if (!scheduled)
+                {
+                    scheduled = true;
+                    schedule = true;
+                }
+                if (frames.size() + running >= getTcpLateralCacheAttributes().getTcpListenerMaxPendingRequests())
+                {
+                    readSuspended = true;
+                    suspend = true;
+                }
+            }
+            pendingRequests.incrementAndGet();
+
+            if (suspend)
+            {
+                // called by the listener thread, so the key can be changed directly
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+
+            if (schedule)
+            {
+                pooledExecutor.execute(this::handleFrames);
+            }
+
+            return !suspend;
+        }
+
+        /**
+         * Handles the queued frames in order until none are left. Called by a worker thread.
+         */
+        private void handleFrames()
+        {
+            while (true)
+            {
+                final byte[] frame;
+
+                synchronized (this)
+                {
+                    frame = frames.poll();
+                    if (frame == null)
+                    {
+                        scheduled = false;
+                        return;
+                    }
+                    running++;
+                }
+
+                final Object request = deserialize(frame);
+                if (isParallelRead(request))
+                {
+                    @SuppressWarnings("unchecked") // Checked by isParallelRead
+                    final LateralElementDescriptor<K, V> led = (LateralElementDescriptor<K, V>) request;
+                    try
+                    {
+                        pooledExecutor.execute(() -> handleRead(led));
+                    }
+                    catch (final RejectedExecutionException e)
+                    {
+                        // the listener is shutting down
+                        handleRead(led);
+                    }
+                }
+                else
+                {
+                    try
+                    {
+                        handleRequest(request, responseBuffer);
+                    }
+                    finally
+                    {
+                        requestDone();
+                    }
+                }
+            }
+        }
+
+        /**
+         * @param request the deserialized request
+         * @return true if it is a tagged get, which can run in parallel with other requests
+         */
+        private boolean isParallelRead(final Object request)
+        {
+            if (!(request instanceof LateralElementDescriptor))
+            {
+                return false;
+            }
+
+            final LateralElementDescriptor<?, ?> led = (LateralElementDescriptor<?, ?>) request;
+            if (led.getRequestId() == 0)
+            {
+                // untagged responses are matched by their order
+                return false;
+            }
+
+            switch (led.getCommand())
+            {
+                case GET:
+                case GET_MATCHING:
+                case GET_KEYSET:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Handles a tagged get with a response buffer of its own. Called by a worker thread.
+         * <p>
+         * @param led the get
+         */
+        private void handleRead(final LateralElementDescriptor<K, V> led)
         {
-            final LateralElementDescriptor<K, V> led =
-                    serializer.deSerializeFrom(socketChannel, null);
+            final FrameBuffer buffer = FrameBuffer.acquire();
+            try
+            {
+                handleRequest(led, buffer);
+            }
+            finally
+            {
+                buffer.release();
+                requestDone();
+            }
+        }
+
+        /**
+         * Counts a request as done and resumes reading once enough of the pending requests have
+         * been handled.
+         */
+        private void requestDone()
+        {
+            boolean resume = false;
+
+            synchronized (this)
+            {
+                running--;
+                if (readSuspended && frames.size() + running <= getTcpLateralCacheAttributes().getTcpListenerMaxPendingRequests() / 2)
+                {
+                    readSuspended = false;
+                    resume = true;
+                }
+            }
+            pendingRequests.decrementAndGet();
+
+            if (resume)
+            {
+                runOnSelector(() -> {
+                    if (key.isValid())
+                    {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                    }
+                });
+            }
+        }
+
+        /**
+         * @param frame the serialized request
+         * @return the request, or null if it could not be deserialized
+         */
+        private Object deserialize(final byte[] frame)
+        {
+            try
+            {
+                return serializer.deSerialize(frame, null);
+            }
+            catch (final IOException e)
+            {
+                log.info("Caught {0}, closing connection.", e.getClass().getSimpleName(), e);
+                runOnSelector(() -> close(null));
+            }
+            catch (final ClassNotFoundException e)
+            {
+                log.error( "Deserialization failed reading from socket", e );
+            }
+            catch (final RuntimeException e)
+            {
+                log.error( "Problem handling request", e );
+            }
+
+            return null;
+        }
+
+        /**
+         * Handles one request or a batch of requests, and sends the responses.
+         * <p>
+         * @param request the deserialized request, may be null
+         * @param buffer the memory the responses are serialized into
+         */
+        private void handleRequest(final Object request, final FrameBuffer buffer)
+        {
+            try
+            {
+                if (request instanceof List)
+                {
+                    // a batch, apply in order
+                    @SuppressWarnings("unchecked") // Need to cast from Object
+                    final List<LateralElementDescriptor<K, V>> batch =
+                            (List<LateralElementDescriptor<K, V>>) request;
+                    for (final LateralElementDescriptor<K, V> led : batch)
+                    {
+                        handleDescriptor(led, buffer);
+                    }
+                }
+                else
+                {
+                    @SuppressWarnings("unchecked") // Need to cast from Object
+                    final LateralElementDescriptor<K, V> led = (LateralElementDescriptor<K, V>) request;
+                    handleDescriptor(led, buffer);
+                }
+            }
+            catch (final IOException e)
+            {
+                log.info("Caught {0}, closing connection.", e.getClass().getSimpleName(), e);
+                runOnSelector(() -> close(null));
+            }
+            catch (final RuntimeException e)
+            {
+                log.error( "Problem handling request", e );
+            }
+        }
 
+        /**
+         * Handles one descriptor and sends the response if there is one. Tagged requests are
+         * answered even if there is no result.
+         * <p>
+         * @param led the descriptor, may be null
+         * @param buffer the memory the response is serialized into
+         * @throws IOException
+         */
+        private void handleDescriptor(final LateralElementDescriptor<K, V> led, final FrameBuffer buffer) throws IOException
+        {
             if ( led == null )
             {
                 log.debug("LateralElementDescriptor is null");
                 return;
             }
 
+            Object obj = null;
+
             if ( led.getRequesterId() == getListenerId() )
             {
                 log.debug( "from self" );
@@ -682,28 +1180,143 @@ public class LateralTCPListener<K, V>
                 log.debug( "receiving LateralElementDescriptor from another led = {0}",
                         led );
 
-                Object obj = handleElement(led);
-                if (obj != null)
+                obj = handleElement(led);
+            }
+
+            if (led.getRequestId() != 0)
+            {
+                // a tagged request always gets an answer
+                send(new LateralResponse<>(led.getRequestId(), obj), buffer);
+            }
+            else if (obj != null)
+            {
+                send(obj, buffer);
+            }
+        }
+
+        /**
+         * Writes a response with a length prefix. Whatever cannot be written right away is copied
+         * and left to the listener thread.
+         * <p>
+         * @param obj the response
+         * @param buffer the memory the response is serialized into
+         * @throws IOException
+         */
+        private void send(final Object obj, final FrameBuffer buffer) throws IOException
+        {
+            try
+            {
+                serializer.serializeTo(obj, buffer);
+                final ByteBuffer frame = buffer.toByteBuffer();
+
+                synchronized (responses)
                 {
-                    serializer.serializeTo(obj, socketChannel);
+                    if (responses.isEmpty())
+                    {
+                        socketChannel.write(frame);
+                        if (!frame.hasRemaining())
+                        {
+                            return;
+                        }
+                    }
+
+                    // the buffer is reused for the next response
+                    final ByteBuffer pending = ByteBuffer.allocate(frame.remaining());
+                    pending.put(frame);
+                    pending.flip();
+                    responses.add(pending);
                 }
             }
+            finally
+            {
+                buffer.reset();
+            }
+
+            runOnSelector(() -> {
+                if (key.isValid())
+                {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                }
+            });
         }
-        catch (final IOException e)
+
+        /**
+         * Writes the pending responses when the channel is writable again. Called by the
+         * listener thread.
+         */
+        void flush()
         {
-            log.info("Caught {0}, closing connection.", e.getClass().getSimpleName(), e);
             try
             {
-                socketChannel.close();
+                synchronized (responses)
+                {
+                    if (writeResponses())
+                    {
+                        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                    }
+                }
             }
-            catch (IOException e1)
+            catch (final IOException e)
             {
-                log.error("Error while closing connection", e );
+                log.info("Caught {0}, closing connection.", e.getClass().getSimpleName(), e);
+                close(null);
+            }
+        }
+
+        /**
+         * Writes as much of the pending responses as the channel takes without blocking.
+         * (guarded by responses)
+         * <p>
+         * @return true if all responses have been written
+         * @throws IOException
+         */
+        private boolean writeResponses() throws IOException
+        {
+            for (ByteBuffer buffer = responses.peek(); buffer != null; buffer = responses.peek())
+            {
+                socketChannel.write(buffer);
+                if (buffer.hasRemaining())
+                {
+                    return false;
+                }
+                responses.poll();
             }
+
+            return true;
         }
-        catch (final ClassNotFoundException e)
+
+        /**
+         * Closes the connection and drops the requests that have not been handled yet.
+         * <p>
+         * @param reason logged if not null
+         */
+        void close(final String reason)
         {
-            log.error( "Deserialization failed reading from socket", e );
+            if (!socketChannel.isOpen())
+            {
+                return;
+            }
+
+            if (reason != null)
+            {
+                log.info("Closing connection: {0}", reason);
+            }
+
+            try
+            {
+                socketChannel.close();
+            }
+            catch (IOException e)
+            {
+                log.error("Error while closing connection", e );
+            }
+
+            connectionCount.decrementAndGet();
+            synchronized (this)
+            {
+                pendingRequests.addAndGet(-frames.size());
+                frames.clear();
+            }
         }
     }
 
@@ -19,26 +19,49 @@ package org.apache.commons.jcs3.auxiliary.lateral.socket.tcp;
  * under the License.
  */
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.jcs3.auxiliary.lateral.LateralElementDescriptor;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralResponse;
 import org.apache.commons.jcs3.auxiliary.lateral.socket.tcp.behavior.ITCPLateralCacheAttributes;
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.serialization.FrameBuffer;
 import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.apache.commons.jcs3.utils.threadpool.ThreadPoolManager;
 
 /**
  * This class is based on the log4j SocketAppender class. I'm using a different repair structure, so
  * it is significantly different.
+ * <p>
+ * If a send batch size greater than 1 is configured, descriptors passed to {@link #send} are
+ * collected and written as a list in one frame, once the batch is full or its first descriptor
+ * has waited for the configured delay. Later descriptors are collected while a batch is being
+ * written. Batches are written in the order they were started, and requests that expect a
+ * response send the pending batch first.
+ * <p>
+ * If requests are multiplexed, each request that expects a response is tagged with an id and the
+ * lock is only held while writing it. The responses are read asynchronously and handed to the
+ * waiting callers by their id, so many requests can be in flight on the connection at once.
  */
 public class LateralTCPSender
 {
@@ -61,6 +84,55 @@ public class LateralTCPSender
     /** Use to synchronize multiple threads that may be trying to get. */
     private final Lock lock = new ReentrantLock(true);
 
+    /** The initial size of the buffer multiplexed responses are read into */
+    private static final int INITIAL_FRAME_BUFFER_SIZE = 1024;
+
+    /** The largest buffer for multiplexed responses that is kept for the next response */
+    private static final int MAX_RETAINED_FRAME_BUFFER_SIZE = 64 * 1024;
+
+    /** Name of the scheduler pool that sends incomplete batches */
+    private static final String BATCH_SCHEDULER_NAME = "lateral_tcp_sender";
+
+    /** Maximum number of descriptors in one frame, 1 means no batching */
+    private final int batchSize;
+
+    /** How long the first descriptor of a batch may wait */
+    private final long batchDelayMicros;
+
+    /** The descriptors collected for the next frame (guarded by batchLock) */
+    private List<LateralElementDescriptor<?, ?>> batch;
+
+    /** Sends the batch once the delay has expired (guarded by batchLock) */
+    private ScheduledFuture<?> batchFlushTask;
+
+    /** A failure of a scheduled send, reported to the next caller (guarded by batchLock) */
+    private IOException batchError;
+
+    /** Guards the batch */
+    private final Object batchLock = new Object();
+
+    /** how many frames sent */
+    private long frameCnt;
+
+    /** Whether requests are tagged with ids */
+    private final boolean multiplex;
+
+    /** Source of the request ids */
+    private final AtomicLong requestIds = new AtomicLong();
+
+    /** The callers waiting for a response, by request id */
+    private final ConcurrentHashMap<Long, CompletableFuture<Object>> pendingResponses =
+            new ConcurrentHashMap<>();
+
+    /** Whether the responses are being read */
+    private final AtomicBoolean readingResponses = new AtomicBoolean();
+
+    /** The memory the frames are serialized into, reused for every frame (guarded by lock) */
+    private final FrameBuffer writeBuffer = new FrameBuffer( true );
+
+    /** The memory the responses of unmultiplexed requests are read into (guarded by lock) */
+    private final FrameBuffer readBuffer = new FrameBuffer();
+
     /**
      * Constructor for the LateralTCPSender object.
      * <p>
@@ -88,6 +160,10 @@ public class LateralTCPSender
     {
         this.socketOpenTimeOut = lca.getOpenTimeOut();
         this.socketSoTimeOut = lca.getSocketTimeOut();
+        this.batchSize = lca.getSendBatchSize();
+        this.batchDelayMicros = lca.getSendBatchDelayMicros();
+        this.multiplex = lca.isMultiplexRequests();
+        this.batch = new ArrayList<>();
 
         this.serializer = serializer;
 
@@ -143,10 +219,11 @@ public class LateralTCPSender
     }
 
     /**
-     * Sends commands to the lateral cache listener.
+     * Sends commands to the lateral cache listener. If batching is configured, the command is
+     * added to the current batch.
      * <p>
      * @param led
-     * @throws IOException
+     * @throws IOException if the command or a previously collected batch could not be sent
      */
     public <K, V> void send( final LateralElementDescriptor<K, V> led )
         throws IOException
@@ -164,10 +241,168 @@ public class LateralTCPSender
             return;
         }
 
+        if ( batchSize <= 1 )
+        {
+            lock.lock();
+            try
+            {
+                write( led );
+            }
+            finally
+            {
+                lock.unlock();
+            }
+            return;
+        }
+
+        boolean full = false;
+        synchronized ( batchLock )
+        {
+            if ( batchError != null )
+            {
+                final IOException e = batchError;
+                batchError = null;
+                throw new IOException( "Sending a batch failed", e );
+            }
+
+            batch.add( led );
+            if ( batch.size() >= batchSize )
+            {
+                full = true;
+            }
+            else if ( batchFlushTask == null )
+            {
+                batchFlushTask = ThreadPoolManager.getInstance().getSchedulerPool( BATCH_SCHEDULER_NAME )
+                        .schedule( this::flushScheduled, batchDelayMicros, TimeUnit.MICROSECONDS );
+            }
+        }
+
+        if ( full )
+        {
+            lock.lock();
+            try
+            {
+                flushBatch();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Sends the pending batch when its delay has expired. Called by the scheduler.
+     */
+    private void flushScheduled()
+    {
+        lock.lock();
+        try
+        {
+            flushBatch();
+        }
+        catch ( final IOException e )
+        {
+            // nobody is waiting for this batch, so the failure is reported to the next send
+            log.error( "Dropped a batch for {0}", getRemoteAddress(), e );
+            synchronized ( batchLock )
+            {
+                batchError = e;
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the pending batch, if any. Must be called with the lock held, so that batches are
+     * written in the order they were taken.
+     * <p>
+     * @throws IOException if the batch could not be sent, its descriptors are dropped then
+     */
+    private void flushBatch()
+        throws IOException
+    {
+        final List<LateralElementDescriptor<?, ?>> toSend;
+        synchronized ( batchLock )
+        {
+            if ( batchFlushTask != null )
+            {
+                batchFlushTask.cancel( false );
+                batchFlushTask = null;
+            }
+            if ( batch.isEmpty() )
+            {
+                return;
+            }
+            toSend = batch;
+            batch = new ArrayList<>( batchSize );
+        }
+
+        try
+        {
+            if ( toSend.size() == 1 )
+            {
+                write( toSend.get( 0 ) );
+            }
+            else
+            {
+                write( toSend );
+            }
+        }
+        catch ( final IOException e )
+        {
+            throw new IOException( "Could not send a batch of " + toSend.size() + " descriptor(s)", e );
+        }
+    }
+
+    /**
+     * Writes one frame. Must be called with the lock held.
+     * <p>
+     * @param obj a descriptor or a list of descriptors
+     * @throws IOException
+     */
+    private void write( final Object obj )
+        throws IOException
+    {
+        try
+        {
+            serializer.serializeTo( obj, writeBuffer );
+            writeBuffer.writeTo( client, socketSoTimeOut );
+            frameCnt++;
+        }
+        finally
+        {
+            writeBuffer.reset();
+        }
+    }
+
+    /**
+     * @return the remote address or null if it is not available
+     */
+    private Object getRemoteAddress()
+    {
+        try
+        {
+            return client.getRemoteAddress();
+        }
+        catch ( final IOException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of frames written so far
+     */
+    public long getFrameCount()
+    {
         lock.lock();
         try
         {
-            serializer.serializeTo(led, client, socketSoTimeOut);
+            return frameCnt;
         }
         finally
         {
@@ -199,22 +434,24 @@ public class LateralTCPSender
         // This is a big block of code. May need to re-think this strategy.
         // This may not be necessary.
         // Normal puts, etc to laterals do not have to be synchronized.
+        if ( multiplex )
+        {
+            return awaitResponse( sendAndReceiveAsync( led ) );
+        }
+
         Object response = null;
 
         lock.lock();
         try
         {
-            // write object to listener
-            send(led);
-            response = serializer.deSerializeFrom(client, socketSoTimeOut, null);
+            // send what has been collected so far, then the request
+            flushBatch();
+            write(led);
+            response = serializer.deSerializeFrom(readBuffer.readFrom(client, socketSoTimeOut), null);
         }
         catch ( final IOException | ClassNotFoundException ioe )
         {
-            final String message = "Could not open channel to " +
-                client.getRemoteAddress() + " SoTimeout [" + socketSoTimeOut +
-                "] Connected [" + client.isOpen() + "]";
-            log.error( message, ioe );
-            throw new IOException(message, ioe);
+            throw channelError( ioe );
         }
         finally
         {
@@ -224,6 +461,246 @@ public class LateralTCPSender
         return response;
     }
 
+    /**
+     * Sends a request and returns without waiting for the response. If requests are not
+     * multiplexed, this waits for the response and returns a completed future.
+     * <p>
+     * @param led the request
+     * @return the future response, completed with null if there is none
+     * @throws IOException if the request could not be sent
+     */
+    public <K, V> CompletableFuture<Object> sendAndReceiveAsync( final LateralElementDescriptor<K, V> led )
+        throws IOException
+    {
+        if ( !multiplex || led == null )
+        {
+            return CompletableFuture.completedFuture( sendAndReceive( led ) );
+        }
+
+        final long requestId = requestIds.incrementAndGet();
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        pendingResponses.put( Long.valueOf( requestId ), future );
+        led.requestId = requestId;
+
+        startReadingResponses();
+
+        lock.lock();
+        try
+        {
+            // send what has been collected so far, then the request
+            flushBatch();
+            write( led );
+        }
+        catch ( final IOException ioe )
+        {
+            pendingResponses.remove( Long.valueOf( requestId ) );
+            throw channelError( ioe );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        return future;
+    }
+
+    /**
+     * Waits for a response for at most the socket timeout.
+     * <p>
+     * @param future the future response from {@link #sendAndReceiveAsync}
+     * @return the response
+     * @throws IOException if there is no response in time
+     */
+    public Object awaitResponse( final CompletableFuture<Object> future )
+        throws IOException
+    {
+        try
+        {
+            return future.get( socketSoTimeOut, TimeUnit.MILLISECONDS );
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for a response", e );
+        }
+        catch ( final ExecutionException e )
+        {
+            throw channelError( e.getCause() );
+        }
+        catch ( final TimeoutException e )
+        {
+            // the response will be dropped when it arrives
+            pendingResponses.values().remove( future );
+            throw channelError( e );
+        }
+    }
+
+    /**
+     * Logs a failed request.
+     * <p>
+     * @param cause the failure
+     * @return an exception to throw
+     */
+    private IOException channelError( final Throwable cause )
+    {
+        final String message = "Could not open channel to " +
+            getRemoteAddress() + " SoTimeout [" + socketSoTimeOut +
+            "] Connected [" + client.isOpen() + "]";
+        log.error( message, cause );
+        return new IOException( message, cause );
+    }
+
+    /**
+     * Starts reading responses from the channel unless that is already being done.
+     */
+    private void startReadingResponses()
+    {
+        if ( readingResponses.compareAndSet( false, true ) )
+        {
+            new ResponseReader().readLength();
+        }
+    }
+
+    /**
+     * Hands a response to the caller waiting for it.
+     * <p>
+     * @param frame the serialized response
+     */
+    private void dispatchResponse( final ByteBuffer frame )
+    {
+        try
+        {
+            final Object obj = serializer.deSerializeFrom( frame, null );
+            if ( !( obj instanceof LateralResponse ) )
+            {
+                log.warn( "Ignoring unexpected response {0}", obj );
+                return;
+            }
+
+            final LateralResponse<?> response = (LateralResponse<?>) obj;
+            final CompletableFuture<Object> future =
+                    pendingResponses.remove( Long.valueOf( response.getRequestId() ) );
+            if ( future == null )
+            {
+                log.debug( "Nobody is waiting for response {0} any more", response::getRequestId );
+                return;
+            }
+            future.complete( response.getPayload() );
+        }
+        catch ( final IOException | ClassNotFoundException e )
+        {
+            log.error( "Could not read response", e );
+        }
+    }
+
+    /**
+     * Fails all callers waiting for a response.
+     * <p>
+     * @param cause the failure
+     */
+    private void failPendingResponses( final Throwable cause )
+    {
+        readingResponses.set( false );
+        pendingResponses.keySet().forEach( id -> {
+            final CompletableFuture<Object> future = pendingResponses.remove( id );
+            if ( future != null )
+            {
+                future.completeExceptionally( cause );
+            }
+        } );
+    }
+
+    /**
+     * Reads the length prefixed response frames from the channel without tying up a thread.
+     */
+    private class ResponseReader
+        implements CompletionHandler<Integer, Void>
+    {
+        /** The length prefix of the frame being read */
+        private final ByteBuffer lengthBuffer = ByteBuffer.allocate( 4 );
+
+        /** The body of the frame being read, reused for the next frames */
+        private ByteBuffer frameBuffer = ByteBuffer.allocate( INITIAL_FRAME_BUFFER_SIZE );
+
+        /** Whether the length prefix is being read */
+        private boolean readingLength;
+
+        /**
+         * Starts reading the next frame.
+         */
+        void readLength()
+        {
+            lengthBuffer.clear();
+            readingLength = true;
+            client.read( lengthBuffer, null, this );
+        }
+
+        /**
+         * @see java.nio.channels.CompletionHandler#completed(java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public void completed( final Integer read, final Void attachment )
+        {
+            if ( read.intValue() < 0 )
+            {
+                failed( new EOFException( "End of stream reached" ), attachment );
+                return;
+            }
+
+            if ( readingLength )
+            {
+                if ( lengthBuffer.hasRemaining() )
+                {
+                    client.read( lengthBuffer, null, this );
+                    return;
+                }
+
+                lengthBuffer.flip();
+                final int length = lengthBuffer.getInt();
+                if ( length < 0 )
+                {
+                    failed( new IOException( "Invalid frame length " + length ), attachment );
+                    return;
+                }
+                if ( frameBuffer.capacity() < length )
+                {
+                    frameBuffer = ByteBuffer.allocate( length );
+                }
+                frameBuffer.clear();
+                frameBuffer.limit( length );
+                readingLength = false;
+            }
+
+            if ( frameBuffer.hasRemaining() )
+            {
+                client.read( frameBuffer, null, this );
+                return;
+            }
+
+            frameBuffer.flip();
+            dispatchResponse( frameBuffer );
+            if ( frameBuffer.capacity() > MAX_RETAINED_FRAME_BUFFER_SIZE )
+            {
+                // do not keep the memory of a large response
+                frameBuffer = ByteBuffer.allocate( INITIAL_FRAME_BUFFER_SIZE );
+            }
+            readLength();
+        }
+
+        /**
+         * @see java.nio.channels.CompletionHandler#failed(java.lang.Throwable, java.lang.Object)
+         */
+        @Override
+        public void failed( final Throwable exc, final Void attachment )
+        {
+            if ( client.isOpen() )
+            {
+                log.error( "Problem reading responses from {0}", getRemoteAddress(), exc );
+            }
+            failPendingResponses( exc );
+        }
+    }
+
     /**
      * Closes connection used by all LateralTCPSenders for this lateral connection. Dispose request
      * should come into the facade and be sent to all lateral cache services. The lateral cache
@@ -235,6 +712,21 @@ public class LateralTCPSender
         throws IOException
     {
         log.info( "Dispose called" );
+
+        lock.lock();
+        try
+        {
+            flushBatch();
+        }
+        catch ( final IOException e )
+        {
+            log.warn( "Could not send the pending batch", e );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
         client.close();
     }
 }
@@ -27,6 +27,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.jcs3.auxiliary.lateral.LateralCommand;
 import org.apache.commons.jcs3.auxiliary.lateral.LateralElementDescriptor;
@@ -42,6 +44,10 @@ import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 
 /**
  * A lateral cache service implementation. Does not implement getGroupKey
+ * <p>
+ * If a connection pool size greater than 1 is configured, additional connections are opened to
+ * the server. Updates and removes always use the first connection so that they arrive in order.
+ * Gets are spread over all connections, so a get may overtake an update that is still on its way.
  * TODO: Remove generics
  */
 public class LateralTCPService<K, V>
@@ -58,6 +64,12 @@ public class LateralTCPService<K, V>
     /** Sends to another lateral. */
     private final LateralTCPSender sender;
 
+    /** All connections to the other lateral, the first one is the sender */
+    private final LateralTCPSender[] senders;
+
+    /** Picks the connection for the next get */
+    private final AtomicInteger getSenderIndex = new AtomicInteger();
+
     /** use the vmid by default */
     private long listenerId = CacheInfo.listenerId;
 
@@ -91,14 +103,35 @@ public class LateralTCPService<K, V>
         this.allowPut = lca.isAllowPut();
         this.issueRemoveOnPut = lca.isIssueRemoveOnPut();
 
+        this.senders = new LateralTCPSender[Math.max( 1, lca.getConnectionPoolSize() )];
+
         try
         {
-            sender = new LateralTCPSender( lca, serializer );
+            for ( int i = 0; i < senders.length; i++ )
+            {
+                senders[i] = new LateralTCPSender( lca, serializer );
+            }
+            sender = senders[0];
 
-            log.debug( "Created sender to [{0}]", lca::getTcpServer);
+            log.debug( "Created {0} sender(s) to [{1}]", senders.length, lca.getTcpServer() );
         }
         catch ( final IOException e )
         {
+            for ( final LateralTCPSender created : senders )
+            {
+                if ( created != null )
+                {
+                    try
+                    {
+                        created.dispose();
+                    }
+                    catch ( final IOException de )
+                    {
+                        e.addSuppressed( de );
+                    }
+                }
+            }
+
             // log.error( "Could not create sender", e );
             // This gets thrown over and over in recovery mode.
             // The stack trace isn't useful here.
@@ -107,6 +140,19 @@ public class LateralTCPService<K, V>
         }
     }
 
+    /**
+     * @return the connection to use for the next get
+     */
+    private LateralTCPSender nextGetSender()
+    {
+        if ( senders.length == 1 )
+        {
+            return sender;
+        }
+
+        return senders[Math.floorMod( getSenderIndex.getAndIncrement(), senders.length )];
+    }
+
     /**
      * @param item
      * @throws IOException
@@ -209,7 +255,10 @@ public class LateralTCPService<K, V>
     public void dispose( final String cacheName )
         throws IOException
     {
-        sender.dispose();
+        for ( final LateralTCPSender s : senders )
+        {
+            s.dispose();
+        }
     }
 
     /**
@@ -247,7 +296,7 @@ public class LateralTCPService<K, V>
             // led.requesterId = requesterId; // later
             @SuppressWarnings("unchecked") // Need to cast from Object
             final
-            ICacheElement<K, V> response = (ICacheElement<K, V>)sender.sendAndReceive( led );
+            ICacheElement<K, V> response = (ICacheElement<K, V>)nextGetSender().sendAndReceive( led );
             return response;
         }
         // nothing needs to be done
@@ -295,7 +344,7 @@ public class LateralTCPService<K, V>
                 new LateralElementDescriptor<>(ce, LateralCommand.GET_MATCHING);
         // led.requesterId = requesterId; // later
 
-        final Object response = sender.sendAndReceive( led );
+        final Object response = nextGetSender().sendAndReceive( led );
         if ( response != null )
         {
             return (Map<K, ICacheElement<K, V>>) response;
@@ -320,9 +369,8 @@ public class LateralTCPService<K, V>
     }
 
     /**
-     * This issues a separate get for each item.
-     * <p>
-     * TODO We should change this. It should issue one request.
+     * This issues a separate get for each item. If requests are multiplexed, all gets are sent
+     * before waiting for the first response.
      * <p>
      * @param cacheName
      * @param keys
@@ -337,15 +385,29 @@ public class LateralTCPService<K, V>
     {
         final Map<K, ICacheElement<K, V>> elements = new HashMap<>();
 
-        if ( keys != null && !keys.isEmpty() )
+        if ( keys != null && !keys.isEmpty() && this.allowGet )
         {
+            final Map<K, CompletableFuture<Object>> responses = new HashMap<>();
+            final Map<K, LateralTCPSender> requestSenders = new HashMap<>();
             for (final K key : keys)
             {
-                final ICacheElement<K, V> element = get( cacheName, key, requesterId );
+                final CacheElement<K, V> ce = new CacheElement<>( cacheName, key, null );
+                final LateralElementDescriptor<K, V> led =
+                        new LateralElementDescriptor<>(ce, LateralCommand.GET);
+                final LateralTCPSender s = nextGetSender();
+                responses.put( key, s.sendAndReceiveAsync( led ) );
+                requestSenders.put( key, s );
+            }
+
+            for (final Map.Entry<K, CompletableFuture<Object>> response : responses.entrySet())
+            {
+                @SuppressWarnings("unchecked") // Need to cast from Object
+                final ICacheElement<K, V> element = (ICacheElement<K, V>)
+                        requestSenders.get( response.getKey() ).awaitResponse( response.getValue() );
 
                 if ( element != null )
                 {
-                    elements.put( key, element );
+                    elements.put( response.getKey(), element );
                 }
             }
         }
@@ -366,7 +428,7 @@ public class LateralTCPService<K, V>
         final LateralElementDescriptor<String, String> led =
                 new LateralElementDescriptor<>(ce, LateralCommand.GET_KEYSET);
         // led.requesterId = requesterId; // later
-        final Object response = sender.sendAndReceive(led);
+        final Object response = nextGetSender().sendAndReceive(led);
         if (response != null)
         {
             return (Set<K>) response;
@@ -457,4 +519,12 @@ public class LateralTCPService<K, V>
     {
         return listenerId;
     }
+
+    /**
+     * @return the sender of this service
+     */
+    protected LateralTCPSender getSender()
+    {
+        return sender;
+    }
 }
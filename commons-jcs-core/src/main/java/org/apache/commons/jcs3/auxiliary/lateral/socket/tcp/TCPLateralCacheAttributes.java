@@ -60,6 +60,24 @@ public class TCPLateralCacheAttributes
     /** default - Only block for 2 seconds before timing out on startup.*/
     private static final int DEFAULT_OPEN_TIMEOUT = 2000;
 
+    /** default number of threads handling received requests */
+    private static final int DEFAULT_TCP_LISTENER_THREAD_POOL_SIZE = 4;
+
+    /** default number of requests that may be pending for one connection */
+    private static final int DEFAULT_TCP_LISTENER_MAX_PENDING_REQUESTS = 100;
+
+    /** default number of descriptors sent in one frame, 1 disables batching */
+    private static final int DEFAULT_SEND_BATCH_SIZE = 1;
+
+    /** default time a descriptor may wait for a batch to fill up */
+    private static final int DEFAULT_SEND_BATCH_DELAY_MICROS = 500;
+
+    /** default for tagging requests with ids */
+    private static final boolean DEFAULT_MULTIPLEX_REQUESTS = false;
+
+    /** default number of connections to each server */
+    private static final int DEFAULT_CONNECTION_POOL_SIZE = 1;
+
     /** TCP -------------------------------------------- */
     private String tcpServers = "";
 
@@ -102,6 +120,24 @@ public class TCPLateralCacheAttributes
     /** Only block for openTimeOut seconds before timing out on startup. */
     private int openTimeOut = DEFAULT_OPEN_TIMEOUT;
 
+    /** The number of threads handling the requests received by the listener. */
+    private int tcpListenerThreadPoolSize = DEFAULT_TCP_LISTENER_THREAD_POOL_SIZE;
+
+    /** Stop reading from a connection once this many of its requests are waiting to be handled. */
+    private int tcpListenerMaxPendingRequests = DEFAULT_TCP_LISTENER_MAX_PENDING_REQUESTS;
+
+    /** The maximum number of descriptors the sender puts into one frame. */
+    private int sendBatchSize = DEFAULT_SEND_BATCH_SIZE;
+
+    /** How long the sender waits for more descriptors before sending an incomplete batch. */
+    private int sendBatchDelayMicros = DEFAULT_SEND_BATCH_DELAY_MICROS;
+
+    /** Tag requests with ids so that several can be in flight on one connection. */
+    private boolean multiplexRequests = DEFAULT_MULTIPLEX_REQUESTS;
+
+    /** The number of connections to each server. Gets are spread over all of them. */
+    private int connectionPoolSize = DEFAULT_CONNECTION_POOL_SIZE;
+
     /**
      * Sets the tcpServer attribute of the ILateralCacheAttributes object
      * <p>
@@ -420,6 +456,115 @@ public class TCPLateralCacheAttributes
         return openTimeOut;
     }
 
+    /**
+     * @param tcpListenerThreadPoolSize the number of threads handling received requests
+     */
+    @Override
+    public void setTcpListenerThreadPoolSize( final int tcpListenerThreadPoolSize )
+    {
+        this.tcpListenerThreadPoolSize = tcpListenerThreadPoolSize;
+    }
+
+    /**
+     * @return the number of threads handling received requests
+     */
+    @Override
+    public int getTcpListenerThreadPoolSize()
+    {
+        return tcpListenerThreadPoolSize;
+    }
+
+    /**
+     * @param tcpListenerMaxPendingRequests the number of requests that may be pending for one
+     *            connection
+     */
+    @Override
+    public void setTcpListenerMaxPendingRequests( final int tcpListenerMaxPendingRequests )
+    {
+        this.tcpListenerMaxPendingRequests = tcpListenerMaxPendingRequests;
+    }
+
+    /**
+     * @return the number of requests that may be pending for one connection
+     */
+    @Override
+    public int getTcpListenerMaxPendingRequests()
+    {
+        return tcpListenerMaxPendingRequests;
+    }
+
+    /**
+     * @param sendBatchSize the maximum number of descriptors in one frame
+     */
+    @Override
+    public void setSendBatchSize( final int sendBatchSize )
+    {
+        this.sendBatchSize = sendBatchSize;
+    }
+
+    /**
+     * @return the maximum number of descriptors in one frame
+     */
+    @Override
+    public int getSendBatchSize()
+    {
+        return sendBatchSize;
+    }
+
+    /**
+     * @param sendBatchDelayMicros the time a descriptor may wait for a batch to fill up
+     */
+    @Override
+    public void setSendBatchDelayMicros( final int sendBatchDelayMicros )
+    {
+        this.sendBatchDelayMicros = sendBatchDelayMicros;
+    }
+
+    /**
+     * @return the time a descriptor may wait for a batch to fill up
+     */
+    @Override
+    public int getSendBatchDelayMicros()
+    {
+        return sendBatchDelayMicros;
+    }
+
+    /**
+     * @param multiplexRequests whether requests are tagged with ids
+     */
+    @Override
+    public void setMultiplexRequests( final boolean multiplexRequests )
+    {
+        this.multiplexRequests = multiplexRequests;
+    }
+
+    /**
+     * @return whether requests are tagged with ids
+     */
+    @Override
+    public boolean isMultiplexRequests()
+    {
+        return multiplexRequests;
+    }
+
+    /**
+     * @param connectionPoolSize the number of connections to each server
+     */
+    @Override
+    public void setConnectionPoolSize( final int connectionPoolSize )
+    {
+        this.connectionPoolSize = connectionPoolSize;
+    }
+
+    /**
+     * @return the number of connections to each server
+     */
+    @Override
+    public int getConnectionPoolSize()
+    {
+        return connectionPoolSize;
+    }
+
     /**
      * Used to key the instance TODO create another method for this and use toString for debugging
      * only.
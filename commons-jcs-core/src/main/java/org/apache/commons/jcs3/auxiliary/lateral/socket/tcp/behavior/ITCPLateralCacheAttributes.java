@@ -246,4 +246,83 @@ public interface ITCPLateralCacheAttributes
      * @return the openTimeOut
      */
     int getOpenTimeOut();
+
+    /**
+     * The listener reads requests on a single thread and hands them to a pool of this size.
+     * Requests from the same connection are always handled in the order they were received.
+     * <p>
+     * @param tcpListenerThreadPoolSize the number of threads handling received requests
+     */
+    void setTcpListenerThreadPoolSize( int tcpListenerThreadPoolSize );
+
+    /**
+     * @return the number of threads handling received requests
+     */
+    int getTcpListenerThreadPoolSize();
+
+    /**
+     * The listener stops reading from a connection while this many of its requests are waiting to
+     * be handled, so that a fast sender cannot exhaust the memory of the receiver.
+     * <p>
+     * @param tcpListenerMaxPendingRequests the number of requests that may be pending for one
+     *            connection
+     */
+    void setTcpListenerMaxPendingRequests( int tcpListenerMaxPendingRequests );
+
+    /**
+     * @return the number of requests that may be pending for one connection
+     */
+    int getTcpListenerMaxPendingRequests();
+
+    /**
+     * If greater than 1, the sender collects updates and removes and sends up to this many of
+     * them in one frame. The listener applies them in order.
+     * <p>
+     * @param sendBatchSize the maximum number of descriptors in one frame
+     */
+    void setSendBatchSize( int sendBatchSize );
+
+    /**
+     * @return the maximum number of descriptors in one frame
+     */
+    int getSendBatchSize();
+
+    /**
+     * An incomplete batch is sent once its first descriptor has waited this long.
+     * <p>
+     * @param sendBatchDelayMicros the time a descriptor may wait for a batch to fill up
+     */
+    void setSendBatchDelayMicros( int sendBatchDelayMicros );
+
+    /**
+     * @return the time a descriptor may wait for a batch to fill up
+     */
+    int getSendBatchDelayMicros();
+
+    /**
+     * If true, requests that expect a response are tagged with an id and the listener tags its
+     * response with the same id. Many such requests can then be in flight on one connection at
+     * the same time. All listeners must support this.
+     * <p>
+     * @param multiplexRequests whether requests are tagged with ids
+     */
+    void setMultiplexRequests( boolean multiplexRequests );
+
+    /**
+     * @return whether requests are tagged with ids
+     */
+    boolean isMultiplexRequests();
+
+    /**
+     * The number of connections opened to each server. Updates and removes always use the first
+     * one to keep them in order, gets are spread over all of them.
+     * <p>
+     * @param connectionPoolSize the number of connections to each server
+     */
+    void setConnectionPoolSize( int connectionPoolSize );
+
+    /**
+     * @return the number of connections to each server
+     */
+    int getConnectionPoolSize();
 }
@@ -20,6 +20,7 @@ package org.apache.commons.jcs3.auxiliary.remote.http.client;
  */
 
 import org.apache.commons.jcs3.auxiliary.remote.RemoteCacheAttributes;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 
 /** Http client specific settings. */
 public class RemoteHttpCacheAttributes
@@ -61,6 +62,18 @@ public class RemoteHttpCacheAttributes
     /** This allows users to inject their own client implementation. */
     private String remoteHttpClientClassName = DEFAULT_REMOTE_HTTP_CLIENT_CLASS_NAME;
 
+    /** The default classname for the serializer of the requests and responses. */
+    public static final String DEFAULT_SERIALIZER_CLASS_NAME = StandardSerializer.class.getName();
+
+    /** The serializer of the requests and responses, must match the one of the server. */
+    private String serializerClassName = DEFAULT_SERIALIZER_CLASS_NAME;
+
+    /** How long concurrent requests are collected into one batch. 0 sends every request alone. */
+    private int batchWindowMillis;
+
+    /** The maximum number of requests in one batch. */
+    private int maxBatchSize = 100;
+
     /**
      * @param maxConnectionsPerHost the maxConnectionsPerHost to set
      */
@@ -205,6 +218,54 @@ public class RemoteHttpCacheAttributes
         return remoteHttpClientClassName;
     }
 
+    /**
+     * @param serializerClassName the serializerClassName to set
+     */
+    public void setSerializerClassName( final String serializerClassName )
+    {
+        this.serializerClassName = serializerClassName;
+    }
+
+    /**
+     * @return the serializerClassName
+     */
+    public String getSerializerClassName()
+    {
+        return serializerClassName;
+    }
+
+    /**
+     * @param batchWindowMillis the batchWindowMillis to set
+     */
+    public void setBatchWindowMillis( final int batchWindowMillis )
+    {
+        this.batchWindowMillis = batchWindowMillis;
+    }
+
+    /**
+     * @return the batchWindowMillis
+     */
+    public int getBatchWindowMillis()
+    {
+        return batchWindowMillis;
+    }
+
+    /**
+     * @param maxBatchSize the maxBatchSize to set
+     */
+    public void setMaxBatchSize( final int maxBatchSize )
+    {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return the maxBatchSize
+     */
+    public int getMaxBatchSize()
+    {
+        return maxBatchSize;
+    }
+
     /**
      * @return String details
      */
@@ -222,6 +283,9 @@ public class RemoteHttpCacheAttributes
         buf.append( "\n includeRequestTypeasAsParameter = [" + isIncludeRequestTypeasAsParameter() + "]" );
         buf.append( "\n url = [" + getUrl() + "]" );
         buf.append( "\n remoteHttpClientClassName = [" + getRemoteHttpClientClassName() + "]" );
+        buf.append( "\n serializerClassName = [" + getSerializerClassName() + "]" );
+        buf.append( "\n batchWindowMillis = [" + getBatchWindowMillis() + "]" );
+        buf.append( "\n maxBatchSize = [" + getMaxBatchSize() + "]" );
         buf.append( super.toString() );
         return buf.toString();
     }
@@ -27,6 +27,7 @@ import java.util.Set;
 
 import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheDispatcher;
 import org.apache.commons.jcs3.auxiliary.remote.http.client.behavior.IRemoteHttpCacheClient;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheBatchingDispatcher;
 import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheRequestFactory;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
@@ -76,7 +77,13 @@ public class RemoteHttpCacheClient<K, V>
     @Override
     public void initialize( final RemoteHttpCacheAttributes attributes )
     {
-        setRemoteDispatcher( new RemoteHttpCacheDispatcher( attributes ) );
+        IRemoteCacheDispatcher dispatcher = new RemoteHttpCacheDispatcher( attributes );
+        if ( attributes.getBatchWindowMillis() > 0 )
+        {
+            dispatcher = new RemoteCacheBatchingDispatcher( dispatcher, attributes.getBatchWindowMillis(),
+                                                            attributes.getMaxBatchSize() );
+        }
+        setRemoteDispatcher( dispatcher );
 
         log.info( "Created remote Dispatcher. {0}", this::getRemoteDispatcher);
         setInitialized( true );
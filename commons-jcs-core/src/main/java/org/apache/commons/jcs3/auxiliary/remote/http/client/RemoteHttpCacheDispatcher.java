@@ -26,8 +26,10 @@ import java.nio.charset.StandardCharsets;
 import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheDispatcher;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.config.OptionConverter;
 import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 import org.apache.http.HttpException;
 import org.apache.http.HttpResponse;
@@ -56,8 +58,8 @@ public class RemoteHttpCacheDispatcher
     /** The Logger. */
     private static final Log log = LogManager.getLog( RemoteHttpCacheDispatcher.class );
 
-    /** This needs to be standard, since the other side is standard */
-    private final StandardSerializer serializer = new StandardSerializer();
+    /** This needs to be the same as on the other side, standard by default */
+    private final IElementSerializer serializer;
 
     /**
      * @param remoteHttpCacheAttributes
@@ -65,6 +67,17 @@ public class RemoteHttpCacheDispatcher
     public RemoteHttpCacheDispatcher( final RemoteHttpCacheAttributes remoteHttpCacheAttributes )
     {
         super( remoteHttpCacheAttributes );
+        this.serializer = OptionConverter.instantiateByClassName(
+                remoteHttpCacheAttributes.getSerializerClassName(), new StandardSerializer() );
+    }
+
+    /**
+     * @return the serializer of the requests and responses
+     * @since 3.2
+     */
+    public IElementSerializer getSerializer()
+    {
+        return serializer;
     }
 
     /**
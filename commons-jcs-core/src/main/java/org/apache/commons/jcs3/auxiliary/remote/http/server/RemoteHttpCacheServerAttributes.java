@@ -20,6 +20,7 @@ package org.apache.commons.jcs3.auxiliary.remote.http.server;
  */
 
 import org.apache.commons.jcs3.auxiliary.AbstractAuxiliaryCacheAttributes;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 
 /**
  * Configuration for the RemoteHttpCacheServer. Most of these properties are used only by the
@@ -37,6 +38,9 @@ public class RemoteHttpCacheServerAttributes
     /** Can a cluster remote get from other remotes */
     private boolean allowClusterGet = true;
 
+    /** The serializer of the requests and responses, must match the one of the clients. */
+    private String serializerClassName = StandardSerializer.class.getName();
+
     /**
      * Should cluster updates be propagated to the locals
      * <p>
@@ -77,6 +81,22 @@ public class RemoteHttpCacheServerAttributes
         allowClusterGet = r;
     }
 
+    /**
+     * @param serializerClassName the serializerClassName to set
+     */
+    public void setSerializerClassName( final String serializerClassName )
+    {
+        this.serializerClassName = serializerClassName;
+    }
+
+    /**
+     * @return the serializerClassName
+     */
+    public String getSerializerClassName()
+    {
+        return serializerClassName;
+    }
+
     /**
      * @return String details
      */
@@ -88,6 +108,7 @@ public class RemoteHttpCacheServerAttributes
         buf.append( "\n cacheName = [" + this.getCacheName() + "]" );
         buf.append( "\n allowClusterGet = [" + this.isAllowClusterGet() + "]" );
         buf.append( "\n localClusterConsistency = [" + this.isLocalClusterConsistency() + "]" );
+        buf.append( "\n serializerClassName = [" + this.getSerializerClassName() + "]" );
         buf.append( "\n eventQueueType = [" + this.getEventQueueType() + "]" );
         buf.append( "\n eventQueuePoolName = [" + this.getEventQueuePoolName() + "]" );
         return buf.toString();
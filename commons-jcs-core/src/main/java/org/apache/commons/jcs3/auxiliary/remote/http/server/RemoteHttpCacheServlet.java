@@ -23,10 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Properties;
-import java.util.Set;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -37,15 +34,17 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.jcs3.access.exception.CacheException;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheConfigurator;
 import org.apache.commons.jcs3.auxiliary.remote.http.behavior.IRemoteHttpCacheConstants;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheRequestProcessor;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
-import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICacheServiceNonLocal;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
 import org.apache.commons.jcs3.engine.control.CompositeCacheManager;
 import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.config.OptionConverter;
 import org.apache.commons.jcs3.utils.config.PropertySetter;
 import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 
@@ -68,8 +67,8 @@ public class RemoteHttpCacheServlet
     /** The service that does the work. */
     private static ICacheServiceNonLocal<Serializable, Serializable> remoteCacheService;
 
-    /** This needs to be standard, since the other side is standard */
-    private static final StandardSerializer serializer = new StandardSerializer();
+    /** This needs to be the same as on the other side, standard by default */
+    private static IElementSerializer serializer = new StandardSerializer();
 
     /** Number of service calls. */
     private int serviceCalls;
@@ -99,6 +98,7 @@ public class RemoteHttpCacheServlet
         }
 
         remoteCacheService = createRemoteHttpCacheService( cacheMgr );
+        serializer = createSerializer( configureRemoteHttpCacheServerAttributes( cacheMgr.getConfigurationProperties() ) );
 
         super.init( config );
     }
@@ -188,78 +188,7 @@ public class RemoteHttpCacheServlet
      */
     protected RemoteCacheResponse<Object> processRequest( final RemoteCacheRequest<Serializable, Serializable> request )
     {
-        final RemoteCacheResponse<Object> response = new RemoteCacheResponse<>();
-
-        if ( request == null )
-        {
-            final String message = "The request is null. Cannot process";
-            log.warn( message );
-            response.setSuccess( false );
-            response.setErrorMessage( message );
-        }
-        else
-        {
-            try
-            {
-                switch ( request.getRequestType() )
-                {
-                    case GET:
-                        final ICacheElement<Serializable, Serializable> element =
-                            remoteCacheService.get( request.getCacheName(), request.getKey(), request.getRequesterId() );
-                        response.setPayload(element);
-                        break;
-                    case GET_MULTIPLE:
-                        final Map<Serializable, ICacheElement<Serializable, Serializable>> elementMap =
-                            remoteCacheService.getMultiple( request.getCacheName(), request.getKeySet(), request.getRequesterId() );
-                        if ( elementMap != null )
-                        {
-                            response.setPayload(new HashMap<>(elementMap));
-                        }
-                        break;
-                    case GET_MATCHING:
-                        final Map<Serializable, ICacheElement<Serializable, Serializable>> elementMapMatching =
-                            remoteCacheService.getMatching( request.getCacheName(), request.getPattern(), request.getRequesterId() );
-                        if ( elementMapMatching != null )
-                        {
-                            response.setPayload(new HashMap<>(elementMapMatching));
-                        }
-                        break;
-                    case REMOVE:
-                        remoteCacheService.remove( request.getCacheName(), request.getKey(), request.getRequesterId() );
-                        break;
-                    case REMOVE_ALL:
-                        remoteCacheService.removeAll( request.getCacheName(), request.getRequesterId() );
-                        break;
-                    case UPDATE:
-                        remoteCacheService.update( request.getCacheElement(), request.getRequesterId() );
-                        break;
-                    case ALIVE_CHECK:
-                    case DISPOSE:
-                        response.setSuccess( true );
-                        // DO NOTHING
-                        break;
-                    case GET_KEYSET:
-                        final Set<Serializable> keys = remoteCacheService.getKeySet( request.getCacheName() );
-                        response.setPayload( keys );
-                        break;
-                    default:
-                        final String message = "Unknown event type.  Cannot process " + request;
-                        log.warn( message );
-                        response.setSuccess( false );
-                        response.setErrorMessage( message );
-                        break;
-                }
-            }
-            catch ( final IOException e )
-            {
-                final String message = "Problem processing request. " + request + " Error: " + e.getMessage();
-                log.error( message, e );
-                response.setSuccess( false );
-                response.setErrorMessage( message );
-            }
-        }
-
-        return response;
+        return RemoteCacheRequestProcessor.processRequest( remoteCacheService, request );
     }
 
     /**
@@ -279,6 +208,18 @@ public class RemoteHttpCacheServlet
         return service;
     }
 
+    /**
+     * Creates the serializer of the requests and responses.
+     * <p>
+     * @param attributes
+     * @return the configured serializer, the StandardSerializer if it cannot be created
+     * @since 3.2
+     */
+    protected IElementSerializer createSerializer( final RemoteHttpCacheServerAttributes attributes )
+    {
+        return OptionConverter.instantiateByClassName( attributes.getSerializerClassName(), new StandardSerializer() );
+    }
+
     /**
      * Tries to get the event logger.
      * <p>
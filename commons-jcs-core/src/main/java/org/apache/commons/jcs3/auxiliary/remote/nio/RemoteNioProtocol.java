@@ -0,0 +1,414 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteRequestType;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+
+/**
+ * The binary protocol of the NIO remote cache.
+ * <p>
+ * Every request and every response travels in a frame: a four byte length of the rest of the
+ * frame, an eight byte request id and the body. The server answers every request with a response
+ * carrying the same id, so a client can have many requests in flight on one connection and the
+ * responses may arrive in any order.
+ * <p>
+ * The body of a request holds the request type, the requester id, the cache name, the key, the
+ * key set, the pattern, the cache element and the batched requests of a RemoteCacheRequest. The
+ * body of a response holds the success flag, the error message and the payload of a
+ * RemoteCacheResponse. Strings are written as UTF-8 and String keys are written directly. Only the
+ * other objects are passed to the element serializer, so the envelope costs a few bytes instead of
+ * a serialized object graph.
+ *
+ * @since 3.2
+ */
+public final class RemoteNioProtocol
+{
+    /** The length of the frame header in front of the body: length prefix and request id */
+    public static final int HEADER_LENGTH = 12;
+
+    /** The largest frame that is accepted unless configured otherwise */
+    public static final int DEFAULT_MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    /** Tag of a null value */
+    private static final byte NULL_VALUE = 0;
+
+    /** Tag of a String value */
+    private static final byte STRING_VALUE = 1;
+
+    /** Tag of a value written by the serializer */
+    private static final byte SERIALIZED_VALUE = 2;
+
+    /** No instances. */
+    private RemoteNioProtocol()
+    {
+    }
+
+    /**
+     * Puts the header in front of the body.
+     * <p>
+     * @param requestId the id of the request
+     * @param body the encoded request or response
+     * @return the frame, ready to be written
+     */
+    public static ByteBuffer frame( final long requestId, final byte[] body )
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate( HEADER_LENGTH + body.length );
+        buffer.putInt( 8 + body.length );
+        buffer.putLong( requestId );
+        buffer.put( body );
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @param frame a frame without the length prefix
+     * @return the request id of the frame
+     */
+    public static long getRequestId( final byte[] frame )
+    {
+        return ByteBuffer.wrap( frame ).getLong();
+    }
+
+    /**
+     * Encodes a request.
+     * <p>
+     * @param request the request
+     * @param serializer writes keys and elements that are not Strings
+     * @return the body of the request frame
+     * @throws IOException
+     */
+    public static <K, V> byte[] encodeRequest( final RemoteCacheRequest<K, V> request, final IElementSerializer serializer )
+        throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream( 128 );
+        try (DataOutputStream out = new DataOutputStream( bytes ))
+        {
+            writeRequest( out, request, serializer );
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a request.
+     * <p>
+     * @param frame a frame without the length prefix
+     * @param serializer reads keys and elements that are not Strings
+     * @return the request
+     * @throws IOException if the frame is malformed
+     * @throws ClassNotFoundException
+     */
+    public static <K, V> RemoteCacheRequest<K, V> decodeRequest( final byte[] frame, final IElementSerializer serializer )
+        throws IOException, ClassNotFoundException
+    {
+        try (DataInputStream in = bodyOf( frame ))
+        {
+            return readRequest( in, serializer, false );
+        }
+    }
+
+    /**
+     * Writes a request. The requests of a batch are written in place after the batch.
+     * <p>
+     * @param out the stream
+     * @param request the request
+     * @param serializer writes keys and elements that are not Strings
+     * @throws IOException
+     */
+    private static <K, V> void writeRequest( final DataOutputStream out, final RemoteCacheRequest<K, V> request,
+                                             final IElementSerializer serializer )
+        throws IOException
+    {
+        out.writeByte( request.getRequestType().ordinal() );
+        out.writeLong( request.getRequesterId() );
+        writeString( out, request.getCacheName() );
+        writeValue( out, request.getKey(), serializer );
+
+        final Set<K> keySet = request.getKeySet();
+        if ( keySet == null )
+        {
+            out.writeInt( -1 );
+        }
+        else
+        {
+            out.writeInt( keySet.size() );
+            for ( final K key : keySet )
+            {
+                writeValue( out, key, serializer );
+            }
+        }
+
+        writeString( out, request.getPattern() );
+        writeValue( out, request.getCacheElement(), serializer );
+
+        if ( request.getRequestType() != RemoteRequestType.BATCH )
+        {
+            return;
+        }
+
+        final List<RemoteCacheRequest<K, V>> requests = request.getRequests();
+        if ( requests == null )
+        {
+            out.writeInt( -1 );
+        }
+        else
+        {
+            out.writeInt( requests.size() );
+            for ( final RemoteCacheRequest<K, V> batched : requests )
+            {
+                writeRequest( out, batched, serializer );
+            }
+        }
+    }
+
+    /**
+     * @param in the stream
+     * @param serializer reads keys and elements that are not Strings
+     * @param batched whether the request is part of a batch
+     * @return a request written by {@link #writeRequest}
+     * @throws IOException if the request is malformed or a batch contains a batch
+     * @throws ClassNotFoundException
+     */
+    private static <K, V> RemoteCacheRequest<K, V> readRequest( final DataInputStream in, final IElementSerializer serializer,
+                                                                final boolean batched )
+        throws IOException, ClassNotFoundException
+    {
+        final RemoteCacheRequest<K, V> request = new RemoteCacheRequest<>();
+
+        final int type = in.readUnsignedByte();
+        final RemoteRequestType[] types = RemoteRequestType.values();
+        if ( type >= types.length )
+        {
+            throw new IOException( "Unknown request type " + type );
+        }
+        if ( batched && types[type] == RemoteRequestType.BATCH )
+        {
+            throw new IOException( "Nested batch requests are not supported" );
+        }
+        request.setRequestType( types[type] );
+        request.setRequesterId( in.readLong() );
+        request.setCacheName( readString( in ) );
+        request.setKey( readValue( in, serializer ) );
+
+        final int size = in.readInt();
+        if ( size >= 0 )
+        {
+            final Set<K> keySet = new HashSet<>();
+            for ( int i = 0; i < size; i++ )
+            {
+                keySet.add( readValue( in, serializer ) );
+            }
+            request.setKeySet( keySet );
+        }
+
+        request.setPattern( readString( in ) );
+        final ICacheElement<K, V> element = readValue( in, serializer );
+        request.setCacheElement( element );
+
+        final int count = request.getRequestType() == RemoteRequestType.BATCH ? in.readInt() : -1;
+        if ( count >= 0 )
+        {
+            final List<RemoteCacheRequest<K, V>> requests = new ArrayList<>( Math.min( count, in.available() ) );
+            for ( int i = 0; i < count; i++ )
+            {
+                requests.add( readRequest( in, serializer, true ) );
+            }
+            request.setRequests( requests );
+        }
+        return request;
+    }
+
+    /**
+     * Encodes a response.
+     * <p>
+     * @param response the response
+     * @param serializer writes a payload that is not a String
+     * @return the body of the response frame
+     * @throws IOException
+     */
+    public static byte[] encodeResponse( final RemoteCacheResponse<?> response, final IElementSerializer serializer )
+        throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream( 128 );
+        try (DataOutputStream out = new DataOutputStream( bytes ))
+        {
+            out.writeBoolean( response.isSuccess() );
+            writeString( out, response.getErrorMessage() );
+            writeValue( out, response.getPayload(), serializer );
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a response.
+     * <p>
+     * @param frame a frame without the length prefix
+     * @param serializer reads a payload that is not a String
+     * @return the response
+     * @throws IOException if the frame is malformed
+     * @throws ClassNotFoundException
+     */
+    public static <T> RemoteCacheResponse<T> decodeResponse( final byte[] frame, final IElementSerializer serializer )
+        throws IOException, ClassNotFoundException
+    {
+        try (DataInputStream in = bodyOf( frame ))
+        {
+            final RemoteCacheResponse<T> response = new RemoteCacheResponse<>();
+            response.setSuccess( in.readBoolean() );
+            response.setErrorMessage( readString( in ) );
+            response.setPayload( readValue( in, serializer ) );
+            return response;
+        }
+    }
+
+    /**
+     * @param frame a frame without the length prefix
+     * @return a stream over the body of the frame
+     */
+    private static DataInputStream bodyOf( final byte[] frame )
+    {
+        return new DataInputStream( new ByteArrayInputStream( frame, 8, frame.length - 8 ) );
+    }
+
+    /**
+     * Writes a string that may be null and may be longer than DataOutput.writeUTF allows.
+     * <p>
+     * @param out the stream
+     * @param s the string
+     * @throws IOException
+     */
+    private static void writeString( final DataOutputStream out, final String s )
+        throws IOException
+    {
+        if ( s == null )
+        {
+            out.writeInt( -1 );
+            return;
+        }
+
+        final byte[] utf8 = s.getBytes( StandardCharsets.UTF_8 );
+        out.writeInt( utf8.length );
+        out.write( utf8 );
+    }
+
+    /**
+     * @param in the stream
+     * @return a string written by {@link #writeString}
+     * @throws IOException
+     */
+    private static String readString( final DataInputStream in )
+        throws IOException
+    {
+        final byte[] utf8 = readBytes( in );
+        return utf8 == null ? null : new String( utf8, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Writes a value with a tag telling how it is encoded.
+     * <p>
+     * @param out the stream
+     * @param value the value
+     * @param serializer used for values that are not Strings
+     * @throws IOException
+     */
+    private static void writeValue( final DataOutputStream out, final Object value, final IElementSerializer serializer )
+        throws IOException
+    {
+        if ( value == null )
+        {
+            out.writeByte( NULL_VALUE );
+        }
+        else if ( value instanceof String )
+        {
+            out.writeByte( STRING_VALUE );
+            writeString( out, (String) value );
+        }
+        else
+        {
+            final byte[] serialized = serializer.serialize( value );
+            out.writeByte( SERIALIZED_VALUE );
+            out.writeInt( serialized.length );
+            out.write( serialized );
+        }
+    }
+
+    /**
+     * @param in the stream
+     * @param serializer used for values that are not Strings
+     * @return a value written by {@link #writeValue}
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @SuppressWarnings("unchecked") // The caller knows the type
+    private static <T> T readValue( final DataInputStream in, final IElementSerializer serializer )
+        throws IOException, ClassNotFoundException
+    {
+        final byte tag = in.readByte();
+        switch ( tag )
+        {
+            case NULL_VALUE:
+                return null;
+            case STRING_VALUE:
+                return (T) readString( in );
+            case SERIALIZED_VALUE:
+                return serializer.deSerialize( readBytes( in ), null );
+            default:
+                throw new IOException( "Unknown value tag " + tag );
+        }
+    }
+
+    /**
+     * @param in the stream
+     * @return the length prefixed bytes, null if the length is negative
+     * @throws IOException
+     */
+    private static byte[] readBytes( final DataInputStream in )
+        throws IOException
+    {
+        final int length = in.readInt();
+        if ( length < 0 )
+        {
+            return null;
+        }
+        if ( length > in.available() )
+        {
+            throw new IOException( "Value length " + length + " exceeds the frame" );
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully( bytes );
+        return bytes;
+    }
+}
@@ -0,0 +1,35 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio.behavior;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Constants used throughout the NIO remote cache.
+ *
+ * @since 3.2
+ */
+public interface IRemoteNioCacheConstants
+{
+    /** The prefix for cache server config. */
+    String NIO_CACHE_SERVER_PREFIX = "jcs.remoteniocache";
+
+    /** All of the RemoteNioCacheServerAttributes can be configured this way. */
+    String NIO_CACHE_SERVER_ATTRIBUTES_PROPERTY_PREFIX = NIO_CACHE_SERVER_PREFIX
+        + ".serverattributes";
+}
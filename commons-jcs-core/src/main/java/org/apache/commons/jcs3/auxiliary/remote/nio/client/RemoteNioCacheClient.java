@@ -0,0 +1,104 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio.client;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+
+import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheDispatcher;
+import org.apache.commons.jcs3.auxiliary.remote.http.client.RemoteHttpCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.remote.http.client.RemoteHttpCacheClient;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheBatchingDispatcher;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+
+/**
+ * A client for the RemoteNioCacheServer. It sends the requests of the RemoteHttpCacheClient
+ * through a RemoteNioCacheDispatcher, so it can be plugged into the RemoteHttpCacheFactory by
+ * setting the RemoteHttpClientClassName. The url of the attributes is the host:port of the
+ * server.
+ *
+ * @since 3.2
+ */
+public class RemoteNioCacheClient<K, V>
+    extends RemoteHttpCacheClient<K, V>
+{
+    /** The Logger. */
+    private static final Log log = LogManager.getLog( RemoteNioCacheClient.class );
+
+    /**
+     * For factory construction.
+     */
+    public RemoteNioCacheClient()
+    {
+        // does nothing
+    }
+
+    /**
+     * Constructs a client.
+     * <p>
+     * @param attributes
+     */
+    public RemoteNioCacheClient( final RemoteHttpCacheAttributes attributes )
+    {
+        setRemoteHttpCacheAttributes( attributes );
+        initialize( attributes );
+    }
+
+    /**
+     * Creates the dispatcher. The connection is opened on the first request. Requests are
+     * batched if a batch window is configured.
+     * <p>
+     * @param attributes
+     */
+    @Override
+    public void initialize( final RemoteHttpCacheAttributes attributes )
+    {
+        IRemoteCacheDispatcher dispatcher = new RemoteNioCacheDispatcher( attributes );
+        if ( attributes.getBatchWindowMillis() > 0 )
+        {
+            dispatcher = new RemoteCacheBatchingDispatcher( dispatcher, attributes.getBatchWindowMillis(),
+                                                            attributes.getMaxBatchSize() );
+        }
+        setRemoteDispatcher( dispatcher );
+
+        log.info( "Created remote Dispatcher. {0}", this::getRemoteDispatcher );
+        setInitialized( true );
+    }
+
+    /**
+     * Closes the connection.
+     * <p>
+     * @throws IOException
+     */
+    @Override
+    public void release()
+        throws IOException
+    {
+        IRemoteCacheDispatcher dispatcher = getRemoteDispatcher();
+        if ( dispatcher instanceof RemoteCacheBatchingDispatcher )
+        {
+            dispatcher = ( (RemoteCacheBatchingDispatcher) dispatcher ).getDispatcher();
+        }
+        if ( dispatcher instanceof RemoteNioCacheDispatcher )
+        {
+            ( (RemoteNioCacheDispatcher) dispatcher ).close();
+        }
+    }
+}
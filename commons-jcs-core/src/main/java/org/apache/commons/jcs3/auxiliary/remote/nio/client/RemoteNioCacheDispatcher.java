@@ -0,0 +1,441 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio.client;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.jcs3.auxiliary.remote.RemoteLocation;
+import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheDispatcher;
+import org.apache.commons.jcs3.auxiliary.remote.http.client.RemoteHttpCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.remote.nio.RemoteNioProtocol;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.config.OptionConverter;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+
+/**
+ * Sends the requests to a RemoteNioCacheServer over one connection.
+ * <p>
+ * Every request is tagged with an id. The lock on the connection is only held while writing a
+ * request, and a reader thread hands the responses to the waiting callers by their id, so many
+ * requests can be in flight at once. The connection is opened on the first request and opened
+ * again on the next request after it failed.
+ * <p>
+ * A write that does not finish within the socket timeout closes the connection, so a stalled
+ * server cannot block the other callers forever. Responses larger than
+ * {@link RemoteNioProtocol#DEFAULT_MAX_FRAME_SIZE} bytes are rejected.
+ *
+ * @since 3.2
+ */
+public class RemoteNioCacheDispatcher
+    implements IRemoteCacheDispatcher
+{
+    /** The Logger. */
+    private static final Log log = LogManager.getLog( RemoteNioCacheDispatcher.class );
+
+    /** This needs to be the same as on the other side, standard by default */
+    private final IElementSerializer serializer;
+
+    /** The configuration */
+    private final RemoteHttpCacheAttributes remoteHttpCacheAttributes;
+
+    /** The address of the server */
+    private final RemoteLocation location;
+
+    /** Source of the request ids */
+    private final AtomicLong requestIds = new AtomicLong();
+
+    /** Guards the connection and the writes to it */
+    private final Lock lock = new ReentrantLock();
+
+    /** The connection, null until opened (guarded by lock) */
+    private Connection connection;
+
+    /**
+     * @param remoteHttpCacheAttributes the configuration, the url is the host:port of the server
+     */
+    public RemoteNioCacheDispatcher( final RemoteHttpCacheAttributes remoteHttpCacheAttributes )
+    {
+        this.remoteHttpCacheAttributes = remoteHttpCacheAttributes;
+        this.serializer = OptionConverter.instantiateByClassName(
+                remoteHttpCacheAttributes.getSerializerClassName(), new StandardSerializer() );
+        final String url = remoteHttpCacheAttributes.getUrl();
+        this.location = url == null ? null : RemoteLocation.parseServerAndPort( url );
+    }
+
+    /**
+     * Sends the request and waits for the response for at most the socket timeout.
+     * <p>
+     * @param remoteCacheRequest
+     * @return RemoteCacheResponse
+     * @throws IOException if the request could not be sent or there is no response in time
+     */
+    @Override
+    public <K, V, T> RemoteCacheResponse<T> dispatchRequest( final RemoteCacheRequest<K, V> remoteCacheRequest )
+        throws IOException
+    {
+        final byte[] body = RemoteNioProtocol.encodeRequest( remoteCacheRequest, serializer );
+        final Long requestId = Long.valueOf( requestIds.incrementAndGet() );
+        final ByteBuffer frame = RemoteNioProtocol.frame( requestId.longValue(), body );
+        final CompletableFuture<RemoteCacheResponse<?>> future = new CompletableFuture<>();
+
+        final Connection current;
+        lock.lock();
+        try
+        {
+            current = getConnection();
+            current.pendingResponses.put( requestId, future );
+            current.write( frame );
+        }
+        catch ( final IOException e )
+        {
+            throw new IOException( "Could not send request to " + location + ". Error: " + e.getMessage(), e );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        return awaitResponse( current, requestId, future );
+    }
+
+    /**
+     * Waits for a response for at most the socket timeout.
+     * <p>
+     * @param current the connection the request was sent on
+     * @param requestId the id of the request
+     * @param future the future response
+     * @return the response
+     * @throws IOException if there is no response in time
+     */
+    @SuppressWarnings("unchecked") // The caller knows the type of the payload
+    private <T> RemoteCacheResponse<T> awaitResponse( final Connection current, final Long requestId,
+                                                      final CompletableFuture<RemoteCacheResponse<?>> future )
+        throws IOException
+    {
+        try
+        {
+            return (RemoteCacheResponse<T>) future.get( remoteHttpCacheAttributes.getSocketTimeoutMillis(), TimeUnit.MILLISECONDS );
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for a response", e );
+        }
+        catch ( final ExecutionException e )
+        {
+            throw new IOException( "No response from " + location + ". Error: " + e.getCause().getMessage(), e.getCause() );
+        }
+        catch ( final TimeoutException e )
+        {
+            // the response will be dropped when it arrives
+            current.pendingResponses.remove( requestId );
+            throw new IOException( "No response from " + location + " within "
+                    + remoteHttpCacheAttributes.getSocketTimeoutMillis() + " ms", e );
+        }
+    }
+
+    /**
+     * Opens the connection unless it is open. (guarded by lock)
+     * <p>
+     * @return the connection
+     * @throws IOException if the connection cannot be opened
+     */
+    private Connection getConnection()
+        throws IOException
+    {
+        if ( connection != null && connection.socketChannel.isOpen() )
+        {
+            return connection;
+        }
+        if ( location == null )
+        {
+            throw new IOException( "Invalid server address " + remoteHttpCacheAttributes.getUrl() );
+        }
+
+        final SocketChannel socketChannel = SocketChannel.open();
+        try
+        {
+            socketChannel.socket().connect( new InetSocketAddress( location.getHost(), location.getPort() ),
+                    remoteHttpCacheAttributes.getConnectionTimeoutMillis() );
+            socketChannel.socket().setTcpNoDelay( true );
+            connection = new Connection( socketChannel );
+        }
+        catch ( final IOException e )
+        {
+            socketChannel.close();
+            throw e;
+        }
+
+        log.info( "Connected to server at {0}", location );
+
+        final Thread reader = new Thread( connection::readResponses, "JCS-RemoteNioCacheDispatcher-" + location );
+        reader.setDaemon( true );
+        reader.start();
+
+        return connection;
+    }
+
+    /**
+     * Closes the connection. The next request opens it again.
+     */
+    public void close()
+    {
+        lock.lock();
+        try
+        {
+            if ( connection != null )
+            {
+                connection.close( new IOException( "Dispatcher closed" ) );
+                connection = null;
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * One connection to the server and the callers waiting for a response on it.
+     */
+    private class Connection
+    {
+        /** The channel of the connection, non-blocking */
+        private final SocketChannel socketChannel;
+
+        /** Waits until the channel can be read, used by the reader thread only */
+        private final Selector readSelector;
+
+        /** Waits until the channel can be written (guarded by lock) */
+        private final Selector writeSelector;
+
+        /** The callers waiting for a response, by request id */
+        private final ConcurrentHashMap<Long, CompletableFuture<RemoteCacheResponse<?>>> pendingResponses =
+                new ConcurrentHashMap<>();
+
+        /**
+         * @param socketChannel the connected channel
+         * @throws IOException if the selectors cannot be opened
+         */
+        Connection( final SocketChannel socketChannel )
+            throws IOException
+        {
+            this.socketChannel = socketChannel;
+            this.readSelector = Selector.open();
+            this.writeSelector = Selector.open();
+            socketChannel.configureBlocking( false );
+            socketChannel.register( readSelector, SelectionKey.OP_READ );
+            socketChannel.register( writeSelector, SelectionKey.OP_WRITE );
+        }
+
+        /**
+         * Writes a request frame within the socket timeout. (guarded by lock)
+         * <p>
+         * @param frame the request frame
+         * @throws IOException if the connection failed or the write timed out, it is closed then
+         */
+        void write( final ByteBuffer frame )
+            throws IOException
+        {
+            final int timeout = remoteHttpCacheAttributes.getSocketTimeoutMillis();
+            final long deadline = System.currentTimeMillis() + timeout;
+            try
+            {
+                while ( frame.hasRemaining() )
+                {
+                    if ( socketChannel.write( frame ) > 0 )
+                    {
+                        continue;
+                    }
+
+                    final long wait = deadline - System.currentTimeMillis();
+                    if ( wait <= 0 )
+                    {
+                        throw new SocketTimeoutException( "Write timeout exceeded " + timeout );
+                    }
+                    writeSelector.select( wait );
+                    writeSelector.selectedKeys().clear();
+                }
+            }
+            catch ( final IOException e )
+            {
+                close( e );
+                throw e;
+            }
+        }
+
+        /**
+         * Reads the response frames and hands them to the waiting callers until the connection
+         * fails. Runs on a thread of its own.
+         */
+        void readResponses()
+        {
+            final ByteBuffer lengthBuffer = ByteBuffer.allocate( 4 );
+            try
+            {
+                while ( true )
+                {
+                    lengthBuffer.clear();
+                    readFully( lengthBuffer );
+                    lengthBuffer.flip();
+                    final int length = lengthBuffer.getInt();
+                    if ( length < 8 || length > RemoteNioProtocol.DEFAULT_MAX_FRAME_SIZE )
+                    {
+                        throw new IOException( "Invalid frame length " + length );
+                    }
+
+                    final ByteBuffer frameBuffer = ByteBuffer.allocate( length );
+                    readFully( frameBuffer );
+                    dispatchResponse( frameBuffer.array() );
+                }
+            }
+            catch ( final IOException e )
+            {
+                if ( socketChannel.isOpen() )
+                {
+                    log.info( "Caught {0}, closing connection.", e.getClass().getSimpleName(), e );
+                }
+                close( e );
+            }
+            finally
+            {
+                closeSelectors();
+            }
+        }
+
+        /**
+         * Closes the selectors once the reader is done. The write selector is closed with the lock
+         * held, so no writer is waiting on it.
+         */
+        private void closeSelectors()
+        {
+            lock.lock();
+            try
+            {
+                writeSelector.close();
+                readSelector.close();
+            }
+            catch ( final IOException e )
+            {
+                log.error( "Error while closing selectors", e );
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Fills the buffer from the channel.
+         * <p>
+         * @param buffer the buffer
+         * @throws IOException if the end of the stream is reached
+         */
+        private void readFully( final ByteBuffer buffer )
+            throws IOException
+        {
+            while ( buffer.hasRemaining() )
+            {
+                final int read = socketChannel.read( buffer );
+                if ( read < 0 )
+                {
+                    throw new EOFException( "End of stream reached" );
+                }
+                if ( read == 0 )
+                {
+                    readSelector.select();
+                    readSelector.selectedKeys().clear();
+                }
+            }
+        }
+
+        /**
+         * Hands a response to the caller waiting for it.
+         * <p>
+         * @param frame the response frame without the length prefix
+         */
+        private void dispatchResponse( final byte[] frame )
+        {
+            final Long requestId = Long.valueOf( RemoteNioProtocol.getRequestId( frame ) );
+            final CompletableFuture<RemoteCacheResponse<?>> future = pendingResponses.remove( requestId );
+            if ( future == null )
+            {
+                log.debug( "Nobody is waiting for response {0} any more", requestId );
+                return;
+            }
+
+            try
+            {
+                future.complete( RemoteNioProtocol.decodeResponse( frame, serializer ) );
+            }
+            catch ( final IOException | ClassNotFoundException e )
+            {
+                log.error( "Could not read response {0}", requestId, e );
+                future.completeExceptionally( e );
+            }
+        }
+
+        /**
+         * Closes the connection and fails all callers waiting for a response on it.
+         * <p>
+         * @param cause the failure
+         */
+        void close( final Throwable cause )
+        {
+            try
+            {
+                socketChannel.close();
+            }
+            catch ( final IOException e )
+            {
+                log.error( "Error while closing connection", e );
+            }
+            readSelector.wakeup();
+            writeSelector.wakeup();
+
+            pendingResponses.keySet().forEach( id -> {
+                final CompletableFuture<RemoteCacheResponse<?>> future = pendingResponses.remove( id );
+                if ( future != null )
+                {
+                    future.completeExceptionally( cause );
+                }
+            } );
+        }
+    }
+}
@@ -0,0 +1,693 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio.server;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.jcs3.auxiliary.remote.nio.RemoteNioProtocol;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheRequestProcessor;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.engine.behavior.ICacheServiceNonLocal;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.config.OptionConverter;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.apache.commons.jcs3.utils.threadpool.PoolConfiguration;
+import org.apache.commons.jcs3.utils.threadpool.PoolConfiguration.WhenBlockedPolicy;
+import org.apache.commons.jcs3.utils.threadpool.ThreadPoolManager;
+
+/**
+ * A remote cache server that speaks the binary protocol of {@link RemoteNioProtocol} over plain
+ * sockets.
+ * <p>
+ * One selector thread accepts the connections and assembles the request frames. The requests are
+ * decoded and applied to the service by a pool of worker threads, so the requests of one
+ * connection are processed concurrently and answered as soon as they are done. The service is
+ * any ICacheServiceNonLocal, typically a RemoteHttpCacheService on the local cache manager.
+ *
+ * @since 3.2
+ */
+public class RemoteNioCacheServer<K, V>
+{
+    /** The logger */
+    private static final Log log = LogManager.getLog( RemoteNioCacheServer.class );
+
+    /** The service that does the work */
+    private final ICacheServiceNonLocal<K, V> service;
+
+    /** The configuration */
+    private final RemoteNioCacheServerAttributes attributes;
+
+    /** Reads and writes the values that are not Strings */
+    private final IElementSerializer serializer;
+
+    /** The server socket, null until started */
+    private ServerSocketChannel serverSocket;
+
+    /** The selector of the selector thread */
+    private volatile Selector selector;
+
+    /** The selector thread, null unless running */
+    private Thread selectorThread;
+
+    /** Processes the requests */
+    private ExecutorService pooledExecutor;
+
+    /** Tasks for the selector thread */
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+
+    /** Set to stop the selector thread */
+    private final AtomicBoolean terminated = new AtomicBoolean();
+
+    /** The number of requests received */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /** The number of open connections */
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    /**
+     * Creates a server that uses the serializer of the attributes.
+     * <p>
+     * @param service the service that does the work
+     * @param attributes the configuration
+     */
+    public RemoteNioCacheServer( final ICacheServiceNonLocal<K, V> service, final RemoteNioCacheServerAttributes attributes )
+    {
+        this( service, attributes,
+              OptionConverter.instantiateByClassName( attributes.getSerializerClassName(), new StandardSerializer() ) );
+    }
+
+    /**
+     * @param service the service that does the work
+     * @param attributes the configuration
+     * @param serializer reads and writes the values that are not Strings, must match the clients
+     */
+    public RemoteNioCacheServer( final ICacheServiceNonLocal<K, V> service, final RemoteNioCacheServerAttributes attributes,
+                                 final IElementSerializer serializer )
+    {
+        this.service = service;
+        this.attributes = attributes;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Binds the server socket and starts the selector thread.
+     * <p>
+     * @throws IOException if the socket cannot be bound
+     */
+    public synchronized void start()
+        throws IOException
+    {
+        if ( selectorThread != null )
+        {
+            throw new IllegalStateException( "Server already started." );
+        }
+
+        final String host = attributes.getHost();
+        final InetSocketAddress endPoint = host != null && !host.isEmpty()
+                ? new InetSocketAddress( host, attributes.getPort() )
+                : new InetSocketAddress( attributes.getPort() );
+
+        serverSocket = ServerSocketChannel.open();
+        try
+        {
+            serverSocket.bind( endPoint );
+            serverSocket.configureBlocking( false );
+            selector = Selector.open();
+            serverSocket.register( selector, SelectionKey.OP_ACCEPT );
+        }
+        catch ( final IOException e )
+        {
+            serverSocket.close();
+            if ( selector != null )
+            {
+                selector.close();
+                selector = null;
+            }
+            throw e;
+        }
+
+        final int port = getPort();
+        final int poolSize = Math.max( 1, attributes.getThreadPoolSize() );
+        // Unbounded, so that the selector thread never waits for or runs a request itself.
+        // A connection stops being read from while MaxPendingRequests of its requests are waiting.
+        pooledExecutor = ThreadPoolManager.getInstance().createPool(
+                new PoolConfiguration( false, 0, poolSize, poolSize, 0,
+                        WhenBlockedPolicy.ABORT, poolSize ),
+                "JCS-RemoteNioCacheServer-" + port + "-" );
+
+        terminated.set( false );
+        final Selector sel = selector;
+        selectorThread = new Thread( () -> runSelector( sel ), "JCS-RemoteNioCacheServer-" + port );
+        selectorThread.setDaemon( true );
+        selectorThread.start();
+
+        log.info( "Listening on {0} with {1}", serverSocket.getLocalAddress(), attributes );
+    }
+
+    /**
+     * Closes the server socket and all connections. Requests that have not been answered yet are
+     * dropped.
+     */
+    public synchronized void shutdown()
+    {
+        if ( selectorThread == null )
+        {
+            return;
+        }
+
+        log.info( "Shutting down on port {0}", getPort() );
+        terminated.set( true );
+        final Selector sel = selector;
+        if ( sel != null )
+        {
+            sel.wakeup();
+        }
+        try
+        {
+            selectorThread.join( 5000 );
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        selectorThread = null;
+    }
+
+    /**
+     * @return the port the server listens on, the configured one if it has not been started
+     */
+    public int getPort()
+    {
+        final ServerSocketChannel socket = serverSocket;
+        if ( socket != null && socket.socket().getLocalPort() > 0 )
+        {
+            return socket.socket().getLocalPort();
+        }
+        return attributes.getPort();
+    }
+
+    /**
+     * @return the number of requests received
+     */
+    public long getRequestCount()
+    {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of open connections
+     */
+    public int getConnectionCount()
+    {
+        return connectionCount.get();
+    }
+
+    /**
+     * Accepts connections, reads requests and writes what the workers could not write right away,
+     * until the server is shut down.
+     * <p>
+     * @param sel the selector
+     */
+    private void runSelector( final Selector sel )
+    {
+        try
+        {
+            while ( !terminated.get() )
+            {
+                sel.select();
+
+                for ( Runnable task = selectorTasks.poll(); task != null; task = selectorTasks.poll() )
+                {
+                    task.run();
+                }
+
+                for ( final Iterator<SelectionKey> i = sel.selectedKeys().iterator(); i.hasNext(); )
+                {
+                    final SelectionKey key = i.next();
+                    i.remove();
+
+                    if ( terminated.get() )
+                    {
+                        break;
+                    }
+                    if ( !key.isValid() )
+                    {
+                        continue;
+                    }
+
+                    if ( key.isAcceptable() )
+                    {
+                        accept( (ServerSocketChannel) key.channel(), sel );
+                        continue;
+                    }
+
+                    final RemoteNioCacheServer<?, ?>.Connection connection =
+                        (RemoteNioCacheServer<?, ?>.Connection) key.attachment();
+
+                    if ( key.isReadable() )
+                    {
+                        connection.read();
+                    }
+
+                    if ( key.isValid() && key.isWritable() )
+                    {
+                        connection.flush();
+                    }
+                }
+            }
+        }
+        catch ( final IOException e )
+        {
+            log.error( "Exception caught in selector thread", e );
+        }
+        finally
+        {
+            sel.keys().forEach( key -> {
+                if ( key.channel() instanceof SocketChannel )
+                {
+                    ( (RemoteNioCacheServer<?, ?>.Connection) key.attachment() ).close( null );
+                }
+            } );
+
+            selector = null;
+            selectorTasks.clear();
+            pooledExecutor.shutdownNow();
+
+            try
+            {
+                serverSocket.close();
+                sel.close();
+            }
+            catch ( final IOException e )
+            {
+                log.error( "Exception closing server socket", e );
+            }
+        }
+    }
+
+    /**
+     * Accepts a connection and registers it for reading.
+     * <p>
+     * @param server the server socket
+     * @param sel the selector
+     * @throws IOException
+     */
+    private void accept( final ServerSocketChannel server, final Selector sel )
+        throws IOException
+    {
+        final SocketChannel client = server.accept();
+        if ( client == null )
+        {
+            //may happen in non-blocking mode
+            return;
+        }
+
+        log.info( "Connected to client at {0}", client.getRemoteAddress() );
+
+        client.configureBlocking( false );
+        client.socket().setTcpNoDelay( true );
+        final SelectionKey clientKey = client.register( sel, SelectionKey.OP_READ );
+        clientKey.attach( new Connection( clientKey ) );
+        connectionCount.incrementAndGet();
+    }
+
+    /**
+     * Runs the task on the selector thread and wakes it up.
+     * <p>
+     * @param task the task, typically a change of the interest set of a key
+     */
+    private void runOnSelector( final Runnable task )
+    {
+        final Selector sel = selector;
+        if ( sel != null )
+        {
+            selectorTasks.add( task );
+            sel.wakeup();
+        }
+    }
+
+    /**
+     * @param message the error message
+     * @return a failed response
+     */
+    private static RemoteCacheResponse<Object> errorResponse( final String message )
+    {
+        final RemoteCacheResponse<Object> response = new RemoteCacheResponse<>();
+        response.setSuccess( false );
+        response.setErrorMessage( message );
+        return response;
+    }
+
+    /**
+     * The state of one client connection. The frames are assembled by the selector thread and
+     * handed to the worker threads one by one.
+     */
+    private class Connection
+    {
+        /** The key of the connection */
+        private final SelectionKey key;
+
+        /** The channel of the connection */
+        private final SocketChannel socketChannel;
+
+        /** The length prefix of the frame being read */
+        private final ByteBuffer lengthBuffer = ByteBuffer.allocate( 4 );
+
+        /** The rest of the frame being read, null while reading the length prefix */
+        private ByteBuffer frameBuffer;
+
+        /** The number of requests that have not been answered (guarded by this) */
+        private int pending;
+
+        /** Whether reading has been suspended because too many requests are pending (guarded by this) */
+        private boolean readSuspended;
+
+        /** Responses waiting to be written (guarded by itself) */
+        private final Queue<ByteBuffer> responses = new ArrayDeque<>();
+
+        /**
+         * @param key the key of the connection
+         */
+        Connection( final SelectionKey key )
+        {
+            this.key = key;
+            this.socketChannel = (SocketChannel) key.channel();
+        }
+
+        /**
+         * Reads whatever is available without blocking and submits the complete frames.
+         * Called by the selector thread.
+         */
+        void read()
+        {
+            try
+            {
+                while ( true )
+                {
+                    if ( frameBuffer == null )
+                    {
+                        if ( socketChannel.read( lengthBuffer ) < 0 )
+                        {
+                            close( "End of stream reached" );
+                            return;
+                        }
+                        if ( lengthBuffer.hasRemaining() )
+                        {
+                            return;
+                        }
+
+                        lengthBuffer.flip();
+                        final int length = lengthBuffer.getInt();
+                        lengthBuffer.clear();
+                        if ( length < 8 || length > attributes.getMaxFrameSize() )
+                        {
+                            throw new IOException( "Invalid frame length " + length );
+                        }
+                        frameBuffer = ByteBuffer.allocate( length );
+                    }
+
+                    if ( frameBuffer.hasRemaining() && socketChannel.read( frameBuffer ) < 0 )
+                    {
+                        close( "End of stream reached (frame)" );
+                        return;
+                    }
+                    if ( frameBuffer.hasRemaining() )
+                    {
+                        return;
+                    }
+
+                    final byte[] frame = frameBuffer.array();
+                    frameBuffer = null;
+                    if ( !submit( frame ) )
+                    {
+                        return;
+                    }
+                }
+            }
+            catch ( final IOException e )
+            {
+                log.info( "Caught {0}, closing connection.", e.getClass().getSimpleName(), e );
+                close( null );
+            }
+        }
+
+        /**
+         * Hands a complete frame to a worker thread. Stops reading if too many requests are
+         * pending.
+         * <p>
+         * @param frame the frame without the length prefix
+         * @return false if reading has been suspended
+         */
+        private boolean submit( final byte[] frame )
+        {
+            boolean suspend = false;
+            synchronized ( this )
+            {
+                pending++;
+                if ( pending >= attributes.getMaxPendingRequests() )
+                {
+                    readSuspended = true;
+                    suspend = true;
+                }
+            }
+
+            if ( suspend )
+            {
+                // called by the selector thread, so the key can be changed directly
+                key.interestOps( key.interestOps() & ~SelectionKey.OP_READ );
+            }
+
+            requestCount.incrementAndGet();
+            try
+            {
+                pooledExecutor.execute( () -> handleFrame( frame ) );
+            }
+            catch ( final RejectedExecutionException e )
+            {
+                // the server is shutting down
+                log.debug( "Dropping request {0}", RemoteNioProtocol.getRequestId( frame ) );
+                done();
+            }
+
+            return !suspend;
+        }
+
+        /**
+         * Decodes and processes one request and sends the response. Called by a worker thread.
+         * <p>
+         * @param frame the frame without the length prefix
+         */
+        private void handleFrame( final byte[] frame )
+        {
+            final long requestId = RemoteNioProtocol.getRequestId( frame );
+            try
+            {
+                RemoteCacheResponse<Object> response;
+                try
+                {
+                    final RemoteCacheRequest<K, V> request = RemoteNioProtocol.decodeRequest( frame, serializer );
+                    log.debug( "Processing request {0}: {1}", requestId, request );
+                    response = RemoteCacheRequestProcessor.processRequest( service, request );
+                }
+                catch ( final IOException | ClassNotFoundException | RuntimeException e )
+                {
+                    final String message = "Problem processing request " + requestId + ". Error: " + e.getMessage();
+                    log.error( message, e );
+                    response = errorResponse( message );
+                }
+
+                byte[] body;
+                try
+                {
+                    body = RemoteNioProtocol.encodeResponse( response, serializer );
+                }
+                catch ( final IOException e )
+                {
+                    final String message = "Problem writing response " + requestId + ". Error: " + e.getMessage();
+                    log.error( message, e );
+                    body = RemoteNioProtocol.encodeResponse( errorResponse( message ), serializer );
+                }
+
+                send( RemoteNioProtocol.frame( requestId, body ) );
+            }
+            catch ( final IOException e )
+            {
+                log.info( "Caught {0}, closing connection.", e.getClass().getSimpleName(), e );
+                runOnSelector( () -> close( null ) );
+            }
+            finally
+            {
+                done();
+            }
+        }
+
+        /**
+         * Counts an answered request and resumes reading once half of the pending requests have
+         * been answered.
+         */
+        private void done()
+        {
+            boolean resume = false;
+            synchronized ( this )
+            {
+                pending--;
+                if ( readSuspended && pending <= attributes.getMaxPendingRequests() / 2 )
+                {
+                    readSuspended = false;
+                    resume = true;
+                }
+            }
+
+            if ( resume )
+            {
+                runOnSelector( () -> {
+                    if ( key.isValid() )
+                    {
+                        key.interestOps( key.interestOps() | SelectionKey.OP_READ );
+                    }
+                } );
+            }
+        }
+
+        /**
+         * Writes a response frame. Whatever cannot be written right away is left to the selector
+         * thread.
+         * <p>
+         * @param buffer the response frame
+         * @throws IOException
+         */
+        private void send( final ByteBuffer buffer )
+            throws IOException
+        {
+            synchronized ( responses )
+            {
+                responses.add( buffer );
+                if ( responses.size() == 1 && writeResponses() )
+                {
+                    return;
+                }
+            }
+
+            runOnSelector( () -> {
+                if ( key.isValid() )
+                {
+                    key.interestOps( key.interestOps() | SelectionKey.OP_WRITE );
+                }
+            } );
+        }
+
+        /**
+         * Writes the pending responses when the channel is writable again. Called by the
+         * selector thread.
+         */
+        void flush()
+        {
+            try
+            {
+                synchronized ( responses )
+                {
+                    if ( writeResponses() )
+                    {
+                        key.interestOps( key.interestOps() & ~SelectionKey.OP_WRITE );
+                    }
+                }
+            }
+            catch ( final IOException e )
+            {
+                log.info( "Caught {0}, closing connection.", e.getClass().getSimpleName(), e );
+                close( null );
+            }
+        }
+
+        /**
+         * Writes as much of the pending responses as the channel takes without blocking.
+         * (guarded by responses)
+         * <p>
+         * @return true if all responses have been written
+         * @throws IOException
+         */
+        private boolean writeResponses()
+            throws IOException
+        {
+            for ( ByteBuffer buffer = responses.peek(); buffer != null; buffer = responses.peek() )
+            {
+                socketChannel.write( buffer );
+                if ( buffer.hasRemaining() )
+                {
+                    return false;
+                }
+                responses.poll();
+            }
+
+            return true;
+        }
+
+        /**
+         * Closes the connection.
+         * <p>
+         * @param reason logged if not null
+         */
+        void close( final String reason )
+        {
+            if ( !socketChannel.isOpen() )
+            {
+                return;
+            }
+
+            if ( reason != null )
+            {
+                log.info( "Closing connection: {0}", reason );
+            }
+
+            try
+            {
+                socketChannel.close();
+            }
+            catch ( final IOException e )
+            {
+                log.error( "Error while closing connection", e );
+            }
+
+            connectionCount.decrementAndGet();
+            synchronized ( responses )
+            {
+                responses.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio.server;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.jcs3.auxiliary.remote.http.server.RemoteHttpCacheServerAttributes;
+import org.apache.commons.jcs3.auxiliary.remote.nio.RemoteNioProtocol;
+
+/**
+ * Configuration for the RemoteNioCacheServer. The cluster settings are inherited from the HTTP
+ * server, since both servers apply the requests through the same service.
+ *
+ * @since 3.2
+ */
+public class RemoteNioCacheServerAttributes
+    extends RemoteHttpCacheServerAttributes
+{
+    /** Don't change. */
+    private static final long serialVersionUID = 3412826283145367412L;
+
+    /** The default port */
+    public static final int DEFAULT_PORT = 1103;
+
+    /** The host to listen on, all interfaces if empty */
+    private String host;
+
+    /** The port to listen on */
+    private int port = DEFAULT_PORT;
+
+    /** The number of threads that process requests */
+    private int threadPoolSize = 10;
+
+    /** The number of requests of one connection that may wait for processing */
+    private int maxPendingRequests = 1000;
+
+    /** The largest request frame that is accepted */
+    private int maxFrameSize = RemoteNioProtocol.DEFAULT_MAX_FRAME_SIZE;
+
+    /**
+     * @return the host to listen on, all interfaces if empty
+     */
+    public String getHost()
+    {
+        return host;
+    }
+
+    /**
+     * @param host the host to listen on, all interfaces if empty
+     */
+    public void setHost( final String host )
+    {
+        this.host = host;
+    }
+
+    /**
+     * @return the port to listen on
+     */
+    public int getPort()
+    {
+        return port;
+    }
+
+    /**
+     * @param port the port to listen on, 0 for any free port
+     */
+    public void setPort( final int port )
+    {
+        this.port = port;
+    }
+
+    /**
+     * @return the number of threads that process requests
+     */
+    public int getThreadPoolSize()
+    {
+        return threadPoolSize;
+    }
+
+    /**
+     * @param threadPoolSize the number of threads that process requests
+     */
+    public void setThreadPoolSize( final int threadPoolSize )
+    {
+        this.threadPoolSize = threadPoolSize;
+    }
+
+    /**
+     * Once this many requests of one connection are waiting, the server stops reading from it
+     * until half of them have been answered.
+     * <p>
+     * @return the number of requests of one connection that may wait for processing
+     */
+    public int getMaxPendingRequests()
+    {
+        return maxPendingRequests;
+    }
+
+    /**
+     * @param maxPendingRequests the number of requests of one connection that may wait for processing
+     */
+    public void setMaxPendingRequests( final int maxPendingRequests )
+    {
+        this.maxPendingRequests = maxPendingRequests;
+    }
+
+    /**
+     * A connection that announces a larger frame is closed.
+     * <p>
+     * @return the largest request frame in bytes
+     */
+    public int getMaxFrameSize()
+    {
+        return maxFrameSize;
+    }
+
+    /**
+     * @param maxFrameSize the largest request frame in bytes
+     */
+    public void setMaxFrameSize( final int maxFrameSize )
+    {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * @return String details
+     */
+    @Override
+    public String toString()
+    {
+        final StringBuilder buf = new StringBuilder();
+        buf.append( "\nRemoteNioCacheServerAttributes" );
+        buf.append( "\n host = [" + this.getHost() + "]" );
+        buf.append( "\n port = [" + this.getPort() + "]" );
+        buf.append( "\n threadPoolSize = [" + this.getThreadPoolSize() + "]" );
+        buf.append( "\n maxPendingRequests = [" + this.getMaxPendingRequests() + "]" );
+        buf.append( "\n maxFrameSize = [" + this.getMaxFrameSize() + "]" );
+        buf.append( super.toString() );
+        return buf.toString();
+    }
+}
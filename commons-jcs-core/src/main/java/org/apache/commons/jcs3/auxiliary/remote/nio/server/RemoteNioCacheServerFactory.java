@@ -0,0 +1,152 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio.server;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.Properties;
+
+import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheConfigurator;
+import org.apache.commons.jcs3.auxiliary.remote.http.server.RemoteHttpCacheService;
+import org.apache.commons.jcs3.auxiliary.remote.nio.behavior.IRemoteNioCacheConstants;
+import org.apache.commons.jcs3.engine.control.CompositeCacheManager;
+import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.config.PropertySetter;
+
+/**
+ * Starts and stops the NIO remote cache server of this JVM.
+ * <p>
+ * The server works on the cache manager configured with the given properties. It is configured
+ * with the jcs.remoteniocache.serverattributes properties, for example
+ * <p>
+ * jcs.remoteniocache.serverattributes.Port=1103
+ *
+ * @since 3.2
+ */
+public class RemoteNioCacheServerFactory
+{
+    /** The logger */
+    private static final Log log = LogManager.getLog( RemoteNioCacheServerFactory.class );
+
+    /** The single instance of the server. */
+    private static RemoteNioCacheServer<?, ?> remoteNioCacheServer;
+
+    /** The cache manager of the server. */
+    private static CompositeCacheManager cacheMgr;
+
+    /** Constructor for the RemoteNioCacheServerFactory object. */
+    private RemoteNioCacheServerFactory()
+    {
+    }
+
+    /**
+     * @return the server, null if it has not been started
+     */
+    @SuppressWarnings("unchecked") // Need cast to specific RemoteNioCacheServer
+    public static <K, V> RemoteNioCacheServer<K, V> getRemoteNioCacheServer()
+    {
+        return (RemoteNioCacheServer<K, V>) remoteNioCacheServer;
+    }
+
+    /**
+     * Configures the cache manager with the properties and starts the server on it.
+     * <p>
+     * @param props the cache and the server configuration
+     * @throws IOException if the server cannot be started
+     */
+    public static void startup( final Properties props )
+        throws IOException
+    {
+        synchronized ( RemoteNioCacheServerFactory.class )
+        {
+            if ( remoteNioCacheServer != null )
+            {
+                throw new IllegalArgumentException( "Server already started." );
+            }
+
+            final CompositeCacheManager hub = CompositeCacheManager.getUnconfiguredInstance();
+            hub.configure( props );
+
+            final RemoteNioCacheServerAttributes attributes = configureRemoteNioCacheServerAttributes( props );
+            log.info( "Creating server with these attributes: {0}", attributes );
+
+            final ICacheEventLogger cacheEventLogger = configureCacheEventLogger( props );
+            final RemoteNioCacheServer<?, ?> server =
+                new RemoteNioCacheServer<>( new RemoteHttpCacheService<>( hub, attributes, cacheEventLogger ), attributes );
+            server.start();
+
+            cacheMgr = hub;
+            remoteNioCacheServer = server;
+        }
+    }
+
+    /**
+     * Stops the server and shuts down its cache manager.
+     */
+    public static void shutdown()
+    {
+        synchronized ( RemoteNioCacheServerFactory.class )
+        {
+            if ( remoteNioCacheServer == null )
+            {
+                log.info( "Server not started, nothing to shut down." );
+                return;
+            }
+
+            remoteNioCacheServer.shutdown();
+            remoteNioCacheServer = null;
+
+            cacheMgr.shutDown();
+            cacheMgr = null;
+        }
+    }
+
+    /**
+     * Tries to get the event logger.
+     * <p>
+     * @param props configuration properties
+     * @return ICacheEventLogger, may be null
+     */
+    protected static ICacheEventLogger configureCacheEventLogger( final Properties props )
+    {
+        return AuxiliaryCacheConfigurator
+                .parseCacheEventLogger( props, IRemoteNioCacheConstants.NIO_CACHE_SERVER_PREFIX );
+    }
+
+    /**
+     * Configure.
+     * <p>
+     * jcs.remoteniocache.serverattributes.ATTRIBUTENAME=ATTRIBUTEVALUE
+     * <p>
+     * @param prop
+     * @return RemoteNioCacheServerAttributes
+     */
+    protected static RemoteNioCacheServerAttributes configureRemoteNioCacheServerAttributes( final Properties prop )
+    {
+        final RemoteNioCacheServerAttributes rcsa = new RemoteNioCacheServerAttributes();
+
+        // configure automatically
+        PropertySetter.setProperties( rcsa, prop,
+                IRemoteNioCacheConstants.NIO_CACHE_SERVER_ATTRIBUTES_PROPERTY_PREFIX + "." );
+
+        return rcsa;
+    }
+}
@@ -0,0 +1,148 @@
+package org.apache.commons.jcs3.auxiliary.remote.server;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.jcs3.engine.behavior.ICache;
+import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
+
+/**
+ * Orders the updates of one region by key.
+ * <p>
+ * Operations on a single key lock one of a fixed number of stripes, selected by the hash code of
+ * the key. Operations on the same key are therefore applied one after the other, while operations
+ * on keys in different stripes proceed in parallel. Operations on the whole region, like a remove
+ * all, a dispose or the removal of a key prefix or a group, lock all keys at once.
+ */
+class KeyStripedLock
+{
+    /** Keyed operations share this lock, region operations take it exclusively */
+    private final ReentrantReadWriteLock regionLock = new ReentrantReadWriteLock();
+
+    /** The stripes */
+    private final ReentrantLock[] stripes;
+
+    /** Mask to select a stripe */
+    private final int mask;
+
+    /**
+     * @param stripeCount the number of stripes, rounded up to a power of two
+     */
+    KeyStripedLock( final int stripeCount )
+    {
+        int size = 1;
+        while ( size < stripeCount )
+        {
+            size <<= 1;
+        }
+
+        stripes = new ReentrantLock[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Locks the key. Keys that address more than one element lock the whole region.
+     * <p>
+     * @param key the key
+     */
+    void lock( final Object key )
+    {
+        if ( isRegionKey( key ) )
+        {
+            lockRegion();
+        }
+        else
+        {
+            regionLock.readLock().lock();
+            stripeFor( key ).lock();
+        }
+    }
+
+    /**
+     * Unlocks the key locked by {@link #lock(Object)}.
+     * <p>
+     * @param key the key
+     */
+    void unlock( final Object key )
+    {
+        if ( isRegionKey( key ) )
+        {
+            unlockRegion();
+        }
+        else
+        {
+            stripeFor( key ).unlock();
+            regionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Locks the whole region.
+     */
+    void lockRegion()
+    {
+        regionLock.writeLock().lock();
+    }
+
+    /**
+     * Unlocks the whole region.
+     */
+    void unlockRegion()
+    {
+        regionLock.writeLock().unlock();
+    }
+
+    /**
+     * @return the number of stripes
+     */
+    int getStripeCount()
+    {
+        return stripes.length;
+    }
+
+    /**
+     * @param key the key
+     * @return the stripe of the key
+     */
+    private ReentrantLock stripeFor( final Object key )
+    {
+        final int h = key == null ? 0 : key.hashCode();
+        return stripes[( h ^ ( h >>> 16 ) ) & mask];
+    }
+
+    /**
+     * A key ending with the name component delimiter removes all keys starting with it, and a
+     * group key without an attribute name removes the whole group.
+     * <p>
+     * @param key the key
+     * @return true if the key addresses more than one element
+     */
+    static boolean isRegionKey( final Object key )
+    {
+        return key instanceof String && ( (String) key ).endsWith( ICache.NAME_COMPONENT_DELIMITER )
+            || key instanceof GroupAttrName && ( (GroupAttrName<?>) key ).attrName == null;
+    }
+}
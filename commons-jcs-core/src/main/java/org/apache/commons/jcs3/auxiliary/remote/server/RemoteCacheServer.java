@@ -32,17 +32,21 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.jcs3.access.exception.CacheException;
 import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheListener;
 import org.apache.commons.jcs3.auxiliary.remote.server.behavior.IRemoteCacheServer;
 import org.apache.commons.jcs3.auxiliary.remote.server.behavior.IRemoteCacheServerAttributes;
 import org.apache.commons.jcs3.auxiliary.remote.server.behavior.RemoteType;
+import org.apache.commons.jcs3.engine.AbstractCacheEventQueue;
 import org.apache.commons.jcs3.engine.CacheEventQueueFactory;
 import org.apache.commons.jcs3.engine.CacheListeners;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElementSerialized;
 import org.apache.commons.jcs3.engine.behavior.ICacheEventQueue;
 import org.apache.commons.jcs3.engine.behavior.ICacheListener;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.engine.control.CompositeCache;
 import org.apache.commons.jcs3.engine.control.CompositeCacheManager;
 import org.apache.commons.jcs3.engine.logging.CacheEvent;
@@ -50,6 +54,8 @@ import org.apache.commons.jcs3.engine.logging.behavior.ICacheEvent;
 import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.serialization.SerializationConversionUtil;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 import org.apache.commons.jcs3.utils.timing.ElapsedTimer;
 
 /**
@@ -80,7 +86,7 @@ public class RemoteCacheServer<K, V>
     private static final Log log = LogManager.getLog( RemoteCacheServer.class );
 
     /** Number of puts into the cache. */
-    private int puts;
+    private final AtomicInteger puts = new AtomicInteger();
 
     /** Maps cache name to CacheListeners object. association of listeners (regions). */
     private final transient ConcurrentMap<String, CacheListeners<K, V>> cacheListenersMap =
@@ -90,6 +96,10 @@ public class RemoteCacheServer<K, V>
     private final transient ConcurrentMap<String, CacheListeners<K, V>> clusterListenersMap =
         new ConcurrentHashMap<>();
 
+    /** Orders the updates of each region by key. */
+    private final transient ConcurrentMap<String, KeyStripedLock> regionLocks =
+        new ConcurrentHashMap<>();
+
     /** The central hub */
     private transient CompositeCacheManager cacheManager;
 
@@ -112,6 +122,9 @@ public class RemoteCacheServer<K, V>
     /** An optional event logger */
     private transient ICacheEventLogger cacheEventLogger;
 
+    /** Serializes the items that are sent to the listeners */
+    private transient IElementSerializer elementSerializer = new StandardSerializer();
+
     /**
      * Constructor for the RemoteCacheServer object. This initializes the server with the values
      * from the properties object.
@@ -270,7 +283,9 @@ public class RemoteCacheServer<K, V>
             log.debug( "In update, requesterId = [{0}] fromCluster = {1}", requesterId, fromCluster );
 
             // ordered cache item update and notification.
-            synchronized ( cacheDesc )
+            final KeyStripedLock lock = getRegionLock( item.getCacheName() );
+            lock.lock( item.getKey() );
+            try
             {
                 try
                 {
@@ -316,11 +331,20 @@ public class RemoteCacheServer<K, V>
                 {
                     final ICacheEventQueue<K, V>[] qlist = getEventQList( cacheDesc, requesterId );
                     log.debug( "qlist.length = {0}", qlist.length );
-                    for (final ICacheEventQueue<K, V> element : qlist) {
-                        element.addPutEvent( item );
+                    if ( qlist.length > 0 )
+                    {
+                        // all listeners share the same serialized copy
+                        final ICacheElement<K, V> shared = getSerializedForListeners( item );
+                        for (final ICacheEventQueue<K, V> element : qlist) {
+                            element.addPutEvent( shared );
+                        }
                     }
                 }
             }
+            finally
+            {
+                lock.unlock( item.getKey() );
+            }
         }
         catch ( final IOException e )
         {
@@ -337,6 +361,44 @@ public class RemoteCacheServer<K, V>
         log.debug( "put took {0} ms.", timer::getElapsedTime);
     }
 
+    /**
+     * Gets the lock that orders the updates of a region, creating it if needed.
+     * <p>
+     * @param cacheName
+     * @return the lock of the region
+     */
+    private KeyStripedLock getRegionLock( final String cacheName )
+    {
+        return regionLocks.computeIfAbsent( cacheName,
+                name -> new KeyStripedLock( remoteCacheServerAttributes.getLockStripes() ) );
+    }
+
+    /**
+     * Serializes the value of the item once, so the same bytes can be sent to every listener.
+     * Items sent by remote clients are already serialized and are returned as they are.
+     * <p>
+     * @param item
+     * @return the serialized item, or the item itself if it cannot be serialized
+     */
+    private ICacheElement<K, V> getSerializedForListeners( final ICacheElement<K, V> item )
+    {
+        if ( item instanceof ICacheElementSerialized )
+        {
+            return item;
+        }
+
+        try
+        {
+            return SerializationConversionUtil.getSerializedCacheElement( item, elementSerializer );
+        }
+        catch ( final IOException e )
+        {
+            log.warn( "Could not serialize item [{0}] for the listeners, sending it as it is. {1}",
+                    item.getKey(), e.getMessage() );
+            return item;
+        }
+    }
+
     /**
      * Log some details.
      * <p>
@@ -344,12 +406,11 @@ public class RemoteCacheServer<K, V>
      */
     private void logUpdateInfo( final ICacheElement<K, V> item )
     {
-        // not thread safe, but it doesn't have to be 100% accurate
-        puts++;
+        final int count = puts.incrementAndGet();
 
-        if ( log.isInfoEnabled() && (puts % logInterval == 0) )
+        if ( log.isInfoEnabled() && (count % logInterval == 0) )
         {
-            log.info( "puts = {0}", puts );
+            log.info( "puts = {0}", count );
         }
 
         log.debug( "In update, put [{0}] in [{1}]",
@@ -810,9 +871,10 @@ public class RemoteCacheServer<K, V>
 
         if ( cacheDesc != null )
         {
-            // best attempt to achieve ordered cache item removal and
-            // notification.
-            synchronized ( cacheDesc )
+            // ordered cache item removal and notification.
+            final KeyStripedLock lock = getRegionLock( cacheName );
+            lock.lock( key );
+            try
             {
                 boolean removeSuccess = false;
 
@@ -844,6 +906,10 @@ public class RemoteCacheServer<K, V>
                     }
                 }
             }
+            finally
+            {
+                lock.unlock( key );
+            }
         }
     }
 
@@ -900,9 +966,10 @@ public class RemoteCacheServer<K, V>
 
         if ( cacheDesc != null )
         {
-            // best attempt to achieve ordered cache item removal and
-            // notification.
-            synchronized ( cacheDesc )
+            // ordered cache item removal and notification.
+            final KeyStripedLock lock = getRegionLock( cacheName );
+            lock.lockRegion();
+            try
             {
                 // No need to broadcast, or notify if it was not cached.
                 final CompositeCache<K, V> c = (CompositeCache<K, V>) cacheDesc.cache;
@@ -929,6 +996,10 @@ public class RemoteCacheServer<K, V>
                     }
                 }
             }
+            finally
+            {
+                lock.unlockRegion();
+            }
         }
     }
 
@@ -940,7 +1011,7 @@ public class RemoteCacheServer<K, V>
     // Currently only intended for use by unit tests
     int getPutCount()
     {
-        return puts;
+        return puts.get();
     }
 
     /**
@@ -992,8 +1063,10 @@ public class RemoteCacheServer<K, V>
         // this is dangerous
         if ( cacheDesc != null )
         {
-            // best attempt to achieve ordered free-cache-op and notification.
-            synchronized ( cacheDesc )
+            // ordered free-cache-op and notification.
+            final KeyStripedLock lock = getRegionLock( cacheName );
+            lock.lockRegion();
+            try
             {
                 final ICacheEventQueue<K, V>[] qlist = getEventQList( cacheDesc, requesterId );
 
@@ -1002,6 +1075,10 @@ public class RemoteCacheServer<K, V>
                 }
                 cacheManager.freeCache( cacheName );
             }
+            finally
+            {
+                lock.unlockRegion();
+            }
         }
     }
 
@@ -1215,6 +1292,11 @@ public class RemoteCacheServer<K, V>
             final ICacheEventQueue<KK, VV> q = fact.createCacheEventQueue( listener, id, cacheName, remoteCacheServerAttributes
                 .getEventQueuePoolName(), remoteCacheServerAttributes.getEventQueueType() );
 
+            if ( q instanceof AbstractCacheEventQueue )
+            {
+                ( (AbstractCacheEventQueue<KK, VV>) q ).setMaxBatchSize( remoteCacheServerAttributes.getEventQueueBatchSize() );
+            }
+
             eventQMap.put(Long.valueOf(listener.getListenerId()), q);
 
             log.info( cacheListeners );
@@ -1510,4 +1592,16 @@ public class RemoteCacheServer<K, V>
     {
         this.cacheEventLogger = cacheEventLogger;
     }
+
+    /**
+     * Sets the serializer used for items that are not serialized yet when they are sent to the
+     * listeners. It must match the serializer of the clients.
+     * <p>
+     * @param elementSerializer
+     * @since 3.2
+     */
+    public void setElementSerializer( final IElementSerializer elementSerializer )
+    {
+        this.elementSerializer = elementSerializer;
+    }
 }
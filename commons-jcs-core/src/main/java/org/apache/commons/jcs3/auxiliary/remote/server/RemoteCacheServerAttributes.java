@@ -56,6 +56,15 @@ public class RemoteCacheServerAttributes
     /** The delay between runs */
     private long registryKeepAliveDelayMillis = 15 * 1000;
 
+    /** The default number of lock stripes per region */
+    private static final int DEFAULT_LOCK_STRIPES = 64;
+
+    /** The number of stripes the updates of a region are ordered by */
+    private int lockStripes = DEFAULT_LOCK_STRIPES;
+
+    /** The maximum number of puts sent to a listener in one call */
+    private int eventQueueBatchSize = 1;
+
     /** Default constructor for the RemoteCacheAttributes object */
     public RemoteCacheServerAttributes()
     {
@@ -193,6 +202,42 @@ public class RemoteCacheServerAttributes
         return registryKeepAliveDelayMillis;
     }
 
+    /**
+     * @param lockStripes the lockStripes to set
+     */
+    @Override
+    public void setLockStripes( final int lockStripes )
+    {
+        this.lockStripes = lockStripes;
+    }
+
+    /**
+     * @return the lockStripes
+     */
+    @Override
+    public int getLockStripes()
+    {
+        return lockStripes;
+    }
+
+    /**
+     * @param eventQueueBatchSize the eventQueueBatchSize to set
+     */
+    @Override
+    public void setEventQueueBatchSize( final int eventQueueBatchSize )
+    {
+        this.eventQueueBatchSize = eventQueueBatchSize;
+    }
+
+    /**
+     * @return the eventQueueBatchSize
+     */
+    @Override
+    public int getEventQueueBatchSize()
+    {
+        return eventQueueBatchSize;
+    }
+
     /**
      * @return String details
      */
@@ -206,8 +251,10 @@ public class RemoteCacheServerAttributes
         buf.append( "\n rmiSocketFactoryTimeoutMillis = [" + this.getRmiSocketFactoryTimeoutMillis() + "]" );
         buf.append( "\n useRegistryKeepAlive = [" + this.isUseRegistryKeepAlive() + "]" );
         buf.append( "\n registryKeepAliveDelayMillis = [" + this.getRegistryKeepAliveDelayMillis() + "]" );
+        buf.append( "\n lockStripes = [" + this.getLockStripes() + "]" );
         buf.append( "\n eventQueueType = [" + this.getEventQueueType() + "]" );
         buf.append( "\n eventQueuePoolName = [" + this.getEventQueuePoolName() + "]" );
+        buf.append( "\n eventQueueBatchSize = [" + this.getEventQueueBatchSize() + "]" );
         return buf.toString();
     }
 }
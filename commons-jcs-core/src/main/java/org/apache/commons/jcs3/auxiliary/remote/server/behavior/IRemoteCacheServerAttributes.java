@@ -119,4 +119,34 @@ public interface IRemoteCacheServerAttributes
      * @return the registryKeepAliveDelayMillis
      */
     long getRegistryKeepAliveDelayMillis();
+
+    /**
+     * The number of stripes the updates of a region are ordered by. Updates of keys in different
+     * stripes are applied in parallel.
+     * <p>
+     * @param lockStripes the lockStripes to set
+     * @since 3.2
+     */
+    void setLockStripes( int lockStripes );
+
+    /**
+     * @return the lockStripes
+     * @since 3.2
+     */
+    int getLockStripes();
+
+    /**
+     * The maximum number of puts sent to a listener in one call. Batches are only collected by
+     * the COALESCING event queue. All listeners must support batches.
+     * <p>
+     * @param eventQueueBatchSize the eventQueueBatchSize to set
+     * @since 3.2
+     */
+    void setEventQueueBatchSize( int eventQueueBatchSize );
+
+    /**
+     * @return the eventQueueBatchSize
+     * @since 3.2
+     */
+    int getEventQueueBatchSize();
 }
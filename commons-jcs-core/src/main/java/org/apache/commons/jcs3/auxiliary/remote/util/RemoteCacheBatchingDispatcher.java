@@ -0,0 +1,306 @@
+package org.apache.commons.jcs3.auxiliary.remote.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheDispatcher;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteRequestType;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+
+/**
+ * Collects the gets, updates and removes of concurrent callers into batch requests.
+ * <p>
+ * The first caller of a batch waits for the batch window, or until the batch is full, and then
+ * sends all requests collected so far as one batch request through the wrapped dispatcher. The
+ * other callers wait for their part of the batch response. A caller that is alone sends its
+ * request as it is, so a quiet client only pays the window as latency. Other request types are
+ * passed on right away.
+ * <p>
+ * The server has to understand batch requests, which the RemoteCacheRequestProcessor does.
+ *
+ * @since 3.2
+ */
+public class RemoteCacheBatchingDispatcher
+    implements IRemoteCacheDispatcher
+{
+    /** The Logger. */
+    private static final Log log = LogManager.getLog( RemoteCacheBatchingDispatcher.class );
+
+    /** Sends the requests */
+    private final IRemoteCacheDispatcher dispatcher;
+
+    /** How long the first caller of a batch waits for others */
+    private final long batchWindowNanos;
+
+    /** The maximum number of requests in one batch */
+    private final int maxBatchSize;
+
+    /** Guards the open batch */
+    private final Lock lock = new ReentrantLock();
+
+    /** Signalled when the open batch is full */
+    private final Condition batchFull = lock.newCondition();
+
+    /** The batch that is collecting requests, null if there is none (guarded by lock) */
+    private List<PendingRequest> openBatch;
+
+    /** The number of batch requests sent */
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * @param dispatcher sends the requests
+     * @param batchWindowMillis how long concurrent requests are collected into one batch
+     * @param maxBatchSize the maximum number of requests in one batch
+     */
+    public RemoteCacheBatchingDispatcher( final IRemoteCacheDispatcher dispatcher, final int batchWindowMillis,
+                                          final int maxBatchSize )
+    {
+        this.dispatcher = dispatcher;
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos( batchWindowMillis );
+        this.maxBatchSize = Math.max( 1, maxBatchSize );
+    }
+
+    /**
+     * Adds the request to the open batch and waits for its response.
+     * <p>
+     * @param remoteCacheRequest
+     * @return RemoteCacheResponse
+     * @throws IOException if the request or the batch failed
+     */
+    @Override
+    public <K, V, T> RemoteCacheResponse<T> dispatchRequest( final RemoteCacheRequest<K, V> remoteCacheRequest )
+        throws IOException
+    {
+        if ( !isBatchable( remoteCacheRequest ) )
+        {
+            return dispatcher.dispatchRequest( remoteCacheRequest );
+        }
+
+        final PendingRequest pending = new PendingRequest( remoteCacheRequest );
+        final List<PendingRequest> batch;
+        final boolean first;
+
+        lock.lock();
+        try
+        {
+            first = openBatch == null;
+            if ( first )
+            {
+                openBatch = new ArrayList<>();
+            }
+            batch = openBatch;
+            batch.add( pending );
+
+            if ( batch.size() >= maxBatchSize )
+            {
+                openBatch = null;
+                batchFull.signalAll();
+            }
+            else if ( first )
+            {
+                awaitBatch( batch );
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        if ( first )
+        {
+            send( batch );
+        }
+        return pending.await();
+    }
+
+    /**
+     * @param request the request
+     * @return true if the request may be sent as part of a batch
+     */
+    private static boolean isBatchable( final RemoteCacheRequest<?, ?> request )
+    {
+        final RemoteRequestType type = request.getRequestType();
+        return type == RemoteRequestType.GET || type == RemoteRequestType.UPDATE || type == RemoteRequestType.REMOVE;
+    }
+
+    /**
+     * Waits until the batch window is over or the batch is full, then closes the batch. (guarded
+     * by lock)
+     * <p>
+     * @param batch the batch of the caller
+     */
+    private void awaitBatch( final List<PendingRequest> batch )
+    {
+        long nanos = batchWindowNanos;
+        try
+        {
+            while ( openBatch == batch && nanos > 0 )
+            {
+                nanos = batchFull.awaitNanos( nanos );
+            }
+        }
+        catch ( final InterruptedException e )
+        {
+            // send what we have
+            Thread.currentThread().interrupt();
+        }
+
+        if ( openBatch == batch )
+        {
+            openBatch = null;
+        }
+    }
+
+    /**
+     * Sends a closed batch and hands the responses to the callers.
+     * <p>
+     * @param batch the requests
+     */
+    private void send( final List<PendingRequest> batch )
+    {
+        if ( batch.size() == 1 )
+        {
+            final PendingRequest pending = batch.get( 0 );
+            try
+            {
+                pending.future.complete( dispatcher.dispatchRequest( pending.request ) );
+            }
+            catch ( final IOException | RuntimeException e )
+            {
+                pending.future.completeExceptionally( e );
+            }
+            return;
+        }
+
+        final List<RemoteCacheRequest<Object, Object>> requests = new ArrayList<>( batch.size() );
+        batch.forEach( pending -> requests.add( pending.request ) );
+        final RemoteCacheRequest<Object, Object> batchRequest =
+            RemoteCacheRequestFactory.createBatchRequest( requests, requests.get( 0 ).getRequesterId() );
+
+        try
+        {
+            final RemoteCacheResponse<List<RemoteCacheResponse<?>>> response = dispatcher.dispatchRequest( batchRequest );
+            if ( response == null || !response.isSuccess() )
+            {
+                throw new IOException( "Batch of " + batch.size() + " requests failed. "
+                        + ( response == null ? "No response." : response.getErrorMessage() ) );
+            }
+
+            final List<RemoteCacheResponse<?>> responses = response.getPayload();
+            if ( responses == null || responses.size() != batch.size() )
+            {
+                throw new IOException( "Batch of " + batch.size() + " requests got "
+                        + ( responses == null ? "no" : String.valueOf( responses.size() ) ) + " responses." );
+            }
+
+            batchCount.incrementAndGet();
+            log.debug( "Sent a batch of {0} requests", batch.size() );
+            for ( int i = 0; i < batch.size(); i++ )
+            {
+                batch.get( i ).future.complete( responses.get( i ) );
+            }
+        }
+        catch ( final IOException | RuntimeException e )
+        {
+            log.error( "Could not send batch of {0} requests", batch.size(), e );
+            batch.forEach( pending -> pending.future.completeExceptionally( e ) );
+        }
+    }
+
+    /**
+     * @return the wrapped dispatcher
+     */
+    public IRemoteCacheDispatcher getDispatcher()
+    {
+        return dispatcher;
+    }
+
+    /**
+     * @return the number of batch requests sent
+     */
+    public long getBatchCount()
+    {
+        return batchCount.get();
+    }
+
+    /**
+     * A request waiting for its response.
+     */
+    private static class PendingRequest
+    {
+        /** The request */
+        final RemoteCacheRequest<Object, Object> request;
+
+        /** Completed when the response arrives */
+        final CompletableFuture<RemoteCacheResponse<?>> future = new CompletableFuture<>();
+
+        /**
+         * @param request the request
+         */
+        @SuppressWarnings("unchecked") // The batch carries requests of any type
+        PendingRequest( final RemoteCacheRequest<?, ?> request )
+        {
+            this.request = (RemoteCacheRequest<Object, Object>) request;
+        }
+
+        /**
+         * Waits for the response. The sender of the batch is bound by the timeouts of the
+         * wrapped dispatcher.
+         * <p>
+         * @return the response
+         * @throws IOException if the request failed
+         */
+        @SuppressWarnings("unchecked") // The caller knows the type of the payload
+        <T> RemoteCacheResponse<T> await()
+            throws IOException
+        {
+            try
+            {
+                return (RemoteCacheResponse<T>) future.get();
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException( "Interrupted while waiting for a response", e );
+            }
+            catch ( final ExecutionException e )
+            {
+                if ( e.getCause() instanceof IOException )
+                {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException( "Problem dispatching request.", e.getCause() );
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.commons.jcs3.auxiliary.remote.util;
  * under the License.
  */
 
+import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
@@ -195,4 +196,21 @@ public class RemoteCacheRequestFactory
 
         return createRequest(null, RemoteRequestType.ALIVE_CHECK, requesterId);
     }
+
+    /**
+     * Creates a batch Request. The response payload is a list with the response of every request
+     * of the batch, in the same order.
+     * <p>
+     * @param requests the requests of the batch
+     * @param requesterId
+     * @return RemoteHttpCacheRequest
+     * @since 3.2
+     */
+    public static <K, V> RemoteCacheRequest<K, V> createBatchRequest( final List<RemoteCacheRequest<K, V>> requests, final long requesterId )
+    {
+        final RemoteCacheRequest<K, V> request = createRequest(null, RemoteRequestType.BATCH, requesterId);
+        request.setRequests( requests );
+
+        return request;
+    }
 }
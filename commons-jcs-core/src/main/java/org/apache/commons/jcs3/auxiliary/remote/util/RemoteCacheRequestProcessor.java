@@ -0,0 +1,247 @@
+package org.apache.commons.jcs3.auxiliary.remote.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteRequestType;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheServiceNonLocal;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+
+/**
+ * Applies request objects to a cache service. This is the server side counterpart of the
+ * RemoteCacheRequestFactory and is shared by the servers that receive request objects.
+ *
+ * @since 3.2
+ */
+public final class RemoteCacheRequestProcessor
+{
+    /** The Logger. */
+    private static final Log log = LogManager.getLog( RemoteCacheRequestProcessor.class );
+
+    /** No instances. */
+    private RemoteCacheRequestProcessor()
+    {
+    }
+
+    /**
+     * Processes the request. It will call the appropriate method on the service
+     * <p>
+     * @param service the service that does the work
+     * @param request the request, may be null
+     * @return RemoteCacheResponse, never null
+     */
+    public static <K, V> RemoteCacheResponse<Object> processRequest( final ICacheServiceNonLocal<K, V> service,
+                                                                    final RemoteCacheRequest<K, V> request )
+    {
+        final RemoteCacheResponse<Object> response = new RemoteCacheResponse<>();
+
+        if ( request == null )
+        {
+            final String message = "The request is null. Cannot process";
+            log.warn( message );
+            response.setSuccess( false );
+            response.setErrorMessage( message );
+        }
+        else
+        {
+            try
+            {
+                switch ( request.getRequestType() )
+                {
+                    case GET:
+                        final ICacheElement<K, V> element =
+                            service.get( request.getCacheName(), request.getKey(), request.getRequesterId() );
+                        response.setPayload(element);
+                        break;
+                    case GET_MULTIPLE:
+                        final Map<K, ICacheElement<K, V>> elementMap =
+                            service.getMultiple( request.getCacheName(), request.getKeySet(), request.getRequesterId() );
+                        if ( elementMap != null )
+                        {
+                            response.setPayload(new HashMap<>(elementMap));
+                        }
+                        break;
+                    case GET_MATCHING:
+                        final Map<K, ICacheElement<K, V>> elementMapMatching =
+                            service.getMatching( request.getCacheName(), request.getPattern(), request.getRequesterId() );
+                        if ( elementMapMatching != null )
+                        {
+                            response.setPayload(new HashMap<>(elementMapMatching));
+                        }
+                        break;
+                    case REMOVE:
+                        service.remove( request.getCacheName(), request.getKey(), request.getRequesterId() );
+                        break;
+                    case REMOVE_ALL:
+                        service.removeAll( request.getCacheName(), request.getRequesterId() );
+                        break;
+                    case UPDATE:
+                        service.update( request.getCacheElement(), request.getRequesterId() );
+                        break;
+                    case ALIVE_CHECK:
+                    case DISPOSE:
+                        response.setSuccess( true );
+                        // DO NOTHING
+                        break;
+                    case GET_KEYSET:
+                        final Set<K> keys = service.getKeySet( request.getCacheName() );
+                        response.setPayload( keys );
+                        break;
+                    case BATCH:
+                        response.setPayload( processBatch( service, request.getRequests() ) );
+                        break;
+                    default:
+                        final String message = "Unknown event type.  Cannot process " + request;
+                        log.warn( message );
+                        response.setSuccess( false );
+                        response.setErrorMessage( message );
+                        break;
+                }
+            }
+            catch ( final IOException e )
+            {
+                final String message = "Problem processing request. " + request + " Error: " + e.getMessage();
+                log.error( message, e );
+                response.setSuccess( false );
+                response.setErrorMessage( message );
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Processes the requests of a batch in one pass. A run of gets from the same region is turned
+     * into one getMultiple on the service. A batch within the batch is answered with an error.
+     * <p>
+     * @param service the service that does the work
+     * @param requests the requests of the batch, may be null
+     * @return the response of every request, in the same order
+     */
+    private static <K, V> ArrayList<RemoteCacheResponse<Object>> processBatch( final ICacheServiceNonLocal<K, V> service,
+                                                                              final List<RemoteCacheRequest<K, V>> requests )
+    {
+        if ( requests == null )
+        {
+            return new ArrayList<>();
+        }
+
+        final ArrayList<RemoteCacheResponse<Object>> responses = new ArrayList<>( requests.size() );
+        int start = 0;
+        while ( start < requests.size() )
+        {
+            final RemoteCacheRequest<K, V> first = requests.get( start );
+            int end = start + 1;
+            while ( end < requests.size() && isSameRegionGet( first, requests.get( end ) ) )
+            {
+                end++;
+            }
+
+            if ( end - start > 1 )
+            {
+                responses.addAll( processGets( service, requests.subList( start, end ) ) );
+            }
+            else if ( first != null && first.getRequestType() == RemoteRequestType.BATCH )
+            {
+                final String message = "Nested batch requests are not supported";
+                log.warn( message );
+                final RemoteCacheResponse<Object> response = new RemoteCacheResponse<>();
+                response.setSuccess( false );
+                response.setErrorMessage( message );
+                responses.add( response );
+            }
+            else
+            {
+                responses.add( processRequest( service, first ) );
+            }
+            start = end;
+        }
+
+        return responses;
+    }
+
+    /**
+     * @param first the first get of a run
+     * @param other the next request of the batch
+     * @return true if both are gets of the same requester from the same region
+     */
+    private static boolean isSameRegionGet( final RemoteCacheRequest<?, ?> first, final RemoteCacheRequest<?, ?> other )
+    {
+        return first != null && other != null
+            && first.getRequestType() == RemoteRequestType.GET
+            && other.getRequestType() == RemoteRequestType.GET
+            && first.getRequesterId() == other.getRequesterId()
+            && Objects.equals( first.getCacheName(), other.getCacheName() );
+    }
+
+    /**
+     * Gets the elements of a run of gets from the same region with one call to the service.
+     * <p>
+     * @param service the service that does the work
+     * @param gets the gets
+     * @return the response of every get, in the same order
+     */
+    private static <K, V> List<RemoteCacheResponse<Object>> processGets( final ICacheServiceNonLocal<K, V> service,
+                                                                        final List<RemoteCacheRequest<K, V>> gets )
+    {
+        final RemoteCacheRequest<K, V> first = gets.get( 0 );
+        final Set<K> keys = new HashSet<>();
+        gets.forEach( get -> keys.add( get.getKey() ) );
+
+        final List<RemoteCacheResponse<Object>> responses = new ArrayList<>( gets.size() );
+        try
+        {
+            final Map<K, ICacheElement<K, V>> elementMap =
+                service.getMultiple( first.getCacheName(), keys, first.getRequesterId() );
+            for ( final RemoteCacheRequest<K, V> get : gets )
+            {
+                final RemoteCacheResponse<Object> response = new RemoteCacheResponse<>();
+                response.setPayload( elementMap == null ? null : elementMap.get( get.getKey() ) );
+                responses.add( response );
+            }
+        }
+        catch ( final IOException e )
+        {
+            final String message = "Problem processing gets from " + first.getCacheName() + " Error: " + e.getMessage();
+            log.error( message, e );
+            for ( int i = 0; i < gets.size(); i++ )
+            {
+                final RemoteCacheResponse<Object> response = new RemoteCacheResponse<>();
+                response.setSuccess( false );
+                response.setErrorMessage( message );
+                responses.add( response );
+            }
+        }
+
+        return responses;
+    }
+}
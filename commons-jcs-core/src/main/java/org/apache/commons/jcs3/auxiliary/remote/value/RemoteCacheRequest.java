@@ -20,6 +20,7 @@ package org.apache.commons.jcs3.auxiliary.remote.value;
  */
 
 import java.io.Serializable;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
@@ -57,6 +58,9 @@ public class RemoteCacheRequest<K, V>
     /** The ICacheEleemnt, if this request contains a value. Only update requests will have this. */
     private ICacheElement<K, V> cacheElement;
 
+    /** The requests, if this request is a batch. Only batch requests will have this. */
+    private List<RemoteCacheRequest<K, V>> requests;
+
     /**
      * @param requestType the requestType to set
      */
@@ -169,6 +173,22 @@ public class RemoteCacheRequest<K, V>
         return keySet;
     }
 
+    /**
+     * @param requests the requests of the batch to set
+     */
+    public void setRequests( final List<RemoteCacheRequest<K, V>> requests )
+    {
+        this.requests = requests;
+    }
+
+    /**
+     * @return the requests of the batch
+     */
+    public List<RemoteCacheRequest<K, V>> getRequests()
+    {
+        return requests;
+    }
+
     /** @return string */
     @Override
     public String toString()
@@ -182,6 +202,10 @@ public class RemoteCacheRequest<K, V>
         buf.append( "\n keySet [" + getKeySet() + "]" );
         buf.append( "\n pattern [" + getPattern() + "]" );
         buf.append( "\n cacheElement [" + getCacheElement() + "]" );
+        if ( getRequests() != null )
+        {
+            buf.append( "\n requests [" + getRequests().size() + "]" );
+        }
         return buf.toString();
     }
 }
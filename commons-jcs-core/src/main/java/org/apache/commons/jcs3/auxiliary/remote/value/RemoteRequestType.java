@@ -50,4 +50,7 @@ public enum RemoteRequestType
 
     /** Dispose request type. */
     DISPOSE,
+
+    /** Batch request type, carries a list of requests. */
+    BATCH,
 }
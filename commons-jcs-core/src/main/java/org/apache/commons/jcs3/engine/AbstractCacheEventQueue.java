@@ -20,6 +20,7 @@ package org.apache.commons.jcs3.engine;
  */
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
@@ -64,6 +65,9 @@ public abstract class AbstractCacheEventQueue<K, V>
     /** in milliseconds */
     private int waitBeforeRetry;
 
+    /** The maximum number of puts handed to the listener in one call */
+    private int maxBatchSize = 1;
+
     /**
      * This means that the queue is functional. If we reached the max number of failures, the queue
      * is marked as non functional and will never work again.
@@ -90,6 +94,29 @@ public abstract class AbstractCacheEventQueue<K, V>
         waitToDieMillis = wtdm;
     }
 
+    /**
+     * Returns the maximum number of puts handed to the listener in one call.
+     * <p>
+     * @return the maximum batch size
+     * @since 3.2
+     */
+    public int getMaxBatchSize()
+    {
+        return maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of puts handed to the listener in one call. Only queues that deliver
+     * their events one after the other collect batches, the others ignore this setting.
+     * <p>
+     * @param maxBatchSize the maximum batch size, 1 to deliver every put on its own
+     * @since 3.2
+     */
+    public void setMaxBatchSize( final int maxBatchSize )
+    {
+        this.maxBatchSize = Math.max( 1, maxBatchSize );
+    }
+
     /**
      * Creates a brief string identifying the listener and the region.
      * <p>
@@ -281,6 +308,14 @@ public abstract class AbstractCacheEventQueue<K, V>
             listener.handlePut( ice );
         }
 
+        /**
+         * @return the element to put
+         */
+        protected ICacheElement<K, V> getElement()
+        {
+            return ice;
+        }
+
         /**
          * For debugging.
          * <p>
@@ -298,6 +333,52 @@ public abstract class AbstractCacheEventQueue<K, V>
 
     }
 
+    /**
+     * Several elements should be put in the cache.
+     */
+    protected class PutBatchEvent
+        extends AbstractCacheEvent
+    {
+        /** The elements to put to the listener */
+        private final List<ICacheElement<K, V>> items;
+
+        /**
+         * Constructor for the PutBatchEvent object.
+         * <p>
+         * @param items
+         */
+        PutBatchEvent( final List<ICacheElement<K, V>> items )
+        {
+            this.items = items;
+        }
+
+        /**
+         * Call putBatch on the listener.
+         * <p>
+         * @throws IOException
+         */
+        @Override
+        protected void doRun()
+            throws IOException
+        {
+            listener.handlePutBatch( items );
+        }
+
+        /**
+         * For debugging.
+         * <p>
+         * @return Info on the number of elements.
+         */
+        @Override
+        public String toString()
+        {
+            return new StringBuilder( "PutBatchEvent for " )
+                    .append( items.size() )
+                    .append( " elements" )
+                    .toString();
+        }
+    }
+
     /**
      * An element should be removed from the cache.
      * <p>
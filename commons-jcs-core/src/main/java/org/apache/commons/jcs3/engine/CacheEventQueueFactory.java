@@ -42,7 +42,7 @@ public class CacheEventQueueFactory<K, V>
      * @param listenerId
      * @param cacheName
      * @param threadPoolName
-     * @param poolType - SINGLE, POOLED
+     * @param poolType - SINGLE, POOLED, COALESCING
      * @return ICacheEventQueue
      */
     public ICacheEventQueue<K, V> createCacheEventQueue( final ICacheListener<K, V> listener, final long listenerId, final String cacheName,
@@ -60,7 +60,7 @@ public class CacheEventQueueFactory<K, V>
      * @param maxFailure
      * @param waitBeforeRetry
      * @param threadPoolName null is OK, if not a pooled event queue this is ignored
-     * @param poolType single or pooled
+     * @param poolType single, pooled or coalescing
      * @return ICacheEventQueue
      */
     public ICacheEventQueue<K, V> createCacheEventQueue( final ICacheListener<K, V> listener, final long listenerId, final String cacheName,
@@ -79,6 +79,11 @@ public class CacheEventQueueFactory<K, V>
             eventQueue = new PooledCacheEventQueue<>( listener, listenerId, cacheName, maxFailure, waitBeforeRetry,
                                                     threadPoolName );
         }
+        else if ( ICacheEventQueue.QueueType.COALESCING == poolType )
+        {
+            eventQueue = new CoalescingCacheEventQueue<>( listener, listenerId, cacheName, maxFailure, waitBeforeRetry,
+                                                    threadPoolName );
+        }
 
         return eventQueue;
     }
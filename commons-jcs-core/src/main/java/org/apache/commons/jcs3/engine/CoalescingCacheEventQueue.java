@@ -0,0 +1,333 @@
+package org.apache.commons.jcs3.engine;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheListener;
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.Stats;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+
+/**
+ * An event queue that keeps only the latest pending put or remove per key.
+ * <p>
+ * If a key is updated again before its previous event has been delivered, the previous event is
+ * dropped and the new one is appended to the end of the queue. The events that are delivered are
+ * therefore always a subsequence of the events that were added, so the order across keys is
+ * preserved. A remove all drops every pending put and remove, since it would undo them anyway.
+ * <p>
+ * The events are delivered by one task at a time on the thread pool of the queue, so a shared pool
+ * may be used without losing the order. If the maximum batch size is larger than one, consecutive
+ * puts are handed to the listener in one call. The number of pending events is bounded by the
+ * number of distinct keys, which keeps the memory in check while the target is slow.
+ */
+public class CoalescingCacheEventQueue<K, V>
+    extends PooledCacheEventQueue<K, V>
+{
+    /** The logger. */
+    private static final Log log = LogManager.getLog( CoalescingCacheEventQueue.class );
+
+    /**
+     * The pending events in delivery order. Puts and removes are keyed by the cache key, all other
+     * events by a token of their own so they are never coalesced.
+     */
+    private final LinkedHashMap<Object, AbstractCacheEvent> pending = new LinkedHashMap<>();
+
+    /** Whether a drain task is scheduled or running. Guarded by pending. */
+    private boolean draining;
+
+    /** The number of events that were dropped because a newer one replaced them */
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /** The number of events handed to the listener */
+    private final AtomicLong deliveredCount = new AtomicLong();
+
+    /** The number of batches of puts handed to the listener */
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * Constructor for the CoalescingCacheEventQueue object
+     * <p>
+     * @param listener
+     * @param listenerId
+     * @param cacheName
+     * @param maxFailure
+     * @param waitBeforeRetry
+     * @param threadPoolName
+     */
+    public CoalescingCacheEventQueue( final ICacheListener<K, V> listener, final long listenerId, final String cacheName,
+                                      final int maxFailure, final int waitBeforeRetry, final String threadPoolName )
+    {
+        super( listener, listenerId, cacheName, maxFailure, waitBeforeRetry, threadPoolName );
+    }
+
+    /**
+     * @return the queue type
+     */
+    @Override
+    public QueueType getQueueType()
+    {
+        return QueueType.COALESCING;
+    }
+
+    /**
+     * Queues a put, replacing any pending put or remove for the same key.
+     * <p>
+     * @param ce the element to put
+     */
+    @Override
+    public void addPutEvent( final ICacheElement<K, V> ce )
+    {
+        enqueue( ce.getKey(), new PutEvent( ce ) );
+    }
+
+    /**
+     * Queues a remove, replacing any pending put or remove for the same key.
+     * <p>
+     * @param key the key to remove
+     */
+    @Override
+    public void addRemoveEvent( final K key )
+    {
+        enqueue( key, new RemoveEvent( key ) );
+    }
+
+    /**
+     * Drops all pending puts and removes and queues a remove all.
+     */
+    @Override
+    public void addRemoveAllEvent()
+    {
+        synchronized ( pending )
+        {
+            final Iterator<AbstractCacheEvent> it = pending.values().iterator();
+            while ( it.hasNext() )
+            {
+                final AbstractCacheEvent event = it.next();
+                if ( event instanceof PutEvent || event instanceof RemoveEvent )
+                {
+                    it.remove();
+                    coalescedCount.incrementAndGet();
+                }
+            }
+        }
+
+        put( new RemoveAllEvent() );
+    }
+
+    /**
+     * Queues an event that is never coalesced.
+     * <p>
+     * @param event
+     */
+    @Override
+    protected void put( final AbstractCacheEvent event )
+    {
+        enqueue( new Object(), event );
+    }
+
+    /**
+     * Adds the event to the end of the queue, dropping the pending event for the same key, and
+     * makes sure a drain task is on its way.
+     * <p>
+     * @param key the coalescing key
+     * @param event the event
+     */
+    private void enqueue( final Object key, final AbstractCacheEvent event )
+    {
+        final boolean schedule;
+        synchronized ( pending )
+        {
+            if ( pending.remove( key ) != null )
+            {
+                coalescedCount.incrementAndGet();
+            }
+            pending.put( key, event );
+
+            schedule = !draining;
+            draining = true;
+        }
+
+        if ( schedule )
+        {
+            try
+            {
+                pool.execute( this::drain );
+            }
+            catch ( final RejectedExecutionException e )
+            {
+                synchronized ( pending )
+                {
+                    draining = false;
+                }
+                log.warn( "Could not schedule delivery for {0}, will retry with the next event.", this, e );
+            }
+        }
+    }
+
+    /**
+     * Hands the pending events to the listener, oldest first, until the queue is empty.
+     */
+    private void drain()
+    {
+        while ( true )
+        {
+            final AbstractCacheEvent event;
+            int count = 1;
+            synchronized ( pending )
+            {
+                final Iterator<AbstractCacheEvent> it = pending.values().iterator();
+                if ( !it.hasNext() )
+                {
+                    draining = false;
+                    return;
+                }
+                final AbstractCacheEvent first = it.next();
+                it.remove();
+
+                final List<ICacheElement<K, V>> batch = collectBatch( first, it );
+                if ( batch != null )
+                {
+                    event = new PutBatchEvent( batch );
+                    count = batch.size();
+                }
+                else
+                {
+                    event = first;
+                }
+            }
+
+            try
+            {
+                event.run();
+                deliveredCount.addAndGet( count );
+                if ( count > 1 )
+                {
+                    batchCount.incrementAndGet();
+                }
+            }
+            catch ( final RuntimeException e )
+            {
+                log.error( "Error delivering event {0}", event, e );
+            }
+        }
+    }
+
+    /**
+     * Takes the puts following the first one off the queue, up to the maximum batch size. Must be
+     * called while holding the lock of the pending events.
+     * <p>
+     * @param first the event taken off the queue
+     * @param it the iterator over the remaining events
+     * @return the elements to put, or null if the event should be delivered on its own
+     */
+    private List<ICacheElement<K, V>> collectBatch( final AbstractCacheEvent first, final Iterator<AbstractCacheEvent> it )
+    {
+        final int maxBatchSize = getMaxBatchSize();
+        if ( maxBatchSize <= 1 || !( first instanceof PutEvent ) || !it.hasNext() )
+        {
+            return null;
+        }
+
+        final List<ICacheElement<K, V>> batch = new ArrayList<>();
+        batch.add( ( (PutEvent) first ).getElement() );
+        while ( batch.size() < maxBatchSize && it.hasNext() )
+        {
+            final AbstractCacheEvent next = it.next();
+            if ( !( next instanceof PutEvent ) )
+            {
+                break;
+            }
+            batch.add( ( (PutEvent) next ).getElement() );
+            it.remove();
+        }
+
+        return batch.size() > 1 ? batch : null;
+    }
+
+    /**
+     * Destroy the queue. Pending events are dropped.
+     */
+    @Override
+    public synchronized void destroy()
+    {
+        super.destroy();
+
+        synchronized ( pending )
+        {
+            pending.clear();
+        }
+    }
+
+    /**
+     * @return IStats
+     */
+    @Override
+    public IStats getStatistics()
+    {
+        final IStats stats = new Stats();
+        stats.setTypeName( "Coalescing Cache Event Queue" );
+
+        final ArrayList<IStatElement<?>> elems = new ArrayList<>();
+
+        elems.add(new StatElement<>( "Working", Boolean.valueOf(isWorking()) ) );
+        elems.add(new StatElement<>( "Empty", Boolean.valueOf(this.isEmpty()) ) );
+        elems.add(new StatElement<>( "Queue Size", Integer.valueOf(size()) ) );
+        elems.add(new StatElement<>( "Delivered Events", Long.valueOf(deliveredCount.get()) ) );
+        elems.add(new StatElement<>( "Delivered Batches", Long.valueOf(batchCount.get()) ) );
+        elems.add(new StatElement<>( "Coalesced Events", Long.valueOf(coalescedCount.get()) ) );
+
+        stats.setStatElements( elems );
+
+        return stats;
+    }
+
+    /**
+     * @return the number of events that were dropped because a newer one replaced them
+     */
+    public long getCoalescedCount()
+    {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Returns the number of pending events.
+     * <p>
+     * @return number of items in the queue.
+     */
+    @Override
+    public int size()
+    {
+        synchronized ( pending )
+        {
+            return pending.size();
+        }
+    }
+}
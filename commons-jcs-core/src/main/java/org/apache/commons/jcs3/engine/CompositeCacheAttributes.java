@@ -64,6 +64,15 @@ public class CompositeCacheAttributes
     /** Default number to send to disk at a time when memory fills. */
     private static final int DEFAULT_CHUNK_SIZE = 2;
 
+    /** Default pool for asynchronous auxiliary lookups. */
+    private static final String DEFAULT_ASYNC_THREAD_POOL_NAME = "async";
+
+    /** Default time to wait for an auxiliary before the next one is asked. */
+    private static final long DEFAULT_AUXILIARY_HEDGE_DELAY_MILLIS = 20;
+
+    /** Default pool for concurrent auxiliary lookups. */
+    private static final String DEFAULT_AUXILIARY_LOOKUP_THREAD_POOL_NAME = "aux_lookup";
+
     /** allow lateral caches */
     private boolean useLateral = DEFAULT_USE_LATERAL;
 
@@ -100,6 +109,18 @@ public class CompositeCacheAttributes
     /** How many to spool to disk at a time. */
     private int spoolChunkSize = DEFAULT_CHUNK_SIZE;
 
+    /** The thread pool for asynchronous auxiliary lookups. */
+    private String asyncThreadPoolName = DEFAULT_ASYNC_THREAD_POOL_NAME;
+
+    /** How the auxiliaries are asked on a miss in memory. */
+    private AuxiliaryLookupPattern auxiliaryLookupPattern = AuxiliaryLookupPattern.SEQUENTIAL;
+
+    /** Time to wait for an auxiliary before the next one is asked, for the HEDGED pattern. */
+    private long auxiliaryHedgeDelayMillis = DEFAULT_AUXILIARY_HEDGE_DELAY_MILLIS;
+
+    /** The thread pool for concurrent auxiliary lookups. */
+    private String auxiliaryLookupThreadPoolName = DEFAULT_AUXILIARY_LOOKUP_THREAD_POOL_NAME;
+
     /**
      * Constructor for the CompositeCacheAttributes object
      */
@@ -401,6 +422,86 @@ public class CompositeCacheAttributes
         return diskUsagePattern;
     }
 
+    /**
+     * The name of the thread pool used for asynchronous lookups in the auxiliary caches.
+     * <p>
+     * @return the name of the pool
+     */
+    @Override
+    public String getAsyncThreadPoolName()
+    {
+        return asyncThreadPoolName;
+    }
+
+    /**
+     * By default this is "async". Configure the pool as <code>thread_pool.async</code>.
+     * <p>
+     * @param name the name of the pool
+     */
+    @Override
+    public void setAsyncThreadPoolName( final String name )
+    {
+        this.asyncThreadPoolName = name;
+    }
+
+    /**
+     * By default this is SEQUENTIAL.
+     * <p>
+     * @return the lookup pattern
+     */
+    @Override
+    public AuxiliaryLookupPattern getAuxiliaryLookupPattern()
+    {
+        return auxiliaryLookupPattern;
+    }
+
+    /**
+     * @param pattern the lookup pattern
+     */
+    @Override
+    public void setAuxiliaryLookupPattern( final AuxiliaryLookupPattern pattern )
+    {
+        this.auxiliaryLookupPattern = pattern;
+    }
+
+    /**
+     * @return the hedge delay in milliseconds
+     */
+    @Override
+    public long getAuxiliaryHedgeDelayMillis()
+    {
+        return auxiliaryHedgeDelayMillis;
+    }
+
+    /**
+     * @param millis the hedge delay in milliseconds
+     */
+    @Override
+    public void setAuxiliaryHedgeDelayMillis( final long millis )
+    {
+        this.auxiliaryHedgeDelayMillis = millis;
+    }
+
+    /**
+     * @return the name of the pool for concurrent auxiliary lookups
+     */
+    @Override
+    public String getAuxiliaryLookupThreadPoolName()
+    {
+        return auxiliaryLookupThreadPoolName;
+    }
+
+    /**
+     * By default this is "aux_lookup". Configure the pool as <code>thread_pool.aux_lookup</code>.
+     * <p>
+     * @param name the name of the pool for concurrent auxiliary lookups
+     */
+    @Override
+    public void setAuxiliaryLookupThreadPoolName( final String name )
+    {
+        this.auxiliaryLookupThreadPoolName = name;
+    }
+
     /**
      * Dumps the core attributes.
      * <p>
@@ -419,6 +520,9 @@ public class CompositeCacheAttributes
         dump.append( ", maxSpoolPerRun = " ).append( maxSpoolPerRun );
         dump.append( ", diskUsagePattern = " ).append( diskUsagePattern );
         dump.append( ", spoolChunkSize = " ).append( spoolChunkSize );
+        dump.append( ", asyncThreadPoolName = " ).append( asyncThreadPoolName );
+        dump.append( ", auxiliaryLookupPattern = " ).append( auxiliaryLookupPattern );
+        dump.append( ", auxiliaryHedgeDelayMillis = " ).append( auxiliaryHedgeDelayMillis );
         dump.append( " ]" );
 
         return dump.toString();
@@ -67,6 +67,9 @@ public class ElementAttributes
      */
     private long maxIdleTime = -1;
 
+    /** Part of the max life in percent after which a read triggers a reload, 0 for none */
+    private int refreshAheadPercent;
+
     /** The byte size of the field. Must be manually set. */
     private int size;
 
@@ -117,6 +120,7 @@ public class ElementAttributes
         maxLife = attr.maxLife;
         // time-to-live
         maxIdleTime = attr.maxIdleTime;
+        refreshAheadPercent = attr.refreshAheadPercent;
         size = attr.size;
     }
 
@@ -145,6 +149,31 @@ public class ElementAttributes
         return this.maxLife;
     }
 
+    /**
+     * Sets the part of the max life, in percent, after which a read triggers a reload of the
+     * element in the background.
+     * <p>
+     * @param percent the refresh-ahead point, 0 to turn it off
+     */
+    @Override
+    public void setRefreshAheadPercent( final int percent )
+    {
+        this.refreshAheadPercent = percent;
+    }
+
+    /**
+     * Gets the part of the max life, in percent, after which a read triggers a reload of the
+     * element in the background. A value of 80 with a max life of 600 seconds reloads an element
+     * that is read after it has been in the cache for 480 seconds.
+     * <p>
+     * @return the refresh-ahead point, 0 if turned off
+     */
+    @Override
+    public int getRefreshAheadPercent()
+    {
+        return this.refreshAheadPercent;
+    }
+
     /**
      * Sets the idleTime attribute of the IAttributes object. This is the maximum time the item can
      * be idle in the cache, that is not accessed.
@@ -205,6 +234,18 @@ public class ElementAttributes
         createTime = System.currentTimeMillis();
     }
 
+    /**
+     * Sets the createTime attribute of the IElementAttributes object, used when an element is
+     * read back from a serialized form.
+     * <p>
+     * @param time the create time in milliseconds
+     * @since 3.2
+     */
+    public void setCreateTime( final long time )
+    {
+        createTime = time;
+    }
+
     /**
      * Gets the idleTime attribute of the IAttributes object.
      * <p>
@@ -431,6 +472,7 @@ public class ElementAttributes
         dump.append( ", IS_ETERNAL = " ).append( IS_ETERNAL );
         dump.append( ", MaxLifeSeconds = " ).append( this.getMaxLife() );
         dump.append( ", IdleTime = " ).append( this.getIdleTime() );
+        dump.append( ", RefreshAheadPercent = " ).append( this.getRefreshAheadPercent() );
         dump.append( ", CreateTime = " ).append( this.getCreateTime() );
         dump.append( ", LastAccessTime = " ).append( this.getLastAccessTime() );
         dump.append( ", getTimeToLiveSeconds() = " ).append( String.valueOf( getTimeToLiveSeconds() ) );
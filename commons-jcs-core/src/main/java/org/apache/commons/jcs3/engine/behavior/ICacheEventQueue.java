@@ -35,13 +35,19 @@ public interface ICacheEventQueue<K, V>
         SINGLE,
 
         /** Uses a thread pool. */
-        POOLED
+        POOLED,
+
+        /**
+         * Uses a thread pool and keeps only the latest pending put or remove per key.
+         * @since 3.2
+         */
+        COALESCING
     }
 
     /**
-     * Return the type of event queue we are using, either single or pooled.
+     * Return the type of event queue we are using, single, pooled or coalescing.
      * <p>
-     * @return the queue type: single or pooled
+     * @return the queue type: single, pooled or coalescing
      */
     QueueType getQueueType();
 
@@ -20,6 +20,7 @@ package org.apache.commons.jcs3.engine.behavior;
  */
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Used to receive a cache event notification.
@@ -38,6 +39,23 @@ public interface ICacheListener<K, V>
     void handlePut( ICacheElement<K, V> item )
         throws IOException;
 
+    /**
+     * Notifies the subscribers of several cache entry updates at once. The items must be applied
+     * in the order of the list. The default implementation calls handlePut for each of them.
+     * <p>
+     * @param items
+     * @throws IOException
+     * @since 3.2
+     */
+    default void handlePutBatch( final List<ICacheElement<K, V>> items )
+        throws IOException
+    {
+        for ( final ICacheElement<K, V> item : items )
+        {
+            handlePut( item );
+        }
+    }
+
     /**
      * Notifies the subscribers for a cache entry removal.
      * <p>
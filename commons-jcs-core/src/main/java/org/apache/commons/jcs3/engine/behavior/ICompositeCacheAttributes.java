@@ -39,6 +39,21 @@ public interface ICompositeCacheAttributes
         UPDATE
     }
 
+    enum AuxiliaryLookupPattern
+    {
+        /** The auxiliaries are asked one after the other in configuration order. This is the default. */
+        SEQUENTIAL,
+
+        /** All auxiliaries are asked at once, the first non-expired hit is used. */
+        PARALLEL,
+
+        /**
+         * The auxiliaries are asked in configuration order, but the next one is started if the
+         * previous one did not answer within the hedge delay. The first non-expired hit is used.
+         */
+        HEDGED
+    }
+
     /**
      * SetMaxObjects is used to set the attribute to determine the maximum
      * number of objects allowed in the memory cache. If the max number of
@@ -237,6 +252,67 @@ public interface ICompositeCacheAttributes
      */
     void setSpoolChunkSize( int spoolChunkSize );
 
+    /**
+     * The name of the thread pool used for asynchronous lookups in the auxiliary caches. Pools
+     * are configured in the cache.ccf as <code>thread_pool.&lt;name&gt;</code>.
+     * <p>
+     * @return the name of the pool
+     */
+    String getAsyncThreadPoolName();
+
+    /**
+     * Set the name of the thread pool used for asynchronous lookups in the auxiliary caches.
+     * <p>
+     * @param name the name of the pool
+     */
+    void setAsyncThreadPoolName( String name );
+
+    /**
+     * How a miss in memory is looked up in the auxiliary caches.
+     * <p>
+     * @return the lookup pattern
+     */
+    AuxiliaryLookupPattern getAuxiliaryLookupPattern();
+
+    /**
+     * Set how a miss in memory is looked up in the auxiliary caches.
+     * <p>
+     * @param pattern the lookup pattern
+     */
+    void setAuxiliaryLookupPattern( AuxiliaryLookupPattern pattern );
+
+    /**
+     * For the HEDGED lookup pattern, the time to wait for an auxiliary before the next one is
+     * asked as well. For both concurrent patterns, the time after which the caller runs a lookup
+     * itself if the pool has not started it.
+     * <p>
+     * @return the delay in milliseconds
+     */
+    long getAuxiliaryHedgeDelayMillis();
+
+    /**
+     * For the HEDGED lookup pattern, set the time to wait for an auxiliary before the next one is
+     * asked as well.
+     * <p>
+     * @param millis the delay in milliseconds
+     */
+    void setAuxiliaryHedgeDelayMillis( long millis );
+
+    /**
+     * The name of the thread pool running the concurrent auxiliary lookups of the PARALLEL and
+     * HEDGED patterns.
+     * <p>
+     * @return the name of the pool
+     */
+    String getAuxiliaryLookupThreadPoolName();
+
+    /**
+     * Set the name of the thread pool running the concurrent auxiliary lookups.
+     * <p>
+     * @param name the name of the pool
+     */
+    void setAuxiliaryLookupThreadPoolName( String name );
+
     /**
      * Clone object
      */
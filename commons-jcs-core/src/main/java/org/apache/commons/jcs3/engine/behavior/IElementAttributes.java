@@ -111,6 +111,24 @@ public interface IElementAttributes extends Serializable, Cloneable
      */
     long getTimeToLiveSeconds();
 
+    /**
+     * Sets the part of the max life, in percent, after which a read triggers a reload of the
+     * element in the background. The reader still gets the current value. This only has an effect
+     * if a refresh-ahead loader is registered for the region and the element is not eternal.
+     * <p>
+     * @param percent the refresh-ahead point, 0 to turn it off
+     */
+    void setRefreshAheadPercent( int percent );
+
+    /**
+     * Gets the part of the max life, in percent, after which a read triggers a reload of the
+     * element in the background.
+     * <p>
+     * By default this is 0, which turns refresh-ahead off.
+     * @return the refresh-ahead point
+     */
+    int getRefreshAheadPercent();
+
     /**
      * Can this item be spooled to disk
      * <p>
@@ -19,7 +19,6 @@ package org.apache.commons.jcs3.engine.behavior;
  * under the License.
  */
 
-import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -27,10 +26,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousByteChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.jcs3.utils.serialization.FrameBuffer;
 
 /**
  * Defines the behavior for cache element serializers. This layer of abstraction allows us to plug
@@ -63,6 +60,52 @@ public interface IElementSerializer
     <T> T deSerialize( byte[] bytes, ClassLoader loader )
         throws IOException, ClassNotFoundException;
 
+    /**
+     * Appends the serialized object to a frame buffer.
+     * The data will be prepended with a four-byte length prefix.
+     * <p>
+     * The default implementation serializes into a byte array first. Serializers that can write
+     * to a stream should override this to write straight into the buffer.
+     *
+     * @param <T> the type of the object
+     * @param obj the object to serialize
+     * @param buffer the frame buffer
+     * @return the number of bytes written
+     * @throws IOException if serialization fails
+     * @since 3.2
+     */
+    default <T> int serializeTo(T obj, FrameBuffer buffer)
+        throws IOException
+    {
+        final int start = buffer.beginFrame();
+        buffer.write(serialize(obj));
+        buffer.endFrame(start);
+        return buffer.size() - start;
+    }
+
+    /**
+     * Turns the remaining bytes of a buffer into an object, for example a frame body returned by
+     * {@link FrameBuffer#readFrom(ReadableByteChannel)}. The buffer has no length prefix.
+     * <p>
+     * The default implementation copies the bytes into an array first. Serializers that can read
+     * from a stream or from a part of an array should override this.
+     *
+     * @param <T> the type of the object
+     * @param buffer the data bytes
+     * @param loader class loader to use
+     * @return Object
+     * @throws IOException if de-serialization fails
+     * @throws ClassNotFoundException thrown if we don't know the object.
+     * @since 3.2
+     */
+    default <T> T deSerializeFrom(ByteBuffer buffer, ClassLoader loader)
+        throws IOException, ClassNotFoundException
+    {
+        final byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return deSerialize(data, loader);
+    }
+
     /**
      * Convenience method to write serialized object into a stream.
      * The stream data will be prepended with a four-byte length prefix.
@@ -77,14 +120,16 @@ public interface IElementSerializer
     default <T> int serializeTo(T obj, OutputStream os)
         throws IOException
     {
-        final byte[] serialized = serialize(obj);
-        final ByteBuffer buffer = ByteBuffer.allocate(4 + serialized.length);
-        buffer.putInt(serialized.length);
-        buffer.put(serialized);
-        buffer.flip();
-
-        os.write(buffer.array());
-        return buffer.capacity();
+        final FrameBuffer buffer = FrameBuffer.acquire();
+        try
+        {
+            serializeTo(obj, buffer);
+            return buffer.writeTo(os);
+        }
+        finally
+        {
+            buffer.release();
+        }
     }
 
     /**
@@ -101,18 +146,16 @@ public interface IElementSerializer
     default <T> int serializeTo(T obj, WritableByteChannel oc)
         throws IOException
     {
-        final byte[] serialized = serialize(obj);
-        final ByteBuffer buffer = ByteBuffer.allocate(4 + serialized.length);
-        buffer.putInt(serialized.length);
-        buffer.put(serialized);
-        buffer.flip();
-
-        int count = 0;
-        while (buffer.hasRemaining())
+        final FrameBuffer buffer = FrameBuffer.acquire();
+        try
+        {
+            serializeTo(obj, buffer);
+            return buffer.writeTo(oc);
+        }
+        finally
         {
-            count += oc.write(buffer);
+            buffer.release();
         }
-        return count;
     }
 
     /**
@@ -131,27 +174,16 @@ public interface IElementSerializer
     default <T> int serializeTo(T obj, AsynchronousByteChannel oc, int writeTimeoutMs)
         throws IOException
     {
-        final byte[] serialized = serialize(obj);
-        final ByteBuffer buffer = ByteBuffer.allocate(4 + serialized.length);
-        buffer.putInt(serialized.length);
-        buffer.put(serialized);
-        buffer.flip();
-
-        int count = 0;
-        while (buffer.hasRemaining())
+        final FrameBuffer buffer = FrameBuffer.acquire();
+        try
         {
-            Future<Integer> bytesWritten = oc.write(buffer);
-            try
-            {
-                count += bytesWritten.get(writeTimeoutMs, TimeUnit.MILLISECONDS);
-            }
-            catch (InterruptedException | ExecutionException | TimeoutException e)
-            {
-                throw new IOException("Write timeout exceeded " + writeTimeoutMs, e);
-            }
+            serializeTo(obj, buffer);
+            return buffer.writeTo(oc, writeTimeoutMs);
+        }
+        finally
+        {
+            buffer.release();
         }
-
-        return count;
     }
 
     /**
@@ -169,20 +201,15 @@ public interface IElementSerializer
     default <T> T deSerializeFrom(InputStream is, ClassLoader loader)
         throws IOException, ClassNotFoundException
     {
-        final byte[] bufferSize = new byte[4];
-        int read = is.read(bufferSize);
-        if (read < 0)
+        final FrameBuffer buffer = FrameBuffer.acquire();
+        try
         {
-            throw new EOFException("End of stream reached");
+            return deSerializeFrom(buffer.readFrom(is), loader);
+        }
+        finally
+        {
+            buffer.release();
         }
-        assert read == bufferSize.length;
-        ByteBuffer size = ByteBuffer.wrap(bufferSize);
-
-        byte[] serialized = new byte[size.getInt()];
-        read = is.read(serialized);
-        assert read == serialized.length;
-
-        return deSerialize(serialized, loader);
     }
 
     /**
@@ -200,27 +227,15 @@ public interface IElementSerializer
     default <T> T deSerializeFrom(ReadableByteChannel ic, ClassLoader loader)
         throws IOException, ClassNotFoundException
     {
-        final ByteBuffer bufferSize = ByteBuffer.allocate(4);
-        int read = ic.read(bufferSize);
-        if (read < 0)
+        final FrameBuffer buffer = FrameBuffer.acquire();
+        try
         {
-            throw new EOFException("End of stream reached (length)");
+            return deSerializeFrom(buffer.readFrom(ic), loader);
         }
-        assert read == bufferSize.capacity();
-        bufferSize.flip();
-
-        final ByteBuffer serialized = ByteBuffer.allocate(bufferSize.getInt());
-        while (serialized.remaining() > 0)
+        finally
         {
-            read = ic.read(serialized);
-            if (read < 0)
-            {
-                throw new EOFException("End of stream reached (object)");
-            }
+            buffer.release();
         }
-        serialized.flip();
-
-        return deSerialize(serialized.array(), loader);
     }
 
     /**
@@ -240,45 +255,14 @@ public interface IElementSerializer
     default <T> T deSerializeFrom(AsynchronousByteChannel ic, int readTimeoutMs, ClassLoader loader)
         throws IOException, ClassNotFoundException
     {
-        final ByteBuffer bufferSize = ByteBuffer.allocate(4);
-        Future<Integer> readFuture = ic.read(bufferSize);
-
+        final FrameBuffer buffer = FrameBuffer.acquire();
         try
         {
-            int read = readFuture.get(readTimeoutMs, TimeUnit.MILLISECONDS);
-            if (read < 0)
-            {
-                throw new EOFException("End of stream reached (length)");
-            }
-            assert read == bufferSize.capacity();
+            return deSerializeFrom(buffer.readFrom(ic, readTimeoutMs), loader);
         }
-        catch (InterruptedException | ExecutionException | TimeoutException e)
+        finally
         {
-            throw new IOException("Read timeout exceeded (length)" + readTimeoutMs, e);
+            buffer.release();
         }
-
-        bufferSize.flip();
-
-        final ByteBuffer serialized = ByteBuffer.allocate(bufferSize.getInt());
-        while (serialized.remaining() > 0)
-        {
-            readFuture = ic.read(serialized);
-            try
-            {
-                int read = readFuture.get(readTimeoutMs, TimeUnit.MILLISECONDS);
-                if (read < 0)
-                {
-                    throw new EOFException("End of stream reached (object)");
-                }
-            }
-            catch (InterruptedException | ExecutionException | TimeoutException e)
-            {
-                throw new IOException("Read timeout exceeded (object)" + readTimeoutMs, e);
-            }
-        }
-
-        serialized.flip();
-
-        return deSerialize(serialized.array(), loader);
     }
 }
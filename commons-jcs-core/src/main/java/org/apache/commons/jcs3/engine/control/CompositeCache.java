@@ -22,6 +22,7 @@ package org.apache.commons.jcs3.engine.control;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -30,22 +31,33 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.commons.jcs3.access.exception.CacheException;
 import org.apache.commons.jcs3.access.exception.ObjectNotFoundException;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCache;
+import org.apache.commons.jcs3.engine.CacheElement;
 import org.apache.commons.jcs3.engine.CacheStatus;
 import org.apache.commons.jcs3.engine.behavior.ICache;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes.AuxiliaryLookupPattern;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes.DiskUsagePattern;
 import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
 import org.apache.commons.jcs3.engine.behavior.IRequireScheduler;
@@ -66,6 +78,7 @@ import org.apache.commons.jcs3.engine.stats.behavior.ICacheStats;
 import org.apache.commons.jcs3.engine.stats.behavior.IStats;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.threadpool.ThreadPoolManager;
 
 /**
  * This is the primary hub for a single cache/region. It controls the flow of items through the
@@ -115,6 +128,24 @@ public class CompositeCache<K, V>
     /** Count of misses where element was expired. */
     private final AtomicLong missCountExpired;
 
+    /** Loads in progress, by key. */
+    private final ConcurrentMap<K, CompletableFuture<ICacheElement<K, V>>> pendingLoads;
+
+    /** How many times a loader was called on a miss. */
+    private final AtomicLong loadCount;
+
+    /** How many callers waited for the load of another caller instead of loading themselves. */
+    private final AtomicLong coalescedLoadCount;
+
+    /** Reloads the elements due for refresh-ahead, null if there is none */
+    private volatile Function<K, V> refreshAheadLoader;
+
+    /** Keys being reloaded in the background */
+    private final Set<K> pendingRefreshes;
+
+    /** Number of refresh-ahead reloads */
+    private final AtomicLong refreshAheadCount;
+
     /** Cache manager. */
     private CompositeCacheManager cacheManager;
 
@@ -129,6 +160,12 @@ public class CompositeCache<K, V>
 
     private ScheduledFuture<?> future;
 
+    /** Runs the asynchronous lookups in the auxiliary caches, created on first use */
+    private volatile ExecutorService asyncExecutor;
+
+    /** Runs the concurrent lookups in the auxiliary caches, created on first use */
+    private volatile ExecutorService auxiliaryLookupExecutor;
+
     /**
      * Constructor for the Cache object
      * <p>
@@ -146,6 +183,11 @@ public class CompositeCache<K, V>
         this.hitCountAux = new AtomicLong();
         this.missCountNotFound = new AtomicLong();
         this.missCountExpired = new AtomicLong();
+        this.pendingLoads = new ConcurrentHashMap<>();
+        this.loadCount = new AtomicLong();
+        this.coalescedLoadCount = new AtomicLong();
+        this.pendingRefreshes = ConcurrentHashMap.newKeySet();
+        this.refreshAheadCount = new AtomicLong();
 
         createMemoryCache(cattr);
 
@@ -192,6 +234,36 @@ public class CompositeCache<K, V>
         }
     }
 
+    /**
+     * Sets the executor for the asynchronous lookups in the auxiliary caches. If none is set,
+     * the pool named by the AsyncThreadPoolName attribute of the region is used.
+     * <p>
+     * @param executor the executor
+     */
+    public void setAsyncExecutor(final ExecutorService executor)
+    {
+        this.asyncExecutor = executor;
+    }
+
+    /**
+     * Gets the executor for the asynchronous lookups in the auxiliary caches. Unless one was set,
+     * it is obtained from the ThreadPoolManager on first use.
+     * <p>
+     * @return the executor
+     */
+    public ExecutorService getAsyncExecutor()
+    {
+        ExecutorService executor = asyncExecutor;
+        if (executor == null)
+        {
+            executor = ThreadPoolManager.getInstance().getExecutorService(
+                    cacheAttr.getAsyncThreadPoolName());
+            asyncExecutor = executor;
+        }
+
+        return executor;
+    }
+
     /**
      * This sets the list of auxiliary caches for this region.
      * It filters out null caches
@@ -483,6 +555,104 @@ public class CompositeCache<K, V>
         return get(key, true);
     }
 
+    /**
+     * Gets an item from the cache. If it is not found, the loader is called and the result is put
+     * into the cache.
+     * <p>
+     * Concurrent misses for the same key are coalesced: only the first caller runs the loader,
+     * all others wait for its result. This protects expensive loaders from a stampede of
+     * requests when a popular item expires.
+     * <p>
+     * @param key
+     * @param loader creates the element for the key, may return null if there is none
+     * @return the element from the cache or the loader, or null
+     * @throws IOException if the loaded element cannot be put into the cache
+     */
+    public ICacheElement<K, V> getOrLoad(final K key, final Supplier<ICacheElement<K, V>> loader)
+        throws IOException
+    {
+        ICacheElement<K, V> element = get(key);
+        if (element != null)
+        {
+            return element;
+        }
+
+        final CompletableFuture<ICacheElement<K, V>> load = new CompletableFuture<>();
+        final CompletableFuture<ICacheElement<K, V>> pending = pendingLoads.putIfAbsent(key, load);
+
+        if (pending != null)
+        {
+            coalescedLoadCount.incrementAndGet();
+            log.debug("{0}: waiting for load in progress of key {1}",
+                    () -> cacheAttr.getCacheName(), () -> key);
+            return awaitLoad(pending);
+        }
+
+        try
+        {
+            // Another loader may have finished between our get and the registration
+            element = memCache.getQuiet(key);
+            if (element == null || isExpired(element))
+            {
+                loadCount.incrementAndGet();
+                element = loader.get();
+                load.complete(element);
+
+                if (element != null)
+                {
+                    update(element);
+                }
+            }
+            else
+            {
+                load.complete(element);
+            }
+
+            return element;
+        }
+        catch (final RuntimeException | Error e)
+        {
+            load.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            pendingLoads.remove(key, load);
+        }
+    }
+
+    /**
+     * Wait for the load of another thread.
+     * <p>
+     * @param pending the load in progress
+     * @return the loaded element or null
+     */
+    private ICacheElement<K, V> awaitLoad(final CompletableFuture<ICacheElement<K, V>> pending)
+    {
+        try
+        {
+            return pending.get();
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new CacheException("Interrupted while waiting for load", e);
+        }
+        catch (final ExecutionException e)
+        {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new CacheException(cause);
+        }
+    }
+
     /**
      * Look in memory, then disk, remote, or laterally for this item. The order is dependent on the
      * order in the cache.ccf file.
@@ -496,42 +666,121 @@ public class CompositeCache<K, V>
      */
     protected ICacheElement<K, V> get(final K key, final boolean localOnly)
     {
-        ICacheElement<K, V> element = null;
-
-        boolean found = false;
-
         log.debug("get: key = {0}, localOnly = {1}", key, localOnly);
 
         try
         {
             // First look in memory cache
-            element = memCache.get(key);
+            final ICacheElement<K, V> element = memCache.get(key);
 
             if (element != null)
             {
-                // Found in memory cache
-                if (isExpired(element))
-                {
-                    log.debug("{0} - Memory cache hit, but element expired",
-                            () -> cacheAttr.getCacheName());
+                return processMemoryHit(element);
+            }
+        }
+        catch (final IOException e)
+        {
+            log.error("Problem encountered getting element.", e);
+            missCountNotFound.incrementAndGet();
+            return null;
+        }
 
-                    doExpires(element);
-                    element = null;
-                }
-                else
-                {
-                    log.debug("{0} - Memory cache hit", () -> cacheAttr.getCacheName());
+        // Item not found in memory.
+        return getFromAuxiliaryCaches(key, localOnly);
+    }
 
-                    // Update counters
-                    hitCountRam.incrementAndGet();
-                }
+    /**
+     * Look in memory for the item and, if it is not there, in the auxiliary caches of the region.
+     * The memory lookup is done by the calling thread. The lookup in the auxiliaries, which may
+     * have to go over the network or to a database, runs on the executor returned by
+     * {@link #getAsyncExecutor()}, so that the caller does not have to wait for it.
+     * <p>
+     * Memory hits and misses in regions without auxiliaries return a completed future.
+     * <p>
+     * @param key
+     * @return a future for the element, completed with null if it is not present
+     */
+    public CompletableFuture<ICacheElement<K, V>> getAsync(final K key)
+    {
+        log.debug("getAsync: key = {0}", key);
 
-                found = true;
+        try
+        {
+            final ICacheElement<K, V> element = memCache.get(key);
+
+            if (element != null)
+            {
+                return CompletableFuture.completedFuture(processMemoryHit(element));
             }
-            else
+        }
+        catch (final IOException e)
+        {
+            log.error("Problem encountered getting element.", e);
+            missCountNotFound.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (auxCaches.isEmpty())
+        {
+            return CompletableFuture.completedFuture(getFromAuxiliaryCaches(key, false));
+        }
+
+        return CompletableFuture.supplyAsync(() -> getFromAuxiliaryCaches(key, false),
+                getAsyncExecutor());
+    }
+
+    /**
+     * Check an element found in memory for expiration and update the counters.
+     * <p>
+     * @param element the element found in the memory cache
+     * @return the element or null if it has expired
+     */
+    private ICacheElement<K, V> processMemoryHit(final ICacheElement<K, V> element)
+    {
+        if (isExpired(element))
+        {
+            log.debug("{0} - Memory cache hit, but element expired",
+                    () -> cacheAttr.getCacheName());
+
+            doExpires(element);
+            return null;
+        }
+
+        log.debug("{0} - Memory cache hit", () -> cacheAttr.getCacheName());
+
+        // Update counters
+        hitCountRam.incrementAndGet();
+        element.getElementAttributes().setLastAccessTimeNow();
+        refreshAheadIfDue(element);
+
+        return element;
+    }
+
+    /**
+     * If local invocation look in aux caches, even if not local look in disk auxiliaries.
+     * <p>
+     * @param key
+     * @param localOnly
+     * @return the element found in the auxiliary caches or null
+     */
+    private ICacheElement<K, V> getFromAuxiliaryCaches(final K key, final boolean localOnly)
+    {
+        ICacheElement<K, V> element = null;
+
+        boolean found = false;
+
+        final List<AuxiliaryCache<K, V>> concurrentAuxCaches = getAuxCachesForConcurrentLookup(localOnly);
+        if (concurrentAuxCaches != null)
+        {
+            final ConcurrentAuxiliaryLookup lookup =
+                new ConcurrentAuxiliaryLookup(Collections.singleton(key), concurrentAuxCaches);
+            element = lookup.run().get(key);
+            found = element != null || lookup.expired.containsKey(key);
+        }
+        else
+        {
+            try
             {
-                // Item not found in memory. If local invocation look in aux
-                // caches, even if not local look in disk auxiliaries
                 for (final AuxiliaryCache<K, V> aux : auxCaches)
                 {
                     final CacheType cacheType = aux.getCacheType();
@@ -576,6 +825,7 @@ public class CompositeCache<K, V>
                             // Update counters
                             hitCountAux.incrementAndGet();
                             copyAuxiliaryRetrievedItemToMemory(element);
+                            refreshAheadIfDue(element);
                         }
 
                         found = true;
@@ -584,10 +834,10 @@ public class CompositeCache<K, V>
                     }
                 }
             }
-        }
-        catch (final IOException e)
-        {
-            log.error("Problem encountered getting element.", e);
+            catch (final IOException e)
+            {
+                log.error("Problem encountered getting element.", e);
+            }
         }
 
         if (!found)
@@ -605,6 +855,121 @@ public class CompositeCache<K, V>
         return element;
     }
 
+    /**
+     * Registers the loader used to reload elements that are read after they have passed the
+     * refresh-ahead point of their max life. Without a loader, refresh-ahead is off.
+     * <p>
+     * @param loader returns the current value for a key, or null to let the element expire
+     */
+    public void setRefreshAheadLoader(final Function<K, V> loader)
+    {
+        this.refreshAheadLoader = loader;
+    }
+
+    /**
+     * @return the refresh-ahead loader, or null if none is registered
+     */
+    public Function<K, V> getRefreshAheadLoader()
+    {
+        return refreshAheadLoader;
+    }
+
+    /**
+     * Determine if an element has passed the refresh-ahead point of its max life.
+     * <p>
+     * @param element the element
+     * @param timestamp the time to compare to
+     * @return true if the element should be reloaded
+     */
+    public boolean isRefreshAheadDue(final ICacheElement<K, V> element, final long timestamp)
+    {
+        final IElementAttributes attributes = element.getElementAttributes();
+        final int percent = attributes.getRefreshAheadPercent();
+
+        if (percent <= 0 || attributes.getIsEternal() || attributes.getMaxLife() == -1)
+        {
+            return false;
+        }
+
+        final long maxLifeMillis = attributes.getMaxLife() * attributes.getTimeFactorForMilliseconds();
+        return timestamp - attributes.getCreateTime() >= maxLifeMillis * Math.min(percent, 100) / 100;
+    }
+
+    /**
+     * Start a reload of the element in the background if it is due for refresh-ahead and no
+     * reload of the key is in progress.
+     * <p>
+     * @param element the element that was just read
+     */
+    private void refreshAheadIfDue(final ICacheElement<K, V> element)
+    {
+        final Function<K, V> loader = refreshAheadLoader;
+        if (loader == null || !isRefreshAheadDue(element, System.currentTimeMillis()))
+        {
+            return;
+        }
+
+        final K key = element.getKey();
+        if (!pendingRefreshes.add(key))
+        {
+            return;
+        }
+
+        try
+        {
+            getAsyncExecutor().execute(() -> refreshAhead(element, loader));
+        }
+        catch (final RejectedExecutionException e)
+        {
+            pendingRefreshes.remove(key);
+            log.warn("{0} - Refresh ahead of key {1} rejected", cacheAttr.getCacheName(), key);
+        }
+    }
+
+    /**
+     * Reload an element and put the new value into the cache. The new element gets a copy of the
+     * attributes of the old one, with a new create time.
+     * <p>
+     * @param old the element due for refresh-ahead
+     * @param loader the loader
+     */
+    private void refreshAhead(final ICacheElement<K, V> old, final Function<K, V> loader)
+    {
+        final K key = old.getKey();
+
+        try
+        {
+            // Another thread may have put a new value in the meantime
+            final ICacheElement<K, V> current = memCache.getQuiet(key);
+            if (current != null && current != old
+                && !isRefreshAheadDue(current, System.currentTimeMillis()))
+            {
+                return;
+            }
+
+            log.debug("{0} - Refresh ahead of key {1}", () -> cacheAttr.getCacheName(), () -> key);
+
+            refreshAheadCount.incrementAndGet();
+            final V value = loader.apply(key);
+
+            if (value != null)
+            {
+                final CacheElement<K, V> ce = new CacheElement<>(getCacheName(), key, value);
+                ce.setElementAttributes(old.getElementAttributes().clone());
+                update(ce);
+            }
+        }
+        catch (final IOException | RuntimeException e)
+        {
+            log.warn("{0} - Refresh ahead of key {1} failed, the element will expire",
+                    cacheAttr.getCacheName(), key, e);
+        }
+        finally
+        {
+            pendingRefreshes.remove(key);
+        }
+    }
+
     protected void doExpires(final ICacheElement<K, V> element)
     {
         missCountExpired.incrementAndGet();
@@ -672,7 +1037,66 @@ public class CompositeCache<K, V>
             log.error("Problem encountered getting elements.", e);
         }
 
-        // if we didn't find all the elements, increment the miss count by the number of elements not found
+        countMultipleMisses(keys, elements);
+
+        return elements;
+    }
+
+    /**
+     * Look in memory for the items and in the auxiliary caches of the region for the ones that
+     * are not there. As in {@link #getAsync(Object)}, the lookup in the auxiliaries runs on the
+     * executor returned by {@link #getAsyncExecutor()}.
+     * <p>
+     * @param keys
+     * @return a future for the map of K key to ICacheElement&lt;K, V&gt; element, completed with an
+     *         empty map if there is no data in cache for any of these keys
+     */
+    public CompletableFuture<Map<K, ICacheElement<K, V>>> getMultipleAsync(final Set<K> keys)
+    {
+        final Map<K, ICacheElement<K, V>> elements = new HashMap<>();
+
+        log.debug("getMultipleAsync: key = {0}", keys);
+
+        try
+        {
+            elements.putAll(getMultipleFromMemory(keys));
+        }
+        catch (final IOException e)
+        {
+            log.error("Problem encountered getting elements.", e);
+        }
+
+        if (elements.size() == keys.size() || auxCaches.isEmpty())
+        {
+            countMultipleMisses(keys, elements);
+            return CompletableFuture.completedFuture(elements);
+        }
+
+        final Set<K> remainingKeys = pruneKeysFound(keys, elements);
+        return CompletableFuture.supplyAsync(() -> {
+            try
+            {
+                elements.putAll(getMultipleFromAuxiliaryCaches(remainingKeys, false));
+            }
+            catch (final IOException e)
+            {
+                log.error("Problem encountered getting elements.", e);
+            }
+
+            countMultipleMisses(keys, elements);
+            return elements;
+        }, getAsyncExecutor());
+    }
+
+    /**
+     * If we didn't find all the elements, increment the miss count by the number of elements not
+     * found.
+     * <p>
+     * @param keys the requested keys
+     * @param elements the elements found
+     */
+    private void countMultipleMisses(final Set<K> keys, final Map<K, ICacheElement<K, V>> elements)
+    {
         if (elements.size() != keys.size())
         {
             missCountNotFound.addAndGet(keys.size() - elements.size());
@@ -680,8 +1104,6 @@ public class CompositeCache<K, V>
             log.debug("{0} - {1} Misses", () -> cacheAttr.getCacheName(),
                     () -> keys.size() - elements.size());
         }
-
-        return elements;
     }
 
     /**
@@ -709,6 +1131,7 @@ public class CompositeCache<K, V>
 
             // Update counters
             hitCountRam.incrementAndGet();
+            refreshAheadIfDue(element);
             return false;
         });
 
@@ -726,6 +1149,12 @@ public class CompositeCache<K, V>
     private Map<K, ICacheElement<K, V>> getMultipleFromAuxiliaryCaches(final Set<K> keys, final boolean localOnly)
         throws IOException
     {
+        final List<AuxiliaryCache<K, V>> concurrentAuxCaches = getAuxCachesForConcurrentLookup(localOnly);
+        if (concurrentAuxCaches != null)
+        {
+            return new ConcurrentAuxiliaryLookup(keys, concurrentAuxCaches).run();
+        }
+
         final Map<K, ICacheElement<K, V>> elements = new HashMap<>();
         Set<K> remainingKeys = new HashSet<>(keys);
 
@@ -941,12 +1370,331 @@ public class CompositeCache<K, V>
                     log.error("{0} failed to copy element to memory {1}",
                             cacheAttr.getCacheName(), element, e);
                 }
+                refreshAheadIfDue(element);
             }
 
             return false;
         });
     }
 
+    /**
+     * Gets the auxiliaries to ask concurrently if the region is configured for a PARALLEL or
+     * HEDGED lookup.
+     * <p>
+     * @param localOnly only disk caches are asked if true
+     * @return the auxiliaries to ask in configuration order, or null if they should be asked one
+     *         after the other
+     */
+    private List<AuxiliaryCache<K, V>> getAuxCachesForConcurrentLookup(final boolean localOnly)
+    {
+        if (cacheAttr.getAuxiliaryLookupPattern() == null
+            || cacheAttr.getAuxiliaryLookupPattern() == AuxiliaryLookupPattern.SEQUENTIAL)
+        {
+            return null;
+        }
+
+        final List<AuxiliaryCache<K, V>> eligible = auxCaches.stream()
+            .filter(aux -> !localOnly || aux.getCacheType() == CacheType.DISK_CACHE)
+            .collect(Collectors.toList());
+
+        // nothing to gain with a single auxiliary
+        return eligible.size() > 1 ? eligible : null;
+    }
+
+    /**
+     * Gets the executor for the concurrent lookups in the auxiliary caches. It is obtained from
+     * the ThreadPoolManager on first use. This is a different pool than the one of
+     * {@link #getAsyncExecutor()}, since asynchronous gets fan out from there.
+     * <p>
+     * @return the executor
+     */
+    private ExecutorService getAuxiliaryLookupExecutor()
+    {
+        ExecutorService executor = auxiliaryLookupExecutor;
+        if (executor == null)
+        {
+            executor = ThreadPoolManager.getInstance().getExecutorService(
+                    cacheAttr.getAuxiliaryLookupThreadPoolName());
+            auxiliaryLookupExecutor = executor;
+        }
+
+        return executor;
+    }
+
+    /**
+     * Looks up a set of keys in several auxiliaries at once, for the PARALLEL and HEDGED lookup
+     * patterns.
+     * <p>
+     * Every auxiliary is asked for the keys that have not been found when its lookup starts. The
+     * first non-expired element for a key wins. As soon as all keys are found, the caller
+     * continues. Lookups that have not started by then are skipped, lookups in progress are left
+     * to finish and their results are dropped. They are not interrupted, since an interrupt
+     * closes the file channels of the disk caches.
+     * <p>
+     * If no thread of the pool has picked up a lookup within the hedge delay, the caller runs it
+     * itself, so a busy pool degrades to the sequential lookup rather than queueing behind other
+     * regions.
+     */
+    private class ConcurrentAuxiliaryLookup
+    {
+        /** The requested keys */
+        private final Set<K> keys;
+
+        /** The auxiliaries to ask, in configuration order */
+        private final List<AuxiliaryCache<K, V>> auxiliaries;
+
+        /** Non-expired elements found so far */
+        private final ConcurrentMap<K, ICacheElement<K, V>> found = new ConcurrentHashMap<>();
+
+        /** Expired elements found so far */
+        private final ConcurrentMap<K, ICacheElement<K, V>> expired = new ConcurrentHashMap<>();
+
+        /** Completed when all keys are found */
+        private final CompletableFuture<Void> allFound = new CompletableFuture<>();
+
+        /** Set when the caller has stopped waiting */
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        /**
+         * @param keys the keys to look up
+         * @param auxiliaries the auxiliaries to ask
+         */
+        ConcurrentAuxiliaryLookup(final Set<K> keys, final List<AuxiliaryCache<K, V>> auxiliaries)
+        {
+            this.keys = keys;
+            this.auxiliaries = auxiliaries;
+        }
+
+        /**
+         * Start the lookups and wait for the result. Updates the counters, copies the elements
+         * found to memory and expires the elements that were only found expired.
+         * <p>
+         * @return the non-expired elements found
+         */
+        Map<K, ICacheElement<K, V>> run()
+        {
+            final ExecutorService executor = getAuxiliaryLookupExecutor();
+            final boolean hedged = cacheAttr.getAuxiliaryLookupPattern() == AuxiliaryLookupPattern.HEDGED;
+            final long delay = Math.max(0, cacheAttr.getAuxiliaryHedgeDelayMillis());
+            final List<Tier> tiers = new ArrayList<>();
+
+            try
+            {
+                for (final AuxiliaryCache<K, V> aux : auxiliaries)
+                {
+                    if (allFound.isDone())
+                    {
+                        break;
+                    }
+
+                    final Tier tier = new Tier(aux);
+                    tiers.add(tier);
+                    try
+                    {
+                        executor.execute(tier);
+                    }
+                    catch (final RejectedExecutionException e)
+                    {
+                        tier.run();
+                    }
+
+                    if (hedged)
+                    {
+                        try
+                        {
+                            // Continue with the next one early if this one missed
+                            CompletableFuture.anyOf(allFound, tier.done).get(delay, TimeUnit.MILLISECONDS);
+                        }
+                        catch (final TimeoutException e)
+                        {
+                            log.debug("{0} - Aux cache[{1}] did not answer within {2} ms, hedging",
+                                    () -> cacheAttr.getCacheName(), aux::getCacheName, () -> delay);
+
+                            // no idle thread in the pool, do it ourselves
+                            tier.run();
+                        }
+                    }
+                }
+
+                final CompletableFuture<?>[] done = tiers.stream()
+                    .map(tier -> tier.done)
+                    .toArray(CompletableFuture<?>[]::new);
+                final CompletableFuture<Object> result =
+                    CompletableFuture.anyOf(allFound, CompletableFuture.allOf(done));
+
+                try
+                {
+                    result.get(delay, TimeUnit.MILLISECONDS);
+                }
+                catch (final TimeoutException e)
+                {
+                    // Run the lookups the pool has not started yet
+                    for (final Tier tier : tiers)
+                    {
+                        if (allFound.isDone())
+                        {
+                            break;
+                        }
+                        tier.run();
+                    }
+
+                    result.get();
+                }
+            }
+            catch (final InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                log.warn("{0} - Interrupted while waiting for auxiliaries", cacheAttr.getCacheName());
+            }
+            catch (final ExecutionException e)
+            {
+                log.error("Error getting from aux", e.getCause());
+            }
+            finally
+            {
+                finished.set(true);
+            }
+
+            final Map<K, ICacheElement<K, V>> elements = new HashMap<>(found);
+            for (final ICacheElement<K, V> element : elements.values())
+            {
+                hitCountAux.incrementAndGet();
+                try
+                {
+                    copyAuxiliaryRetrievedItemToMemory(element);
+                }
+                catch (final IOException e)
+                {
+                    log.error("{0} failed to copy element to memory {1}",
+                            cacheAttr.getCacheName(), element, e);
+                }
+                refreshAheadIfDue(element);
+            }
+
+            expired.forEach((key, element) -> {
+                if (!elements.containsKey(key))
+                {
+                    doExpires(element);
+                }
+            });
+
+            return elements;
+        }
+
+        /**
+         * The lookup in one auxiliary. It is run by the pool, or by the caller if no thread of the
+         * pool has picked it up when the caller would otherwise wait for it.
+         */
+        private class Tier
+            implements Runnable
+        {
+            /** The auxiliary */
+            private final AuxiliaryCache<K, V> aux;
+
+            /** Set by the thread running the lookup */
+            private final AtomicBoolean claimed = new AtomicBoolean();
+
+            /** Completed when the lookup is done */
+            private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+            /**
+             * @param aux the auxiliary
+             */
+            Tier(final AuxiliaryCache<K, V> aux)
+            {
+                this.aux = aux;
+            }
+
+            /**
+             * Run the lookup unless another thread already does.
+             */
+            @Override
+            public void run()
+            {
+                if (claimed.compareAndSet(false, true))
+                {
+                    try
+                    {
+                        lookup(aux);
+                    }
+                    finally
+                    {
+                        done.complete(null);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Ask one auxiliary for the keys not found yet.
+         * <p>
+         * @param aux the auxiliary
+         */
+        private void lookup(final AuxiliaryCache<K, V> aux)
+        {
+            if (finished.get() || allFound.isDone())
+            {
+                return;
+            }
+
+            log.debug("Attempting to get from aux [{0}] which is of type: {1}",
+                    aux::getCacheName, aux::getCacheType);
+
+            final Map<K, ICacheElement<K, V>> elementsFromAuxiliary = new HashMap<>();
+            try
+            {
+                if (keys.size() == 1)
+                {
+                    final K key = keys.iterator().next();
+                    final ICacheElement<K, V> element = aux.get(key);
+                    if (element != null)
+                    {
+                        elementsFromAuxiliary.put(key, element);
+                    }
+                }
+                else
+                {
+                    elementsFromAuxiliary.putAll(aux.getMultiple(pruneKeysFound(keys, found)));
+                }
+            }
+            catch (final IOException e)
+            {
+                log.error("Error getting from aux", e);
+            }
+
+            log.debug("Got CacheElements: {0}", elementsFromAuxiliary);
+
+            if (finished.get())
+            {
+                return;
+            }
+
+            elementsFromAuxiliary.forEach((key, element) -> {
+                if (element == null)
+                {
+                    return;
+                }
+
+                if (isExpired(element))
+                {
+                    log.debug("{0} - Aux cache[{1}] hit, but element expired.",
+                            () -> cacheAttr.getCacheName(), aux::getCacheName);
+                    expired.putIfAbsent(key, element);
+                }
+                else if (found.putIfAbsent(key, element) == null)
+                {
+                    log.debug("{0} - Aux cache[{1}] hit.",
+                            () -> cacheAttr.getCacheName(), aux::getCacheName);
+                }
+            });
+
+            if (found.size() == keys.size())
+            {
+                allFound.complete(null);
+            }
+        }
+    }
+
     /**
      * Copies the item to memory if the memory size is greater than 0. Only spool if the memory
      * cache size is greater than 0, else the item will immediately get put into purgatory.
@@ -1370,7 +2118,10 @@ public class CompositeCache<K, V>
         // store the composite cache stats first
         stats.setStatElements(Arrays.asList(
                 new StatElement<>("HitCountRam", Long.valueOf(getHitCountRam())),
-                new StatElement<>("HitCountAux", Long.valueOf(getHitCountAux()))));
+                new StatElement<>("HitCountAux", Long.valueOf(getHitCountAux())),
+                new StatElement<>("LoadCount", Long.valueOf(getLoadCount())),
+                new StatElement<>("CoalescedLoadCount", Long.valueOf(getCoalescedLoadCount())),
+                new StatElement<>("RefreshAheadCount", Long.valueOf(getRefreshAheadCount()))));
 
         // memory + aux, memory is not considered an auxiliary internally
         final ArrayList<IStats> auxStats = new ArrayList<>(auxCaches.size() + 1);
@@ -1651,6 +2402,32 @@ public class CompositeCache<K, V>
         return missCountExpired.get();
     }
 
+    /**
+     * Number of times a loader was called by getOrLoad.
+     * @return number of loads.
+     */
+    public long getLoadCount()
+    {
+        return loadCount.get();
+    }
+
+    /**
+     * Number of times a caller of getOrLoad waited for the load of another caller.
+     * @return number of coalesced loads.
+     */
+    public long getCoalescedLoadCount()
+    {
+        return coalescedLoadCount.get();
+    }
+
+    /**
+     * @return the number of elements reloaded by refresh-ahead
+     */
+    public long getRefreshAheadCount()
+    {
+        return refreshAheadCount.get();
+    }
+
     /**
      * @return Returns the updateCount.
      */
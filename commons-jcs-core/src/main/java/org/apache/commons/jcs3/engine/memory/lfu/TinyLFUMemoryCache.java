@@ -0,0 +1,577 @@
+package org.apache.commons.jcs3.engine.memory.lfu;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.memory.AbstractMemoryCache;
+import org.apache.commons.jcs3.engine.memory.util.FrequencySketch;
+import org.apache.commons.jcs3.engine.memory.util.MemoryElementDescriptor;
+import org.apache.commons.jcs3.engine.memory.util.StripedReadBuffer;
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.struct.DoubleLinkedList;
+
+/**
+ * A memory cache using the W-TinyLFU admission and eviction policy.
+ * <p>
+ * New items enter a small LRU window (1% of MaxObjects). Items leaving the window compete for a
+ * place in the main area with the least recently used item of the probation segment. A
+ * {@link FrequencySketch} decides which one has been requested more often and the loser is
+ * spooled. Items hit while in probation are promoted to the protected segment (80% of the main
+ * area), which is again kept in LRU order.
+ * <p>
+ * Thus a scan of many keys that are seen only once cannot push the frequently used items out of
+ * memory. Hits are recorded in a {@link StripedReadBuffer} like in the BufferedLRUMemoryCache, so
+ * gets don't wait for the lock.
+ * <p>
+ * To use it, set the MemoryCacheName of a region to
+ * <code>org.apache.commons.jcs3.engine.memory.lfu.TinyLFUMemoryCache</code>.
+ */
+public class TinyLFUMemoryCache<K, V>
+    extends AbstractMemoryCache<K, V>
+{
+    /** The logger. */
+    private static final Log log = LogManager.getLog( TinyLFUMemoryCache.class );
+
+    /** Percentage of MaxObjects used for the admission window */
+    private static final int WINDOW_PERCENT = 1;
+
+    /** Percentage of the main area used for the protected segment */
+    private static final int PROTECTED_PERCENT = 80;
+
+    /** Node is not in any list */
+    private static final int NONE = 0;
+
+    /** Node is in the admission window */
+    private static final int WINDOW = 1;
+
+    /** Node is in the probation segment */
+    private static final int PROBATION = 2;
+
+    /** Node is in the protected segment */
+    private static final int PROTECTED = 3;
+
+    /** Admission window in LRU order */
+    private DoubleLinkedList<Node<K, V>> window;
+
+    /** Probation segment of the main area in LRU order */
+    private DoubleLinkedList<Node<K, V>> probation;
+
+    /** Protected segment of the main area in LRU order */
+    private DoubleLinkedList<Node<K, V>> protectedList;
+
+    /** Popularity of the keys */
+    private FrequencySketch<K> sketch;
+
+    /** Pending read accesses */
+    private StripedReadBuffer<Node<K, V>> readBuffer;
+
+    /** Maximum size of the window */
+    private int maxWindow;
+
+    /** Maximum size of the protected segment */
+    private int maxProtected;
+
+    /** Number of candidates admitted to the main area */
+    private AtomicLong admittedCnt;
+
+    /** Number of candidates rejected by the sketch */
+    private AtomicLong rejectedCnt;
+
+    /**
+     * For post reflection creation initialization.
+     * <p>
+     * @param hub
+     */
+    @Override
+    public void initialize( final CompositeCache<K, V> hub )
+    {
+        super.initialize( hub );
+
+        final int maxObjects = Math.max( 0, getCacheAttributes().getMaxObjects() );
+        this.maxWindow = Math.max( 1, maxObjects * WINDOW_PERCENT / 100 );
+        this.maxProtected = Math.max( 0, maxObjects - maxWindow ) * PROTECTED_PERCENT / 100;
+
+        this.window = new DoubleLinkedList<>();
+        this.probation = new DoubleLinkedList<>();
+        this.protectedList = new DoubleLinkedList<>();
+        this.sketch = new FrequencySketch<>( maxObjects );
+        this.readBuffer = new StripedReadBuffer<>();
+        this.admittedCnt = new AtomicLong();
+        this.rejectedCnt = new AtomicLong();
+
+        log.info( "initialized TinyLFUMemoryCache for {0}, window size: {1}, protected size: {2}",
+                this::getCacheName, () -> maxWindow, () -> maxProtected );
+    }
+
+    /**
+     * @return new ConcurrentHashMap()
+     */
+    @Override
+    public Map<K, MemoryElementDescriptor<K, V>> createMap()
+    {
+        return new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Puts an item to the cache. The item enters the admission window. If the cache is over its
+     * limit, the policy decides which items are spooled.
+     * <p>
+     * @param ce The cache element, or entry wrapper
+     * @throws IOException
+     */
+    @Override
+    public void update( final ICacheElement<K, V> ce )
+        throws IOException
+    {
+        putCnt.incrementAndGet();
+
+        lock.lock();
+        try
+        {
+            drainReadBuffer();
+
+            final K key = ce.getKey();
+            sketch.increment( key );
+
+            final Node<K, V> node = new Node<>( ce );
+            final MemoryElementDescriptor<K, V> old = map.put( key, node );
+            if ( old != null )
+            {
+                lockedRemoveElement( old );
+            }
+
+            node.queue = WINDOW;
+            window.addFirst( node );
+
+            evictEntries();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get an item from the cache. The access is recorded in the read buffer and applied to the
+     * policy later.
+     * <p>
+     * @param key Identifies item to find
+     * @return ICacheElement&lt;K, V&gt; if found, else null
+     * @throws IOException
+     */
+    @Override
+    public ICacheElement<K, V> get( final K key )
+        throws IOException
+    {
+        final MemoryElementDescriptor<K, V> me = map.get( key );
+
+        if ( me == null )
+        {
+            missCnt.incrementAndGet();
+            log.debug( "{0}: MemoryCache miss for {1}", this::getCacheName, () -> key );
+            return null;
+        }
+
+        hitCnt.incrementAndGet();
+        if ( readBuffer.offer( (Node<K, V>) me ) )
+        {
+            if ( lock.tryLock() )
+            {
+                try
+                {
+                    drainReadBuffer();
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+        }
+
+        log.debug( "{0}: MemoryCache hit for {1}", this::getCacheName, () -> key );
+        return me.getCacheElement();
+    }
+
+    /**
+     * Spools the requested number of items, taking them from the probation segment first, then
+     * the window and finally the protected segment.
+     * <p>
+     * @param numberToFree
+     * @return the number that were removed.
+     */
+    @Override
+    public int freeElements( final int numberToFree )
+    {
+        int freed = 0;
+
+        lock.lock();
+        try
+        {
+            drainReadBuffer();
+
+            for ( ; freed < numberToFree; freed++ )
+            {
+                Node<K, V> victim = probation.getLast();
+                if ( victim == null )
+                {
+                    victim = window.getLast();
+                }
+                if ( victim == null )
+                {
+                    victim = protectedList.getLast();
+                }
+                if ( victim == null )
+                {
+                    break;
+                }
+
+                evict( victim );
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        return freed;
+    }
+
+    /**
+     * Update control structures after get
+     * (guarded by the lock)
+     *
+     * @param me the memory element descriptor
+     */
+    @Override
+    protected void lockedGetElement( final MemoryElementDescriptor<K, V> me )
+    {
+        final Node<K, V> node = (Node<K, V>) me;
+
+        switch ( node.queue )
+        {
+            case WINDOW:
+                sketch.increment( node.getCacheElement().getKey() );
+                window.makeFirst( node );
+                break;
+
+            case PROBATION:
+                sketch.increment( node.getCacheElement().getKey() );
+                probation.remove( node );
+                node.queue = PROTECTED;
+                protectedList.addFirst( node );
+                demoteFromProtected();
+                break;
+
+            case PROTECTED:
+                sketch.increment( node.getCacheElement().getKey() );
+                protectedList.makeFirst( node );
+                break;
+
+            default:
+                // removed in the meantime
+                break;
+        }
+    }
+
+    /**
+     * Remove element from control structure
+     * (guarded by the lock)
+     *
+     * @param me the memory element descriptor
+     */
+    @Override
+    protected void lockedRemoveElement( final MemoryElementDescriptor<K, V> me )
+    {
+        final Node<K, V> node = (Node<K, V>) me;
+
+        switch ( node.queue )
+        {
+            case WINDOW:
+                window.remove( node );
+                break;
+
+            case PROBATION:
+                probation.remove( node );
+                break;
+
+            case PROTECTED:
+                protectedList.remove( node );
+                break;
+
+            default:
+                break;
+        }
+
+        node.queue = NONE;
+    }
+
+    /**
+     * Removes all cached items from the cache control structures.
+     * (guarded by the lock)
+     */
+    @Override
+    protected void lockedRemoveAll()
+    {
+        readBuffer.clear();
+        for ( final MemoryElementDescriptor<K, V> me : map.values() )
+        {
+            ( (Node<K, V>) me ).queue = NONE;
+        }
+        window.removeAll();
+        probation.removeAll();
+        protectedList.removeAll();
+        sketch.clear();
+    }
+
+    /**
+     * Replay the pending reads on the policy.
+     * (guarded by the lock)
+     */
+    private void drainReadBuffer()
+    {
+        readBuffer.drainTo( this::lockedGetElement );
+    }
+
+    /**
+     * Move items from the window to the main area and spool the losers until the cache fits into
+     * MaxObjects again.
+     * (guarded by the lock)
+     */
+    private void evictEntries()
+    {
+        final int maxObjects = getCacheAttributes().getMaxObjects();
+        final int maxMain = Math.max( 0, maxObjects - maxWindow );
+
+        while ( window.size() > maxWindow || map.size() > maxObjects )
+        {
+            final Node<K, V> candidate = window.getLast();
+            if ( candidate == null )
+            {
+                break;
+            }
+
+            window.remove( candidate );
+
+            if ( probation.size() + protectedList.size() < maxMain )
+            {
+                admit( candidate );
+                continue;
+            }
+
+            Node<K, V> victim = probation.getLast();
+            if ( victim == null )
+            {
+                victim = protectedList.getLast();
+            }
+
+            if ( victim != null && sketch.frequency( candidate.getCacheElement().getKey() )
+                    > sketch.frequency( victim.getCacheElement().getKey() ) )
+            {
+                evict( victim );
+                admit( candidate );
+            }
+            else
+            {
+                rejectedCnt.incrementAndGet();
+                candidate.queue = NONE;
+                spool( candidate );
+            }
+        }
+
+        // Should only happen if MaxObjects was lowered
+        while ( map.size() > maxObjects )
+        {
+            final Node<K, V> victim = probation.getLast() != null ? probation.getLast() : protectedList.getLast();
+            if ( victim == null )
+            {
+                break;
+            }
+            evict( victim );
+        }
+    }
+
+    /**
+     * Add a candidate to the probation segment.
+     * (guarded by the lock)
+     *
+     * @param candidate the node leaving the window
+     */
+    private void admit( final Node<K, V> candidate )
+    {
+        admittedCnt.incrementAndGet();
+        candidate.queue = PROBATION;
+        probation.addFirst( candidate );
+    }
+
+    /**
+     * Move the least recently used protected items back to probation if the segment is too large.
+     * (guarded by the lock)
+     */
+    private void demoteFromProtected()
+    {
+        while ( protectedList.size() > maxProtected )
+        {
+            final Node<K, V> demoted = protectedList.getLast();
+            if ( demoted == null )
+            {
+                break;
+            }
+            protectedList.remove( demoted );
+            demoted.queue = PROBATION;
+            probation.addFirst( demoted );
+        }
+    }
+
+    /**
+     * Remove a node from its list and spool it.
+     * (guarded by the lock)
+     *
+     * @param node the node
+     */
+    private void evict( final Node<K, V> node )
+    {
+        lockedRemoveElement( node );
+        spool( node );
+    }
+
+    /**
+     * Remove a node that is not in any list from the map and spool it.
+     * (guarded by the lock)
+     *
+     * @param node the node
+     */
+    private void spool( final Node<K, V> node )
+    {
+        final ICacheElement<K, V> toSpool = node.getCacheElement();
+        getCompositeCache().spoolToDisk( toSpool );
+        if ( !map.remove( toSpool.getKey(), node ) )
+        {
+            log.warn( "evict: remove failed for key: {0}", toSpool.getKey() );
+        }
+    }
+
+    /**
+     * This returns semi-structured information on the memory cache, such as the size, put count,
+     * hit count, miss count, hit ratio and the sizes of the segments.
+     * <p>
+     * @return IStats
+     */
+    @Override
+    public IStats getStatistics()
+    {
+        final IStats stats = super.getStatistics();
+        stats.setTypeName( "TinyLFU Memory Cache" );
+
+        final List<IStatElement<?>> elems = stats.getStatElements();
+
+        final long hits = hitCnt.get();
+        final long requests = hits + missCnt.get();
+        final double hitRatio = requests == 0 ? 0.0 : (double) hits / requests;
+        elems.add( new StatElement<>( "Hit Ratio", Double.valueOf( hitRatio ) ) );
+
+        lock.lock();
+        try
+        {
+            elems.add( new StatElement<>( "Window Size", Integer.valueOf( window.size() ) ) );
+            elems.add( new StatElement<>( "Probation Size", Integer.valueOf( probation.size() ) ) );
+            elems.add( new StatElement<>( "Protected Size", Integer.valueOf( protectedList.size() ) ) );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        elems.add( new StatElement<>( "Admitted Count", admittedCnt ) );
+        elems.add( new StatElement<>( "Rejected Count", rejectedCnt ) );
+
+        return stats;
+    }
+
+    /**
+     * @return the keys in the window, probation and protected segments, for testing
+     */
+    protected List<List<K>> getSegmentKeys()
+    {
+        final List<List<K>> segments = new ArrayList<>();
+
+        lock.lock();
+        try
+        {
+            drainReadBuffer();
+            segments.add( keysOf( window ) );
+            segments.add( keysOf( probation ) );
+            segments.add( keysOf( protectedList ) );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        return segments;
+    }
+
+    /**
+     * @param list a segment
+     * @return the keys in list order
+     */
+    @SuppressWarnings("unchecked") // No generics for public fields
+    private List<K> keysOf( final DoubleLinkedList<Node<K, V>> list )
+    {
+        final List<K> keys = new ArrayList<>();
+        for ( Node<K, V> node = list.getFirst(); node != null; node = (Node<K, V>) node.next )
+        {
+            keys.add( node.getCacheElement().getKey() );
+        }
+        return keys;
+    }
+
+    /**
+     * A memory element descriptor that knows which segment it is in.
+     */
+    private static class Node<K, V>
+        extends MemoryElementDescriptor<K, V>
+    {
+        /** Don't change */
+        private static final long serialVersionUID = 3373227412917542394L;
+
+        /** The segment, guarded by the lock */
+        int queue = NONE;
+
+        /**
+         * @param ce the element
+         */
+        Node( final ICacheElement<K, V> ce )
+        {
+            super( ce );
+        }
+    }
+}
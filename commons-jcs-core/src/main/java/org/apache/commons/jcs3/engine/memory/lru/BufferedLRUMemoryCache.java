@@ -0,0 +1,210 @@
+package org.apache.commons.jcs3.engine.memory.lru;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.memory.AbstractDoubleLinkedListMemoryCache;
+import org.apache.commons.jcs3.engine.memory.util.MemoryElementDescriptor;
+import org.apache.commons.jcs3.engine.memory.util.StripedReadBuffer;
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+
+/**
+ * An LRU memory cache for read-heavy regions accessed by many threads.
+ * <p>
+ * The {@link LRUMemoryCache} takes the lock of the memory cache on every hit in order to move the
+ * element to the front of the list. This one records hits in a {@link StripedReadBuffer} instead
+ * and replays them in batches on the next update, eviction or whenever a buffer stripe fills up
+ * and the lock happens to be free. A get never waits for the lock.
+ * <p>
+ * The resulting order is an approximation of LRU: hits that arrive while a stripe is full are
+ * dropped. Updates and removals behave exactly like in the {@link LRUMemoryCache}.
+ * <p>
+ * To use it, set the MemoryCacheName of a region to
+ * <code>org.apache.commons.jcs3.engine.memory.lru.BufferedLRUMemoryCache</code>.
+ */
+public class BufferedLRUMemoryCache<K, V>
+    extends AbstractDoubleLinkedListMemoryCache<K, V>
+{
+    /** The logger. */
+    private static final Log log = LogManager.getLog( BufferedLRUMemoryCache.class );
+
+    /** Pending read accesses */
+    private StripedReadBuffer<MemoryElementDescriptor<K, V>> readBuffer;
+
+    /**
+     * For post reflection creation initialization.
+     * <p>
+     * @param hub
+     */
+    @Override
+    public void initialize( final CompositeCache<K, V> hub )
+    {
+        readBuffer = new StripedReadBuffer<>();
+        super.initialize( hub );
+        log.info( "initialized BufferedLRUMemoryCache for {0} with {1} read buffer stripes",
+                this::getCacheName, readBuffer::getStripeCount );
+    }
+
+    /**
+     * Get an item from the cache. The access is recorded in the read buffer, the list is not
+     * touched unless the buffer needs draining and the lock is free.
+     * <p>
+     * @param key Identifies item to find
+     * @return ICacheElement&lt;K, V&gt; if found, else null
+     * @throws IOException
+     */
+    @Override
+    public ICacheElement<K, V> get( final K key )
+        throws IOException
+    {
+        final MemoryElementDescriptor<K, V> me = map.get( key );
+
+        if ( me == null )
+        {
+            missCnt.incrementAndGet();
+            log.debug( "{0}: MemoryCache miss for {1}", this::getCacheName, () -> key );
+            return null;
+        }
+
+        hitCnt.incrementAndGet();
+        if ( readBuffer.offer( me ) )
+        {
+            tryDrainReadBuffer();
+        }
+
+        log.debug( "{0}: MemoryCache hit for {1}", this::getCacheName, () -> key );
+        return me.getCacheElement();
+    }
+
+    /**
+     * Puts an item to the cache. Pending reads are applied first so that the new item ends up in
+     * front of them.
+     * <p>
+     * @param ce The cache element, or entry wrapper
+     * @return MemoryElementDescriptor the new node
+     * @throws IOException
+     */
+    @Override
+    protected MemoryElementDescriptor<K, V> adjustListForUpdate( final ICacheElement<K, V> ce )
+        throws IOException
+    {
+        // called with the lock held
+        drainReadBuffer();
+        return addFirst( ce );
+    }
+
+    /**
+     * Makes the item the first in the list. Called when the read buffer is drained. Nodes that
+     * have been removed in the meantime are detached and left alone by the list.
+     * <p>
+     * @param me
+     */
+    @Override
+    protected void adjustListForGet( final MemoryElementDescriptor<K, V> me )
+    {
+        list.makeFirst( me );
+    }
+
+    /**
+     * Applies all pending reads before evicting, so that recently read items are not spooled.
+     * <p>
+     * @param numberToFree
+     * @return the number that were removed.
+     */
+    @Override
+    public int freeElements( final int numberToFree )
+    {
+        lock.lock();
+        try
+        {
+            drainReadBuffer();
+            return super.freeElements( numberToFree );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all cached items from the cache control structures.
+     * (guarded by the lock)
+     */
+    @Override
+    protected void lockedRemoveAll()
+    {
+        readBuffer.clear();
+        super.lockedRemoveAll();
+    }
+
+    /**
+     * Drain the read buffer if nobody else holds the lock. Never blocks.
+     */
+    private void tryDrainReadBuffer()
+    {
+        if ( lock.tryLock() )
+        {
+            try
+            {
+                drainReadBuffer();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Replay the pending reads on the list.
+     * (guarded by the lock)
+     */
+    private void drainReadBuffer()
+    {
+        readBuffer.drainTo( this::lockedGetElement );
+    }
+
+    /**
+     * This returns semi-structured information on the memory cache, such as the size, put count,
+     * hit count, and miss count.
+     * <p>
+     * @return IStats
+     */
+    @Override
+    public IStats getStatistics()
+    {
+        final IStats stats = super.getStatistics();
+        stats.setTypeName( "Buffered LRU Memory Cache" );
+
+        final List<IStatElement<?>> elems = stats.getStatElements();
+        elems.add( new StatElement<>( "Read Buffer Stripes", Integer.valueOf( readBuffer.getStripeCount() ) ) );
+        elems.add( new StatElement<>( "Dropped Read Events", Long.valueOf( readBuffer.getDroppedCount() ) ) );
+
+        return stats;
+    }
+}
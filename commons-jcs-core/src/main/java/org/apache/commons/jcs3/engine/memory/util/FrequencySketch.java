@@ -0,0 +1,192 @@
+package org.apache.commons.jcs3.engine.memory.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+
+/**
+ * A count-min sketch estimating how often a key has been seen recently. Each key maps to four
+ * 4-bit counters, packed sixteen to a long. The estimate is the smallest of the four counters.
+ * <p>
+ * Once the number of increments reaches ten times the capacity all counters are halved, so that
+ * the sketch forgets old history and adapts to a changing working set.
+ * <p>
+ * This class is not thread-safe. Callers must guard it with their own lock.
+ */
+public class FrequencySketch<E>
+{
+    /** Seeds for the four hash functions */
+    private static final long[] SEED = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+    /** Mask to clear the high bit of each counter after a shift */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /** Mask to select the low bit of each counter */
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    /** Maximum value of a counter */
+    private static final int MAX_COUNT = 15;
+
+    /** The counters */
+    private final long[] table;
+
+    /** Mask for the table index */
+    private final int tableMask;
+
+    /** Number of increments after which the counters are halved */
+    private final int sampleSize;
+
+    /** Number of increments since the last reset */
+    private int size;
+
+    /**
+     * @param maximumSize the expected number of entries in the cache
+     */
+    public FrequencySketch(final int maximumSize)
+    {
+        final int maximum = Math.max(1, maximumSize);
+
+        int tableSize = 1;
+        while (tableSize < maximum)
+        {
+            tableSize <<= 1;
+        }
+
+        this.table = new long[tableSize];
+        this.tableMask = tableSize - 1;
+        this.sampleSize = (maximum > Integer.MAX_VALUE / 10) ? Integer.MAX_VALUE : 10 * maximum;
+        this.size = 0;
+    }
+
+    /**
+     * Returns the estimated number of occurrences of the element, up to 15.
+     * <p>
+     * @param e the element
+     * @return the estimated frequency
+     */
+    public int frequency(final E e)
+    {
+        final int hash = spread(e.hashCode());
+        final int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+
+        for (int i = 0; i < 4; i++)
+        {
+            final int index = indexOf(hash, i);
+            final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+
+        return frequency;
+    }
+
+    /**
+     * Increments the popularity of the element if it does not exceed the maximum. Halves all
+     * counters once the sample size has been reached.
+     * <p>
+     * @param e the element
+     */
+    public void increment(final E e)
+    {
+        final int hash = spread(e.hashCode());
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+
+        for (int i = 0; i < 4; i++)
+        {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+
+        if (added && ++size >= sampleSize)
+        {
+            reset();
+        }
+    }
+
+    /**
+     * Forgets all recorded frequencies.
+     */
+    public void clear()
+    {
+        Arrays.fill(table, 0L);
+        size = 0;
+    }
+
+    /**
+     * Increments the specified counter by 1 if it is not already at the maximum value.
+     * <p>
+     * @param i the table index
+     * @param j the counter within the long
+     * @return if incremented
+     */
+    private boolean incrementAt(final int i, final int j)
+    {
+        final int offset = j << 2;
+        final long mask = 0xfL << offset;
+        if ((table[i] & mask) != mask)
+        {
+            table[i] += 1L << offset;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Halves every counter and adjusts the sample count.
+     */
+    private void reset()
+    {
+        int count = 0;
+        for (int i = 0; i < table.length; i++)
+        {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    /**
+     * @param item the spread hash of the element
+     * @param i the hash function to use
+     * @return the table index
+     */
+    private int indexOf(final int item, final int i)
+    {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += hash >>> 32;
+        return ((int) hash) & tableMask;
+    }
+
+    /**
+     * Applies a supplemental hash function to defend against poor quality hash codes.
+     * <p>
+     * @param x the hash code
+     * @return the spread hash
+     */
+    private static int spread(int x)
+    {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,229 @@
+package org.apache.commons.jcs3.engine.memory.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A lossy, striped buffer used to record read accesses without taking the lock of the memory
+ * cache. Each thread is mapped to one of several small ring buffers. Producers only do a CAS on
+ * the stripe they are mapped to. The consumer drains all stripes in batches while holding the
+ * lock of the memory cache.
+ * <p>
+ * If a stripe is full or contended the event is simply dropped. This means that the recency
+ * information of the memory cache becomes approximate under heavy load, which is acceptable for
+ * an eviction policy.
+ */
+public class StripedReadBuffer<E>
+{
+    /** Number of slots in each stripe, must be a power of two. */
+    private static final int STRIPE_SIZE = 32;
+
+    /** Mask for the slot index */
+    private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+    /** Number of pending events in a stripe that should trigger a drain */
+    private static final int DRAIN_THRESHOLD = STRIPE_SIZE / 2;
+
+    /** The stripes */
+    private final Stripe<E>[] stripes;
+
+    /** Mask for the stripe index */
+    private final int mask;
+
+    /**
+     * Constructs a buffer with one stripe per available processor, rounded up to the next power
+     * of two.
+     */
+    public StripedReadBuffer()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a buffer with the given number of stripes, rounded up to the next power of two.
+     * <p>
+     * @param stripeCount the number of stripes
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // No generic arrays
+    public StripedReadBuffer(final int stripeCount)
+    {
+        int count = 1;
+        while (count < stripeCount)
+        {
+            count <<= 1;
+        }
+
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++)
+        {
+            stripes[i] = new Stripe<>();
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * Records an event in the stripe of the current thread.
+     * <p>
+     * @param e the event
+     * @return true if the caller should try to drain the buffer
+     */
+    public boolean offer(final E e)
+    {
+        return stripes[stripeIndex()].offer(e);
+    }
+
+    /**
+     * Drains all pending events. Must only be called by one thread at a time, usually while
+     * holding the lock of the owning memory cache.
+     * <p>
+     * @param consumer receives the pending events in per-stripe order
+     * @return the number of events drained
+     */
+    public int drainTo(final Consumer<E> consumer)
+    {
+        int drained = 0;
+        for (final Stripe<E> stripe : stripes)
+        {
+            drained += stripe.drainTo(consumer);
+        }
+
+        return drained;
+    }
+
+    /**
+     * Discards all pending events. Same threading rules as for {@link #drainTo(Consumer)}.
+     */
+    public void clear()
+    {
+        drainTo(e -> {});
+    }
+
+    /**
+     * @return the number of events that have been dropped because a stripe was full or contended
+     */
+    public long getDroppedCount()
+    {
+        long dropped = 0;
+        for (final Stripe<E> stripe : stripes)
+        {
+            dropped += stripe.dropped.get();
+        }
+
+        return dropped;
+    }
+
+    /**
+     * @return the number of stripes
+     */
+    public int getStripeCount()
+    {
+        return stripes.length;
+    }
+
+    /**
+     * Map the current thread to a stripe. The thread id is mixed so that consecutive ids are
+     * spread evenly.
+     * <p>
+     * @return the index of the stripe
+     */
+    private int stripeIndex()
+    {
+        final long id = Thread.currentThread().getId();
+        final int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * A bounded multiple producer, single consumer ring buffer.
+     */
+    private static final class Stripe<E>
+    {
+        /** The slots */
+        private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(STRIPE_SIZE);
+
+        /** Next slot to write, advanced by the producers */
+        private final AtomicLong writeCounter = new AtomicLong();
+
+        /** Next slot to read, only advanced by the consumer */
+        private volatile long readCounter;
+
+        /** Number of dropped events */
+        private final AtomicLong dropped = new AtomicLong();
+
+        /**
+         * @param e the event
+         * @return true if the stripe should be drained
+         */
+        boolean offer(final E e)
+        {
+            final long head = readCounter;
+            final long tail = writeCounter.get();
+            final long size = tail - head;
+
+            if (size >= STRIPE_SIZE)
+            {
+                dropped.incrementAndGet();
+                return true;
+            }
+
+            if (writeCounter.compareAndSet(tail, tail + 1))
+            {
+                buffer.lazySet((int) (tail & STRIPE_MASK), e);
+                return size + 1 >= DRAIN_THRESHOLD;
+            }
+
+            // Lost the race against another reader of the same stripe
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        /**
+         * @param consumer receives the pending events
+         * @return the number of events drained
+         */
+        int drainTo(final Consumer<E> consumer)
+        {
+            long head = readCounter;
+            final long tail = writeCounter.get();
+            int drained = 0;
+
+            for (; head < tail; head++)
+            {
+                final int index = (int) (head & STRIPE_MASK);
+                final E e = buffer.get(index);
+                if (e == null)
+                {
+                    // slot claimed but not yet published, pick it up next time
+                    break;
+                }
+
+                buffer.lazySet(index, null);
+                consumer.accept(e);
+                drained++;
+            }
+
+            readCounter = head;
+            return drained;
+        }
+    }
+}
@@ -19,13 +19,15 @@ package org.apache.commons.jcs3.utils.access;
  * under the License.
  */
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-
 import org.apache.commons.jcs3.JCS;
 import org.apache.commons.jcs3.access.CacheAccess;
 import org.apache.commons.jcs3.access.GroupCacheAccess;
 import org.apache.commons.jcs3.access.exception.CacheException;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
+import org.apache.commons.jcs3.engine.control.group.GroupId;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
 
@@ -102,11 +104,6 @@ public class JCSWorker<K, V>
     /** The cache we are working with */
     private final GroupCacheAccess<K, V> groupCache;
 
-    /**
-     * Map to hold who's doing work presently.
-     */
-    private final ConcurrentMap<String, JCSWorkerHelper<V>> map = new ConcurrentHashMap<>();
-
     /**
      * Region for the JCS cache.
      */
@@ -194,6 +191,10 @@ public class JCSWorker<K, V>
      * work and subsequent calls to a CachedWorker with identical
      * region/key/group will wait on the results of this call. It will call the
      * JCSWorkerHelper.doWork() if the cache misses, and will put the result.
+     * <p>
+     * The coordination is done by the region itself, so it also works across
+     * different JCSWorker instances and with other callers of
+     * CacheAccess.get(key, supplier).
      * @param aKey
      * @param aGroup
      * @param aHelper
@@ -205,82 +206,90 @@ public class JCSWorker<K, V>
     private V run( final K aKey, final String aGroup, final JCSWorkerHelper<V> aHelper )
         throws Exception
     {
-        V result = null;
-        // long start = 0;
-        // long dbTime = 0;
-        final JCSWorkerHelper<V> helper = map.putIfAbsent(getRegion() + aKey, aHelper);
-
-        if ( helper != null )
-        {
-            synchronized ( helper )
-            {
-                logger.debug( "Found a worker already doing this work ({0}:{1}).",
-                        this::getRegion, () -> aKey );
-                while ( !helper.isFinished() )
-                {
-                    try
-                    {
-                        helper.wait();
-                    }
-                    catch (final InterruptedException e)
-                    {
-                        // expected
-                    }
-                }
-                logger.debug( "Another thread finished our work for us. Using "
-                        + "those results instead. ({0}:{1}).",
-                        this::getRegion, () -> aKey );
-            }
-        }
-        // Do the work
         try
         {
             logger.debug( "{0} is doing the work.", this::getRegion);
 
-            // Try to get the item from the cache
             if ( aGroup != null )
             {
-                result = groupCache.getFromGroup( aKey, aGroup );
-            }
-            else
-            {
-                result = cache.get( aKey );
-            }
-            // If the cache doesn't have it, do the work.
-            if ( result == null )
-            {
-                result = aHelper.doWork();
-                logger.debug( "Work Done, caching: key:{0}, group:{1}, result:{2}.",
-                        aKey, aGroup, result );
-                // Stick the result of the work in the cache.
-                if ( aGroup != null )
-                {
-                    groupCache.putInGroup( aKey, aGroup, result );
-                }
-                else
-                {
-                    cache.put( aKey, result );
-                }
+                final CompositeCache<GroupAttrName<K>, V> cacheControl = groupCache.getCacheControl();
+                final GroupAttrName<K> key =
+                    new GroupAttrName<>( new GroupId( cacheControl.getCacheName(), aGroup ), aKey );
+                final ICacheElement<GroupAttrName<K>, V> element =
+                    cacheControl.getOrLoad( key, () -> doWork( aKey, aGroup, aHelper, cacheControl, key ) );
+
+                return element != null ? element.getVal() : null;
             }
-            // return the result
-            return result;
+
+            final CompositeCache<K, V> cacheControl = cache.getCacheControl();
+            final ICacheElement<K, V> element =
+                cacheControl.getOrLoad( aKey, () -> doWork( aKey, aGroup, aHelper, cacheControl, aKey ) );
+
+            return element != null ? element.getVal() : null;
+        }
+        catch ( final WorkException e )
+        {
+            throw (Exception) e.getCause();
         }
         finally
         {
             logger.debug( "{0}:{1} entered finally.", this::getRegion,
                     () -> aKey );
 
-            // Remove ourselves as the worker.
-            if ( helper == null )
-            {
-                map.remove( getRegion() + aKey );
-            }
-            synchronized ( aHelper )
-            {
-                aHelper.setFinished( true );
-                // Wake everyone waiting on us
-                aHelper.notifyAll();
-            }
+            aHelper.setFinished( true );
+        }
+    }
+
+    /**
+     * Call the helper and wrap its result in a cache element.
+     * @param aKey
+     * @param aGroup
+     * @param aHelper
+     * @param cacheControl the region
+     * @param key the key in the region
+     * @return the element to cache
+     */
+    private <T> ICacheElement<T, V> doWork( final K aKey, final String aGroup, final JCSWorkerHelper<V> aHelper,
+            final CompositeCache<T, V> cacheControl, final T key )
+    {
+        final V result;
+        try
+        {
+            result = aHelper.doWork();
+        }
+        catch ( final Exception e )
+        {
+            throw new WorkException( e );
+        }
+
+        logger.debug( "Work Done, caching: key:{0}, group:{1}, result:{2}.",
+                aKey, aGroup, result );
+
+        if ( result == null )
+        {
+            return null;
+        }
+
+        final CacheElement<T, V> ce = new CacheElement<>( cacheControl.getCacheName(), key, result );
+        ce.setElementAttributes( cacheControl.getElementAttributes() );
+        return ce;
+    }
+
+    /**
+     * Carries an exception of the helper through the loader of the region.
+     */
+    private static class WorkException
+        extends RuntimeException
+    {
+        /** Don't change. */
+        private static final long serialVersionUID = 2964381279428427745L;
+
+        /**
+         * @param cause the exception thrown by the helper
+         */
+        WorkException( final Exception cause )
+        {
+            super( cause );
         }
     }
 }
@@ -221,6 +221,9 @@ public class UDPDiscoveryReceiver
         {
             log.debug( "Waiting for message." );
 
+            // reused for every packet, a datagram is at most 64 KB
+            final ByteBuffer byteBuffer = ByteBuffer.allocate(65536);
+
             while (!shutdown.get())
             {
                 int activeKeys = selector.select();
@@ -250,7 +253,7 @@ public class UDPDiscoveryReceiver
 
                         DatagramChannel mc = (DatagramChannel) key.channel();
 
-                        ByteBuffer byteBuffer = ByteBuffer.allocate(65536);
+                        byteBuffer.clear();
                         InetSocketAddress sourceAddress =
                                 (InetSocketAddress) mc.receive(byteBuffer);
                         byteBuffer.flip();
@@ -258,9 +261,7 @@ public class UDPDiscoveryReceiver
                         try
                         {
                             log.debug("Received packet from address [{0}]", sourceAddress);
-                            byte[] bytes = new byte[byteBuffer.limit()];
-                            byteBuffer.get(bytes);
-                            Object obj = serializer.deSerialize(bytes, null);
+                            Object obj = serializer.deSerializeFrom(byteBuffer, null);
 
                             if (obj instanceof UDPDiscoveryMessage)
                             {
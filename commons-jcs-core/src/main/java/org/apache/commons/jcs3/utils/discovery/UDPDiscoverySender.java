@@ -25,6 +25,7 @@ import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.net.MulticastSocket;
 import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 import org.apache.commons.jcs3.engine.CacheInfo;
@@ -33,6 +34,7 @@ import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
 import org.apache.commons.jcs3.utils.discovery.UDPDiscoveryMessage.BroadcastType;
 import org.apache.commons.jcs3.utils.net.HostNameUtil;
+import org.apache.commons.jcs3.utils.serialization.FrameBuffer;
 import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 
 /**
@@ -57,6 +59,9 @@ public class UDPDiscoverySender implements AutoCloseable
     /** Used to serialize messages */
     private final IElementSerializer serializer;
 
+    /** The memory the messages are serialized into (guarded by itself) */
+    private final FrameBuffer sendBuffer = new FrameBuffer();
+
     /**
      * Constructor for the UDPDiscoverySender object
      * <p>
@@ -193,15 +198,28 @@ public class UDPDiscoverySender implements AutoCloseable
         log.debug( "sending UDPDiscoveryMessage, address [{0}], port [{1}], "
                 + "message = {2}", multicastAddress, multicastPort, message );
 
-        final byte[] bytes = serializer.serialize( message );
+        synchronized ( sendBuffer )
+        {
+            try
+            {
+                serializer.serializeTo( message, sendBuffer );
+                final ByteBuffer frame = sendBuffer.toByteBuffer();
 
-        // put the byte array in a packet
-        final DatagramPacket packet = new DatagramPacket( bytes, bytes.length, multicastAddress, multicastPort );
+                // send the buffer without the length prefix, the packet has a length
+                final int length = frame.remaining() - 4;
+                final DatagramPacket packet = new DatagramPacket( frame.array(), frame.arrayOffset() + 4, length,
+                        multicastAddress, multicastPort );
 
-        log.debug( "Sending DatagramPacket with {0} bytes to {1}:{2}",
-                bytes.length, multicastAddress, multicastPort );
+                log.debug( "Sending DatagramPacket with {0} bytes to {1}:{2}",
+                        length, multicastAddress, multicastPort );
 
-        localSocket.send( packet );
+                localSocket.send( packet );
+            }
+            finally
+            {
+                sendBuffer.reset();
+            }
+        }
     }
 
     /**
@@ -0,0 +1,980 @@
+package org.apache.commons.jcs3.utils.serialization;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCommand;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralElementDescriptor;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.CacheElementSerialized;
+import org.apache.commons.jcs3.engine.ElementAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+
+/**
+ * Serializes common types with a compact, tag based binary format instead of Java serialization.
+ * <p>
+ * Every value starts with a one byte tag. Strings, boxed primitives, byte arrays, cache elements,
+ * element attributes, lateral element descriptors and the plain JDK lists, sets and maps are
+ * written field by field without class descriptors, so a small String or Long takes a few bytes
+ * instead of a hundred. Integers are written as variable length numbers. Any other type, and
+ * subclasses of the supported classes, are written with Java serialization behind their own
+ * tag, so every Serializable value still works.
+ * <p>
+ * Data written by the StandardSerializer is recognized by the Java serialization header and read
+ * with Java serialization, so a disk cache can switch to this serializer without losing what it
+ * holds. The other direction does not work: both ends of a lateral or remote connection must use
+ * the same serializer.
+ * <p>
+ * Collections that contain themselves are not supported by the binary format. Below a nesting
+ * depth of {@value #MAX_DEPTH} the remaining values are written with Java serialization.
+ *
+ * @since 3.2
+ */
+public class CompactSerializer
+    implements IElementSerializer
+{
+    /** The nesting depth after which values are written with Java serialization */
+    private static final int MAX_DEPTH = 64;
+
+    /** The first two bytes of Java serialization data */
+    private static final byte JAVA_MAGIC_1 = (byte) 0xAC;
+
+    /** The first two bytes of Java serialization data */
+    private static final byte JAVA_MAGIC_2 = (byte) 0xED;
+
+    /** Tags */
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte SHORT = 4;
+    private static final byte BYTE = 5;
+    private static final byte TRUE = 6;
+    private static final byte FALSE = 7;
+    private static final byte CHARACTER = 8;
+    private static final byte FLOAT = 9;
+    private static final byte DOUBLE = 10;
+    private static final byte BYTE_ARRAY = 11;
+    private static final byte CACHE_ELEMENT = 12;
+    private static final byte CACHE_ELEMENT_SERIALIZED = 13;
+    private static final byte ELEMENT_ATTRIBUTES = 14;
+    private static final byte LATERAL_ELEMENT_DESCRIPTOR = 15;
+    private static final byte ARRAY_LIST = 16;
+    private static final byte HASH_SET = 17;
+    private static final byte LINKED_HASH_SET = 18;
+    private static final byte HASH_MAP = 19;
+    private static final byte LINKED_HASH_MAP = 20;
+    private static final byte JAVA = 21;
+
+    /** Flags of the element attributes */
+    private static final int SPOOL = 1;
+    private static final int LATERAL = 2;
+    private static final int REMOTE = 4;
+    private static final int ETERNAL = 8;
+
+    /** The lateral commands by ordinal */
+    private static final LateralCommand[] LATERAL_COMMANDS = LateralCommand.values();
+
+    /** Used for the types the binary format does not know */
+    private final StandardSerializer javaSerializer = new StandardSerializer();
+
+    /**
+     * Serializes an object with the binary format.
+     * <p>
+     * @param obj
+     * @return byte[]
+     * @throws IOException
+     */
+    @Override
+    public <T> byte[] serialize( final T obj )
+        throws IOException
+    {
+        final Output out = new Output();
+        writeValue( out, obj, 0 );
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads an object written by this serializer or by the StandardSerializer.
+     * <p>
+     * @param data data bytes
+     * @param loader class loader to use for the values written with Java serialization
+     * @return Object
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @Override
+    public <T> T deSerialize( final byte[] data, final ClassLoader loader )
+        throws IOException, ClassNotFoundException
+    {
+        if ( data == null )
+        {
+            return null;
+        }
+
+        if ( data.length >= 2 && data[0] == JAVA_MAGIC_1 && data[1] == JAVA_MAGIC_2 )
+        {
+            return javaSerializer.deSerialize( data, loader );
+        }
+
+        return read( new Input( data, 0, data.length ), loader );
+    }
+
+    /**
+     * Serializes an object into the frame buffer.
+     * <p>
+     * @param obj
+     * @param buffer
+     * @return the number of bytes written
+     * @throws IOException
+     */
+    @Override
+    public <T> int serializeTo( final T obj, final FrameBuffer buffer )
+        throws IOException
+    {
+        final Output out = new Output();
+        writeValue( out, obj, 0 );
+
+        final int start = buffer.beginFrame();
+        buffer.write( out.buf, 0, out.count );
+        buffer.endFrame( start );
+        return buffer.size() - start;
+    }
+
+    /**
+     * Reads an object from the remaining bytes of the buffer. Heap buffers are read in place.
+     * <p>
+     * @param buffer data bytes
+     * @param loader class loader to use
+     * @return Object
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @Override
+    public <T> T deSerializeFrom( final ByteBuffer buffer, final ClassLoader loader )
+        throws IOException, ClassNotFoundException
+    {
+        final int position = buffer.position();
+        if ( buffer.remaining() >= 2 && buffer.get( position ) == JAVA_MAGIC_1 && buffer.get( position + 1 ) == JAVA_MAGIC_2 )
+        {
+            return javaSerializer.deSerializeFrom( buffer, loader );
+        }
+
+        if ( !buffer.hasArray() )
+        {
+            return IElementSerializer.super.deSerializeFrom( buffer, loader );
+        }
+
+        final int offset = buffer.arrayOffset() + position;
+        buffer.position( buffer.limit() );
+        return read( new Input( buffer.array(), offset, offset + buffer.limit() - position ), loader );
+    }
+
+    /**
+     * @param in the input
+     * @param loader class loader to use
+     * @return the value
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private <T> T read( final Input in, final ClassLoader loader )
+        throws IOException, ClassNotFoundException
+    {
+        @SuppressWarnings("unchecked") // Need to cast from Object
+        final T value = (T) readValue( in, loader );
+        return value;
+    }
+
+    /**
+     * Reads a value that has to be of the given type.
+     * <p>
+     * @param in the input
+     * @param loader class loader to use
+     * @param type the expected type
+     * @return the value, may be null
+     * @throws IOException if the value has another type
+     * @throws ClassNotFoundException
+     */
+    private <T> T readValue( final Input in, final ClassLoader loader, final Class<T> type )
+        throws IOException, ClassNotFoundException
+    {
+        final Object value = readValue( in, loader );
+        if ( value != null && !type.isInstance( value ) )
+        {
+            throw new StreamCorruptedException( "Expected " + type.getSimpleName() + " but got "
+                + value.getClass().getName() + " at " + in.pos );
+        }
+        return type.cast( value );
+    }
+
+    /**
+     * Writes a tagged value.
+     * <p>
+     * @param out the output
+     * @param value the value
+     * @param depth the nesting depth
+     * @throws IOException
+     */
+    private void writeValue( final Output out, final Object value, final int depth )
+        throws IOException
+    {
+        if ( value == null )
+        {
+            out.writeByte( NULL );
+            return;
+        }
+
+        final Class<?> type = value.getClass();
+        if ( type == String.class )
+        {
+            out.writeByte( STRING );
+            out.writeString( (String) value );
+        }
+        else if ( type == Integer.class )
+        {
+            out.writeByte( INTEGER );
+            out.writeSignedVarLong( ( (Integer) value ).intValue() );
+        }
+        else if ( type == Long.class )
+        {
+            out.writeByte( LONG );
+            out.writeSignedVarLong( ( (Long) value ).longValue() );
+        }
+        else if ( type == Short.class )
+        {
+            out.writeByte( SHORT );
+            out.writeSignedVarLong( ( (Short) value ).shortValue() );
+        }
+        else if ( type == Byte.class )
+        {
+            out.writeByte( BYTE );
+            out.writeByte( ( (Byte) value ).byteValue() );
+        }
+        else if ( type == Boolean.class )
+        {
+            out.writeByte( ( (Boolean) value ).booleanValue() ? TRUE : FALSE );
+        }
+        else if ( type == Character.class )
+        {
+            out.writeByte( CHARACTER );
+            out.writeVarLong( ( (Character) value ).charValue() );
+        }
+        else if ( type == Float.class )
+        {
+            out.writeByte( FLOAT );
+            out.writeFixedInt( Float.floatToIntBits( ( (Float) value ).floatValue() ) );
+        }
+        else if ( type == Double.class )
+        {
+            out.writeByte( DOUBLE );
+            out.writeFixedLong( Double.doubleToLongBits( ( (Double) value ).doubleValue() ) );
+        }
+        else if ( type == byte[].class )
+        {
+            out.writeByte( BYTE_ARRAY );
+            out.writeBytes( (byte[]) value );
+        }
+        else if ( depth >= MAX_DEPTH )
+        {
+            writeJava( out, value );
+        }
+        else if ( type == CacheElement.class )
+        {
+            final ICacheElement<?, ?> element = (ICacheElement<?, ?>) value;
+            out.writeByte( CACHE_ELEMENT );
+            out.writeString( element.getCacheName() );
+            writeValue( out, element.getKey(), depth + 1 );
+            writeValue( out, element.getVal(), depth + 1 );
+            writeValue( out, element.getElementAttributes(), depth + 1 );
+        }
+        else if ( type == CacheElementSerialized.class )
+        {
+            final CacheElementSerialized<?, ?> element = (CacheElementSerialized<?, ?>) value;
+            out.writeByte( CACHE_ELEMENT_SERIALIZED );
+            out.writeString( element.getCacheName() );
+            writeValue( out, element.getKey(), depth + 1 );
+            writeValue( out, element.getSerializedValue(), depth + 1 );
+            writeValue( out, element.getElementAttributes(), depth + 1 );
+        }
+        else if ( type == ElementAttributes.class )
+        {
+            out.writeByte( ELEMENT_ATTRIBUTES );
+            writeElementAttributes( out, (ElementAttributes) value );
+        }
+        else if ( type == LateralElementDescriptor.class )
+        {
+            final LateralElementDescriptor<?, ?> led = (LateralElementDescriptor<?, ?>) value;
+            out.writeByte( LATERAL_ELEMENT_DESCRIPTOR );
+            writeValue( out, led.getPayload(), depth + 1 );
+            out.writeVarLong( led.getCommand().ordinal() );
+            out.writeSignedVarLong( led.getRequesterId() );
+            out.writeSignedVarLong( led.getValHashCode() );
+            out.writeSignedVarLong( led.getRequestId() );
+        }
+        else if ( type == ArrayList.class )
+        {
+            writeCollection( out, ARRAY_LIST, (Collection<?>) value, depth );
+        }
+        else if ( type == HashSet.class )
+        {
+            writeCollection( out, HASH_SET, (Collection<?>) value, depth );
+        }
+        else if ( type == LinkedHashSet.class )
+        {
+            writeCollection( out, LINKED_HASH_SET, (Collection<?>) value, depth );
+        }
+        else if ( type == HashMap.class )
+        {
+            writeMap( out, HASH_MAP, (Map<?, ?>) value, depth );
+        }
+        else if ( type == LinkedHashMap.class && !isAccessOrdered( (LinkedHashMap<?, ?>) value ) )
+        {
+            writeMap( out, LINKED_HASH_MAP, (Map<?, ?>) value, depth );
+        }
+        else
+        {
+            writeJava( out, value );
+        }
+    }
+
+    /**
+     * Reads a tagged value.
+     * <p>
+     * @param in the input
+     * @param loader class loader to use
+     * @return the value
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private Object readValue( final Input in, final ClassLoader loader )
+        throws IOException, ClassNotFoundException
+    {
+        // the writer falls back to Java serialization below MAX_DEPTH
+        if ( in.depth > MAX_DEPTH )
+        {
+            throw new StreamCorruptedException( "Values nested too deep at " + in.pos );
+        }
+
+        in.depth++;
+        try
+        {
+            return readTaggedValue( in, loader );
+        }
+        finally
+        {
+            in.depth--;
+        }
+    }
+
+    /**
+     * @param in the input
+     * @param loader class loader to use
+     * @return the value
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private Object readTaggedValue( final Input in, final ClassLoader loader )
+        throws IOException, ClassNotFoundException
+    {
+        final byte tag = in.readByte();
+        switch ( tag )
+        {
+            case NULL:
+                return null;
+            case STRING:
+                return in.readString();
+            case INTEGER:
+                return Integer.valueOf( (int) in.readSignedVarLong() );
+            case LONG:
+                return Long.valueOf( in.readSignedVarLong() );
+            case SHORT:
+                return Short.valueOf( (short) in.readSignedVarLong() );
+            case BYTE:
+                return Byte.valueOf( in.readByte() );
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case CHARACTER:
+                return Character.valueOf( (char) in.readVarLong() );
+            case FLOAT:
+                return Float.valueOf( Float.intBitsToFloat( in.readFixedInt() ) );
+            case DOUBLE:
+                return Double.valueOf( Double.longBitsToDouble( in.readFixedLong() ) );
+            case BYTE_ARRAY:
+                return in.readBytes();
+            case CACHE_ELEMENT:
+            {
+                final String cacheName = in.readString();
+                final Object key = readValue( in, loader );
+                final Object val = readValue( in, loader );
+                final IElementAttributes attributes = readValue( in, loader, IElementAttributes.class );
+                return new CacheElement<>( cacheName, key, val, attributes );
+            }
+            case CACHE_ELEMENT_SERIALIZED:
+            {
+                final String cacheName = in.readString();
+                final Object key = readValue( in, loader );
+                final byte[] val = readValue( in, loader, byte[].class );
+                final IElementAttributes attributes = readValue( in, loader, IElementAttributes.class );
+                return new CacheElementSerialized<>( cacheName, key, val, attributes );
+            }
+            case ELEMENT_ATTRIBUTES:
+                return readElementAttributes( in );
+            case LATERAL_ELEMENT_DESCRIPTOR:
+                return readLateralElementDescriptor( in, loader );
+            case ARRAY_LIST:
+            {
+                final int size = in.readSize();
+                return readCollection( in, loader, new ArrayList<>( size ), size );
+            }
+            case HASH_SET:
+            {
+                final int size = in.readSize();
+                return readCollection( in, loader, new HashSet<>( capacity( size ) ), size );
+            }
+            case LINKED_HASH_SET:
+            {
+                final int size = in.readSize();
+                return readCollection( in, loader, new LinkedHashSet<>( capacity( size ) ), size );
+            }
+            case HASH_MAP:
+            {
+                final int size = in.readSize();
+                return readMap( in, loader, new HashMap<>( capacity( size ) ), size );
+            }
+            case LINKED_HASH_MAP:
+            {
+                final int size = in.readSize();
+                return readMap( in, loader, new LinkedHashMap<>( capacity( size ) ), size );
+            }
+            case JAVA:
+                return javaSerializer.deSerialize( in.readBytes(), loader );
+            default:
+                throw new StreamCorruptedException( "Unknown tag " + tag );
+        }
+    }
+
+    /**
+     * @param out the output
+     * @param value the value to write with Java serialization
+     * @throws IOException
+     */
+    private void writeJava( final Output out, final Object value )
+        throws IOException
+    {
+        out.writeByte( JAVA );
+        out.writeBytes( javaSerializer.serialize( value ) );
+    }
+
+    /**
+     * @param out the output
+     * @param attributes the attributes
+     */
+    private static void writeElementAttributes( final Output out, final ElementAttributes attributes )
+    {
+        int flags = 0;
+        flags |= attributes.getIsSpool() ? SPOOL : 0;
+        flags |= attributes.getIsLateral() ? LATERAL : 0;
+        flags |= attributes.getIsRemote() ? REMOTE : 0;
+        flags |= attributes.getIsEternal() ? ETERNAL : 0;
+        out.writeByte( (byte) flags );
+        out.writeSignedVarLong( attributes.getMaxLife() );
+        out.writeSignedVarLong( attributes.getIdleTime() );
+        out.writeSignedVarLong( attributes.getRefreshAheadPercent() );
+        out.writeSignedVarLong( attributes.getSize() );
+        out.writeSignedVarLong( attributes.getCreateTime() );
+        out.writeSignedVarLong( attributes.getLastAccessTime() );
+        out.writeSignedVarLong( attributes.getTimeFactorForMilliseconds() );
+    }
+
+    /**
+     * @param in the input
+     * @return the attributes
+     * @throws IOException
+     */
+    private static ElementAttributes readElementAttributes( final Input in )
+        throws IOException
+    {
+        final ElementAttributes attributes = new ElementAttributes();
+        final int flags = in.readByte();
+        attributes.setIsSpool( ( flags & SPOOL ) != 0 );
+        attributes.setIsLateral( ( flags & LATERAL ) != 0 );
+        attributes.setIsRemote( ( flags & REMOTE ) != 0 );
+        attributes.setIsEternal( ( flags & ETERNAL ) != 0 );
+        attributes.setMaxLife( in.readSignedVarLong() );
+        attributes.setIdleTime( in.readSignedVarLong() );
+        attributes.setRefreshAheadPercent( (int) in.readSignedVarLong() );
+        attributes.setSize( (int) in.readSignedVarLong() );
+        attributes.setCreateTime( in.readSignedVarLong() );
+        attributes.setLastAccessTime( in.readSignedVarLong() );
+        attributes.setTimeFactorForMilliseconds( in.readSignedVarLong() );
+        return attributes;
+    }
+
+    /**
+     * @param in the input
+     * @param loader class loader to use
+     * @return the descriptor
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private LateralElementDescriptor<Object, Object> readLateralElementDescriptor( final Input in, final ClassLoader loader )
+        throws IOException, ClassNotFoundException
+    {
+        @SuppressWarnings("unchecked") // The descriptor carries elements of any type
+        final ICacheElement<Object, Object> element = readValue( in, loader, ICacheElement.class );
+
+        final long command = in.readVarLong();
+        if ( command < 0 || command >= LATERAL_COMMANDS.length )
+        {
+            throw new StreamCorruptedException( "Unknown lateral command " + command );
+        }
+
+        final LateralElementDescriptor<Object, Object> led =
+            new LateralElementDescriptor<>( element, LATERAL_COMMANDS[(int) command], in.readSignedVarLong() );
+        led.valHashCode = (int) in.readSignedVarLong();
+        led.requestId = in.readSignedVarLong();
+        return led;
+    }
+
+    /**
+     * @param out the output
+     * @param tag the tag of the collection type
+     * @param collection the collection
+     * @param depth the nesting depth
+     * @throws IOException
+     */
+    private void writeCollection( final Output out, final byte tag, final Collection<?> collection, final int depth )
+        throws IOException
+    {
+        out.writeByte( tag );
+        out.writeVarLong( collection.size() );
+        for ( final Object item : collection )
+        {
+            writeValue( out, item, depth + 1 );
+        }
+    }
+
+    /**
+     * @param in the input
+     * @param loader class loader to use
+     * @param collection the empty collection
+     * @param size the number of entries
+     * @return the filled collection
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private Collection<Object> readCollection( final Input in, final ClassLoader loader, final Collection<Object> collection,
+                                               final int size )
+        throws IOException, ClassNotFoundException
+    {
+        for ( int i = 0; i < size; i++ )
+        {
+            collection.add( readValue( in, loader ) );
+        }
+        return collection;
+    }
+
+    /**
+     * @param out the output
+     * @param tag the tag of the map type
+     * @param map the map
+     * @param depth the nesting depth
+     * @throws IOException
+     */
+    private void writeMap( final Output out, final byte tag, final Map<?, ?> map, final int depth )
+        throws IOException
+    {
+        out.writeByte( tag );
+        out.writeVarLong( map.size() );
+        for ( final Map.Entry<?, ?> entry : map.entrySet() )
+        {
+            writeValue( out, entry.getKey(), depth + 1 );
+            writeValue( out, entry.getValue(), depth + 1 );
+        }
+    }
+
+    /**
+     * @param in the input
+     * @param loader class loader to use
+     * @param map the empty map
+     * @param size the number of entries
+     * @return the filled map
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private Map<Object, Object> readMap( final Input in, final ClassLoader loader, final Map<Object, Object> map,
+                                         final int size )
+        throws IOException, ClassNotFoundException
+    {
+        for ( int i = 0; i < size; i++ )
+        {
+            final Object key = readValue( in, loader );
+            map.put( key, readValue( in, loader ) );
+        }
+        return map;
+    }
+
+    /**
+     * An access ordered LinkedHashMap cannot be told apart from an insertion ordered one without
+     * reflection, except by watching the order change on a get. This checks a copy.
+     * <p>
+     * @param map the map
+     * @return true if the map is access ordered
+     */
+    private static boolean isAccessOrdered( final LinkedHashMap<?, ?> map )
+    {
+        if ( map.size() < 2 )
+        {
+            return false;
+        }
+
+        @SuppressWarnings("unchecked") // Only used to watch the order
+        final LinkedHashMap<Object, Object> copy = (LinkedHashMap<Object, Object>) map.clone();
+        final Object first = copy.keySet().iterator().next();
+        copy.get( first );
+        return copy.keySet().iterator().next() != first;
+    }
+
+    /**
+     * @param size the number of entries
+     * @return the initial capacity of a hash based collection of that size
+     */
+    private static int capacity( final int size )
+    {
+        return size < 3 ? size + 1 : (int) ( size / 0.75f + 1.0f );
+    }
+
+    /**
+     * A growing byte buffer with the encodings of the format.
+     */
+    private static final class Output
+    {
+        /** The bytes */
+        private byte[] buf = new byte[64];
+
+        /** The number of bytes written */
+        private int count;
+
+        /**
+         * @param n the number of bytes about to be written
+         */
+        private void ensure( final int n )
+        {
+            if ( count + n > buf.length )
+            {
+                buf = Arrays.copyOf( buf, Math.max( buf.length * 2, count + n ) );
+            }
+        }
+
+        /**
+         * @param b the byte
+         */
+        void writeByte( final byte b )
+        {
+            ensure( 1 );
+            buf[count++] = b;
+        }
+
+        /**
+         * Writes an unsigned number in 7 bit groups, low group first.
+         * <p>
+         * @param value the number
+         */
+        void writeVarLong( final long value )
+        {
+            ensure( 10 );
+            long v = value;
+            while ( ( v & ~0x7FL ) != 0 )
+            {
+                buf[count++] = (byte) ( ( v & 0x7F ) | 0x80 );
+                v >>>= 7;
+            }
+            buf[count++] = (byte) v;
+        }
+
+        /**
+         * Writes a signed number so that small negative numbers stay short.
+         * <p>
+         * @param value the number
+         */
+        void writeSignedVarLong( final long value )
+        {
+            writeVarLong( ( value << 1 ) ^ ( value >> 63 ) );
+        }
+
+        /**
+         * @param value the number
+         */
+        void writeFixedInt( final int value )
+        {
+            ensure( 4 );
+            buf[count++] = (byte) ( value >>> 24 );
+            buf[count++] = (byte) ( value >>> 16 );
+            buf[count++] = (byte) ( value >>> 8 );
+            buf[count++] = (byte) value;
+        }
+
+        /**
+         * @param value the number
+         */
+        void writeFixedLong( final long value )
+        {
+            writeFixedInt( (int) ( value >>> 32 ) );
+            writeFixedInt( (int) value );
+        }
+
+        /**
+         * @param bytes the bytes, prefixed with their length
+         */
+        void writeBytes( final byte[] bytes )
+        {
+            writeVarLong( bytes.length );
+            ensure( bytes.length );
+            System.arraycopy( bytes, 0, buf, count, bytes.length );
+            count += bytes.length;
+        }
+
+        /**
+         * @param s the string, UTF-8 encoded and prefixed with its length, may be null
+         */
+        void writeString( final String s )
+        {
+            if ( s == null )
+            {
+                writeVarLong( 0 );
+                return;
+            }
+
+            // length + 1, 0 is null
+            final byte[] bytes = s.getBytes( StandardCharsets.UTF_8 );
+            writeVarLong( bytes.length + 1L );
+            ensure( bytes.length );
+            System.arraycopy( bytes, 0, buf, count, bytes.length );
+            count += bytes.length;
+        }
+
+        /**
+         * @return a copy of the bytes written
+         */
+        byte[] toByteArray()
+        {
+            return Arrays.copyOf( buf, count );
+        }
+    }
+
+    /**
+     * Reads the encodings of the format from a byte array.
+     */
+    private static final class Input
+    {
+        /** The bytes */
+        private final byte[] buf;
+
+        /** The read position */
+        private int pos;
+
+        /** The end of the data */
+        private final int end;
+
+        /** The nesting depth of the value being read */
+        private int depth;
+
+        /**
+         * @param buf the bytes
+         * @param pos the start of the data
+         * @param end the end of the data
+         */
+        Input( final byte[] buf, final int pos, final int end )
+        {
+            this.buf = buf;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        /**
+         * @param n the number of bytes about to be read
+         * @throws EOFException if there are not enough bytes left
+         */
+        private void require( final int n )
+            throws EOFException
+        {
+            if ( n < 0 || pos + n > end )
+            {
+                throw new EOFException( "Unexpected end of data at " + pos );
+            }
+        }
+
+        /**
+         * @return the byte
+         * @throws EOFException
+         */
+        byte readByte()
+            throws EOFException
+        {
+            require( 1 );
+            return buf[pos++];
+        }
+
+        /**
+         * @return the unsigned number
+         * @throws IOException
+         */
+        long readVarLong()
+            throws IOException
+        {
+            long value = 0;
+            for ( int shift = 0; shift < 64; shift += 7 )
+            {
+                final byte b = readByte();
+                value |= (long) ( b & 0x7F ) << shift;
+                if ( ( b & 0x80 ) == 0 )
+                {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException( "Malformed number at " + pos );
+        }
+
+        /**
+         * @return the signed number
+         * @throws IOException
+         */
+        long readSignedVarLong()
+            throws IOException
+        {
+            final long v = readVarLong();
+            return ( v >>> 1 ) ^ -( v & 1 );
+        }
+
+        /**
+         * Reads the size of a collection, checked against the remaining data.
+         * <p>
+         * @return the size
+         * @throws IOException
+         */
+        int readSize()
+            throws IOException
+        {
+            final long size = readVarLong();
+            if ( size < 0 || size > Integer.MAX_VALUE )
+            {
+                throw new StreamCorruptedException( "Invalid size " + size + " at " + pos );
+            }
+            // every entry takes at least one byte
+            if ( size > end - pos )
+            {
+                throw new StreamCorruptedException( "Size " + size + " exceeds the data" );
+            }
+            return (int) size;
+        }
+
+        /**
+         * @return the number
+         * @throws EOFException
+         */
+        int readFixedInt()
+            throws EOFException
+        {
+            require( 4 );
+            final int value = ( buf[pos] & 0xFF ) << 24 | ( buf[pos + 1] & 0xFF ) << 16
+                | ( buf[pos + 2] & 0xFF ) << 8 | buf[pos + 3] & 0xFF;
+            pos += 4;
+            return value;
+        }
+
+        /**
+         * @return the number
+         * @throws EOFException
+         */
+        long readFixedLong()
+            throws EOFException
+        {
+            return (long) readFixedInt() << 32 | readFixedInt() & 0xFFFFFFFFL;
+        }
+
+        /**
+         * @return the bytes
+         * @throws IOException
+         */
+        byte[] readBytes()
+            throws IOException
+        {
+            final int length = readLength( readVarLong() );
+            final byte[] bytes = Arrays.copyOfRange( buf, pos, pos + length );
+            pos += length;
+            return bytes;
+        }
+
+        /**
+         * @return the string, may be null
+         * @throws IOException
+         */
+        String readString()
+            throws IOException
+        {
+            final long encoded = readVarLong();
+            if ( encoded == 0 )
+            {
+                return null;
+            }
+
+            final int length = readLength( encoded - 1 );
+            final String s = new String( buf, pos, length, StandardCharsets.UTF_8 );
+            pos += length;
+            return s;
+        }
+
+        /**
+         * @param length the length read from the data
+         * @return the length, checked against the remaining data
+         * @throws IOException
+         */
+        private int readLength( final long length )
+            throws IOException
+        {
+            if ( length < 0 || length > Integer.MAX_VALUE )
+            {
+                throw new StreamCorruptedException( "Invalid length " + length + " at " + pos );
+            }
+            if ( length > end - pos )
+            {
+                throw new EOFException( "Length " + length + " exceeds the data at " + pos );
+            }
+            return (int) length;
+        }
+    }
+}
@@ -20,18 +20,78 @@ package org.apache.commons.jcs3.utils.serialization;
  */
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.utils.zip.CompressionUtil;
+import org.apache.commons.jcs3.utils.zip.LZ4Codec;
 
 /**
- * Performs default serialization and de-serialization. It gzips the value.
+ * Performs default serialization and de-serialization. It compresses the value.
+ * <p>
+ * Values smaller than the minimum size, and values that do not get smaller, are stored as they
+ * are. The first byte tells how the value is stored, followed by the uncompressed length for
+ * compressed values. Values written by older versions, which are plain deflate streams, are
+ * still read. The deflaters and inflaters are pooled.
  */
 public class CompressingSerializer extends StandardSerializer
 {
+    /** The compression algorithms */
+    public enum Codec
+    {
+        /** Deflate at the configured level */
+        DEFLATE,
+
+        /** LZ4, fast but compresses less */
+        LZ4
+    }
+
+    /** Default minimum size of the values to compress */
+    public static final int DEFAULT_MIN_COMPRESS_SIZE = 128;
+
+    /** The value is stored as it is */
+    private static final byte FORMAT_STORED = 0;
+
+    /** The value is compressed with deflate */
+    private static final byte FORMAT_DEFLATE = 1;
+
+    /** The value is compressed with LZ4 */
+    private static final byte FORMAT_LZ4 = 2;
+
+    /** The format byte and the uncompressed length */
+    private static final int HEADER_LENGTH = 5;
+
+    /** Deflate cannot expand its input by more than this factor */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    /** LZ4 cannot expand its input by more than this factor */
+    private static final int MAX_LZ4_RATIO = 255;
+
+    /** The number of idle deflaters and inflaters kept */
+    private static final int POOL_SIZE = 16;
+
+    /** The idle deflaters */
+    private static final BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>( POOL_SIZE );
+
+    /** The idle inflaters */
+    private static final BlockingQueue<Inflater> INFLATERS = new ArrayBlockingQueue<>( POOL_SIZE );
+
     /** Wrapped serializer */
     private final IElementSerializer serializer;
 
+    /** The compression algorithm */
+    private Codec codec = Codec.DEFLATE;
+
+    /** The deflate compression level */
+    private int compressionLevel = Deflater.BEST_COMPRESSION;
+
+    /** Smaller values are not compressed */
+    private int minCompressSize = DEFAULT_MIN_COMPRESS_SIZE;
 
     /**
      * Default constructor
@@ -52,6 +112,44 @@ public class CompressingSerializer extends StandardSerializer
         this.serializer = serializer;
     }
 
+    /**
+     * Set the compression algorithm. Default is DEFLATE.
+     *
+     * @param codec the algorithm
+     * @since 3.2
+     */
+    public void setCodec( final Codec codec )
+    {
+        this.codec = codec;
+    }
+
+    /**
+     * Set the deflate compression level, from 1 (fastest) to 9 (smallest). Default is 9.
+     *
+     * @param compressionLevel the level
+     * @since 3.2
+     */
+    public void setCompressionLevel( final int compressionLevel )
+    {
+        if ( compressionLevel < Deflater.BEST_SPEED || compressionLevel > Deflater.BEST_COMPRESSION )
+        {
+            throw new IllegalArgumentException( "Invalid compression level " + compressionLevel );
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Set the size in bytes below which serialized values are stored uncompressed. Default is
+     * {@value #DEFAULT_MIN_COMPRESS_SIZE}.
+     *
+     * @param minCompressSize the size
+     * @since 3.2
+     */
+    public void setMinCompressSize( final int minCompressSize )
+    {
+        this.minCompressSize = minCompressSize;
+    }
+
     /**
      * Serializes an object using default serialization. Compresses the byte array.
      * <p>
@@ -64,7 +162,19 @@ public class CompressingSerializer extends StandardSerializer
         throws IOException
     {
         final byte[] uncompressed = serializer.serialize(obj);
-        return CompressionUtil.compressByteArray( uncompressed );
+        if ( uncompressed.length >= minCompressSize && uncompressed.length > HEADER_LENGTH )
+        {
+            final byte[] compressed = codec == Codec.LZ4 ? compressLZ4( uncompressed ) : compressDeflate( uncompressed );
+            if ( compressed != null )
+            {
+                return compressed;
+            }
+        }
+
+        final byte[] stored = new byte[uncompressed.length + 1];
+        stored[0] = FORMAT_STORED;
+        System.arraycopy( uncompressed, 0, stored, 1, uncompressed.length );
+        return stored;
     }
 
     /**
@@ -85,8 +195,211 @@ public class CompressingSerializer extends StandardSerializer
         {
             return null;
         }
+        if ( data.length == 0 )
+        {
+            throw new IOException( "Empty compressed value" );
+        }
+
+        final byte[] decompressedByteArray;
+        switch ( data[0] )
+        {
+            case FORMAT_STORED:
+                decompressedByteArray = Arrays.copyOfRange( data, 1, data.length );
+                break;
+            case FORMAT_DEFLATE:
+                decompressedByteArray = inflate( data, readLength( data, MAX_DEFLATE_RATIO ) );
+                break;
+            case FORMAT_LZ4:
+                decompressedByteArray = new byte[readLength( data, MAX_LZ4_RATIO )];
+                LZ4Codec.decompress( data, HEADER_LENGTH, data.length - HEADER_LENGTH,
+                        decompressedByteArray, 0, decompressedByteArray.length );
+                break;
+            default:
+                // a zlib header always names the deflate method in the low four bits
+                if ( ( data[0] & 0x0F ) != Deflater.DEFLATED )
+                {
+                    throw new IOException( "Unknown compression format " + data[0] );
+                }
+                decompressedByteArray = CompressionUtil.decompressByteArray( data );
+                break;
+        }
 
-        final byte[] decompressedByteArray = CompressionUtil.decompressByteArray( data );
         return serializer.deSerialize(decompressedByteArray, loader);
     }
+
+    /**
+     * @param uncompressed the serialized value
+     * @return the compressed value, or null if it is not smaller than the stored one
+     */
+    private byte[] compressDeflate( final byte[] uncompressed )
+    {
+        // the value is only worth compressing if it fits into the space of the stored value
+        final byte[] result = new byte[uncompressed.length + 1];
+        final int capacity = result.length - HEADER_LENGTH;
+
+        final Deflater deflater = acquireDeflater();
+        try
+        {
+            deflater.setLevel( compressionLevel );
+            deflater.setInput( uncompressed );
+            deflater.finish();
+
+            int length = 0;
+            while ( !deflater.finished() && length < capacity )
+            {
+                length += deflater.deflate( result, HEADER_LENGTH + length, capacity - length );
+            }
+            if ( !deflater.finished() )
+            {
+                return null;
+            }
+
+            writeHeader( result, FORMAT_DEFLATE, uncompressed.length );
+            return Arrays.copyOf( result, HEADER_LENGTH + length );
+        }
+        finally
+        {
+            releaseDeflater( deflater );
+        }
+    }
+
+    /**
+     * @param uncompressed the serialized value
+     * @return the compressed value, or null if it is not smaller than the stored one
+     */
+    private static byte[] compressLZ4( final byte[] uncompressed )
+    {
+        final byte[] result = new byte[HEADER_LENGTH + LZ4Codec.maxCompressedLength( uncompressed.length )];
+        final int length = LZ4Codec.compress( uncompressed, 0, uncompressed.length, result, HEADER_LENGTH );
+        if ( HEADER_LENGTH + length > uncompressed.length )
+        {
+            return null;
+        }
+
+        writeHeader( result, FORMAT_LZ4, uncompressed.length );
+        return Arrays.copyOf( result, HEADER_LENGTH + length );
+    }
+
+    /**
+     * @param data the compressed value
+     * @param length the uncompressed length
+     * @return the uncompressed value
+     * @throws IOException if the data is malformed
+     */
+    private static byte[] inflate( final byte[] data, final int length )
+        throws IOException
+    {
+        final byte[] result = new byte[length];
+        final Inflater inflater = acquireInflater();
+        try
+        {
+            inflater.setInput( data, HEADER_LENGTH, data.length - HEADER_LENGTH );
+
+            int count = 0;
+            while ( count < length )
+            {
+                final int n = inflater.inflate( result, count, length - count );
+                if ( n == 0 && ( inflater.finished() || inflater.needsInput() || inflater.needsDictionary() ) )
+                {
+                    throw new IOException( "Truncated compressed value" );
+                }
+                count += n;
+            }
+
+            return result;
+        }
+        catch ( final DataFormatException e )
+        {
+            throw new IOException( "Malformed compressed value", e );
+        }
+        finally
+        {
+            releaseInflater( inflater );
+        }
+    }
+
+    /**
+     * @param result the value
+     * @param format the format byte
+     * @param length the uncompressed length
+     */
+    private static void writeHeader( final byte[] result, final byte format, final int length )
+    {
+        result[0] = format;
+        result[1] = (byte) ( length >>> 24 );
+        result[2] = (byte) ( length >>> 16 );
+        result[3] = (byte) ( length >>> 8 );
+        result[4] = (byte) length;
+    }
+
+    /**
+     * Reads the uncompressed length from the header. It is checked against what the compressed
+     * bytes can expand to, so a corrupt header does not allocate a huge buffer.
+     * <p>
+     * @param data the compressed value
+     * @param maxRatio the largest factor the codec can expand its input by
+     * @return the uncompressed length
+     * @throws IOException if the header is malformed
+     */
+    private static int readLength( final byte[] data, final int maxRatio )
+        throws IOException
+    {
+        if ( data.length < HEADER_LENGTH )
+        {
+            throw new IOException( "Truncated compressed value" );
+        }
+        final int length = ( data[1] & 0xFF ) << 24 | ( data[2] & 0xFF ) << 16 | ( data[3] & 0xFF ) << 8 | data[4] & 0xFF;
+        if ( length < 0 || length > (long) ( data.length - HEADER_LENGTH ) * maxRatio )
+        {
+            throw new IOException( "Invalid uncompressed length " + length );
+        }
+        return length;
+    }
+
+    /**
+     * @return an idle deflater or a new one
+     */
+    private static Deflater acquireDeflater()
+    {
+        final Deflater deflater = DEFLATERS.poll();
+        return deflater != null ? deflater : new Deflater();
+    }
+
+    /**
+     * Resets the deflater for the pool or frees it if the pool is full.
+     * <p>
+     * @param deflater the deflater
+     */
+    private static void releaseDeflater( final Deflater deflater )
+    {
+        deflater.reset();
+        if ( !DEFLATERS.offer( deflater ) )
+        {
+            // JCS-136, the native memory is only freed by end()
+            deflater.end();
+        }
+    }
+
+    /**
+     * @return an idle inflater or a new one
+     */
+    private static Inflater acquireInflater()
+    {
+        final Inflater inflater = INFLATERS.poll();
+        return inflater != null ? inflater : new Inflater();
+    }
+
+    /**
+     * Resets the inflater for the pool or frees it if the pool is full.
+     * <p>
+     * @param inflater the inflater
+     */
+    private static void releaseInflater( final Inflater inflater )
+    {
+        inflater.reset();
+        if ( !INFLATERS.offer( inflater ) )
+        {
+            inflater.end();
+        }
+    }
 }
@@ -26,6 +26,9 @@ import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -33,15 +36,24 @@ import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.utils.struct.LRUMap;
 
 /**
  * Performs serialization and de-serialization. It encrypts and decrypts the
  * value.
+ * <p>
+ * Deriving a key from the pre-shared key is slow on purpose. With AES/GCM/NoPadding, which uses a
+ * random initial vector for every value, the serializer therefore derives one key with a random
+ * salt and encrypts all values with it until the key is rotated. The default AES/ECB/PKCS5Padding
+ * has no initial vector, so every value still gets a key with a salt of its own. The salt is
+ * stored with every value and the keys derived for decryption are cached by salt. The ciphers are
+ * kept per thread.
  *
  * @since 3.1
  */
@@ -55,21 +67,39 @@ public class EncryptingSerializer extends StandardSerializer
     private static final int IV_LENGTH = 12;
     private static final int SALT_LENGTH = 16;
 
+    /** Number of values encrypted with one key, well below the limit for random GCM initial vectors */
+    private static final long MAX_VALUES_PER_KEY = 1L << 30;
+
+    /** Number of keys derived for decryption that are kept */
+    private static final int MAX_CACHED_KEYS = 100;
+
     /** The pre-shared key */
     private String psk;
 
     /** The cipher transformation */
     private String cipherTransformation = DEFAULT_CIPHER;
 
+    /** The age in milliseconds after which a new encryption key is derived, 0 for never */
+    private long keyRotationMillis;
+
     /** The random source */
     private final SecureRandom secureRandom;
 
-    /** The secret-key factory */
-    private final SecretKeyFactory secretKeyFactory;
+    /** The secret-key factory of each thread */
+    private final ThreadLocal<SecretKeyFactory> secretKeyFactories = new ThreadLocal<>();
 
     /** Wrapped serializer */
     private final IElementSerializer serializer;
 
+    /** The salt and key shared by the values encrypted with GCM, null until the first one */
+    private volatile EncryptionKey encryptionKey;
+
+    /** The keys derived for decryption, by salt, except the one of the encryption key */
+    private final LRUMap<ByteBuffer, SecretKey> keysBySalt = new LRUMap<>(MAX_CACHED_KEYS);
+
+    /** The cipher of each thread */
+    private final ThreadLocal<Cipher> ciphers = new ThreadLocal<>();
+
     /**
      * Default constructor
      */
@@ -91,7 +121,7 @@ public class EncryptingSerializer extends StandardSerializer
         try
         {
             this.secureRandom = new SecureRandom();
-            this.secretKeyFactory = SecretKeyFactory.getInstance(DEFAULT_SECRET_KEY_ALGORITHM);
+            this.secretKeyFactories.set(SecretKeyFactory.getInstance(DEFAULT_SECRET_KEY_ALGORITHM));
         }
         catch (NoSuchAlgorithmException e)
         {
@@ -107,6 +137,10 @@ public class EncryptingSerializer extends StandardSerializer
     public void setPreSharedKey(String psk)
     {
         this.psk = psk;
+
+        // the derived keys belong to the old pre-shared key
+        this.encryptionKey = null;
+        this.keysBySalt.clear();
     }
 
     /**
@@ -120,6 +154,19 @@ public class EncryptingSerializer extends StandardSerializer
         this.cipherTransformation = transformation;
     }
 
+    /**
+     * Set the age after which a new key with a new salt is derived for encryption with GCM.
+     * Values encrypted with older keys can still be decrypted. Default is 0, the key is kept for
+     * the lifetime of the serializer.
+     *
+     * @param seconds the age in seconds, 0 for never
+     * @since 3.2
+     */
+    public void setKeyRotationSeconds(long seconds)
+    {
+        this.keyRotationMillis = TimeUnit.SECONDS.toMillis(seconds);
+    }
+
     private byte[] getRandomBytes(int length)
     {
         byte[] bytes = new byte[length];
@@ -128,45 +175,140 @@ public class EncryptingSerializer extends StandardSerializer
         return bytes;
     }
 
-    private SecretKey createSecretKey(String password, byte[] salt) throws InvalidKeySpecException
+    private SecretKey createSecretKey(String password, byte[] salt)
+            throws InvalidKeySpecException, NoSuchAlgorithmException
     {
         /* Derive the key, given password and salt. */
         PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt,
                 KEYHASH_ITERATION_COUNT, KEY_LENGTH);
-        SecretKey tmp = secretKeyFactory.generateSecret(spec);
+        SecretKey tmp = getSecretKeyFactory().generateSecret(spec);
         return new SecretKeySpec(tmp.getEncoded(), "AES");
     }
 
+    /**
+     * @return the secret-key factory of the current thread
+     * @throws NoSuchAlgorithmException
+     */
+    private SecretKeyFactory getSecretKeyFactory() throws NoSuchAlgorithmException
+    {
+        SecretKeyFactory factory = secretKeyFactories.get();
+        if (factory == null)
+        {
+            factory = SecretKeyFactory.getInstance(DEFAULT_SECRET_KEY_ALGORITHM);
+            secretKeyFactories.set(factory);
+        }
+
+        return factory;
+    }
+
+    /**
+     * Returns the key for a salt, derived once and then taken from the cache.
+     *
+     * @param salt the salt
+     * @return the key
+     * @throws InvalidKeySpecException if the key cannot be derived
+     * @throws NoSuchAlgorithmException
+     */
+    private SecretKey getSecretKey(byte[] salt) throws InvalidKeySpecException, NoSuchAlgorithmException
+    {
+        // the encryption key is kept apart, so that values with a salt each cannot evict it
+        final EncryptionKey current = encryptionKey;
+        if (current != null && Arrays.equals(current.salt, salt))
+        {
+            return current.secretKey;
+        }
+
+        final ByteBuffer id = ByteBuffer.wrap(salt);
+        SecretKey key = keysBySalt.get(id);
+        if (key == null)
+        {
+            key = createSecretKey(psk, salt);
+            keysBySalt.put(id, key);
+        }
+
+        return key;
+    }
+
+    /**
+     * Returns the key for encryption. A new one is derived if there is none yet or if it is
+     * due for rotation.
+     *
+     * @return the key
+     * @throws InvalidKeySpecException if the key cannot be derived
+     * @throws NoSuchAlgorithmException
+     */
+    private EncryptionKey getEncryptionKey() throws InvalidKeySpecException, NoSuchAlgorithmException
+    {
+        EncryptionKey key = encryptionKey;
+        if (key == null || !key.isUsable(keyRotationMillis))
+        {
+            synchronized (this)
+            {
+                key = encryptionKey;
+                if (key == null || !key.isUsable(keyRotationMillis))
+                {
+                    final byte[] salt = getRandomBytes(SALT_LENGTH);
+                    key = new EncryptionKey(salt, createSecretKey(psk, salt));
+                    encryptionKey = key;
+                }
+            }
+        }
+
+        return key;
+    }
+
+    /**
+     * @return the cipher of the current thread
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchPaddingException
+     */
+    private Cipher getCipher() throws NoSuchAlgorithmException, NoSuchPaddingException
+    {
+        Cipher cipher = ciphers.get();
+        if (cipher == null || !cipher.getAlgorithm().equals(cipherTransformation))
+        {
+            cipher = Cipher.getInstance(cipherTransformation);
+            ciphers.set(cipher);
+        }
+
+        return cipher;
+    }
+
     private byte[] encrypt(byte[] source) throws IOException
     {
         try
         {
-            byte[] salt = getRandomBytes(SALT_LENGTH);
             byte[] iv = getRandomBytes(IV_LENGTH);
+            final byte[] salt;
 
-            SecretKey secretKey = createSecretKey(psk, salt);
-            Cipher cipher = Cipher.getInstance(cipherTransformation);
+            Cipher cipher = getCipher();
             if (cipher.getAlgorithm().startsWith("AES/GCM"))
             {
-                cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+                // the initial vector keeps equal values apart, so the key can be shared
+                final EncryptionKey key = getEncryptionKey();
+                key.values.incrementAndGet();
+                salt = key.salt;
+                cipher.init(Cipher.ENCRYPT_MODE, key.secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
             }
             else
             {
-                cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+                // without an initial vector only a key of its own keeps equal values apart
+                salt = getRandomBytes(SALT_LENGTH);
+                cipher.init(Cipher.ENCRYPT_MODE, createSecretKey(psk, salt));
             }
 
-            byte[] encrypted = cipher.doFinal(source);
-
             // join initial vector, salt and encrypted data for later decryption
-            return ByteBuffer.allocate(IV_LENGTH + SALT_LENGTH + encrypted.length)
-                    .put(iv)
-                    .put(salt)
-                    .put(encrypted)
-                    .array();
+            final int headerLength = IV_LENGTH + SALT_LENGTH;
+            final byte[] result = new byte[headerLength + cipher.getOutputSize(source.length)];
+            System.arraycopy(iv, 0, result, 0, IV_LENGTH);
+            System.arraycopy(salt, 0, result, IV_LENGTH, SALT_LENGTH);
+            final int length = cipher.doFinal(source, 0, source.length, result, headerLength);
+
+            return headerLength + length == result.length ? result : Arrays.copyOf(result, headerLength + length);
         }
         catch (NoSuchAlgorithmException | NoSuchPaddingException | BadPaddingException |
                 IllegalBlockSizeException | InvalidKeyException | InvalidKeySpecException |
-                InvalidAlgorithmParameterException e)
+                InvalidAlgorithmParameterException | ShortBufferException e)
         {
             throw new IOException("Error while encrypting", e);
         }
@@ -177,30 +319,25 @@ public class EncryptingSerializer extends StandardSerializer
         try
         {
             // split data in initial vector, salt and encrypted data
-            ByteBuffer wrapped = ByteBuffer.wrap(source);
-
-            byte[] iv = new byte[IV_LENGTH];
-            wrapped.get(iv);
-
-            byte[] salt = new byte[SALT_LENGTH];
-            wrapped.get(salt);
-
-            byte[] encrypted = new byte[wrapped.remaining()];
-            wrapped.get(encrypted);
+            if (source.length < IV_LENGTH + SALT_LENGTH)
+            {
+                throw new IOException("Encrypted data is too short");
+            }
 
-            SecretKey secretKey = createSecretKey(psk, salt);
-            Cipher cipher = Cipher.getInstance(cipherTransformation);
+            final byte[] salt = Arrays.copyOfRange(source, IV_LENGTH, IV_LENGTH + SALT_LENGTH);
+            SecretKey secretKey = getSecretKey(salt);
+            Cipher cipher = getCipher();
 
             if (cipher.getAlgorithm().startsWith("AES/GCM"))
             {
-                cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+                cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, source, 0, IV_LENGTH));
             }
             else
             {
                 cipher.init(Cipher.DECRYPT_MODE, secretKey);
             }
 
-            return cipher.doFinal(encrypted);
+            return cipher.doFinal(source, IV_LENGTH + SALT_LENGTH, source.length - IV_LENGTH - SALT_LENGTH);
         }
         catch (NoSuchAlgorithmException | NoSuchPaddingException | BadPaddingException |
                 IllegalBlockSizeException | InvalidKeyException | InvalidKeySpecException |
@@ -247,4 +384,42 @@ public class EncryptingSerializer extends StandardSerializer
         final byte[] deccrypted = decrypt(data);
         return serializer.deSerialize(deccrypted, loader);
     }
+
+    /**
+     * A key used for encryption and the salt it was derived with.
+     */
+    private static final class EncryptionKey
+    {
+        /** The salt */
+        final byte[] salt;
+
+        /** The derived key */
+        final SecretKey secretKey;
+
+        /** When the key was derived */
+        final long created = System.currentTimeMillis();
+
+        /** The number of values encrypted with the key */
+        final AtomicLong values = new AtomicLong();
+
+        /**
+         * @param salt the salt
+         * @param secretKey the derived key
+         */
+        EncryptionKey(final byte[] salt, final SecretKey secretKey)
+        {
+            this.salt = salt;
+            this.secretKey = secretKey;
+        }
+
+        /**
+         * @param rotationMillis the age after which the key is rotated, 0 for never
+         * @return true if the key may encrypt more values
+         */
+        boolean isUsable(final long rotationMillis)
+        {
+            return values.get() < MAX_VALUES_PER_KEY
+                    && (rotationMillis <= 0 || System.currentTimeMillis() - created < rotationMillis);
+        }
+    }
 }
@@ -0,0 +1,510 @@
+package org.apache.commons.jcs3.utils.serialization;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A reusable, growing buffer for length prefixed frames.
+ * <p>
+ * Serializers write into the buffer as an OutputStream. The four-byte length prefix is reserved
+ * by {@link #beginFrame()} and filled in by {@link #endFrame(int)}, so the serialized bytes are
+ * neither collected in a separate array nor copied into a frame. The frames are then written to a
+ * stream or channel straight from the buffer. Frames read with one of the readFrom methods land
+ * in the same memory.
+ * <p>
+ * A buffer is not thread safe. Code that owns a connection keeps a buffer per connection. Other
+ * code borrows a buffer from a small shared pool with {@link #acquire()} and gives it back with
+ * {@link #release()}. A buffer that grew beyond {@value #MAX_RETAINED_CAPACITY} bytes shrinks
+ * back when it is reset, so a single large object does not stay in memory.
+ * <p>
+ * An operation on an asynchronous channel that times out may still be running. The buffer then
+ * closes the channel and lets go of its memory, so that neither the next frame nor the next user
+ * of a pooled buffer shares memory with the abandoned operation.
+ *
+ * @since 3.2
+ */
+public class FrameBuffer
+    extends OutputStream
+{
+    /** The capacity of a new buffer */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** The largest capacity kept after a reset */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    /** The largest array size the VM reliably allocates */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /** The number of idle buffers kept for {@link #acquire()} */
+    private static final int POOL_SIZE = 16;
+
+    /** The idle buffers */
+    private static final BlockingQueue<FrameBuffer> POOL = new ArrayBlockingQueue<>( POOL_SIZE );
+
+    /** Whether the memory is allocated outside of the heap */
+    private final boolean direct;
+
+    /** The memory, the position is the number of bytes written */
+    private ByteBuffer buffer;
+
+    /** Whether the buffer has been taken from the pool */
+    private boolean acquired;
+
+    /**
+     * Creates a heap buffer.
+     */
+    public FrameBuffer()
+    {
+        this( false );
+    }
+
+    /**
+     * @param direct whether to allocate the memory outside of the heap. Channels write direct
+     *            buffers without copying them first.
+     */
+    public FrameBuffer( final boolean direct )
+    {
+        this.direct = direct;
+        this.buffer = allocate( INITIAL_CAPACITY );
+    }
+
+    /**
+     * Borrows an idle heap buffer, or creates one if there is none.
+     * <p>
+     * @return an empty buffer, to be given back with {@link #release()}
+     */
+    public static FrameBuffer acquire()
+    {
+        FrameBuffer buffer = POOL.poll();
+        if ( buffer == null )
+        {
+            buffer = new FrameBuffer();
+        }
+
+        buffer.acquired = true;
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer borrowed with {@link #acquire()} back. Other buffers are just reset.
+     */
+    public void release()
+    {
+        reset();
+        if ( acquired )
+        {
+            acquired = false;
+            POOL.offer( this );
+        }
+    }
+
+    /**
+     * @param capacity the capacity
+     * @return new memory
+     */
+    private ByteBuffer allocate( final int capacity )
+    {
+        return direct ? ByteBuffer.allocateDirect( capacity ) : ByteBuffer.allocate( capacity );
+    }
+
+    /**
+     * Grows the buffer if less than the given number of bytes are left.
+     * <p>
+     * @param n the number of bytes about to be written
+     * @throws IOException if the buffer would exceed the largest possible size
+     */
+    private void ensureRemaining( final int n )
+        throws IOException
+    {
+        if ( buffer.remaining() >= n )
+        {
+            return;
+        }
+
+        final long needed = (long) buffer.position() + n;
+        if ( needed > MAX_CAPACITY )
+        {
+            throw new IOException( "Frame of " + needed + " bytes is too large" );
+        }
+
+        final ByteBuffer grown = allocate( (int) Math.max( needed, Math.min( MAX_CAPACITY, buffer.capacity() * 2L ) ) );
+        buffer.flip();
+        grown.put( buffer );
+        buffer = grown;
+    }
+
+    /**
+     * @see java.io.OutputStream#write(int)
+     */
+    @Override
+    public void write( final int b )
+        throws IOException
+    {
+        ensureRemaining( 1 );
+        buffer.put( (byte) b );
+    }
+
+    /**
+     * @see java.io.OutputStream#write(byte[], int, int)
+     */
+    @Override
+    public void write( final byte[] b, final int off, final int len )
+        throws IOException
+    {
+        ensureRemaining( len );
+        buffer.put( b, off, len );
+    }
+
+    /**
+     * Reserves the length prefix of a frame.
+     * <p>
+     * @return the offset of the frame, to be passed to {@link #endFrame(int)}
+     * @throws IOException
+     */
+    public int beginFrame()
+        throws IOException
+    {
+        final int start = buffer.position();
+        ensureRemaining( 4 );
+        buffer.putInt( 0 );
+        return start;
+    }
+
+    /**
+     * Fills in the length prefix of a frame with the number of bytes written since
+     * {@link #beginFrame()}.
+     * <p>
+     * @param start the offset of the frame
+     */
+    public void endFrame( final int start )
+    {
+        buffer.putInt( start, buffer.position() - start - 4 );
+    }
+
+    /**
+     * @return the number of bytes written
+     */
+    public int size()
+    {
+        return buffer.position();
+    }
+
+    /**
+     * @return a view of the bytes written, valid until the buffer is written to or reset
+     */
+    public ByteBuffer toByteBuffer()
+    {
+        final ByteBuffer view = buffer.duplicate();
+        view.flip();
+        return view;
+    }
+
+    /**
+     * Drops the bytes written. A buffer that grew large is replaced by a small one.
+     */
+    public void reset()
+    {
+        if ( buffer.capacity() > MAX_RETAINED_CAPACITY )
+        {
+            buffer = allocate( INITIAL_CAPACITY );
+        }
+        else
+        {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Writes the bytes written so far to a stream.
+     * <p>
+     * @param os the output stream
+     * @return the number of bytes written
+     * @throws IOException if writing fails
+     */
+    public int writeTo( final OutputStream os )
+        throws IOException
+    {
+        if ( buffer.hasArray() )
+        {
+            os.write( buffer.array(), buffer.arrayOffset(), buffer.position() );
+            return buffer.position();
+        }
+
+        return writeTo( Channels.newChannel( os ) );
+    }
+
+    /**
+     * Writes the bytes written so far to a channel.
+     * <p>
+     * @param oc the output channel
+     * @return the number of bytes written
+     * @throws IOException if writing fails
+     */
+    public int writeTo( final WritableByteChannel oc )
+        throws IOException
+    {
+        final ByteBuffer view = toByteBuffer();
+        int count = 0;
+        while ( view.hasRemaining() )
+        {
+            count += oc.write( view );
+        }
+        return count;
+    }
+
+    /**
+     * Writes the bytes written so far to an asynchronous channel.
+     * <p>
+     * @param oc the output channel
+     * @param writeTimeoutMs the write timeout in milliseconds
+     * @return the number of bytes written
+     * @throws IOException if writing fails or times out
+     */
+    public int writeTo( final AsynchronousByteChannel oc, final int writeTimeoutMs )
+        throws IOException
+    {
+        final ByteBuffer view = toByteBuffer();
+        int count = 0;
+        while ( view.hasRemaining() )
+        {
+            count += await( oc, oc.write( view ), writeTimeoutMs, "Write timeout exceeded " + writeTimeoutMs ).intValue();
+        }
+        return count;
+    }
+
+    /**
+     * Resets the buffer and makes room for a frame body.
+     * <p>
+     * @param length the length of the body
+     * @return a view of the memory with the length as limit
+     */
+    private ByteBuffer prepareRead( final int length )
+    {
+        reset();
+        if ( buffer.capacity() < length )
+        {
+            buffer = allocate( length );
+        }
+
+        final ByteBuffer view = buffer.duplicate();
+        view.limit( length );
+        return view;
+    }
+
+    /**
+     * @param length the length read from the prefix
+     * @return the length
+     * @throws IOException if the length is negative
+     */
+    private static int checkLength( final int length )
+        throws IOException
+    {
+        if ( length < 0 )
+        {
+            throw new IOException( "Invalid frame length " + length );
+        }
+        return length;
+    }
+
+    /**
+     * Reads one length prefixed frame from a stream.
+     * <p>
+     * @param is the input stream
+     * @return a view of the frame body, valid until the buffer is used again
+     * @throws EOFException if the stream ends before the frame
+     * @throws IOException if reading fails
+     */
+    public ByteBuffer readFrom( final InputStream is )
+        throws IOException
+    {
+        if ( !buffer.hasArray() )
+        {
+            return readFrom( Channels.newChannel( is ) );
+        }
+
+        final ByteBuffer lengthView = prepareRead( 4 );
+        readFully( is, lengthView, "length" );
+        final ByteBuffer body = prepareRead( checkLength( lengthView.getInt( 0 ) ) );
+        readFully( is, body, "object" );
+        body.flip();
+        return body;
+    }
+
+    /**
+     * @param is the input stream
+     * @param view the heap memory to fill up to its limit
+     * @param what the part of the frame, for the error message
+     * @throws IOException
+     */
+    private static void readFully( final InputStream is, final ByteBuffer view, final String what )
+        throws IOException
+    {
+        while ( view.hasRemaining() )
+        {
+            final int read = is.read( view.array(), view.arrayOffset() + view.position(), view.remaining() );
+            if ( read < 0 )
+            {
+                throw new EOFException( "End of stream reached (" + what + ")" );
+            }
+            view.position( view.position() + read );
+        }
+    }
+
+    /**
+     * Reads one length prefixed frame from a channel.
+     * <p>
+     * @param ic the input channel
+     * @return a view of the frame body, valid until the buffer is used again
+     * @throws EOFException if the channel ends before the frame
+     * @throws IOException if reading fails
+     */
+    public ByteBuffer readFrom( final ReadableByteChannel ic )
+        throws IOException
+    {
+        final ByteBuffer lengthView = prepareRead( 4 );
+        readFully( ic, lengthView, "length" );
+        final ByteBuffer body = prepareRead( checkLength( lengthView.getInt( 0 ) ) );
+        readFully( ic, body, "object" );
+        body.flip();
+        return body;
+    }
+
+    /**
+     * @param ic the input channel
+     * @param view the memory to fill up to its limit
+     * @param what the part of the frame, for the error message
+     * @throws IOException
+     */
+    private static void readFully( final ReadableByteChannel ic, final ByteBuffer view, final String what )
+        throws IOException
+    {
+        while ( view.hasRemaining() )
+        {
+            if ( ic.read( view ) < 0 )
+            {
+                throw new EOFException( "End of stream reached (" + what + ")" );
+            }
+        }
+    }
+
+    /**
+     * Reads one length prefixed frame from an asynchronous channel.
+     * <p>
+     * @param ic the input channel
+     * @param readTimeoutMs the read timeout in milliseconds
+     * @return a view of the frame body, valid until the buffer is used again
+     * @throws EOFException if the channel ends before the frame
+     * @throws IOException if reading fails or times out
+     */
+    public ByteBuffer readFrom( final AsynchronousByteChannel ic, final int readTimeoutMs )
+        throws IOException
+    {
+        final ByteBuffer lengthView = prepareRead( 4 );
+        readFully( ic, readTimeoutMs, lengthView, "length" );
+        final ByteBuffer body = prepareRead( checkLength( lengthView.getInt( 0 ) ) );
+        readFully( ic, readTimeoutMs, body, "object" );
+        body.flip();
+        return body;
+    }
+
+    /**
+     * @param ic the input channel
+     * @param readTimeoutMs the read timeout in milliseconds
+     * @param view the memory to fill up to its limit
+     * @param what the part of the frame, for the error message
+     * @throws IOException
+     */
+    private void readFully( final AsynchronousByteChannel ic, final int readTimeoutMs, final ByteBuffer view,
+                            final String what )
+        throws IOException
+    {
+        while ( view.hasRemaining() )
+        {
+            final int read = await( ic, ic.read( view ), readTimeoutMs,
+                                    "Read timeout exceeded (" + what + ") " + readTimeoutMs ).intValue();
+
+            if ( read < 0 )
+            {
+                throw new EOFException( "End of stream reached (" + what + ")" );
+            }
+        }
+    }
+
+    /**
+     * Waits for an operation on the memory of this buffer. If the operation does not complete in
+     * time it may still be running, so the channel is closed and the memory is given up.
+     * <p>
+     * @param channel the channel of the operation
+     * @param operation the pending operation
+     * @param timeoutMs the timeout in milliseconds
+     * @param message the error message
+     * @return the number of bytes transferred
+     * @throws IOException if the operation fails or times out
+     */
+    private Integer await( final AsynchronousByteChannel channel, final Future<Integer> operation, final int timeoutMs,
+                           final String message )
+        throws IOException
+    {
+        try
+        {
+            return operation.get( timeoutMs, TimeUnit.MILLISECONDS );
+        }
+        catch ( final ExecutionException e )
+        {
+            throw new IOException( message, e.getCause() );
+        }
+        catch ( final InterruptedException | TimeoutException e )
+        {
+            if ( e instanceof InterruptedException )
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            operation.cancel( true );
+            try
+            {
+                channel.close();
+            }
+            catch ( final IOException ce )
+            {
+                e.addSuppressed( ce );
+            }
+            // the abandoned operation keeps the old memory
+            buffer = allocate( INITIAL_CAPACITY );
+
+            throw new IOException( message, e );
+        }
+    }
+}
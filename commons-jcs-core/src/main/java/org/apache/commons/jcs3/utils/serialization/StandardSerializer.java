@@ -22,8 +22,10 @@ package org.apache.commons.jcs3.utils.serialization;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.io.ObjectInputStreamClassLoaderAware;
@@ -80,4 +82,142 @@ public class StandardSerializer
             return readObject;
         }
     }
+
+    /**
+     * Serializes an object straight into the frame buffer, without an intermediate array.
+     * Subclasses that change the bytes in serialize, like the CompressingSerializer, go through
+     * serialize instead.
+     * <p>
+     * @param obj
+     * @param buffer
+     * @return the number of bytes written
+     * @throws IOException
+     */
+    @Override
+    public <T> int serializeTo(final T obj, final FrameBuffer buffer)
+        throws IOException
+    {
+        final int start = buffer.beginFrame();
+
+        if (isPlain())
+        {
+            // closing the stream does not close the buffer
+            try (ObjectOutputStream oos = new ObjectOutputStream(buffer))
+            {
+                oos.writeUnshared(obj);
+            }
+        }
+        else
+        {
+            buffer.write(serialize(obj));
+        }
+
+        buffer.endFrame(start);
+        return buffer.size() - start;
+    }
+
+    /**
+     * Reads an object from the remaining bytes of the buffer without copying them. Subclasses
+     * that change the bytes in deSerialize go through deSerialize instead.
+     * <p>
+     * @param buffer data bytes
+     * @param loader class loader to use
+     * @return Object
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @Override
+    public <T> T deSerializeFrom(final ByteBuffer buffer, final ClassLoader loader)
+        throws IOException, ClassNotFoundException
+    {
+        if (!isPlain())
+        {
+            final byte[] data = new byte[buffer.remaining()];
+            buffer.get(data);
+            return deSerialize(data, loader);
+        }
+
+        final InputStream is;
+        if (buffer.hasArray())
+        {
+            is = new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+        }
+        else
+        {
+            is = new ByteBufferInputStream(buffer);
+        }
+
+        try (ObjectInputStream ois = new ObjectInputStreamClassLoaderAware(is, loader))
+        {
+            @SuppressWarnings("unchecked") // Need to cast from Object
+            final
+            T readObject = (T) ois.readObject();
+            return readObject;
+        }
+    }
+
+    /**
+     * @return true if this is not a subclass that may change the bytes
+     */
+    private boolean isPlain()
+    {
+        return getClass() == StandardSerializer.class;
+    }
+
+    /**
+     * Reads the remaining bytes of a buffer that is not backed by an array.
+     */
+    private static class ByteBufferInputStream
+        extends InputStream
+    {
+        /** The bytes */
+        private final ByteBuffer buffer;
+
+        /**
+         * @param buffer the bytes
+         */
+        ByteBufferInputStream(final ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        /**
+         * @see java.io.InputStream#read()
+         */
+        @Override
+        public int read()
+        {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        /**
+         * @see java.io.InputStream#read(byte[], int, int)
+         */
+        @Override
+        public int read(final byte[] b, final int off, final int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (!buffer.hasRemaining())
+            {
+                return -1;
+            }
+
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        /**
+         * @see java.io.InputStream#available()
+         */
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+    }
 }
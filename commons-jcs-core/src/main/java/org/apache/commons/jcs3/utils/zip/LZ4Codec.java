@@ -0,0 +1,314 @@
+package org.apache.commons.jcs3.utils.zip;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+
+/**
+ * A fast LZ77 codec that writes the LZ4 block format. It compresses much less than deflate but
+ * at a fraction of the CPU cost, which suits values that are compressed and decompressed on
+ * every access. The block does not contain the uncompressed length; the caller has to store it.
+ *
+ * @since 3.2
+ */
+public final class LZ4Codec
+{
+    /** The shortest match */
+    private static final int MIN_MATCH = 4;
+
+    /** The block ends with at least this many literals */
+    private static final int LAST_LITERALS = 5;
+
+    /** The last match starts at least this many bytes before the end */
+    private static final int MF_LIMIT = 12;
+
+    /** The largest distance of a match */
+    private static final int MAX_OFFSET = 0xFFFF;
+
+    /** The number of bits of the hash */
+    private static final int HASH_LOG = 12;
+
+    /** Lengths of 15 and more continue in the following bytes */
+    private static final int RUN_MASK = 0x0F;
+
+    /**
+     * no instances.
+     */
+    private LZ4Codec()
+    {
+        // NO OP
+    }
+
+    /**
+     * @param length the uncompressed length
+     * @return the largest possible compressed length
+     */
+    public static int maxCompressedLength( final int length )
+    {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses a range of bytes.
+     * <p>
+     * @param src the uncompressed data
+     * @param srcOff the start of the data
+     * @param srcLen the length of the data
+     * @param dest receives the block, with at least {@link #maxCompressedLength(int)} bytes from destOff
+     * @param destOff the start of the block
+     * @return the length of the block
+     */
+    public static int compress( final byte[] src, final int srcOff, final int srcLen, final byte[] dest, final int destOff )
+    {
+        final int end = srcOff + srcLen;
+        int anchor = srcOff;
+        int dp = destOff;
+
+        if ( srcLen > MF_LIMIT )
+        {
+            final int matchLimit = end - LAST_LITERALS;
+            final int mfLimit = end - MF_LIMIT;
+            // positions are stored plus one, so that 0 means empty
+            final int[] table = new int[1 << HASH_LOG];
+            int sp = srcOff;
+
+            while ( sp < mfLimit )
+            {
+                final int sequence = readInt( src, sp );
+                final int h = hash( sequence );
+                int ref = table[h] - 1;
+                table[h] = sp + 1;
+
+                if ( ref < 0 || sp - ref > MAX_OFFSET || readInt( src, ref ) != sequence )
+                {
+                    // skip faster through data that does not compress
+                    sp += 1 + ( ( sp - anchor ) >>> 6 );
+                    continue;
+                }
+
+                // extend the match backwards into the literals
+                while ( sp > anchor && ref > srcOff && src[sp - 1] == src[ref - 1] )
+                {
+                    sp--;
+                    ref--;
+                }
+
+                int matchLength = MIN_MATCH;
+                while ( sp + matchLength < matchLimit && src[sp + matchLength] == src[ref + matchLength] )
+                {
+                    matchLength++;
+                }
+
+                dp = writeSequence( src, anchor, sp - anchor, dest, dp, sp - ref, matchLength );
+                sp += matchLength;
+                anchor = sp;
+            }
+        }
+
+        // the last literals
+        final int literals = end - anchor;
+        final int token = dp++;
+        dp = writeLength( dest, dp, literals );
+        System.arraycopy( src, anchor, dest, dp, literals );
+        dest[token] = (byte) ( Math.min( literals, RUN_MASK ) << 4 );
+
+        return dp + literals - destOff;
+    }
+
+    /**
+     * Decompresses a block.
+     * <p>
+     * @param src the block
+     * @param srcOff the start of the block
+     * @param srcLen the length of the block
+     * @param dest receives the uncompressed data
+     * @param destOff the start of the data
+     * @param destLen the uncompressed length
+     * @throws IOException if the block is malformed or does not decompress to destLen bytes
+     */
+    public static void decompress( final byte[] src, final int srcOff, final int srcLen,
+            final byte[] dest, final int destOff, final int destLen )
+        throws IOException
+    {
+        final int srcEnd = srcOff + srcLen;
+        final int destEnd = destOff + destLen;
+        int sp = srcOff;
+        int dp = destOff;
+
+        while ( true )
+        {
+            if ( sp >= srcEnd )
+            {
+                throw new IOException( "Truncated LZ4 block" );
+            }
+            final int token = src[sp++] & 0xFF;
+
+            int literals = token >>> 4;
+            if ( literals == RUN_MASK )
+            {
+                int b;
+                do
+                {
+                    if ( sp >= srcEnd || literals > destLen )
+                    {
+                        throw new IOException( "Malformed LZ4 block" );
+                    }
+                    b = src[sp++] & 0xFF;
+                    literals += b;
+                }
+                while ( b == 0xFF );
+            }
+            if ( literals > srcEnd - sp || literals > destEnd - dp )
+            {
+                throw new IOException( "Malformed LZ4 block" );
+            }
+            System.arraycopy( src, sp, dest, dp, literals );
+            sp += literals;
+            dp += literals;
+
+            if ( sp == srcEnd )
+            {
+                // the last sequence has no match
+                break;
+            }
+
+            if ( srcEnd - sp < 2 )
+            {
+                throw new IOException( "Truncated LZ4 block" );
+            }
+            final int offset = src[sp] & 0xFF | ( src[sp + 1] & 0xFF ) << 8;
+            sp += 2;
+
+            int matchLength = token & RUN_MASK;
+            if ( matchLength == RUN_MASK )
+            {
+                int b;
+                do
+                {
+                    if ( sp >= srcEnd || matchLength > destLen )
+                    {
+                        throw new IOException( "Malformed LZ4 block" );
+                    }
+                    b = src[sp++] & 0xFF;
+                    matchLength += b;
+                }
+                while ( b == 0xFF );
+            }
+            matchLength += MIN_MATCH;
+
+            final int ref = dp - offset;
+            if ( offset == 0 || ref < destOff || matchLength > destEnd - dp )
+            {
+                throw new IOException( "Malformed LZ4 block" );
+            }
+            if ( offset >= matchLength )
+            {
+                System.arraycopy( dest, ref, dest, dp, matchLength );
+            }
+            else
+            {
+                // the match overlaps the bytes it produces
+                for ( int i = 0; i < matchLength; i++ )
+                {
+                    dest[dp + i] = dest[ref + i];
+                }
+            }
+            dp += matchLength;
+        }
+
+        if ( dp != destEnd )
+        {
+            throw new IOException( "LZ4 block has " + ( dp - destOff ) + " bytes instead of " + destLen );
+        }
+    }
+
+    /**
+     * Writes literals and a match.
+     * <p>
+     * @param src the uncompressed data
+     * @param anchor the start of the literals
+     * @param literals the number of literals
+     * @param dest the block
+     * @param dp the position in the block
+     * @param offset the distance of the match
+     * @param matchLength the length of the match
+     * @return the new position in the block
+     */
+    private static int writeSequence( final byte[] src, final int anchor, final int literals,
+            final byte[] dest, int dp, final int offset, final int matchLength )
+    {
+        final int token = dp++;
+        dp = writeLength( dest, dp, literals );
+        System.arraycopy( src, anchor, dest, dp, literals );
+        dp += literals;
+
+        dest[dp++] = (byte) offset;
+        dest[dp++] = (byte) ( offset >>> 8 );
+
+        final int extra = matchLength - MIN_MATCH;
+        dp = writeLength( dest, dp, extra );
+        dest[token] = (byte) ( Math.min( literals, RUN_MASK ) << 4 | Math.min( extra, RUN_MASK ) );
+
+        return dp;
+    }
+
+    /**
+     * Writes the bytes of a length that does not fit into the token.
+     * <p>
+     * @param dest the block
+     * @param dp the position in the block
+     * @param length the length
+     * @return the new position in the block
+     */
+    private static int writeLength( final byte[] dest, int dp, final int length )
+    {
+        if ( length >= RUN_MASK )
+        {
+            int remaining = length - RUN_MASK;
+            while ( remaining >= 0xFF )
+            {
+                dest[dp++] = (byte) 0xFF;
+                remaining -= 0xFF;
+            }
+            dest[dp++] = (byte) remaining;
+        }
+
+        return dp;
+    }
+
+    /**
+     * @param b the data
+     * @param i the position
+     * @return the four bytes at the position
+     */
+    private static int readInt( final byte[] b, final int i )
+    {
+        return b[i] & 0xFF | ( b[i + 1] & 0xFF ) << 8 | ( b[i + 2] & 0xFF ) << 16 | b[i + 3] << 24;
+    }
+
+    /**
+     * @param sequence four bytes
+     * @return the slot in the hash table
+     */
+    private static int hash( final int sequence )
+    {
+        return sequence * -1640531535 >>> 32 - HASH_LOG;
+    }
+}
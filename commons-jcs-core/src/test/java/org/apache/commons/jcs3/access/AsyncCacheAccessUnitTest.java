@@ -0,0 +1,264 @@
+package org.apache.commons.jcs3.access;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.jcs3.access.exception.InvalidArgumentException;
+import org.apache.commons.jcs3.auxiliary.MockAuxiliaryCache;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.CompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.ElementAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheType.CacheType;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the non-blocking access to a region.
+ */
+public class AsyncCacheAccessUnitTest
+    extends TestCase
+{
+    /** The region */
+    private CompositeCache<String, String> cache;
+
+    /** The auxiliary, blocked until the latch is released */
+    private SlowAuxiliaryCache aux;
+
+    /** Access under test */
+    private AsyncCacheAccess<String, String> access;
+
+    /**
+     * Set up a region with an LRU memory cache and a slow remote auxiliary.
+     */
+    @Override
+    public void setUp()
+    {
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName( "testAsync" );
+        cattr.setMaxObjects( 100 );
+        cattr.setAsyncThreadPoolName( "testAsyncPool" );
+
+        cache = new CompositeCache<>( cattr, new ElementAttributes() );
+        aux = new SlowAuxiliaryCache();
+        aux.cacheType = CacheType.REMOTE_CACHE;
+        cache.setAuxCaches( Arrays.asList( aux ) );
+
+        access = new AsyncCacheAccess<>( cache );
+    }
+
+    /**
+     * Release the auxiliary in case a test failed.
+     */
+    @Override
+    public void tearDown()
+    {
+        aux.latch.countDown();
+    }
+
+    /**
+     * A memory hit must complete immediately.
+     * <p>
+     * @throws Exception
+     */
+    public void testMemoryHitCompletesImmediately()
+        throws Exception
+    {
+        cache.localUpdate( new CacheElement<>( "testAsync", "key", "value" ) );
+
+        final CompletableFuture<String> future = access.getAsync( "key" );
+
+        assertTrue( "Memory hit should be complete", future.isDone() );
+        assertEquals( "value", future.get() );
+        assertEquals( 1, cache.getHitCountRam() );
+        assertNull( "Auxiliary should not be asked", aux.threadName );
+    }
+
+    /**
+     * A miss must not wait for the auxiliary. The lookup runs on the configured pool and the
+     * result is copied to memory.
+     * <p>
+     * @throws Exception
+     */
+    public void testMissDoesNotBlockCaller()
+        throws Exception
+    {
+        aux.elements.put( "key", "remote value" );
+
+        final CompletableFuture<String> future = access.getAsync( "key" );
+
+        assertFalse( "Lookup should wait for the auxiliary", future.isDone() );
+
+        aux.latch.countDown();
+        assertEquals( "remote value", future.get( 10, TimeUnit.SECONDS ) );
+        assertTrue( "Wrong thread: " + aux.threadName,
+                aux.threadName.startsWith( "JCS-ThreadPoolManager-testAsyncPool-" ) );
+        assertEquals( 1, cache.getHitCountAux() );
+
+        // now in memory
+        assertTrue( access.getAsync( "key" ).isDone() );
+    }
+
+    /**
+     * Verify a miss everywhere completes with null and is counted.
+     * <p>
+     * @throws Exception
+     */
+    public void testMissEverywhere()
+        throws Exception
+    {
+        aux.latch.countDown();
+
+        assertNull( access.getAsync( "nothere" ).get( 10, TimeUnit.SECONDS ) );
+        assertEquals( 1, cache.getMissCountNotFound() );
+    }
+
+    /**
+     * Verify getMultipleAsync combines memory and auxiliary results.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetMultipleAsync()
+        throws Exception
+    {
+        cache.localUpdate( new CacheElement<>( "testAsync", "a", "memory a" ) );
+        aux.elements.put( "b", "remote b" );
+        aux.latch.countDown();
+
+        final Set<String> keys = new HashSet<>( Arrays.asList( "a", "b", "c" ) );
+        final Map<String, String> result = access.getMultipleAsync( keys ).get( 10, TimeUnit.SECONDS );
+
+        assertEquals( 2, result.size() );
+        assertEquals( "memory a", result.get( "a" ) );
+        assertEquals( "remote b", result.get( "b" ) );
+        assertEquals( 1, cache.getMissCountNotFound() );
+    }
+
+    /**
+     * Verify put and remove.
+     * <p>
+     * @throws Exception
+     */
+    public void testPutAndRemoveAsync()
+        throws Exception
+    {
+        aux.latch.countDown();
+
+        access.putAsync( "key", "value" ).get( 10, TimeUnit.SECONDS );
+        assertEquals( "value", access.getAsync( "key" ).get( 10, TimeUnit.SECONDS ) );
+
+        assertTrue( access.removeAsync( "key" ).get( 10, TimeUnit.SECONDS ).booleanValue() );
+        assertNull( access.getAsync( "key" ).get( 10, TimeUnit.SECONDS ) );
+    }
+
+    /**
+     * Invalid arguments are rejected right away.
+     */
+    public void testNullKey()
+    {
+        try
+        {
+            access.getAsync( null );
+            fail( "Should have thrown" );
+        }
+        catch ( final InvalidArgumentException e )
+        {
+            // expected
+        }
+
+        try
+        {
+            access.putAsync( "key", null );
+            fail( "Should have thrown" );
+        }
+        catch ( final InvalidArgumentException e )
+        {
+            // expected
+        }
+    }
+
+    /**
+     * An auxiliary that blocks every get until the latch is released.
+     */
+    private static class SlowAuxiliaryCache
+        extends MockAuxiliaryCache<String, String>
+    {
+        /** Released to let the gets proceed */
+        final CountDownLatch latch = new CountDownLatch( 1 );
+
+        /** The contents */
+        final Map<String, String> elements = new ConcurrentHashMap<>();
+
+        /** Thread of the last get */
+        volatile String threadName;
+
+        @Override
+        public ICacheElement<String, String> get( final String key )
+            throws IOException
+        {
+            threadName = Thread.currentThread().getName();
+            try
+            {
+                latch.await();
+            }
+            catch ( final InterruptedException e )
+            {
+                throw new IOException( e );
+            }
+
+            final String value = elements.get( key );
+            return value == null ? null : new CacheElement<>( "testAsync", key, value );
+        }
+
+        @Override
+        public Map<String, ICacheElement<String, String>> getMultiple( final Set<String> keys )
+        {
+            final Map<String, ICacheElement<String, String>> result = new HashMap<>();
+            try
+            {
+                for ( final String key : keys )
+                {
+                    final ICacheElement<String, String> element = get( key );
+                    if ( element != null )
+                    {
+                        result.put( key, element );
+                    }
+                }
+            }
+            catch ( final IOException e )
+            {
+                fail( e.getMessage() );
+            }
+            return result;
+        }
+    }
+}
@@ -19,9 +19,13 @@ package org.apache.commons.jcs3.access;
  * under the License.
  */
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.jcs3.JCS;
 import org.apache.commons.jcs3.access.exception.CacheException;
@@ -363,4 +367,101 @@ public class CacheAccessUnitTest
             assertTrue( "Should be a cache element.", value instanceof ICacheElement );
         }
     }
+
+    /**
+     * Verify that the supplier is called on a miss and its value is cached.
+     * @throws Exception
+     */
+    public void testGetWithSupplier()
+        throws Exception
+    {
+        final CacheAccess<String, String> access = JCS.getInstance( "testGetWithSupplier" );
+        final AtomicInteger calls = new AtomicInteger();
+
+        assertEquals( "Wrong value returned.", "value1", access.get( "key", () -> "value" + calls.incrementAndGet() ) );
+        assertEquals( "Supplier should not be called again.", "value1", access.get( "key", () -> "value" + calls.incrementAndGet() ) );
+        assertEquals( "Wrong value in cache.", "value1", access.get( "key" ) );
+        assertEquals( "Wrong number of supplier calls.", 1, calls.get() );
+
+        try
+        {
+            access.get( "nullkey", () -> null );
+            fail( "Should not have been able to cache a null value." );
+        }
+        catch ( final CacheException e )
+        {
+            assertTrue( "Should have the word null in the error message.", e.getMessage().indexOf( "null" ) != -1 );
+        }
+    }
+
+    /**
+     * Verify that concurrent misses for the same key call the supplier only once.
+     * @throws Exception
+     */
+    public void testGetWithSupplierCoalescesConcurrentMisses()
+        throws Exception
+    {
+        final CacheAccess<String, String> access = JCS.getInstance( "testGetWithSupplierCoalescing" );
+        final int threads = 10;
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final List<String> results = new ArrayList<>();
+
+        final Runnable getter = () -> {
+            final String value = access.get( "hotkey", () -> {
+                calls.incrementAndGet();
+                loading.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch ( final InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return "loaded";
+            });
+            synchronized ( results )
+            {
+                results.add( value );
+            }
+        };
+
+        final List<Thread> workers = new ArrayList<>();
+        final Thread first = new Thread( getter );
+        first.start();
+        workers.add( first );
+        loading.await();
+
+        for ( int i = 1; i < threads; i++ )
+        {
+            final Thread t = new Thread( getter );
+            t.start();
+            workers.add( t );
+        }
+
+        // wait until all others are waiting for the load
+        for ( int i = 0; i < 100 && access.getCacheControl().getCoalescedLoadCount() < threads - 1; i++ )
+        {
+            Thread.sleep( 10 );
+        }
+        release.countDown();
+
+        for ( final Thread t : workers )
+        {
+            t.join();
+        }
+
+        assertEquals( "Supplier should be called once.", 1, calls.get() );
+        assertEquals( "Wrong number of results.", threads, results.size() );
+        for ( final String value : results )
+        {
+            assertEquals( "Wrong value returned.", "loaded", value );
+        }
+        assertEquals( "Wrong load count.", 1, access.getCacheControl().getLoadCount() );
+        assertEquals( "Wrong coalesced load count.", threads - 1, access.getCacheControl().getCoalescedLoadCount() );
+        assertTrue( "Stats should contain the coalesced loads.",
+                access.getStats().indexOf( "CoalescedLoadCount" ) != -1 );
+    }
 }
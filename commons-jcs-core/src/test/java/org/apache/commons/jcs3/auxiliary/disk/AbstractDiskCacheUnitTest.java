@@ -21,11 +21,15 @@ package org.apache.commons.jcs3.auxiliary.disk;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.commons.jcs3.TestLogConfigurationUtil;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheAttributes;
@@ -35,7 +39,9 @@ import org.apache.commons.jcs3.engine.CacheElement;
 import org.apache.commons.jcs3.engine.CacheStatus;
 import org.apache.commons.jcs3.engine.ElementAttributes;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheEventQueue;
 import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
+import org.apache.commons.jcs3.utils.timing.SleepUtil;
 
 import junit.framework.TestCase;
 
@@ -166,6 +172,135 @@ public class AbstractDiskCacheUnitTest
         assertNull( "Item should not be in the map.", diskCache.get( key ) );
     }
 
+    /**
+     * Verify that puts queued behind a slow write reach the disk as batches.
+     * <p>
+     * @throws Exception
+     */
+    public void testUpdate_batched()
+        throws Exception
+    {
+        // SETUP
+        final String cacheName = "testUpdate_batched";
+        final IDiskCacheAttributes diskCacheAttributes = new IndexedDiskCacheAttributes();
+        diskCacheAttributes.setCacheName( cacheName );
+        diskCacheAttributes.setEventQueueType( ICacheEventQueue.QueueType.COALESCING );
+        diskCacheAttributes.setEventQueueBatchSize( 3 );
+
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final List<Integer> batchSizes = Collections.synchronizedList( new ArrayList<>() );
+        final AbstractDiskCacheTestInstance<String, String> diskCache = new AbstractDiskCacheTestInstance<String, String>( diskCacheAttributes )
+        {
+            @Override
+            protected void processUpdate( final ICacheElement<String, String> cacheElement )
+                throws IOException
+            {
+                if ( "block".equals( cacheElement.getKey() ) )
+                {
+                    try
+                    {
+                        release.await();
+                    }
+                    catch ( final InterruptedException e )
+                    {
+                        throw new IOException( e );
+                    }
+                }
+                super.processUpdate( cacheElement );
+            }
+
+            @Override
+            protected void processUpdateBatch( final List<ICacheElement<String, String>> cacheElements )
+                throws IOException
+            {
+                batchSizes.add( Integer.valueOf( cacheElements.size() ) );
+                super.processUpdateBatch( cacheElements );
+            }
+        };
+
+        diskCache.update( new CacheElement<>( cacheName, "block", "value" ) );
+        SleepUtil.sleepAtLeast( 100 );
+
+        // DO WORK
+        for ( int i = 0; i < 5; i++ )
+        {
+            diskCache.update( new CacheElement<>( cacheName, "key" + i, "value" + i ) );
+        }
+        assertEquals( "Queued element should be found in purgatory", "value4", diskCache.get( "key4" ).getVal() );
+        release.countDown();
+
+        for ( int i = 0; i < 100 && diskCache.map.size() < 6; i++ )
+        {
+            SleepUtil.sleepAtLeast( 20 );
+        }
+
+        // VERIFY
+        assertEquals( "Wrong number of elements on disk", 6, diskCache.map.size() );
+        assertEquals( "Wrong batches", Arrays.asList( Integer.valueOf( 3 ), Integer.valueOf( 2 ) ), batchSizes );
+        assertEquals( "value0", diskCache.get( "key0" ).getVal() );
+    }
+
+    /**
+     * Verify that getMultiple takes the elements in purgatory and looks the others up on disk in
+     * one call.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetMultiple_purgatoryAndDisk()
+        throws Exception
+    {
+        // SETUP
+        final String cacheName = "testGetMultiple_purgatoryAndDisk";
+        final IDiskCacheAttributes diskCacheAttributes = new IndexedDiskCacheAttributes();
+        diskCacheAttributes.setCacheName( cacheName );
+
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final List<Set<String>> lookups = Collections.synchronizedList( new ArrayList<>() );
+        final AbstractDiskCacheTestInstance<String, String> diskCache = new AbstractDiskCacheTestInstance<String, String>( diskCacheAttributes )
+        {
+            @Override
+            protected void processUpdate( final ICacheElement<String, String> cacheElement )
+                throws IOException
+            {
+                try
+                {
+                    // keep the element in purgatory
+                    release.await();
+                }
+                catch ( final InterruptedException e )
+                {
+                    throw new IOException( e );
+                }
+                super.processUpdate( cacheElement );
+            }
+
+            @Override
+            protected Map<String, ICacheElement<String, String>> processGetMultiple( final Set<String> keys )
+                throws IOException
+            {
+                lookups.add( new HashSet<>( keys ) );
+                return super.processGetMultiple( keys );
+            }
+        };
+
+        diskCache.map.put( "disk1", new CacheElement<>( cacheName, "disk1", "value1" ) );
+        diskCache.map.put( "disk2", new CacheElement<>( cacheName, "disk2", "value2" ) );
+
+        diskCache.update( new CacheElement<>( cacheName, "purgatory", "value3" ) );
+
+        // DO WORK
+        final Map<String, ICacheElement<String, String>> result =
+            diskCache.getMultiple( new HashSet<>( Arrays.asList( "disk1", "disk2", "purgatory", "missing" ) ) );
+        release.countDown();
+
+        // VERIFY
+        assertEquals( "Wrong number of elements", 3, result.size() );
+        assertEquals( "value1", result.get( "disk1" ).getVal() );
+        assertEquals( "value3", result.get( "purgatory" ).getVal() );
+        assertEquals( "Should look up the disk once", 1, lookups.size() );
+        assertFalse( "Should not look up the elements in purgatory", lookups.get( 0 ).contains( "purgatory" ) );
+    }
+
     /** Concrete, testable instance. */
     protected static class AbstractDiskCacheTestInstance<K, V>
         extends AbstractDiskCache<K, V>
@@ -0,0 +1,192 @@
+package org.apache.commons.jcs3.auxiliary.disk.block;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the throughput of the block disk cache with plain and with direct buffer I/O. Each
+ * thread runs the workload of the BlockDiskCacheConcurrentUnitTest against the disk cache
+ * directly: put, get, get multiple and remove a range of keys. Every fourth value spans several
+ * blocks.
+ */
+public class BlockDiskCacheDirectBufferPerformanceTest
+    extends TestCase
+{
+    /** Number of keys per thread */
+    private static final int items = 2000;
+
+    /** Number of times the workload is repeated */
+    private static final int rounds = 5;
+
+    /** Number of threads */
+    private static final int threads = 4;
+
+    /** Size of the blocks */
+    private static final int blockSize = 1024;
+
+    /** A value that spans several blocks */
+    private static final String largeValue;
+
+    static
+    {
+        final StringBuilder sb = new StringBuilder();
+        while ( sb.length() < 5 * blockSize )
+        {
+            sb.append( "large data " );
+        }
+        largeValue = sb.toString();
+    }
+
+    /**
+     * Runs the workload for both implementations and prints the results.
+     * <p>
+     * @throws Exception
+     */
+    public void testDirectBuffersVsPlain()
+        throws Exception
+    {
+        // warm up
+        runWorkload( "warmUpPlain", false );
+        runWorkload( "warmUpDirect", true );
+
+        final long plain = runWorkload( "perfPlain", false );
+        final long direct = runWorkload( "perfDirect", true );
+
+        System.out.println( "BlockDisk: " + plain + " ms, DirectBufferBlockDisk: " + direct + " ms, ratio "
+                + (float) direct / plain );
+    }
+
+    /**
+     * @param cacheName the region
+     * @param useDirectBuffers the implementation to use
+     * @return the time in milliseconds
+     * @throws Exception
+     */
+    private long runWorkload( final String cacheName, final boolean useDirectBuffers )
+        throws Exception
+    {
+        final BlockDiskCacheAttributes cattr = new BlockDiskCacheAttributes();
+        cattr.setCacheName( cacheName );
+        cattr.setMaxKeySize( threads * items );
+        cattr.setBlockSizeBytes( blockSize );
+        cattr.setUseDirectBuffers( useDirectBuffers );
+        cattr.setDiskPath( "target/test-sandbox/BlockDiskCacheDirectBufferPerformanceTest" );
+        final BlockDiskCache<String, String> diskCache = new BlockDiskCache<>( cattr );
+        diskCache.processRemoveAll();
+
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final AtomicInteger errors = new AtomicInteger();
+        final List<Thread> workers = new ArrayList<>();
+
+        for ( int t = 0; t < threads; t++ )
+        {
+            final int offset = t * items;
+            final Thread worker = new Thread( () -> {
+                try
+                {
+                    start.await();
+                    for ( int round = 0; round < rounds; round++ )
+                    {
+                        runRange( diskCache, offset, offset + items );
+                    }
+                }
+                catch ( final Throwable e )
+                {
+                    e.printStackTrace();
+                    errors.incrementAndGet();
+                }
+            } );
+            worker.start();
+            workers.add( worker );
+        }
+
+        final long begin = System.nanoTime();
+        start.countDown();
+        for ( final Thread worker : workers )
+        {
+            worker.join();
+        }
+        final long millis = ( System.nanoTime() - begin ) / 1000000;
+
+        diskCache.processDispose();
+        assertEquals( "Workers failed", 0, errors.get() );
+        return millis;
+    }
+
+    /**
+     * The workload of the BlockDiskCacheConcurrentUnitTest.
+     * <p>
+     * @param diskCache the cache
+     * @param start first key
+     * @param end last key, exclusive
+     * @throws Exception
+     */
+    private void runRange( final BlockDiskCache<String, String> diskCache, final int start, final int end )
+        throws Exception
+    {
+        final String cacheName = diskCache.getCacheName();
+
+        for ( int i = start; i < end; i++ )
+        {
+            diskCache.processUpdate( new CacheElement<>( cacheName, i + ":key", value( i ) ) );
+        }
+
+        for ( int i = start; i < end; i++ )
+        {
+            final ICacheElement<String, String> element = diskCache.processGet( i + ":key" );
+            assertNotNull( "element " + i + ":key is missing", element );
+            assertEquals( value( i ), element.getVal() );
+        }
+
+        final Set<String> keys = new HashSet<>();
+        for ( int i = start; i < end; i++ )
+        {
+            keys.add( i + ":key" );
+        }
+        final Map<String, ICacheElement<String, String>> elements = diskCache.getMultiple( keys );
+        assertEquals( "Wrong number of elements", end - start, elements.size() );
+
+        for ( int i = start; i < end; i++ )
+        {
+            diskCache.processRemove( i + ":key" );
+        }
+    }
+
+    /**
+     * @param i index
+     * @return the value for the index
+     */
+    private static String value( final int i )
+    {
+        return i % 4 == 0 ? largeValue + i : "data " + i;
+    }
+}
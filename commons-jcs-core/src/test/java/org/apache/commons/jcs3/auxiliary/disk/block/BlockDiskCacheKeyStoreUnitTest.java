@@ -22,6 +22,16 @@ import org.apache.commons.jcs3.auxiliary.disk.behavior.IDiskCacheAttributes.Disk
  * under the License.
  */
 
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
+import org.apache.commons.jcs3.engine.control.group.GroupId;
+
 import junit.framework.TestCase;
 
 /**
@@ -189,4 +199,202 @@ public class BlockDiskCacheKeyStoreUnitTest
         assertNull(keyStore.get("1"));
         assertNotNull(keyStore.get("2"));
     }
+
+    /**
+     * Verify that keys saved in the binary format can be loaded with their blocks.
+     * <p>
+     *
+     * @throws Exception
+     */
+    public void testSaveLoadKeysBinary()
+            throws Exception
+    {
+        // SETUP
+        final BlockDiskCacheAttributes attributes = new BlockDiskCacheAttributes();
+        attributes.setCacheName("testSaveLoadKeysBinary");
+        attributes.setDiskPath(rootDirName);
+        attributes.setMaxKeySize(10000);
+        attributes.setBlockSizeBytes(2000);
+        attributes.setUseBinaryKeyFile(true);
+
+        testSaveLoadKeysInner(attributes);
+        assertEquals("Wrong file format", BlockDiskBinaryKeyFile.SIGNATURE, readSignature(attributes));
+
+        final BlockDiskKeyStore<String> keyStore = new BlockDiskKeyStore<>(attributes, null);
+        keyStore.clearMemoryMap();
+        keyStore.put("scattered", new int[] { 20000, 5, 6, 7, 19999, Integer.MAX_VALUE });
+        keyStore.saveKeys();
+        keyStore.clearMemoryMap();
+        keyStore.loadKeys();
+        assertTrue("Wrong blocks", Arrays.equals(new int[] { 20000, 5, 6, 7, 19999, Integer.MAX_VALUE },
+                keyStore.get("scattered")));
+    }
+
+    /**
+     * Verify that keys of other types than String survive the binary format.
+     * <p>
+     *
+     * @throws Exception
+     */
+    public void testSaveLoadKeysBinaryOtherTypes()
+            throws Exception
+    {
+        // SETUP
+        final BlockDiskCacheAttributes attributes = new BlockDiskCacheAttributes();
+        attributes.setCacheName("testSaveLoadKeysBinaryOtherTypes");
+        attributes.setDiskPath(rootDirName);
+        attributes.setMaxKeySize(10000);
+        attributes.setUseBinaryKeyFile(true);
+
+        final BlockDiskKeyStore<Object> keyStore = new BlockDiskKeyStore<>(attributes, null);
+        final GroupAttrName<String> groupKey =
+                new GroupAttrName<>(new GroupId("testSaveLoadKeysBinaryOtherTypes", "group"), "attr");
+        keyStore.put(Long.valueOf(-42), new int[] { 1 });
+        keyStore.put(Integer.valueOf(42), new int[] { 2, 3 });
+        keyStore.put(groupKey, new int[] { 4 });
+        keyStore.put("\u00e4\u00f6\u00fc", new int[] { 5 });
+
+        // DO WORK
+        keyStore.saveKeys();
+        keyStore.clearMemoryMap();
+        keyStore.loadKeys();
+
+        // VERIFY
+        assertEquals("Wrong number of keys after loading", 4, keyStore.size());
+        assertTrue(Arrays.equals(new int[] { 1 }, keyStore.get(Long.valueOf(-42))));
+        assertTrue(Arrays.equals(new int[] { 2, 3 }, keyStore.get(Integer.valueOf(42))));
+        assertTrue(Arrays.equals(new int[] { 4 }, keyStore.get(groupKey)));
+        assertTrue(Arrays.equals(new int[] { 5 }, keyStore.get("\u00e4\u00f6\u00fc")));
+    }
+
+    /**
+     * Verify that a key file in the serialized format is still read when the binary format is
+     * turned on, and written in the binary format afterwards.
+     * <p>
+     *
+     * @throws Exception
+     */
+    public void testMigrateToBinary()
+            throws Exception
+    {
+        // SETUP
+        final BlockDiskCacheAttributes attributes = new BlockDiskCacheAttributes();
+        attributes.setCacheName("testMigrateToBinary");
+        attributes.setDiskPath(rootDirName);
+        attributes.setMaxKeySize(10000);
+
+        final BlockDiskKeyStore<String> oldStore = new BlockDiskKeyStore<>(attributes, null);
+        for (int i = 0; i < 100; i++)
+        {
+            oldStore.put(String.valueOf(i), new int[] { i });
+        }
+        oldStore.saveKeys();
+        assertFalse("Wrong file format", BlockDiskBinaryKeyFile.SIGNATURE == readSignature(attributes));
+
+        // DO WORK
+        attributes.setUseBinaryKeyFile(true);
+        final BlockDiskKeyStore<String> newStore = new BlockDiskKeyStore<>(attributes, null);
+
+        // VERIFY
+        assertEquals("Wrong number of keys after loading", 100, newStore.size());
+        newStore.saveKeys();
+        assertEquals("Wrong file format", BlockDiskBinaryKeyFile.SIGNATURE, readSignature(attributes));
+        newStore.clearMemoryMap();
+        newStore.loadKeys();
+        assertEquals("Wrong number of keys after loading", 100, newStore.size());
+        assertEquals("Wrong block", 42, newStore.get("42")[0]);
+    }
+
+    /**
+     * Verify that nothing is loaded from a damaged binary key file.
+     * <p>
+     *
+     * @throws Exception
+     */
+    public void testDamagedBinaryKeyFile()
+            throws Exception
+    {
+        // SETUP
+        final BlockDiskCacheAttributes attributes = new BlockDiskCacheAttributes();
+        attributes.setCacheName("testDamagedBinaryKeyFile");
+        attributes.setDiskPath(rootDirName);
+        attributes.setMaxKeySize(10000);
+        attributes.setUseBinaryKeyFile(true);
+
+        final BlockDiskKeyStore<String> keyStore = new BlockDiskKeyStore<>(attributes, null);
+        for (int i = 0; i < 100; i++)
+        {
+            keyStore.put(String.valueOf(i), new int[] { i });
+        }
+        keyStore.saveKeys();
+
+        // DO WORK
+        try (RandomAccessFile raf = new RandomAccessFile(new File(rootDirName, "testDamagedBinaryKeyFile.key"), "rw"))
+        {
+            raf.seek(20);
+            final int b = raf.read();
+            raf.seek(20);
+            raf.write(b ^ 0xFF);
+        }
+        keyStore.loadKeys();
+
+        // VERIFY
+        assertEquals("Damaged keys should not be loaded", 0, keyStore.size());
+    }
+
+    /**
+     * Save and load enough keys to fill several segments of the binary format.
+     * <p>
+     *
+     * @throws Exception
+     */
+    public void testSaveLoadManyKeysBinary()
+            throws Exception
+    {
+        // SETUP
+        final BlockDiskCacheAttributes attributes = new BlockDiskCacheAttributes();
+        attributes.setCacheName("testSaveLoadManyKeysBinary");
+        attributes.setDiskPath(rootDirName);
+        attributes.setMaxKeySize(-1);
+        attributes.setUseBinaryKeyFile(true);
+
+        final BlockDiskKeyStore<String> keyStore = new BlockDiskKeyStore<>(attributes, null);
+        final int numElements = 300000;
+        for (int i = 0; i < numElements; i++)
+        {
+            keyStore.put("key" + i, new int[] { 2 * i, 2 * i + 1 });
+        }
+        keyStore.saveKeys();
+        keyStore.clearMemoryMap();
+
+        // DO WORK
+        final long start = System.currentTimeMillis();
+        keyStore.loadKeys();
+        final long millis = System.currentTimeMillis() - start;
+
+        // VERIFY
+        assertEquals("Wrong number of keys after loading", numElements, keyStore.size());
+        for (int i = 0; i < numElements; i += 997)
+        {
+            assertTrue("Wrong blocks for key" + i,
+                    Arrays.equals(new int[] { 2 * i, 2 * i + 1 }, keyStore.get("key" + i)));
+        }
+        System.out.println("Loaded " + numElements + " keys in " + millis + " ms, file length "
+                + new File(rootDirName, "testSaveLoadManyKeysBinary.key").length());
+    }
+
+    /**
+     * @param attributes the attributes of the key store
+     * @return the first four bytes of the key file
+     * @throws IOException
+     */
+    private int readSignature(final BlockDiskCacheAttributes attributes)
+            throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(
+                Files.newInputStream(new File(rootDirName, attributes.getCacheName() + ".key").toPath())))
+        {
+            return in.readInt();
+        }
+    }
 }
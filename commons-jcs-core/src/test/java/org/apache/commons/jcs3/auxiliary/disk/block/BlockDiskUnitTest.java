@@ -56,14 +56,35 @@ public class BlockDiskUnitTest
     {
         final File file = new File(rafDir, fileName + ".data");
         file.delete();
-        this.disk = new BlockDisk(file, new StandardSerializer());
+        this.disk = createBlockDisk(file);
     }
 
     private void setUpBlockDisk(final String fileName, final int blockSize) throws IOException
     {
         final File file = new File(rafDir, fileName + ".data");
         file.delete();
-        this.disk = new BlockDisk(file, blockSize, new StandardSerializer());
+        this.disk = createBlockDisk(file, blockSize);
+    }
+
+    /**
+     * @param file the data file
+     * @return the disk under test with the default block size
+     * @throws IOException
+     */
+    protected BlockDisk createBlockDisk(final File file) throws IOException
+    {
+        return new BlockDisk(file, new StandardSerializer());
+    }
+
+    /**
+     * @param file the data file
+     * @param blockSize the block size
+     * @return the disk under test
+     * @throws IOException
+     */
+    protected BlockDisk createBlockDisk(final File file, final int blockSize) throws IOException
+    {
+        return new BlockDisk(file, blockSize, new StandardSerializer());
     }
 
     /**
@@ -72,7 +93,10 @@ public class BlockDiskUnitTest
     @Override
     protected void tearDown() throws Exception
     {
-        disk.close();
+        if (disk != null)
+        {
+            disk.close();
+        }
         super.tearDown();
     }
 
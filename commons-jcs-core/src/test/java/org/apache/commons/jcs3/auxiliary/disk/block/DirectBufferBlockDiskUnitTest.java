@@ -0,0 +1,118 @@
+package org.apache.commons.jcs3.auxiliary.disk.block;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+
+/**
+ * Runs the tests of the disk access layer of the Block Disk Cache against the
+ * DirectBufferBlockDisk and adds some for runs of blocks.
+ */
+public class DirectBufferBlockDiskUnitTest
+    extends BlockDiskUnitTest
+{
+    /**
+     * @see org.apache.commons.jcs3.auxiliary.disk.block.BlockDiskUnitTest#createBlockDisk(java.io.File)
+     */
+    @Override
+    protected BlockDisk createBlockDisk(final File file) throws IOException
+    {
+        return new DirectBufferBlockDisk(file, new StandardSerializer());
+    }
+
+    /**
+     * @see org.apache.commons.jcs3.auxiliary.disk.block.BlockDiskUnitTest#createBlockDisk(java.io.File, int)
+     */
+    @Override
+    protected BlockDisk createBlockDisk(final File file, final int blockSize) throws IOException
+    {
+        return new DirectBufferBlockDisk(file, blockSize, new StandardSerializer());
+    }
+
+    /**
+     * Write an element into freed blocks that are not consecutive.
+     * <p>
+     * @throws Exception
+     */
+    public void testWriteAndRead_ScatteredBlocks()
+        throws Exception
+    {
+        // SETUP
+        final File file = new File("target/test-sandbox/block", "testWriteAndRead_ScatteredBlocks.data");
+        file.delete();
+        try (BlockDisk disk = createBlockDisk(file, 64))
+        {
+            final int[][] blocks = new int[10][];
+            for (int i = 0; i < blocks.length; i++)
+            {
+                blocks[i] = disk.write("value" + i);
+            }
+            for (int i = 0; i < blocks.length; i += 2)
+            {
+                disk.freeBlocks(blocks[i]);
+            }
+
+            // DO WORK
+            final byte[] data = new byte[400];
+            Arrays.fill(data, (byte) 7);
+            final int[] scattered = disk.write(data);
+
+            // VERIFY
+            assertTrue("Should have reused the free blocks", scattered.length > blocks.length / 2);
+            assertTrue("Wrong result", Arrays.equals(data, (byte[]) disk.read(scattered)));
+            for (int i = 1; i < blocks.length; i += 2)
+            {
+                assertEquals("Wrong value", "value" + i, disk.read(blocks[i]));
+            }
+        }
+    }
+
+    /**
+     * Write an element that needs more blocks than fit into one buffer.
+     * <p>
+     * @throws Exception
+     */
+    public void testWriteAndRead_LongRun()
+        throws Exception
+    {
+        // SETUP
+        final File file = new File("target/test-sandbox/block", "testWriteAndRead_LongRun.data");
+        file.delete();
+        try (BlockDisk disk = createBlockDisk(file, 1024))
+        {
+            final byte[] data = new byte[5 * DirectBufferBlockDisk.MAX_BUFFER_SIZE_BYTES / 2];
+            for (int i = 0; i < data.length; i++)
+            {
+                data[i] = (byte) i;
+            }
+
+            // DO WORK
+            final int[] blocks = disk.write(data);
+
+            // VERIFY
+            assertEquals("Wrong number of blocks", disk.calculateTheNumberOfBlocksNeeded(data), blocks.length);
+            assertTrue("Wrong result", Arrays.equals(data, (byte[]) disk.read(blocks)));
+        }
+    }
+}
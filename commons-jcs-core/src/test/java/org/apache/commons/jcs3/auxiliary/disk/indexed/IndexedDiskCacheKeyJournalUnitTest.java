@@ -0,0 +1,249 @@
+package org.apache.commons.jcs3.auxiliary.disk.indexed;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.ElementAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the key journal of the indexed disk cache.
+ */
+public class IndexedDiskCacheKeyJournalUnitTest
+    extends TestCase
+{
+    /** The directory of the files */
+    private static final String DISK_PATH = "target/test-sandbox/IndexedDiskCacheKeyJournalUnitTest";
+
+    /**
+     * @param name the cache name
+     * @param useKeyJournal use the key journal
+     * @return the attributes
+     */
+    private IndexedDiskCacheAttributes getCacheAttributes( final String name, final boolean useKeyJournal )
+    {
+        final IndexedDiskCacheAttributes cattr = new IndexedDiskCacheAttributes();
+        cattr.setCacheName( name );
+        cattr.setMaxKeySize( 1000 );
+        cattr.setDiskPath( DISK_PATH );
+        cattr.setUseKeyJournal( useKeyJournal );
+        return cattr;
+    }
+
+    /**
+     * Put and remove some items and open the cache again without disposing it, as after a crash.
+     * All changes must be there.
+     * <p>
+     * @throws IOException
+     */
+    public void testRecoverWithoutDispose()
+        throws IOException
+    {
+        final IndexedDiskCacheAttributes cattr = getCacheAttributes( "testRecoverWithoutDispose", true );
+        final IndexedDiskCache<String, String> disk = new IndexedDiskCache<>( cattr );
+        disk.processRemoveAll();
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            disk.processUpdate( createElement( cattr.getCacheName(), i, "data:" + i ) );
+        }
+        for ( int i = 0; i < 10; i++ )
+        {
+            disk.processRemove( "key:" + i );
+        }
+        // larger value, moves to a new slot
+        disk.processUpdate( createElement( cattr.getCacheName(), 50, "data:50 has grown a lot" ) );
+
+        final IndexedDiskCache<String, String> recovered = new IndexedDiskCache<>( cattr );
+
+        assertEquals( "Wrong size after recovery", 90, recovered.getSize() );
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertNull( "Removed item came back", recovered.processGet( "key:" + i ) );
+        }
+        for ( int i = 10; i < 100; i++ )
+        {
+            final ICacheElement<String, String> element = recovered.processGet( "key:" + i );
+            assertNotNull( "Should have received an element for " + i, element );
+            assertEquals( "Wrong value", i == 50 ? "data:50 has grown a lot" : "data:" + i, element.getVal() );
+        }
+
+        recovered.processDispose();
+    }
+
+    /**
+     * A record cut off at the end of the journal must be ignored.
+     * <p>
+     * @throws IOException
+     */
+    public void testTruncatedRecord()
+        throws IOException
+    {
+        final IndexedDiskCacheAttributes cattr = getCacheAttributes( "testTruncatedRecord", true );
+        final IndexedDiskCache<String, String> disk = new IndexedDiskCache<>( cattr );
+        disk.processRemoveAll();
+
+        for ( int i = 0; i < 20; i++ )
+        {
+            disk.processUpdate( createElement( cattr.getCacheName(), i, "data:" + i ) );
+        }
+        disk.processDispose();
+
+        // half of a record
+        final File journal = new File( DISK_PATH, cattr.getCacheName() + ".keylog" );
+        try ( RandomAccessFile raf = new RandomAccessFile( journal, "rw" ) )
+        {
+            raf.seek( raf.length() );
+            raf.writeInt( 100 );
+            raf.writeInt( 12345 );
+            raf.write( new byte[] { 1, 0, 0 } );
+        }
+        final long damagedLength = journal.length();
+
+        final IndexedDiskCache<String, String> recovered = new IndexedDiskCache<>( cattr );
+        assertEquals( "Wrong size after recovery", 20, recovered.getSize() );
+        assertEquals( "Wrong value", "data:7", recovered.processGet( "key:7" ).getVal() );
+        assertEquals( "The damaged record should be cut off", damagedLength - 11, journal.length() );
+
+        recovered.processDispose();
+    }
+
+    /**
+     * Overwriting the same keys must not let the journal grow without bounds.
+     * <p>
+     * @throws IOException
+     */
+    public void testCompaction()
+        throws IOException
+    {
+        final IndexedDiskCacheAttributes cattr = getCacheAttributes( "testCompaction", true );
+        cattr.setKeyJournalCompactionFactor( 1 );
+        final IndexedDiskCache<String, String> disk = new IndexedDiskCache<>( cattr );
+        disk.processRemoveAll();
+
+        for ( int round = 0; round < 50; round++ )
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                disk.processUpdate( createElement( cattr.getCacheName(), i, "data:" + round + ":" + i ) );
+            }
+        }
+
+        final File journal = new File( DISK_PATH, cattr.getCacheName() + ".keylog" );
+        final long compactedLength = journal.length();
+        disk.processDispose();
+
+        assertTrue( "Journal was not compacted: " + compactedLength, compactedLength < 1001 * 100 );
+
+        final IndexedDiskCache<String, String> reopened = new IndexedDiskCache<>( cattr );
+        assertEquals( "Wrong size", 100, reopened.getSize() );
+        assertEquals( "Wrong value", "data:49:42", reopened.processGet( "key:42" ).getVal() );
+        reopened.processDispose();
+    }
+
+    /**
+     * The positions of moved elements must be persisted after an optimization.
+     * <p>
+     * @throws Exception
+     */
+    public void testOptimization()
+        throws Exception
+    {
+        final IndexedDiskCacheAttributes cattr = getCacheAttributes( "testOptimization", true );
+        final IndexedDiskCache<String, String> disk = new IndexedDiskCache<>( cattr );
+        disk.processRemoveAll();
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            disk.processUpdate( createElement( cattr.getCacheName(), i, "data:" + i ) );
+        }
+        for ( int i = 0; i < 100; i += 2 )
+        {
+            disk.processRemove( "key:" + i );
+        }
+        disk.optimizeFile();
+
+        final IndexedDiskCache<String, String> recovered = new IndexedDiskCache<>( cattr );
+        assertEquals( "Wrong size after recovery", 50, recovered.getSize() );
+        for ( int i = 1; i < 100; i += 2 )
+        {
+            assertEquals( "Wrong value", "data:" + i, recovered.processGet( "key:" + i ).getVal() );
+        }
+        recovered.processDispose();
+    }
+
+    /**
+     * Keys saved to the key file are taken over by the journal, and keys in the journal are taken
+     * over by the key file when the journal is turned off again.
+     * <p>
+     * @throws IOException
+     */
+    public void testMigration()
+        throws IOException
+    {
+        final String cacheName = "testMigration";
+        final File keyFile = new File( DISK_PATH, cacheName + ".key" );
+        final File journal = new File( DISK_PATH, cacheName + ".keylog" );
+
+        final IndexedDiskCache<String, String> plain = new IndexedDiskCache<>( getCacheAttributes( cacheName, false ) );
+        plain.processRemoveAll();
+        for ( int i = 0; i < 30; i++ )
+        {
+            plain.processUpdate( createElement( cacheName, i, "data:" + i ) );
+        }
+        plain.processDispose();
+        assertTrue( "Keys should have been saved", keyFile.length() > 0 );
+
+        final IndexedDiskCache<String, String> journaled = new IndexedDiskCache<>( getCacheAttributes( cacheName, true ) );
+        assertEquals( "Wrong size", 30, journaled.getSize() );
+        assertEquals( "Key file should be empty", 0, keyFile.length() );
+        journaled.processUpdate( createElement( cacheName, 30, "data:30" ) );
+        journaled.processDispose();
+        assertEquals( "Key file should be empty", 0, keyFile.length() );
+
+        final IndexedDiskCache<String, String> back = new IndexedDiskCache<>( getCacheAttributes( cacheName, false ) );
+        assertEquals( "Wrong size", 31, back.getSize() );
+        assertFalse( "Journal should be gone", journal.exists() );
+        assertEquals( "Wrong value", "data:30", back.processGet( "key:30" ).getVal() );
+        back.processDispose();
+    }
+
+    /**
+     * @param cacheName the cache name
+     * @param i the index
+     * @param value the value
+     * @return a spoolable element
+     */
+    private ICacheElement<String, String> createElement( final String cacheName, final int i, final String value )
+    {
+        final IElementAttributes eAttr = new ElementAttributes();
+        eAttr.setIsSpool( true );
+        final ICacheElement<String, String> element = new CacheElement<>( cacheName, "key:" + i, value );
+        element.setElementAttributes( eAttr );
+        return element;
+    }
+}
@@ -0,0 +1,233 @@
+package org.apache.commons.jcs3.auxiliary.disk.indexed;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.jcs3.auxiliary.disk.DiskTestObject;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.ElementAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the indexed disk cache with memory mapped reads. The region size is kept small so
+ * that records cross region borders and the file keeps growing past its mapped regions.
+ */
+public class IndexedDiskCacheMemoryMappedUnitTest
+    extends TestCase
+{
+    /**
+     * @param name the cache name
+     * @return attributes with memory mapped reads and 1 KB regions
+     */
+    private IndexedDiskCacheAttributes getCacheAttributes( final String name )
+    {
+        final IndexedDiskCacheAttributes cattr = new IndexedDiskCacheAttributes();
+        cattr.setCacheName( name );
+        cattr.setMaxKeySize( 1000 );
+        cattr.setDiskPath( "target/test-sandbox/IndexedDiskCacheMemoryMappedUnitTest" );
+        cattr.setMemoryMapped( true );
+        cattr.setMemoryMapRegionSize( 1024 );
+        return cattr;
+    }
+
+    /**
+     * Put items of variable size, some larger than a region, and read them back while the file
+     * keeps growing.
+     * <p>
+     * @throws IOException
+     */
+    public void testPutGetAcrossRegions()
+        throws IOException
+    {
+        final IndexedDiskCacheAttributes cattr = getCacheAttributes( "testPutGetAcrossRegions" );
+        final IndexedDiskCache<Integer, DiskTestObject> disk = new IndexedDiskCache<>( cattr );
+        disk.processRemoveAll();
+
+        final ICacheElement<Integer, DiskTestObject>[] elements = DiskTestObjectUtil
+            .createCacheElementsWithTestObjectsOfVariableSizes( 200, cattr.getCacheName() );
+
+        for ( int i = 0; i < elements.length; i++ )
+        {
+            disk.processUpdate( elements[i] );
+
+            // read the first and the last one, mapped before the file grew
+            assertEquals( "Wrong value", elements[0].getVal(), disk.processGet( elements[0].getKey() ).getVal() );
+            assertEquals( "Wrong value", elements[i].getVal(), disk.processGet( elements[i].getKey() ).getVal() );
+        }
+
+        for ( final ICacheElement<Integer, DiskTestObject> element : elements )
+        {
+            final ICacheElement<Integer, DiskTestObject> found = disk.processGet( element.getKey() );
+            assertNotNull( "Should have received an element for " + element.getKey(), found );
+            assertEquals( "Wrong value", element.getVal(), found.getVal() );
+        }
+
+        disk.processDispose();
+    }
+
+    /**
+     * Verify that the data can be read after the file has been defragmented and truncated.
+     * <p>
+     * @throws Exception
+     */
+    public void testOptimization()
+        throws Exception
+    {
+        final IndexedDiskCacheAttributes cattr = getCacheAttributes( "testOptimization" );
+        final IndexedDiskCache<Integer, DiskTestObject> disk = new IndexedDiskCache<>( cattr );
+        disk.processRemoveAll();
+
+        final ICacheElement<Integer, DiskTestObject>[] elements = DiskTestObjectUtil
+            .createCacheElementsWithTestObjectsOfVariableSizes( 150, cattr.getCacheName() );
+        for ( final ICacheElement<Integer, DiskTestObject> element : elements )
+        {
+            disk.processUpdate( element );
+        }
+
+        // map all regions before shrinking the file
+        for ( final ICacheElement<Integer, DiskTestObject> element : elements )
+        {
+            assertNotNull( disk.processGet( element.getKey() ) );
+        }
+
+        final long sizeBeforeRemove = disk.getDataFileSize();
+        for ( int i = 0; i < 50; i++ )
+        {
+            disk.processRemove( elements[i].getKey() );
+        }
+        disk.optimizeFile();
+
+        final long sizeAfterRemove = disk.getDataFileSize();
+        assertEquals( "The file size is not as expected size.",
+                DiskTestObjectUtil.totalSize( elements, 50, elements.length ), sizeAfterRemove );
+        assertTrue( "The post optimization size should be smaller.", sizeAfterRemove < sizeBeforeRemove );
+
+        for ( int i = 0; i < 50; i++ )
+        {
+            assertNull( "Removed element should be gone", disk.processGet( elements[i].getKey() ) );
+        }
+        for ( int i = 50; i < elements.length; i++ )
+        {
+            final ICacheElement<Integer, DiskTestObject> found = disk.processGet( elements[i].getKey() );
+            assertNotNull( "Should have received an element for " + i, found );
+            assertEquals( "Wrong value", elements[i].getVal(), found.getVal() );
+        }
+
+        disk.processDispose();
+    }
+
+    /**
+     * Verify that the cache can be used after a remove all truncated the file.
+     * <p>
+     * @throws IOException
+     */
+    public void testRemoveAllAndReuse()
+        throws IOException
+    {
+        final IndexedDiskCacheAttributes cattr = getCacheAttributes( "testRemoveAllAndReuse" );
+        final IndexedDiskCache<String, String> disk = new IndexedDiskCache<>( cattr );
+        disk.processRemoveAll();
+
+        for ( int round = 0; round < 3; round++ )
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                disk.processUpdate( createElement( cattr.getCacheName(), i, round ) );
+            }
+            for ( int i = 0; i < 100; i++ )
+            {
+                final ICacheElement<String, String> found = disk.processGet( "key:" + i );
+                assertNotNull( "Should have received an element.", found );
+                assertEquals( "Wrong value", "data:" + round + ":" + i, found.getVal() );
+            }
+            disk.processRemoveAll();
+            assertNull( "Should be empty", disk.processGet( "key:0" ) );
+        }
+
+        disk.processDispose();
+    }
+
+    /**
+     * Only complete regions are mapped, each once. The growing tail of the file is read through
+     * the channel, and the regions are unmapped before the file is truncated.
+     * <p>
+     * @throws Exception
+     */
+    public void testOnlyCompleteRegionsAreMapped()
+        throws Exception
+    {
+        final File file = new File( "target/test-sandbox/IndexedDiskCacheMemoryMappedUnitTest/testOnlyCompleteRegionsAreMapped.data" );
+        file.getParentFile().mkdirs();
+        try (IndexedDisk disk = new IndexedDisk( file, new StandardSerializer(), 1024 ))
+        {
+            disk.reset();
+
+            final IndexedDiskElementDescriptor[] descriptors = new IndexedDiskElementDescriptor[60];
+            long pos = 0;
+            for ( int i = 0; i < descriptors.length; i++ )
+            {
+                final byte[] data = new StandardSerializer().serialize( "value" + i );
+                descriptors[i] = new IndexedDiskElementDescriptor( pos, data.length );
+                disk.write( descriptors[i], data );
+                pos += IndexedDisk.HEADER_SIZE_BYTES + data.length;
+
+                // read the tail while the file grows
+                for ( int j = 0; j < 5; j++ )
+                {
+                    assertEquals( "Wrong value", "value" + i, disk.readObject( descriptors[i] ) );
+                }
+            }
+
+            final long completeRegions = disk.length() / 1024;
+            assertTrue( "Should fill more than one region", completeRegions > 0 && disk.length() % 1024 > 0 );
+            for ( int i = 0; i < descriptors.length; i++ )
+            {
+                assertEquals( "Wrong value", "value" + i, disk.readObject( descriptors[i] ) );
+            }
+            assertEquals( "Should map each complete region once", completeRegions, disk.getMappedRegionCount() );
+
+            disk.truncate( descriptors[10].pos );
+            assertEquals( "Should unmap the regions", 0, disk.getMappedRegionCount() );
+            assertEquals( "Wrong value", "value0", disk.readObject( descriptors[0] ) );
+        }
+    }
+
+    /**
+     * @param cacheName the cache name
+     * @param i the index
+     * @param round the round
+     * @return a spoolable element
+     */
+    private ICacheElement<String, String> createElement( final String cacheName, final int i, final int round )
+    {
+        final IElementAttributes eAttr = new ElementAttributes();
+        eAttr.setIsSpool( true );
+        final ICacheElement<String, String> element =
+            new CacheElement<>( cacheName, "key:" + i, "data:" + round + ":" + i );
+        element.setElementAttributes( eAttr );
+        return element;
+    }
+}
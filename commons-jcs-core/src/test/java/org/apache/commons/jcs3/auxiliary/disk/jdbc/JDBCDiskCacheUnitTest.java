@@ -21,7 +21,9 @@ package org.apache.commons.jcs3.auxiliary.disk.jdbc;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -33,7 +35,11 @@ import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
 import org.apache.commons.jcs3.JCS;
 import org.apache.commons.jcs3.access.CacheAccess;
 import org.apache.commons.jcs3.auxiliary.disk.jdbc.dsfactory.DataSourceFactory;
+import org.apache.commons.jcs3.auxiliary.disk.jdbc.dsfactory.SharedPoolDataSourceFactory;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.ElementAttributes;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
 import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 import org.apache.commons.jcs3.utils.threadpool.DaemonThreadFactory;
 
@@ -143,6 +149,153 @@ public class JDBCDiskCacheUnitTest
         }
     }
 
+    /**
+     * Creates a disk cache on a fresh HSQL table.
+     * <p>
+     * @param tableName the table
+     * @param cacheName the region
+     * @param getMultipleChunkSize the number of keys per getMultiple query
+     * @return the disk cache
+     * @throws Exception
+     */
+    private static JDBCDiskCache<String, String> createHsqlDiskCache( final String tableName, final String cacheName,
+                                                                      final int getMultipleChunkSize )
+        throws Exception
+    {
+        System.setProperty( "hsqldb.cache_scale", "8" );
+
+        final String url = "jdbc:hsqldb:target/cache_hsql_db";
+        new org.hsqldb.jdbcDriver();
+        final Connection cConn = DriverManager.getConnection( url, "sa", "" );
+        HsqlSetupTableUtil.setupTABLE( cConn, tableName );
+
+        final JDBCDiskCacheAttributes cattr = new JDBCDiskCacheAttributes();
+        cattr.setCacheName( cacheName );
+        cattr.setTableName( tableName );
+        cattr.setUrl( url );
+        cattr.setUserName( "sa" );
+        cattr.setPassword( "" );
+        cattr.setDriverClassName( "org.hsqldb.jdbcDriver" );
+        cattr.setGetMultipleChunkSize( getMultipleChunkSize );
+        final SharedPoolDataSourceFactory dsFactory = new SharedPoolDataSourceFactory();
+        dsFactory.initialize( cattr );
+
+        final JDBCDiskCache<String, String> diskCache = new JDBCDiskCache<>( cattr, dsFactory, new TableState( tableName ) );
+        diskCache.setElementSerializer( new StandardSerializer() );
+        return diskCache;
+    }
+
+    /**
+     * @param diskCache the disk cache
+     * @param name the name of the statistic
+     * @return the value of the statistic as a string, null if there is none
+     */
+    private static String getStatistic( final JDBCDiskCache<?, ?> diskCache, final String name )
+    {
+        for ( final IStatElement<?> element : diskCache.getStatistics().getStatElements() )
+        {
+            if ( name.equals( element.getName() ) )
+            {
+                return String.valueOf( element.getData() );
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verify that a batch inserts the new rows and updates the existing ones in one go.
+     * <p>
+     * @throws Exception
+     */
+    public void testUpdateBatchWithHSQL()
+        throws Exception
+    {
+        // SETUP
+        final JDBCDiskCache<String, String> diskCache = createHsqlDiskCache( "JCS_STORE_BATCH", "testUpdateBatch", 100 );
+        diskCache.processUpdate( new CacheElement<>( "testUpdateBatch", "key0", "old" ) );
+
+        final List<ICacheElement<String, String>> batch = new ArrayList<>();
+        for ( int i = 0; i < 5; i++ )
+        {
+            batch.add( new CacheElement<>( "testUpdateBatch", "key" + i, "value" + i ) );
+        }
+
+        // DO WORK
+        diskCache.processUpdateBatch( batch );
+
+        // VERIFY
+        for ( int i = 0; i < 5; i++ )
+        {
+            assertEquals( "Wrong value for key" + i, "value" + i, diskCache.processGet( "key" + i ).getVal() );
+        }
+        assertEquals( "Wrong number of rows", 5, diskCache.getSize() );
+        assertEquals( "Wrong number of batches", "1", getStatistic( diskCache, "Update Batch Count" ) );
+    }
+
+    /**
+     * Verify that getMultiple looks the keys up in chunks.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetMultipleWithHSQL()
+        throws Exception
+    {
+        // SETUP
+        final JDBCDiskCache<String, String> diskCache = createHsqlDiskCache( "JCS_STORE_MULTIPLE", "testGetMultiple", 3 );
+
+        final Set<String> keys = new HashSet<>();
+        for ( int i = 0; i < 7; i++ )
+        {
+            diskCache.processUpdate( new CacheElement<>( "testGetMultiple", "key" + i, "value" + i ) );
+            keys.add( "key" + i );
+        }
+        keys.add( "missing" );
+
+        // DO WORK
+        final Map<String, ICacheElement<String, String>> result = diskCache.processGetMultiple( keys );
+
+        // VERIFY
+        assertEquals( "Wrong number of elements", 7, result.size() );
+        for ( int i = 0; i < 7; i++ )
+        {
+            assertEquals( "Wrong value for key" + i, "value" + i, result.get( "key" + i ).getVal() );
+        }
+        assertEquals( "Wrong number of queries", "3", getStatistic( diskCache, "Get Multiple Query Count" ) );
+    }
+
+    /**
+     * Verify that the expired elements are deleted in chunks and the others are kept.
+     * <p>
+     * @throws Exception
+     */
+    public void testDeleteExpiredInChunksWithHSQL()
+        throws Exception
+    {
+        // SETUP
+        final JDBCDiskCache<String, String> diskCache = createHsqlDiskCache( "JCS_STORE_EXPIRE", "testDeleteExpired", 100 );
+        diskCache.getJdbcDiskCacheAttributes().setDeleteExpiredChunkSize( 2 );
+        diskCache.getJdbcDiskCacheAttributes().setDeleteExpiredPauseMillis( 0 );
+
+        for ( int i = 0; i < 7; i++ )
+        {
+            final ElementAttributes attributes = new ElementAttributes();
+            attributes.setIsEternal( false );
+            // the first five expired i * 10 seconds ago
+            attributes.setMaxLife( i < 5 ? -10 - i * 10 : 1000 );
+            diskCache.processUpdate( new CacheElement<>( "testDeleteExpired", "key" + i, "value" + i, attributes ) );
+        }
+
+        // DO WORK
+        final int deleted = diskCache.deleteExpired();
+
+        // VERIFY
+        assertEquals( "Wrong number deleted", 5, deleted );
+        assertEquals( "Wrong number of rows", 2, diskCache.getSize() );
+        assertNotNull( "Should not delete live elements", diskCache.processGet( "key6" ) );
+        assertEquals( "Wrong number of chunks", "3", getStatistic( diskCache, "Last Expiry Sweep Chunks" ) );
+        assertEquals( "Wrong number of sweeps", "1", getStatistic( diskCache, "Expiry Sweep Count" ) );
+    }
+
     /**
      * Verfiy that it uses the pool access manager config.
      * <p>
@@ -0,0 +1,235 @@
+package org.apache.commons.jcs3.auxiliary.lateral.socket.tcp;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCacheAttributes;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
+import org.apache.commons.jcs3.utils.serialization.FrameBuffer;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.apache.commons.jcs3.utils.timing.SleepUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests sending batches of descriptors from the LateralTCPService to the LateralTCPListener.
+ */
+public class LateralTCPBatchUnitTest
+    extends TestCase
+{
+    /** The cache manager of the listeners */
+    private final MockCompositeCacheManager cacheMgr = new MockCompositeCacheManager();
+
+    /**
+     * @param port the listener port
+     * @return a started listener
+     */
+    private LateralTCPListener<String, String> createListener( final int port )
+    {
+        final TCPLateralCacheAttributes lattr = new TCPLateralCacheAttributes();
+        lattr.setTcpListenerPort( port );
+        lattr.setTransmissionType( LateralCacheAttributes.Type.TCP );
+
+        return LateralTCPListener.getInstance( lattr, cacheMgr, new StandardSerializer() );
+    }
+
+    /**
+     * @param port the listener port
+     * @param batchSize the number of descriptors per frame
+     * @param delayMicros the batch delay
+     * @return a service sending to the listener
+     * @throws IOException
+     */
+    private LateralTCPService<String, String> createService( final int port, final int batchSize, final int delayMicros )
+        throws IOException
+    {
+        return createService( port, batchSize, delayMicros, new StandardSerializer() );
+    }
+
+    /**
+     * @param port the listener port
+     * @param batchSize the number of descriptors per frame
+     * @param delayMicros the batch delay
+     * @param serializer the serializer of the sender
+     * @return a service sending to the listener
+     * @throws IOException
+     */
+    private LateralTCPService<String, String> createService( final int port, final int batchSize, final int delayMicros,
+                                                             final StandardSerializer serializer )
+        throws IOException
+    {
+        final TCPLateralCacheAttributes lattr = new TCPLateralCacheAttributes();
+        lattr.setTransmissionType( LateralCacheAttributes.Type.TCP );
+        lattr.setTcpServer( "localhost:" + port );
+        lattr.setSendBatchSize( batchSize );
+        lattr.setSendBatchDelayMicros( delayMicros );
+
+        final LateralTCPService<String, String> service = new LateralTCPService<>( lattr, serializer );
+        service.setListenerId( 98765 );
+        return service;
+    }
+
+    /**
+     * @param key the key
+     * @return the element in the cache of the listener
+     * @throws IOException
+     */
+    private ICacheElement<String, String> get( final String key )
+        throws IOException
+    {
+        final CompositeCache<String, String> cache = cacheMgr.getCache( "test" );
+        return cache.get( key );
+    }
+
+    /**
+     * Send a burst of updates with batching. All of them must arrive in order, in far fewer frames.
+     * <p>
+     * @throws Exception
+     */
+    public void testBurstIsBatched()
+        throws Exception
+    {
+        // SETUP
+        final LateralTCPListener<String, String> listener = createListener( 1170 );
+        final LateralTCPService<String, String> service = createService( 1170, 100, 10000000 );
+        final int start = listener.getPutCnt();
+
+        // DO WORK
+        final int count = 1000;
+        for ( int i = 0; i < count; i++ )
+        {
+            service.update( new CacheElement<>( "test", "burst", "value" + i ) );
+        }
+
+        for ( int i = 0; i < 100 && listener.getPutCnt() - start < count; i++ )
+        {
+            SleepUtil.sleepAtLeast( 50 );
+        }
+
+        // VERIFY
+        assertEquals( "Wrong number of puts", count, listener.getPutCnt() - start );
+        assertEquals( "Last update should win", "value" + ( count - 1 ), get( "burst" ).getVal() );
+        assertEquals( "Wrong number of frames", count / 100, service.getSender().getFrameCount() );
+        service.dispose( "test" );
+    }
+
+    /**
+     * An incomplete batch must be sent once the delay has expired.
+     * <p>
+     * @throws Exception
+     */
+    public void testIncompleteBatchIsSentAfterDelay()
+        throws Exception
+    {
+        // SETUP
+        final LateralTCPListener<String, String> listener = createListener( 1171 );
+        final LateralTCPService<String, String> service = createService( 1171, 100, 1000 );
+        final int start = listener.getPutCnt();
+
+        // DO WORK
+        for ( int i = 0; i < 3; i++ )
+        {
+            service.update( new CacheElement<>( "test", "delayed" + i, "value" ) );
+        }
+        SleepUtil.sleepAtLeast( 500 );
+
+        // VERIFY
+        assertEquals( "Wrong number of puts", 3, listener.getPutCnt() - start );
+        assertEquals( "Wrong number of frames", 1, service.getSender().getFrameCount() );
+        service.dispose( "test" );
+    }
+
+    /**
+     * A get must see the updates that were collected before it.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetSendsPendingBatchFirst()
+        throws Exception
+    {
+        // SETUP
+        createListener( 1172 );
+        final LateralTCPService<String, String> service = createService( 1172, 100, 10000000 );
+
+        // DO WORK
+        service.update( new CacheElement<>( "test", "pending", "value1" ) );
+        service.remove( "test", "pending" );
+        service.update( new CacheElement<>( "test", "pending", "value2" ) );
+        final ICacheElement<String, String> result = service.get( "test", "pending" );
+
+        // VERIFY
+        assertNotNull( "Pending updates should have been sent before the get", result );
+        assertEquals( "value2", result.getVal() );
+        assertEquals( "Batch and get should have been sent", 2, service.getSender().getFrameCount() );
+        service.dispose( "test" );
+    }
+
+    /**
+     * A batch that fails in the scheduled send must be reported to the next caller.
+     * <p>
+     * @throws Exception
+     */
+    public void testFailedScheduledBatchIsReported()
+        throws Exception
+    {
+        // SETUP
+        createListener( 1173 );
+        final StandardSerializer failingSerializer = new StandardSerializer()
+        {
+            @Override
+            public <T> int serializeTo( final T obj, final FrameBuffer buffer )
+                throws IOException
+            {
+                if ( obj instanceof List )
+                {
+                    throw new IOException( "Simulated failure" );
+                }
+                return super.serializeTo( obj, buffer );
+            }
+        };
+        final LateralTCPService<String, String> service = createService( 1173, 100, 1000, failingSerializer );
+
+        // DO WORK
+        service.update( new CacheElement<>( "test", "lost1", "value" ) );
+        service.update( new CacheElement<>( "test", "lost2", "value" ) );
+        SleepUtil.sleepAtLeast( 500 );
+
+        // VERIFY
+        try
+        {
+            service.update( new CacheElement<>( "test", "next", "value" ) );
+            fail( "Should report the failed batch" );
+        }
+        catch ( final IOException e )
+        {
+            assertEquals( "Could not send a batch of 2 descriptor(s)", e.getCause().getMessage() );
+        }
+        assertEquals( "No frame should have been sent", 0, service.getSender().getFrameCount() );
+
+        // the failure is reported once
+        service.update( new CacheElement<>( "test", "after", "value" ) );
+        service.dispose( "test" );
+    }
+}
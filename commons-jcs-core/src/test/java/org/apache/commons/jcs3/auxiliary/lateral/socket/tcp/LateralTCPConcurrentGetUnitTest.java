@@ -0,0 +1,285 @@
+package org.apache.commons.jcs3.auxiliary.lateral.socket.tcp;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCacheAttributes;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.CompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.ElementAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.apache.commons.jcs3.utils.timing.SleepUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests multiplexed lateral gets from many threads.
+ */
+public class LateralTCPConcurrentGetUnitTest
+    extends TestCase
+{
+    /** Time the listener's cache needs for one get */
+    private static final int GET_DELAY_MILLIS = 10;
+
+    /** The cache manager of the listeners */
+    private final MockCompositeCacheManager cacheMgr = new MockCompositeCacheManager();
+
+    /**
+     * Test setup. The cache of the listener answers gets for "slow" keys only after a delay.
+     */
+    @Override
+    public void setUp()
+    {
+        cacheMgr.setCache( new CompositeCache<String, String>( new CompositeCacheAttributes(), new ElementAttributes() )
+        {
+            @Override
+            public ICacheElement<String, String> localGet( final String key )
+            {
+                if ( key.startsWith( "slow" ) )
+                {
+                    SleepUtil.sleepAtLeast( GET_DELAY_MILLIS );
+                }
+                return super.localGet( key );
+            }
+        } );
+    }
+
+    /**
+     * @param port the listener port
+     * @return a started listener
+     */
+    private LateralTCPListener<String, String> createListener( final int port )
+    {
+        final TCPLateralCacheAttributes lattr = new TCPLateralCacheAttributes();
+        lattr.setTcpListenerPort( port );
+        lattr.setTransmissionType( LateralCacheAttributes.Type.TCP );
+
+        return LateralTCPListener.getInstance( lattr, cacheMgr, new StandardSerializer() );
+    }
+
+    /**
+     * @param port the listener port
+     * @param poolSize the number of connections
+     * @return a service sending multiplexed requests to the listener
+     * @throws IOException
+     */
+    private LateralTCPService<String, String> createService( final int port, final int poolSize )
+        throws IOException
+    {
+        final TCPLateralCacheAttributes lattr = new TCPLateralCacheAttributes();
+        lattr.setTransmissionType( LateralCacheAttributes.Type.TCP );
+        lattr.setTcpServer( "localhost:" + port );
+        lattr.setMultiplexRequests( true );
+        lattr.setConnectionPoolSize( poolSize );
+        lattr.setSocketTimeOut( 10000 );
+
+        return new LateralTCPService<>( lattr, new StandardSerializer() );
+    }
+
+    /**
+     * Fills the cache of the listener.
+     * <p>
+     * @param prefix the key prefix
+     * @param count the number of elements
+     * @throws IOException
+     */
+    private void fill( final String prefix, final int count )
+        throws IOException
+    {
+        final CompositeCache<String, String> cache = cacheMgr.getCache( "test" );
+        for ( int i = 0; i < count; i++ )
+        {
+            cache.localUpdate( new CacheElement<>( "test", prefix + i, "value" + i ) );
+        }
+    }
+
+    /**
+     * Many threads share one connection. Every caller must get the response to its own request.
+     * <p>
+     * @throws Exception
+     */
+    public void testResponsesMatchRequests()
+        throws Exception
+    {
+        // SETUP
+        createListener( 1180 );
+        fill( "key", 100 );
+        final LateralTCPService<String, String> service = createService( 1180, 1 );
+
+        // DO WORK
+        final int errors = runGets( service, 8, 200, "key", 100 );
+
+        // VERIFY
+        assertEquals( "Callers got the wrong responses", 0, errors );
+        service.dispose( "test" );
+    }
+
+    /**
+     * A get for a missing key must return null right away rather than after the timeout.
+     * <p>
+     * @throws Exception
+     */
+    public void testMissingKeyDoesNotWaitForTimeout()
+        throws Exception
+    {
+        // SETUP
+        createListener( 1181 );
+        final LateralTCPService<String, String> service = createService( 1181, 1 );
+
+        // DO WORK
+        final long start = System.currentTimeMillis();
+        final ICacheElement<String, String> result = service.get( "test", "missing" );
+        final long millis = System.currentTimeMillis() - start;
+
+        // VERIFY
+        assertNull( result );
+        assertTrue( "Get took too long: " + millis, millis < 5000 );
+        service.dispose( "test" );
+    }
+
+    /**
+     * getMultiple sends all requests before it waits for the responses.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetMultiple()
+        throws Exception
+    {
+        // SETUP
+        createListener( 1182 );
+        fill( "multi", 50 );
+        final LateralTCPService<String, String> service = createService( 1182, 2 );
+
+        final Set<String> keys = new HashSet<>();
+        for ( int i = 0; i < 60; i++ )
+        {
+            keys.add( "multi" + i );
+        }
+
+        // DO WORK
+        final Map<String, ICacheElement<String, String>> result = service.getMultiple( "test", keys );
+
+        // VERIFY
+        assertEquals( "Wrong number of elements", 50, result.size() );
+        for ( int i = 0; i < 50; i++ )
+        {
+            assertEquals( "value" + i, result.get( "multi" + i ).getVal() );
+        }
+        service.dispose( "test" );
+    }
+
+    /**
+     * With all caller threads sharing one connection, the throughput of slow gets must grow with
+     * the number of threads, because the listener answers the tagged gets in parallel.
+     * <p>
+     * @throws Exception
+     */
+    public void testThroughputScalesWithThreads()
+        throws Exception
+    {
+        // SETUP
+        createListener( 1183 );
+        fill( "slow", 10 );
+        final LateralTCPService<String, String> service = createService( 1183, 1 );
+        final int getsPerThread = 30;
+
+        // DO WORK
+        long start = System.nanoTime();
+        assertEquals( 0, runGets( service, 1, getsPerThread, "slow", 10 ) );
+        final double singleOpsPerSecond = getsPerThread * 1e9 / ( System.nanoTime() - start );
+
+        start = System.nanoTime();
+        assertEquals( 0, runGets( service, 4, getsPerThread, "slow", 10 ) );
+        final double multiOpsPerSecond = 4 * getsPerThread * 1e9 / ( System.nanoTime() - start );
+
+        System.out.println( "gets/s with 1 thread = " + (long) singleOpsPerSecond
+                + ", with 4 threads = " + (long) multiOpsPerSecond );
+
+        // VERIFY
+        assertTrue( "Throughput should scale with the number of threads",
+                multiOpsPerSecond > 2 * singleOpsPerSecond );
+        service.dispose( "test" );
+    }
+
+    /**
+     * Runs gets from several threads and checks the results.
+     * <p>
+     * @param service the service
+     * @param threads the number of threads
+     * @param getsPerThread the number of gets per thread
+     * @param prefix the key prefix
+     * @param keyCount the number of keys in the cache
+     * @return the number of wrong results
+     * @throws Exception
+     */
+    private int runGets( final LateralTCPService<String, String> service, final int threads, final int getsPerThread,
+            final String prefix, final int keyCount )
+        throws Exception
+    {
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final AtomicInteger errors = new AtomicInteger();
+        final List<Thread> workers = new ArrayList<>();
+
+        for ( int t = 0; t < threads; t++ )
+        {
+            final int offset = t;
+            final Thread worker = new Thread( () -> {
+                try
+                {
+                    start.await();
+                    for ( int i = 0; i < getsPerThread; i++ )
+                    {
+                        final int k = ( i + offset ) % keyCount;
+                        final ICacheElement<String, String> element = service.get( "test", prefix + k );
+                        if ( element == null || !( "value" + k ).equals( element.getVal() ) )
+                        {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+                catch ( final Exception e )
+                {
+                    errors.incrementAndGet();
+                }
+            } );
+            worker.start();
+            workers.add( worker );
+        }
+
+        start.countDown();
+        for ( final Thread worker : workers )
+        {
+            worker.join();
+        }
+
+        return errors.get();
+    }
+}
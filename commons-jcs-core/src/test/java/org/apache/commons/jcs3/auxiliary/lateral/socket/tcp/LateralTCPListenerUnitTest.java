@@ -0,0 +1,379 @@
+package org.apache.commons.jcs3.auxiliary.lateral.socket.tcp;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCommand;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralElementDescriptor;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.CompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.ElementAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.apache.commons.jcs3.utils.timing.SleepUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the frame assembly and the request dispatching of the LateralTCPListener.
+ */
+public class LateralTCPListenerUnitTest
+    extends TestCase
+{
+    /** The serializer used on both ends */
+    private final StandardSerializer serializer = new StandardSerializer();
+
+    /**
+     * @param port the listener port
+     * @param cacheMgr the cache manager of the listener
+     * @return a started listener
+     */
+    private LateralTCPListener<String, String> createListener( final int port, final MockCompositeCacheManager cacheMgr )
+    {
+        return createListener( port, cacheMgr, 4 );
+    }
+
+    /**
+     * @param port the listener port
+     * @param cacheMgr the cache manager of the listener
+     * @param threads the number of worker threads
+     * @return a started listener
+     */
+    private LateralTCPListener<String, String> createListener( final int port, final MockCompositeCacheManager cacheMgr,
+                                                               final int threads )
+    {
+        final TCPLateralCacheAttributes lattr = new TCPLateralCacheAttributes();
+        lattr.setTcpListenerPort( port );
+        lattr.setTransmissionType( LateralCacheAttributes.Type.TCP );
+        lattr.setTcpListenerMaxPendingRequests( 10 );
+        lattr.setTcpListenerThreadPoolSize( threads );
+
+        return LateralTCPListener.getInstance( lattr, cacheMgr, serializer );
+    }
+
+    /**
+     * @param release opened to let the puts of the key "slow" through
+     * @return a cache manager whose test region blocks the puts of the key "slow"
+     */
+    private static MockCompositeCacheManager createSlowCacheManager( final CountDownLatch release )
+    {
+        final MockCompositeCacheManager cacheMgr = new MockCompositeCacheManager();
+        cacheMgr.setCache( new CompositeCache<String, String>( new CompositeCacheAttributes(), new ElementAttributes() )
+        {
+            @Override
+            public void localUpdate( final ICacheElement<String, String> ce )
+                throws IOException
+            {
+                if ( "slow".equals( ce.getKey() ) )
+                {
+                    try
+                    {
+                        release.await( 10, TimeUnit.SECONDS );
+                    }
+                    catch ( final InterruptedException e )
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.localUpdate( ce );
+            }
+        } );
+        return cacheMgr;
+    }
+
+    /**
+     * @param port the listener port
+     * @return a sender connected to the listener
+     * @throws IOException
+     */
+    private LateralTCPSender createSender( final int port )
+        throws IOException
+    {
+        final TCPLateralCacheAttributes lattr = new TCPLateralCacheAttributes();
+        lattr.setTransmissionType( LateralCacheAttributes.Type.TCP );
+        lattr.setTcpServer( "localhost:" + port );
+
+        return new LateralTCPSender( lattr, serializer );
+    }
+
+    /**
+     * @param key the key
+     * @param value the value
+     * @return an update for the test region
+     */
+    private LateralElementDescriptor<String, String> createUpdate( final String key, final String value )
+    {
+        final CacheElement<String, String> ce = new CacheElement<>( "test", key, value );
+        return new LateralElementDescriptor<>( ce, LateralCommand.UPDATE, 1 );
+    }
+
+    /**
+     * @param cacheMgr the cache manager of the listener
+     * @param key the key
+     * @return the element in the test region
+     * @throws IOException
+     */
+    private ICacheElement<String, String> get( final MockCompositeCacheManager cacheMgr, final String key )
+        throws IOException
+    {
+        final CompositeCache<String, String> cache = cacheMgr.getCache( "test" );
+        return cache.get( key );
+    }
+
+    /**
+     * Send a frame in small pieces with pauses in between. The listener must put the frame
+     * together and handle it once.
+     * <p>
+     * @throws Exception
+     */
+    public void testPartialFrames()
+        throws Exception
+    {
+        // SETUP
+        final MockCompositeCacheManager cacheMgr = new MockCompositeCacheManager();
+        final LateralTCPListener<String, String> listener = createListener( 1160, cacheMgr );
+
+        final byte[] serialized = serializer.serialize( createUpdate( "key", "value" ) );
+        final ByteBuffer frame = ByteBuffer.allocate( 4 + serialized.length );
+        frame.putInt( serialized.length ).put( serialized );
+
+        // DO WORK
+        try (Socket socket = new Socket( "localhost", 1160 ))
+        {
+            socket.setTcpNoDelay( true );
+            final OutputStream os = socket.getOutputStream();
+            final byte[] bytes = frame.array();
+            for ( int i = 0; i < bytes.length; i += 7 )
+            {
+                os.write( bytes, i, Math.min( 7, bytes.length - i ) );
+                os.flush();
+                if ( i < 21 )
+                {
+                    SleepUtil.sleepAtLeast( 20 );
+                }
+            }
+            // two more frames back to back
+            os.write( bytes );
+            os.write( bytes );
+            os.flush();
+
+            SleepUtil.sleepAtLeast( 500 );
+        }
+
+        // VERIFY
+        assertEquals( "Wrong number of puts", 3, listener.getPutCnt() );
+        final ICacheElement<String, String> element = get( cacheMgr, "key" );
+        assertNotNull( "Element should have been put", element );
+        assertEquals( "value", element.getVal() );
+    }
+
+    /**
+     * The updates of one connection must be applied in the order they were sent.
+     * <p>
+     * @throws Exception
+     */
+    public void testOrderPerConnection()
+        throws Exception
+    {
+        // SETUP
+        final MockCompositeCacheManager cacheMgr = new MockCompositeCacheManager();
+        final LateralTCPListener<String, String> listener = createListener( 1161, cacheMgr );
+        final LateralTCPSender sender = createSender( 1161 );
+
+        // DO WORK
+        final int count = 500;
+        for ( int i = 0; i < count; i++ )
+        {
+            sender.send( createUpdate( "key", "value" + i ) );
+        }
+
+        // the put count is raised before the put is applied
+        for ( int i = 0; i < 100 && ( listener.getPutCnt() < count || listener.getPendingRequests() > 0 ); i++ )
+        {
+            SleepUtil.sleepAtLeast( 50 );
+        }
+
+        // VERIFY
+        assertEquals( "Wrong number of puts", count, listener.getPutCnt() );
+        assertEquals( "Last update should win", "value" + ( count - 1 ),
+                get( cacheMgr, "key" ).getVal() );
+        assertEquals( "No requests should be pending", 0, listener.getPendingRequests() );
+        sender.dispose();
+    }
+
+    /**
+     * A put that takes a long time to apply must not hold up the requests of another peer.
+     * <p>
+     * @throws Exception
+     */
+    public void testSlowRequestDoesNotBlockOtherPeers()
+        throws Exception
+    {
+        // SETUP
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final MockCompositeCacheManager cacheMgr = createSlowCacheManager( release );
+        final LateralTCPListener<String, String> listener = createListener( 1162, cacheMgr );
+        final LateralTCPSender slowSender = createSender( 1162 );
+        final LateralTCPSender fastSender = createSender( 1162 );
+
+        // DO WORK
+        slowSender.send( createUpdate( "slow", "value" ) );
+        SleepUtil.sleepAtLeast( 100 );
+
+        final int count = 20;
+        for ( int i = 0; i < count; i++ )
+        {
+            fastSender.send( createUpdate( "fast" + i, "value" ) );
+        }
+
+        for ( int i = 0; i < 40 && listener.getPutCnt() < count + 1; i++ )
+        {
+            SleepUtil.sleepAtLeast( 50 );
+        }
+
+        // VERIFY
+        try
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                assertNotNull( "Update from the other peer is stuck: fast" + i,
+                        get( cacheMgr, "fast" + i ) );
+            }
+            assertNull( "Slow update should still be running", get( cacheMgr, "slow" ) );
+        }
+        finally
+        {
+            release.countDown();
+        }
+
+        for ( int i = 0; i < 40 && get( cacheMgr, "slow" ) == null; i++ )
+        {
+            SleepUtil.sleepAtLeast( 50 );
+        }
+        assertNotNull( "Slow update should be done", get( cacheMgr, "slow" ) );
+
+        slowSender.dispose();
+        fastSender.dispose();
+    }
+
+    /**
+     * A connection whose requests pile up is no longer read from once it reaches the limit of
+     * pending requests, while the listener keeps serving the other connections.
+     * <p>
+     * @throws Exception
+     */
+    public void testBackpressureStopsReading()
+        throws Exception
+    {
+        // SETUP
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final MockCompositeCacheManager cacheMgr = createSlowCacheManager( release );
+        final LateralTCPListener<String, String> listener = createListener( 1164, cacheMgr, 2 );
+        final LateralTCPSender slowSender = createSender( 1164 );
+        final LateralTCPSender fastSender = createSender( 1164 );
+
+        // DO WORK
+        slowSender.send( createUpdate( "slow", "value" ) );
+        final int count = 50;
+        for ( int i = 0; i < count; i++ )
+        {
+            slowSender.send( createUpdate( "queued" + i, "value" ) );
+        }
+        SleepUtil.sleepAtLeast( 500 );
+        final int pendingWhileBlocked = listener.getPendingRequests();
+
+        fastSender.send( createUpdate( "fast", "value" ) );
+        for ( int i = 0; i < 40 && get( cacheMgr, "fast" ) == null; i++ )
+        {
+            SleepUtil.sleepAtLeast( 50 );
+        }
+        final boolean otherPeerServed = get( cacheMgr, "fast" ) != null;
+        release.countDown();
+
+        for ( int i = 0; i < 100 && listener.getPutCnt() < count + 2; i++ )
+        {
+            SleepUtil.sleepAtLeast( 50 );
+        }
+
+        // VERIFY
+        assertEquals( "Should stop reading at the limit", 10, pendingWhileBlocked );
+        assertTrue( "The other peer should be served", otherPeerServed );
+        assertEquals( "Wrong number of puts", count + 2, listener.getPutCnt() );
+        assertNotNull( "Last queued update should arrive", get( cacheMgr, "queued" + ( count - 1 ) ) );
+        assertEquals( "No requests should be pending", 0, listener.getPendingRequests() );
+
+        slowSender.dispose();
+        fastSender.dispose();
+    }
+
+    /**
+     * Verify that the listener reports its statistics.
+     * <p>
+     * @throws Exception
+     */
+    public void testStatistics()
+        throws Exception
+    {
+        // SETUP
+        final MockCompositeCacheManager cacheMgr = new MockCompositeCacheManager();
+        final LateralTCPListener<String, String> listener = createListener( 1163, cacheMgr );
+        final LateralTCPSender sender = createSender( 1163 );
+
+        // DO WORK
+        sender.send( createUpdate( "key", "value" ) );
+        SleepUtil.sleepAtLeast( 300 );
+        final IStats stats = listener.getStatistics();
+
+        // VERIFY
+        assertEquals( "Lateral TCP Listener", stats.getTypeName() );
+        boolean foundLatency = false;
+        boolean foundQueueDepth = false;
+        for ( final IStatElement<?> element : stats.getStatElements() )
+        {
+            if ( "Max Selector Loop Time (us)".equals( element.getName() ) )
+            {
+                foundLatency = true;
+            }
+            if ( "Worker Queue Depth".equals( element.getName() ) )
+            {
+                foundQueueDepth = true;
+                assertEquals( Integer.valueOf( 0 ), element.getData() );
+            }
+            if ( "Connections".equals( element.getName() ) )
+            {
+                assertEquals( Integer.valueOf( 1 ), element.getData() );
+            }
+        }
+        assertTrue( "Selector loop time should be reported", foundLatency );
+        assertTrue( "Worker queue depth should be reported", foundQueueDepth );
+        sender.dispose();
+    }
+}
@@ -20,7 +20,10 @@ package org.apache.commons.jcs3.auxiliary.remote.http.server;
  */
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import junit.framework.TestCase;
@@ -174,4 +177,31 @@ public class RemoteHttpCacheServletUnitTest
         assertNotNull( "Should have a result.", result );
         assertEquals( "Wrong cacheName.", cacheName, remoteHttpCacheService.lastRemoveAllCacheName );
     }
+
+    /** Verify that a run of gets in a batch is one getMultiple and the rest is applied in order. */
+    public void testProcessRequest_Batch()
+    {
+        final String cacheName = "test";
+        final long requesterId = 2;
+        final CacheElement<Serializable, Serializable> element = new CacheElement<>( cacheName, "key3", null );
+        final List<RemoteCacheRequest<Serializable, Serializable>> requests = Arrays.asList(
+            RemoteCacheRequestFactory.createGetRequest( cacheName, "key1", requesterId ),
+            RemoteCacheRequestFactory.createGetRequest( cacheName, "key2", requesterId ),
+            RemoteCacheRequestFactory.createUpdateRequest( element, requesterId ),
+            RemoteCacheRequestFactory.createRemoveRequest( cacheName, "key4", requesterId ) );
+        final RemoteCacheRequest<Serializable, Serializable> request = RemoteCacheRequestFactory.createBatchRequest( requests, requesterId );
+
+        // DO WORK
+        final RemoteCacheResponse<Object> result = servlet.processRequest( request );
+
+        // VERIFY
+        assertNotNull( "Should have a result.", result );
+        assertTrue( "Should be a success.", result.isSuccess() );
+        assertEquals( "Wrong number of responses.", 4, ( (List<?>) result.getPayload() ).size() );
+        assertEquals( "Gets should be one getMultiple.", new HashSet<>( Arrays.asList( "key1", "key2" ) ),
+                      remoteHttpCacheService.lastGetMultipleKeys );
+        assertNull( "Should not have called get.", remoteHttpCacheService.lastGetKey );
+        assertEquals( "Wrong object.", element, remoteHttpCacheService.lastUpdate );
+        assertEquals( "Wrong key.", "key4", remoteHttpCacheService.lastRemoveKey );
+    }
 }
@@ -0,0 +1,233 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheRequestFactory;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteRequestType;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the encoding of the NIO remote cache protocol.
+ */
+public class RemoteNioProtocolUnitTest
+    extends TestCase
+{
+    /** Used for the values that are not Strings */
+    private final StandardSerializer serializer = new StandardSerializer();
+
+    /**
+     * @param requestId the request id
+     * @param body the body
+     * @return the frame as read by the other side, without the length prefix
+     */
+    private static byte[] receive( final long requestId, final byte[] body )
+    {
+        final ByteBuffer frame = RemoteNioProtocol.frame( requestId, body );
+        assertEquals( "Wrong length prefix", frame.remaining() - 4, frame.getInt() );
+
+        final byte[] received = new byte[frame.remaining()];
+        frame.get( received );
+        return received;
+    }
+
+    /**
+     * All fields of a request survive the round trip.
+     * <p>
+     * @throws Exception
+     */
+    public void testRequestRoundTrip()
+        throws Exception
+    {
+        // SETUP
+        final RemoteCacheRequest<Object, String> request =
+            RemoteCacheRequestFactory.createGetMultipleRequest( "region", new HashSet<>( Arrays.asList( "a", Integer.valueOf( 1 ) ) ), 42 );
+        request.setPattern( "pat.*" );
+        request.setKey( Integer.valueOf( 7 ) );
+        request.setCacheElement( new CacheElement<>( "region", "key", "value" ) );
+
+        // DO WORK
+        final byte[] frame = receive( 99, RemoteNioProtocol.encodeRequest( request, serializer ) );
+        final RemoteCacheRequest<Object, String> result = RemoteNioProtocol.decodeRequest( frame, serializer );
+
+        // VERIFY
+        assertEquals( 99, RemoteNioProtocol.getRequestId( frame ) );
+        assertEquals( RemoteRequestType.GET_MULTIPLE, result.getRequestType() );
+        assertEquals( 42, result.getRequesterId() );
+        assertEquals( "region", result.getCacheName() );
+        assertEquals( Integer.valueOf( 7 ), result.getKey() );
+        assertEquals( request.getKeySet(), result.getKeySet() );
+        assertEquals( "pat.*", result.getPattern() );
+        assertEquals( "value", result.getCacheElement().getVal() );
+    }
+
+    /**
+     * The requests of a batch survive the round trip.
+     * <p>
+     * @throws Exception
+     */
+    public void testBatchRequestRoundTrip()
+        throws Exception
+    {
+        // SETUP
+        final List<RemoteCacheRequest<String, String>> requests = Arrays.asList(
+            RemoteCacheRequestFactory.createGetRequest( "region", "key", 1 ),
+            RemoteCacheRequestFactory.createUpdateRequest( new CacheElement<>( "region", "key", "value" ), 1 ),
+            RemoteCacheRequestFactory.createRemoveRequest( "other", "key", 1 ) );
+        final RemoteCacheRequest<String, String> request = RemoteCacheRequestFactory.createBatchRequest( requests, 1 );
+
+        // DO WORK
+        final RemoteCacheRequest<String, String> result =
+            RemoteNioProtocol.decodeRequest( receive( 1, RemoteNioProtocol.encodeRequest( request, serializer ) ), serializer );
+
+        // VERIFY
+        assertEquals( RemoteRequestType.BATCH, result.getRequestType() );
+        assertEquals( "Wrong number of requests", 3, result.getRequests().size() );
+        assertEquals( RemoteRequestType.GET, result.getRequests().get( 0 ).getRequestType() );
+        assertEquals( "value", result.getRequests().get( 1 ).getCacheElement().getVal() );
+        assertEquals( "other", result.getRequests().get( 2 ).getCacheName() );
+        assertNull( "A plain request has no batch", result.getRequests().get( 0 ).getRequests() );
+    }
+
+    /**
+     * A get with a String key is much smaller than the serialized request object.
+     * <p>
+     * @throws Exception
+     */
+    public void testStringKeyRequestIsCompact()
+        throws Exception
+    {
+        // SETUP
+        final RemoteCacheRequest<String, String> request = RemoteCacheRequestFactory.createGetRequest( "region", "key", 1 );
+
+        // DO WORK
+        final byte[] body = RemoteNioProtocol.encodeRequest( request, serializer );
+        final RemoteCacheRequest<String, String> result = RemoteNioProtocol.decodeRequest( receive( 1, body ), serializer );
+
+        // VERIFY
+        assertEquals( "key", result.getKey() );
+        assertNull( result.getKeySet() );
+        assertNull( result.getPattern() );
+        assertNull( result.getCacheElement() );
+        assertTrue( "Body should be compact, was " + body.length, body.length < 40 );
+        assertTrue( "Body should be smaller than the serialized request",
+                body.length * 5 < serializer.serialize( request ).length );
+    }
+
+    /**
+     * Payload and error message of a response survive the round trip.
+     * <p>
+     * @throws Exception
+     */
+    public void testResponseRoundTrip()
+        throws Exception
+    {
+        // SETUP
+        final Map<String, ICacheElement<String, String>> payload = new HashMap<>();
+        payload.put( "key", new CacheElement<>( "region", "key", "value" ) );
+        final RemoteCacheResponse<Object> response = new RemoteCacheResponse<>();
+        response.setPayload( payload );
+
+        final RemoteCacheResponse<Object> error = new RemoteCacheResponse<>();
+        error.setSuccess( false );
+        error.setErrorMessage( "failed" );
+
+        // DO WORK
+        final RemoteCacheResponse<Map<String, ICacheElement<String, String>>> result =
+            RemoteNioProtocol.decodeResponse( receive( 1, RemoteNioProtocol.encodeResponse( response, serializer ) ), serializer );
+        final RemoteCacheResponse<Object> errorResult =
+            RemoteNioProtocol.decodeResponse( receive( 2, RemoteNioProtocol.encodeResponse( error, serializer ) ), serializer );
+
+        // VERIFY
+        assertTrue( result.isSuccess() );
+        assertNull( result.getErrorMessage() );
+        assertEquals( "value", result.getPayload().get( "key" ).getVal() );
+        assertFalse( errorResult.isSuccess() );
+        assertEquals( "failed", errorResult.getErrorMessage() );
+        assertNull( errorResult.getPayload() );
+    }
+
+    /**
+     * A frame with an unknown request type is rejected.
+     * <p>
+     * @throws Exception
+     */
+    public void testUnknownRequestTypeIsRejected()
+        throws Exception
+    {
+        // SETUP
+        final byte[] body = RemoteNioProtocol.encodeRequest( RemoteCacheRequestFactory.createAliveCheckRequest( 0 ), serializer );
+        body[0] = (byte) 0xff;
+
+        // DO WORK
+        try
+        {
+            RemoteNioProtocol.decodeRequest( receive( 1, body ), serializer );
+            fail( "Should reject the frame" );
+        }
+        catch ( final IOException e )
+        {
+            // VERIFY
+            assertTrue( e.getMessage().contains( "Unknown request type" ) );
+        }
+    }
+
+    /**
+     * A batch within a batch is rejected instead of decoded recursively.
+     * <p>
+     * @throws Exception
+     */
+    public void testNestedBatchIsRejected()
+        throws Exception
+    {
+        // SETUP
+        RemoteCacheRequest<String, String> request = RemoteCacheRequestFactory.createGetRequest( "region", "key", 1 );
+        for ( int i = 0; i < 2; i++ )
+        {
+            request = RemoteCacheRequestFactory.createBatchRequest( Arrays.asList( request ), 1 );
+        }
+        final byte[] body = RemoteNioProtocol.encodeRequest( request, serializer );
+
+        // DO WORK
+        try
+        {
+            RemoteNioProtocol.decodeRequest( receive( 1, body ), serializer );
+            fail( "Should reject the frame" );
+        }
+        catch ( final IOException e )
+        {
+            // VERIFY
+            assertTrue( e.getMessage().contains( "Nested batch" ) );
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio.server;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.jcs3.auxiliary.AuxiliaryCache;
+import org.apache.commons.jcs3.auxiliary.remote.MockRemoteCacheService;
+import org.apache.commons.jcs3.auxiliary.remote.http.client.RemoteHttpCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.remote.http.client.RemoteHttpCacheFactory;
+import org.apache.commons.jcs3.auxiliary.remote.http.server.RemoteHttpCacheServerAttributes;
+import org.apache.commons.jcs3.auxiliary.remote.http.server.RemoteHttpCacheService;
+import org.apache.commons.jcs3.auxiliary.remote.nio.client.RemoteNioCacheClient;
+import org.apache.commons.jcs3.auxiliary.remote.nio.client.RemoteNioCacheDispatcher;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheBatchingDispatcher;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheRequestFactory;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheServiceNonLocal;
+import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.apache.commons.jcs3.utils.timing.SleepUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Runs the NIO remote cache client against the server.
+ */
+public class RemoteNioCacheServerUnitTest
+    extends TestCase
+{
+    /** The region */
+    private static final String CACHE_NAME = "testNio";
+
+    /** The server under test */
+    private RemoteNioCacheServer<String, String> server;
+
+    /** The client */
+    private RemoteNioCacheClient<String, String> client;
+
+    /**
+     * Stops the server and the client.
+     * <p>
+     * @throws Exception
+     */
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        if ( client != null )
+        {
+            client.release();
+        }
+        if ( server != null )
+        {
+            server.shutdown();
+        }
+        super.tearDown();
+    }
+
+    /**
+     * Starts a server for the service on a free port and creates a client for it.
+     * <p>
+     * @param service the service
+     * @throws IOException
+     */
+    private void start( final ICacheServiceNonLocal<String, String> service )
+        throws IOException
+    {
+        final RemoteNioCacheServerAttributes serverAttributes = new RemoteNioCacheServerAttributes();
+        serverAttributes.setPort( 0 );
+        server = new RemoteNioCacheServer<>( service, serverAttributes );
+        server.start();
+
+        client = new RemoteNioCacheClient<>( clientAttributes( server.getPort() ) );
+    }
+
+    /**
+     * @param port the port of the server
+     * @return the client configuration
+     */
+    private static RemoteHttpCacheAttributes clientAttributes( final int port )
+    {
+        final RemoteHttpCacheAttributes attributes = new RemoteHttpCacheAttributes();
+        attributes.setCacheName( CACHE_NAME );
+        attributes.setUrl( "localhost:" + port );
+        attributes.setRemoteHttpClientClassName( RemoteNioCacheClient.class.getName() );
+        return attributes;
+    }
+
+    /**
+     * Every request type is applied to the cache of the server.
+     * <p>
+     * @throws Exception
+     */
+    public void testRequestsAreAppliedToTheCache()
+        throws Exception
+    {
+        // SETUP
+        start( new RemoteHttpCacheService<>( new MockCompositeCacheManager(), new RemoteHttpCacheServerAttributes(), null ) );
+
+        // DO WORK
+        client.update( new CacheElement<>( CACHE_NAME, "key1", "value1" ), 0 );
+        client.update( new CacheElement<>( CACHE_NAME, "key2", "value2" ), 0 );
+        client.update( new CacheElement<>( CACHE_NAME, "other", "value3" ), 0 );
+
+        // VERIFY
+        assertTrue( "Server should be alive", client.isAlive() );
+        assertEquals( "value1", client.get( CACHE_NAME, "key1", 0 ).getVal() );
+        assertNull( "Missing key", client.get( CACHE_NAME, "missing", 0 ) );
+
+        final Map<String, ICacheElement<String, String>> multiple =
+            client.getMultiple( CACHE_NAME, new HashSet<>( Arrays.asList( "key1", "key2", "missing" ) ), 0 );
+        assertEquals( "Wrong number of elements", 2, multiple.size() );
+        assertEquals( "value2", multiple.get( "key2" ).getVal() );
+
+        final Map<String, ICacheElement<String, String>> matching = client.getMatching( CACHE_NAME, "key.*", 0 );
+        assertEquals( "Wrong number of matching elements", 2, matching.size() );
+
+        assertEquals( new HashSet<>( Arrays.asList( "key1", "key2", "other" ) ), client.getKeySet( CACHE_NAME ) );
+
+        client.remove( CACHE_NAME, "key1", 0 );
+        assertNull( "Should have been removed", client.get( CACHE_NAME, "key1", 0 ) );
+
+        client.removeAll( CACHE_NAME, 0 );
+        assertNull( "Should have been removed", client.get( CACHE_NAME, "key2", 0 ) );
+        assertEquals( "All requests should have gone through one connection", 1, server.getConnectionCount() );
+    }
+
+    /**
+     * Concurrent requests of one client are processed at the same time and every caller gets its
+     * own response.
+     * <p>
+     * @throws Exception
+     */
+    public void testConcurrentRequestsAreMultiplexed()
+        throws Exception
+    {
+        // SETUP
+        final int threads = 8;
+        final int delayMillis = 300;
+        start( new MockRemoteCacheService<String, String>()
+        {
+            @Override
+            public ICacheElement<String, String> get( final String cacheName, final String key, final long requesterId )
+            {
+                SleepUtil.sleepAtLeast( delayMillis );
+                return new CacheElement<>( cacheName, key, "value of " + key );
+            }
+        } );
+        assertTrue( "Server should be alive", client.isAlive() );
+
+        final CountDownLatch go = new CountDownLatch( 1 );
+        final AtomicInteger errors = new AtomicInteger();
+        final List<Thread> callers = new ArrayList<>();
+        for ( int i = 0; i < threads; i++ )
+        {
+            final String key = "key" + i;
+            final Thread t = new Thread( () -> {
+                try
+                {
+                    go.await();
+                    final ICacheElement<String, String> element = client.get( CACHE_NAME, key, 0 );
+                    if ( !( "value of " + key ).equals( element.getVal() ) )
+                    {
+                        errors.incrementAndGet();
+                    }
+                }
+                catch ( final Exception e )
+                {
+                    errors.incrementAndGet();
+                }
+            } );
+            t.start();
+            callers.add( t );
+        }
+
+        // DO WORK
+        final long start = System.currentTimeMillis();
+        go.countDown();
+        for ( final Thread t : callers )
+        {
+            t.join();
+        }
+        final long elapsed = System.currentTimeMillis() - start;
+
+        // VERIFY
+        assertEquals( "Every caller should get its own response", 0, errors.get() );
+        assertTrue( "Requests should not wait for each other, took " + elapsed + " ms",
+                elapsed < threads * delayMillis / 2 );
+        assertEquals( "Wrong number of connections", 1, server.getConnectionCount() );
+    }
+
+    /**
+     * With a batch window, the requests of concurrent callers travel in batch requests.
+     * <p>
+     * @throws Exception
+     */
+    public void testConcurrentRequestsAreBatched()
+        throws Exception
+    {
+        // SETUP
+        start( new RemoteHttpCacheService<>( new MockCompositeCacheManager(), new RemoteHttpCacheServerAttributes(), null ) );
+        final RemoteHttpCacheAttributes attributes = clientAttributes( server.getPort() );
+        attributes.setBatchWindowMillis( 50 );
+        final RemoteNioCacheClient<String, String> batchingClient = new RemoteNioCacheClient<>( attributes );
+
+        final int threads = 8;
+        final CountDownLatch go = new CountDownLatch( 1 );
+        final AtomicInteger errors = new AtomicInteger();
+        final List<Thread> callers = new ArrayList<>();
+        for ( int i = 0; i < threads; i++ )
+        {
+            final String key = "key" + i;
+            final Thread t = new Thread( () -> {
+                try
+                {
+                    go.await();
+                    batchingClient.update( new CacheElement<>( CACHE_NAME, key, "value of " + key ), 0 );
+                    final ICacheElement<String, String> element = batchingClient.get( CACHE_NAME, key, 0 );
+                    if ( !( "value of " + key ).equals( element.getVal() ) )
+                    {
+                        errors.incrementAndGet();
+                    }
+                }
+                catch ( final Exception e )
+                {
+                    errors.incrementAndGet();
+                }
+            } );
+            t.start();
+            callers.add( t );
+        }
+
+        // DO WORK
+        go.countDown();
+        for ( final Thread t : callers )
+        {
+            t.join();
+        }
+
+        // VERIFY
+        assertEquals( "Every caller should get its own response", 0, errors.get() );
+        assertTrue( "Requests should have been batched",
+                ( (RemoteCacheBatchingDispatcher) batchingClient.getRemoteDispatcher() ).getBatchCount() > 0 );
+
+        batchingClient.release();
+    }
+
+    /**
+     * A request fails while the server is down and the client connects again once it is back.
+     * <p>
+     * @throws Exception
+     */
+    public void testClientReconnectsAfterServerRestart()
+        throws Exception
+    {
+        // SETUP
+        final MockRemoteCacheService<String, String> service = new MockRemoteCacheService<>();
+        start( service );
+        assertTrue( "Server should be alive", client.isAlive() );
+        final int port = server.getPort();
+
+        // DO WORK
+        server.shutdown();
+        try
+        {
+            client.remove( CACHE_NAME, "key", 0 );
+            fail( "Should not reach a stopped server" );
+        }
+        catch ( final IOException e )
+        {
+            // expected
+        }
+
+        final RemoteNioCacheServerAttributes serverAttributes = new RemoteNioCacheServerAttributes();
+        serverAttributes.setPort( port );
+        server = new RemoteNioCacheServer<>( service, serverAttributes );
+        server.start();
+        client.remove( CACHE_NAME, "key", 0 );
+
+        // VERIFY
+        assertEquals( "Request should reach the restarted server", "key", service.lastRemoveKey );
+    }
+
+    /**
+     * The client is plugged into the HTTP remote cache through configuration.
+     * <p>
+     * @throws Exception
+     */
+    public void testClientIsSelectedThroughConfiguration()
+        throws Exception
+    {
+        // SETUP
+        start( new RemoteHttpCacheService<>( new MockCompositeCacheManager(), new RemoteHttpCacheServerAttributes(), null ) );
+        final RemoteHttpCacheFactory factory = new RemoteHttpCacheFactory();
+        factory.initialize();
+
+        try
+        {
+            final AuxiliaryCache<String, String> cache = factory.createCache( clientAttributes( server.getPort() ),
+                    new MockCompositeCacheManager(), null, new StandardSerializer() );
+
+            // DO WORK
+            cache.update( new CacheElement<>( CACHE_NAME, "key", "value" ) );
+            ICacheElement<String, String> element = null;
+            for ( int i = 0; i < 100 && element == null; i++ )
+            {
+                SleepUtil.sleepAtLeast( 50 );
+                element = cache.get( "key" );
+            }
+
+            // VERIFY
+            assertNotNull( "Element should have been sent to the server", element );
+            assertEquals( "value", element.getVal() );
+            assertTrue( "Wrong number of requests", server.getRequestCount() >= 2 );
+        }
+        finally
+        {
+            factory.dispose();
+        }
+    }
+
+    /**
+     * A write to a server that stops reading fails after the socket timeout.
+     * <p>
+     * @throws Exception
+     */
+    public void testWriteTimesOutWhenServerStalls()
+        throws Exception
+    {
+        // SETUP
+        try (ServerSocket stalled = new ServerSocket( 0 ))
+        {
+            final RemoteHttpCacheAttributes attributes = clientAttributes( stalled.getLocalPort() );
+            attributes.setSocketTimeoutMillis( 500 );
+            final RemoteNioCacheDispatcher dispatcher = new RemoteNioCacheDispatcher( attributes );
+            final String value = new String( new char[32 * 1024 * 1024] ).replace( '\0', 'x' );
+
+            // DO WORK
+            final long start = System.currentTimeMillis();
+            try
+            {
+                dispatcher.dispatchRequest( RemoteCacheRequestFactory.createUpdateRequest(
+                        new CacheElement<>( CACHE_NAME, "key", value ), 0 ) );
+                fail( "Should time out" );
+            }
+            catch ( final IOException e )
+            {
+                // VERIFY
+                assertTrue( "Should fail the write", e.getCause() instanceof SocketTimeoutException );
+            }
+            assertTrue( "Should not block", System.currentTimeMillis() - start < 10000 );
+
+            dispatcher.close();
+        }
+    }
+
+    /**
+     * A response frame longer than the maximum is rejected instead of allocated.
+     * <p>
+     * @throws Exception
+     */
+    public void testOversizedResponseIsRejected()
+        throws Exception
+    {
+        // SETUP
+        try (ServerSocket fake = new ServerSocket( 0 ))
+        {
+            final Thread responder = new Thread( () -> {
+                try (Socket socket = fake.accept())
+                {
+                    final DataOutputStream out = new DataOutputStream( socket.getOutputStream() );
+                    out.writeInt( Integer.MAX_VALUE );
+                    out.writeLong( 1 );
+                    out.flush();
+                    socket.getInputStream().read();
+                }
+                catch ( final IOException e )
+                {
+                    // the client closed the connection
+                }
+            } );
+            responder.start();
+            final RemoteNioCacheDispatcher dispatcher = new RemoteNioCacheDispatcher( clientAttributes( fake.getLocalPort() ) );
+
+            // DO WORK
+            try
+            {
+                dispatcher.dispatchRequest( RemoteCacheRequestFactory.createGetRequest( CACHE_NAME, "key", 0 ) );
+                fail( "Should reject the response" );
+            }
+            catch ( final IOException e )
+            {
+                // VERIFY
+                assertTrue( e.getMessage(), e.getMessage().contains( "Invalid frame length" ) );
+            }
+
+            dispatcher.close();
+            responder.join( 5000 );
+        }
+    }
+}
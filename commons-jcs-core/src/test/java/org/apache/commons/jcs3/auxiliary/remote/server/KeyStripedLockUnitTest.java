@@ -0,0 +1,134 @@
+package org.apache.commons.jcs3.auxiliary.remote.server;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
+import org.apache.commons.jcs3.engine.control.group.GroupId;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the KeyStripedLock.
+ */
+public class KeyStripedLockUnitTest
+    extends TestCase
+{
+    /** The lock under test */
+    private final KeyStripedLock lock = new KeyStripedLock( 64 );
+
+    /**
+     * Locks the key on another thread.
+     * <p>
+     * @param key the key, or null for the whole region
+     * @return a latch that is counted down once the lock was acquired and released
+     */
+    private CountDownLatch lockInThread( final Object key )
+    {
+        final CountDownLatch done = new CountDownLatch( 1 );
+        final Thread t = new Thread( () -> {
+            if ( key == null )
+            {
+                lock.lockRegion();
+                lock.unlockRegion();
+            }
+            else
+            {
+                lock.lock( key );
+                lock.unlock( key );
+            }
+            done.countDown();
+        } );
+        t.setDaemon( true );
+        t.start();
+        return done;
+    }
+
+    /**
+     * The number of stripes is rounded up to a power of two.
+     */
+    public void testStripeCount()
+    {
+        assertEquals( 64, lock.getStripeCount() );
+        assertEquals( 16, new KeyStripedLock( 10 ).getStripeCount() );
+        assertEquals( 1, new KeyStripedLock( 0 ).getStripeCount() );
+    }
+
+    /**
+     * Keys in different stripes do not wait for each other, the same key does.
+     * <p>
+     * @throws Exception
+     */
+    public void testKeysInDifferentStripesRunInParallel()
+        throws Exception
+    {
+        lock.lock( "a" );
+        assertTrue( "Other key should not wait", lockInThread( "b" ).await( 5, TimeUnit.SECONDS ) );
+
+        final CountDownLatch sameKey = lockInThread( "a" );
+        assertFalse( "Same key should wait", sameKey.await( 200, TimeUnit.MILLISECONDS ) );
+        lock.unlock( "a" );
+        assertTrue( "Same key should get the lock", sameKey.await( 5, TimeUnit.SECONDS ) );
+    }
+
+    /**
+     * Region operations wait for keyed operations and the other way round.
+     * <p>
+     * @throws Exception
+     */
+    public void testRegionLockExcludesKeys()
+        throws Exception
+    {
+        lock.lock( "a" );
+        final CountDownLatch region = lockInThread( null );
+        assertFalse( "Region should wait for the key", region.await( 200, TimeUnit.MILLISECONDS ) );
+        lock.unlock( "a" );
+        assertTrue( "Region should get the lock", region.await( 5, TimeUnit.SECONDS ) );
+
+        lock.lockRegion();
+        final CountDownLatch key = lockInThread( "b" );
+        assertFalse( "Key should wait for the region", key.await( 200, TimeUnit.MILLISECONDS ) );
+        lock.unlockRegion();
+        assertTrue( "Key should get the lock", key.await( 5, TimeUnit.SECONDS ) );
+    }
+
+    /**
+     * Prefix and group removals address more than one key and lock the whole region.
+     * <p>
+     * @throws Exception
+     */
+    public void testRegionKeys()
+        throws Exception
+    {
+        assertTrue( KeyStripedLock.isRegionKey( "prefix:" ) );
+        assertFalse( KeyStripedLock.isRegionKey( "prefix:key" ) );
+        assertTrue( KeyStripedLock.isRegionKey( new GroupAttrName<>( new GroupId( "cache", "group" ), null ) ) );
+        assertFalse( KeyStripedLock.isRegionKey( new GroupAttrName<>( new GroupId( "cache", "group" ), "attr" ) ) );
+        assertFalse( KeyStripedLock.isRegionKey( Integer.valueOf( 1 ) ) );
+
+        lock.lock( "prefix:" );
+        final CountDownLatch key = lockInThread( "other" );
+        assertFalse( "Key should wait for the prefix removal", key.await( 200, TimeUnit.MILLISECONDS ) );
+        lock.unlock( "prefix:" );
+        assertTrue( "Key should get the lock", key.await( 5, TimeUnit.SECONDS ) );
+    }
+}
@@ -0,0 +1,162 @@
+package org.apache.commons.jcs3.auxiliary.remote.server;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.rmi.Naming;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.jcs3.auxiliary.remote.MockRemoteCacheListener;
+import org.apache.commons.jcs3.auxiliary.remote.RemoteUtils;
+import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheConstants;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheServiceNonLocal;
+import org.apache.commons.jcs3.utils.net.HostNameUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Sends updates to one region of the RMI remote cache server from a growing number of clients and
+ * prints the throughput for each client count. Since updates of different keys no longer wait for
+ * each other on the server, the throughput should grow with the number of clients until the
+ * network or the CPU is saturated.
+ */
+public class RemoteCacheServerConcurrentLoadTest
+    extends TestCase
+{
+    /** The registry port, see the configuration file */
+    private static final int REGISTRY_PORT = 11030;
+
+    /** Updates per client and round */
+    private static final int PUTS_PER_CLIENT = 5000;
+
+    /** The region all clients update */
+    private static final String CACHE_NAME = "testLoad";
+
+    /** The server */
+    private static RemoteCacheServer<String, String> server;
+
+    /**
+     * Starts the server once for all tests.
+     */
+    @Override
+    public void setUp()
+    {
+        if ( server == null )
+        {
+            server = RemoteCacheServerStartupUtil.startServerUsingProperties( "TestRemoteCacheServerLoad.ccf" );
+        }
+    }
+
+    /**
+     * Measures the update throughput for 1, 2, 4 and 8 clients. Every client has its own RMI stub
+     * and its own keys. A listener is registered so every update is also fanned out.
+     * <p>
+     * @throws Exception
+     */
+    public void testThroughputByClientCount()
+        throws Exception
+    {
+        // SETUP
+        final MockRemoteCacheListener<String, String> listener = new MockRemoteCacheListener<>();
+        server.addCacheListener( CACHE_NAME, listener );
+
+        final String url = RemoteUtils.getNamingURL( HostNameUtil.getLocalHostAddress(), REGISTRY_PORT,
+                IRemoteCacheConstants.REMOTE_CACHE_SERVICE_VAL );
+
+        // warm up
+        runClients( url, 2, 0 );
+
+        for ( int clients = 1; clients <= 8; clients *= 2 )
+        {
+            // DO WORK
+            final int putsBefore = server.getPutCount();
+            final long start = System.nanoTime();
+            final int errors = runClients( url, clients, clients );
+            final long nanos = System.nanoTime() - start;
+
+            // VERIFY
+            assertEquals( "Updates failed", 0, errors );
+            assertEquals( "Wrong number of puts", clients * PUTS_PER_CLIENT, server.getPutCount() - putsBefore );
+
+            System.out.println( "clients = " + clients + ", puts/s = "
+                    + (long) ( clients * PUTS_PER_CLIENT * 1e9 / nanos ) );
+        }
+
+        @SuppressWarnings("unchecked")
+        final ICacheServiceNonLocal<String, String> service = (ICacheServiceNonLocal<String, String>) Naming.lookup( url );
+        final ICacheElement<String, String> last = service.get( CACHE_NAME, "8:0:" + ( PUTS_PER_CLIENT - 1 ), 0 );
+        assertNotNull( "Last update should be in the cache", last );
+        assertEquals( "value" + ( PUTS_PER_CLIENT - 1 ), last.getVal() );
+    }
+
+    /**
+     * Runs the clients and waits for them to finish.
+     * <p>
+     * @param url the naming URL of the server
+     * @param clients the number of clients
+     * @param round used to make the keys of each round unique
+     * @return the number of failed updates
+     * @throws Exception
+     */
+    private int runClients( final String url, final int clients, final int round )
+        throws Exception
+    {
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final AtomicInteger errors = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+
+        for ( int c = 0; c < clients; c++ )
+        {
+            @SuppressWarnings("unchecked")
+            final ICacheServiceNonLocal<String, String> service = (ICacheServiceNonLocal<String, String>) Naming.lookup( url );
+            final String prefix = round + ":" + c + ":";
+
+            final Thread t = new Thread( () -> {
+                try
+                {
+                    start.await();
+                    for ( int i = 0; i < PUTS_PER_CLIENT; i++ )
+                    {
+                        service.update( new CacheElement<>( CACHE_NAME, prefix + i, "value" + i ), 0 );
+                    }
+                }
+                catch ( final Exception e )
+                {
+                    e.printStackTrace();
+                    errors.incrementAndGet();
+                }
+            } );
+            t.start();
+            threads.add( t );
+        }
+
+        start.countDown();
+        for ( final Thread t : threads )
+        {
+            t.join();
+        }
+
+        return errors.get();
+    }
+}
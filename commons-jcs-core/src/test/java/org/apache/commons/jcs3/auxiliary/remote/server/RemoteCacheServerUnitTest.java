@@ -32,6 +32,8 @@ import org.apache.commons.jcs3.auxiliary.remote.server.behavior.IRemoteCacheServ
 import org.apache.commons.jcs3.auxiliary.remote.server.behavior.RemoteType;
 import org.apache.commons.jcs3.engine.CacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElementSerialized;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 
 import junit.framework.TestCase;
 
@@ -258,6 +260,45 @@ public class RemoteCacheServerUnitTest
         server.shutdown();
     }
 
+    /**
+     * Register two listeners and verify that both get the same serialized copy of an item that
+     * was put without being serialized.
+     * <p>
+     * @throws Exception
+     */
+    public void testPutIsSerializedOnceForAllListeners()
+        throws Exception
+    {
+        final IRemoteCacheServerAttributes rcsa = new RemoteCacheServerAttributes();
+        rcsa.setConfigFileName( "/TestRemoteCacheServer.ccf" );
+
+        final Properties config = RemoteUtils.loadProps(rcsa.getConfigFileName());
+        final MockRemoteCacheListener<String, Long> mockListener1 = new MockRemoteCacheListener<>();
+        final MockRemoteCacheListener<String, Long> mockListener2 = new MockRemoteCacheListener<>();
+        final RemoteCacheServer<String, Long> server = new RemoteCacheServer<>( rcsa, config );
+
+        final String cacheName = "testPutIsSerializedOnceForAllListeners";
+        server.addCacheListener( cacheName, mockListener1 );
+        server.addCacheListener( cacheName, mockListener2 );
+
+        // DO WORK
+        server.update( new CacheElement<>( cacheName, "key", Long.valueOf( 42 ) ), 9999 );
+
+        SleepUtil.sleepAtLeast( 200 );
+
+        // VERIFY
+        assertEquals( "Wrong number of items put to listener 1.", 1, mockListener1.putItems.size() );
+        assertEquals( "Wrong number of items put to listener 2.", 1, mockListener2.putItems.size() );
+
+        final ICacheElement<String, Long> sent = mockListener1.putItems.get( 0 );
+        assertTrue( "Item should have been serialized", sent instanceof ICacheElementSerialized );
+        assertSame( "Listeners should share the serialized item", sent, mockListener2.putItems.get( 0 ) );
+        assertEquals( Long.valueOf( 42 ), new StandardSerializer().deSerialize(
+                ( (ICacheElementSerialized<String, Long>) sent ).getSerializedValue(), null ) );
+
+        server.shutdown();
+    }
+
     /**
      * Register a listener and then verify that it is called when we put using a different listener
      * id. The updates should come from a cluster listener and local cluster consistency should be
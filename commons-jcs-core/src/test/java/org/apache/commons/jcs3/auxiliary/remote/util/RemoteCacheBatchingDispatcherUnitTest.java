@@ -0,0 +1,259 @@
+package org.apache.commons.jcs3.auxiliary.remote.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheDispatcher;
+import org.apache.commons.jcs3.auxiliary.remote.http.client.RemoteHttpCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.remote.http.client.RemoteHttpCacheClient;
+import org.apache.commons.jcs3.auxiliary.remote.http.server.RemoteHttpCacheServerAttributes;
+import org.apache.commons.jcs3.auxiliary.remote.http.server.RemoteHttpCacheService;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteRequestType;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the collection of concurrent requests into batches.
+ */
+public class RemoteCacheBatchingDispatcherUnitTest
+    extends TestCase
+{
+    /** The region */
+    private static final String CACHE_NAME = "testBatch";
+
+    /** The service behind the dispatcher */
+    private RemoteHttpCacheService<String, String> service;
+
+    /** The requests that reached the service, by type */
+    private final List<RemoteRequestType> dispatched = new ArrayList<>();
+
+    /** Fails every request if set */
+    private volatile boolean fail;
+
+    /**
+     * Hands the requests to the processor, like the servlet does.
+     */
+    private final IRemoteCacheDispatcher processingDispatcher = new IRemoteCacheDispatcher()
+    {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K, V, T> RemoteCacheResponse<T> dispatchRequest( final RemoteCacheRequest<K, V> remoteCacheRequest )
+            throws IOException
+        {
+            synchronized ( dispatched )
+            {
+                dispatched.add( remoteCacheRequest.getRequestType() );
+            }
+            if ( fail )
+            {
+                throw new IOException( "Server down" );
+            }
+            return (RemoteCacheResponse<T>) RemoteCacheRequestProcessor.processRequest(
+                service, (RemoteCacheRequest<String, String>) remoteCacheRequest );
+        }
+    };
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        service = new RemoteHttpCacheService<>( new MockCompositeCacheManager(), new RemoteHttpCacheServerAttributes(), null );
+    }
+
+    /**
+     * Creates a client that uses the dispatcher.
+     * <p>
+     * @param dispatcher the dispatcher
+     * @return the client
+     */
+    private static RemoteHttpCacheClient<String, String> createClient( final IRemoteCacheDispatcher dispatcher )
+    {
+        final RemoteHttpCacheClient<String, String> client = new RemoteHttpCacheClient<>( new RemoteHttpCacheAttributes() );
+        client.setRemoteDispatcher( dispatcher );
+        return client;
+    }
+
+    /**
+     * Runs the task on the given number of threads at once and waits for them.
+     * <p>
+     * @param threads the number of threads
+     * @param task gets the index of the thread
+     * @return the number of threads that failed
+     * @throws InterruptedException
+     */
+    private static int runConcurrently( final int threads, final ThreadTask task )
+        throws InterruptedException
+    {
+        final CountDownLatch go = new CountDownLatch( 1 );
+        final AtomicInteger errors = new AtomicInteger();
+        final List<Thread> callers = new ArrayList<>();
+        for ( int i = 0; i < threads; i++ )
+        {
+            final int index = i;
+            final Thread t = new Thread( () -> {
+                try
+                {
+                    go.await();
+                    task.run( index );
+                }
+                catch ( final Exception e )
+                {
+                    errors.incrementAndGet();
+                }
+            } );
+            t.start();
+            callers.add( t );
+        }
+
+        go.countDown();
+        for ( final Thread t : callers )
+        {
+            t.join();
+        }
+        return errors.get();
+    }
+
+    /** A task of one thread. */
+    private interface ThreadTask
+    {
+        /**
+         * @param index the index of the thread
+         * @throws Exception if the task failed
+         */
+        void run( int index )
+            throws Exception;
+    }
+
+    /**
+     * Concurrent gets are sent as one batch and every caller gets its own element.
+     * <p>
+     * @throws Exception
+     */
+    public void testConcurrentGetsAreSentAsOneBatch()
+        throws Exception
+    {
+        // SETUP
+        final int threads = 8;
+        for ( int i = 0; i < threads; i++ )
+        {
+            service.update( new CacheElement<>( CACHE_NAME, "key" + i, "value" + i ) );
+        }
+        final RemoteCacheBatchingDispatcher dispatcher = new RemoteCacheBatchingDispatcher( processingDispatcher, 500, 100 );
+        final RemoteHttpCacheClient<String, String> client = createClient( dispatcher );
+
+        // DO WORK
+        final int errors = runConcurrently( threads, index -> {
+            final ICacheElement<String, String> element = client.get( CACHE_NAME, "key" + index, 0 );
+            if ( !( "value" + index ).equals( element.getVal() ) )
+            {
+                throw new IllegalStateException( "Wrong element " + element );
+            }
+        } );
+
+        // VERIFY
+        assertEquals( "Every caller should get its own element", 0, errors );
+        assertEquals( "Wrong number of batches", 1, dispatcher.getBatchCount() );
+        assertEquals( "Wrong requests", 1, dispatched.size() );
+        assertEquals( "Wrong request type", RemoteRequestType.BATCH, dispatched.get( 0 ) );
+    }
+
+    /**
+     * A full batch is sent without waiting for the end of the window.
+     * <p>
+     * @throws Exception
+     */
+    public void testFullBatchIsSentRightAway()
+        throws Exception
+    {
+        // SETUP
+        final RemoteCacheBatchingDispatcher dispatcher = new RemoteCacheBatchingDispatcher( processingDispatcher, 60000, 2 );
+        final RemoteHttpCacheClient<String, String> client = createClient( dispatcher );
+
+        // DO WORK
+        final long start = System.currentTimeMillis();
+        final int errors = runConcurrently( 2, index -> client.update( new CacheElement<>( CACHE_NAME, "key" + index, "value" ), 0 ) );
+        final long elapsed = System.currentTimeMillis() - start;
+
+        // VERIFY
+        assertEquals( "No caller should fail", 0, errors );
+        assertTrue( "Should not wait for the window, took " + elapsed + " ms", elapsed < 10000 );
+        assertEquals( "Wrong number of batches", 1, dispatcher.getBatchCount() );
+        assertEquals( "value", service.get( CACHE_NAME, "key0" ).getVal() );
+        assertEquals( "value", service.get( CACHE_NAME, "key1" ).getVal() );
+    }
+
+    /**
+     * A lone request and requests that cannot be batched are sent as they are.
+     * <p>
+     * @throws Exception
+     */
+    public void testSingleRequestsAreNotWrapped()
+        throws Exception
+    {
+        // SETUP
+        final RemoteCacheBatchingDispatcher dispatcher = new RemoteCacheBatchingDispatcher( processingDispatcher, 10, 100 );
+        final RemoteHttpCacheClient<String, String> client = createClient( dispatcher );
+
+        // DO WORK
+        client.remove( CACHE_NAME, "key", 0 );
+        client.removeAll( CACHE_NAME, 0 );
+
+        // VERIFY
+        assertEquals( "Wrong number of batches", 0, dispatcher.getBatchCount() );
+        assertEquals( "Wrong request type", RemoteRequestType.REMOVE, dispatched.get( 0 ) );
+        assertEquals( "Wrong request type", RemoteRequestType.REMOVE_ALL, dispatched.get( 1 ) );
+    }
+
+    /**
+     * Every caller of a failed batch gets the failure.
+     * <p>
+     * @throws Exception
+     */
+    public void testFailedBatchFailsEveryCaller()
+        throws Exception
+    {
+        // SETUP
+        fail = true;
+        final int threads = 4;
+        final RemoteCacheBatchingDispatcher dispatcher = new RemoteCacheBatchingDispatcher( processingDispatcher, 500, threads );
+        final RemoteHttpCacheClient<String, String> client = createClient( dispatcher );
+
+        // DO WORK
+        final int errors = runConcurrently( threads, index -> client.get( CACHE_NAME, "key" + index, 0 ) );
+
+        // VERIFY
+        assertEquals( "Every caller should fail", threads, errors );
+        assertEquals( "Wrong number of requests", 1, dispatched.size() );
+    }
+}
@@ -65,4 +65,22 @@ public class CacheEventQueueFactoryUnitTest
         assertNotNull( "Should have a result", result );
         assertTrue( "Wrong type", result.getQueueType() == QueueType.POOLED );
     }
+
+    /** Test create */
+    public void testCreateCacheEventQueue_Coalescing()
+    {
+        // SETUP
+        final QueueType eventQueueType = QueueType.COALESCING;
+        final ICacheListener<String, String> listener = new MockRemoteCacheListener<>();
+        final long listenerId = 1;
+
+        final CacheEventQueueFactory<String, String> factory = new CacheEventQueueFactory<>();
+
+        // DO WORK
+        final ICacheEventQueue<String, String> result = factory.createCacheEventQueue( listener, listenerId, "cacheName", "threadPoolName", eventQueueType );
+
+        // VERIFY
+        assertNotNull( "Should have a result", result );
+        assertTrue( "Wrong type", result.getQueueType() == QueueType.COALESCING );
+    }
 }
@@ -0,0 +1,269 @@
+package org.apache.commons.jcs3.engine;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheListener;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+import org.apache.commons.jcs3.utils.timing.SleepUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the coalescing of events in the CoalescingCacheEventQueue.
+ */
+public class CoalescingCacheEventQueueUnitTest
+    extends TestCase
+{
+    /** Holds up the delivery of the first event until released */
+    private final CountDownLatch release = new CountDownLatch( 1 );
+
+    /** The events seen by the listener */
+    private final List<String> events = Collections.synchronizedList( new ArrayList<>() );
+
+    /** The queue under test */
+    private CoalescingCacheEventQueue<String, String> queue;
+
+    /**
+     * Test setup. The first put to "block" waits until the test releases it, so the following
+     * events pile up in the queue.
+     */
+    @Override
+    public void setUp()
+    {
+        final ICacheListener<String, String> listener = new ICacheListener<String, String>()
+        {
+            @Override
+            public void handlePut( final ICacheElement<String, String> item )
+            {
+                if ( "block".equals( item.getKey() ) )
+                {
+                    try
+                    {
+                        release.await( 10, TimeUnit.SECONDS );
+                    }
+                    catch ( final InterruptedException e )
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                events.add( "put " + item.getKey() + "=" + item.getVal() );
+            }
+
+            @Override
+            public void handlePutBatch( final List<ICacheElement<String, String>> items )
+            {
+                events.add( "batch " + items.size() );
+                for ( final ICacheElement<String, String> item : items )
+                {
+                    handlePut( item );
+                }
+            }
+
+            @Override
+            public void handleRemove( final String cacheName, final String key )
+            {
+                events.add( "remove " + key );
+            }
+
+            @Override
+            public void handleRemoveAll( final String cacheName )
+            {
+                events.add( "removeAll" );
+            }
+
+            @Override
+            public void handleDispose( final String cacheName )
+            {
+                events.add( "dispose" );
+            }
+
+            @Override
+            public void setListenerId( final long id )
+            {
+                // not used
+            }
+
+            @Override
+            public long getListenerId()
+            {
+                return 1;
+            }
+        };
+
+        queue = new CoalescingCacheEventQueue<>( listener, 1, "testCache", 3, 10, null );
+    }
+
+    /**
+     * @param key the key
+     * @param value the value
+     * @return an element for the test region
+     */
+    private ICacheElement<String, String> element( final String key, final String value )
+    {
+        return new CacheElement<>( "testCache", key, value );
+    }
+
+    /**
+     * Releases the blocked delivery and waits until the expected number of events arrived.
+     * <p>
+     * @param count the expected number of events
+     */
+    private void releaseAndWait( final int count )
+    {
+        release.countDown();
+        for ( int i = 0; i < 100 && ( events.size() < count || !queue.isEmpty() ); i++ )
+        {
+            SleepUtil.sleepAtLeast( 20 );
+        }
+    }
+
+    /**
+     * Only the latest put or remove per key is delivered, and the events that are left keep the
+     * order in which they were added.
+     * <p>
+     * @throws Exception
+     */
+    public void testLatestEventPerKeyWins()
+        throws Exception
+    {
+        // DO WORK
+        queue.addPutEvent( element( "block", "0" ) );
+        SleepUtil.sleepAtLeast( 100 );
+
+        queue.addPutEvent( element( "a", "1" ) );
+        queue.addPutEvent( element( "b", "1" ) );
+        queue.addPutEvent( element( "a", "2" ) );
+        queue.addRemoveEvent( "b" );
+        queue.addPutEvent( element( "c", "1" ) );
+        queue.addPutEvent( element( "a", "3" ) );
+
+        assertEquals( "Wrong number of pending events", 3, queue.size() );
+        releaseAndWait( 4 );
+
+        // VERIFY
+        assertEquals( Arrays.asList( "put block=0", "remove b", "put c=1", "put a=3" ), events );
+        assertEquals( "Wrong coalesced count", 3, queue.getCoalescedCount() );
+    }
+
+    /**
+     * A remove all makes the puts and removes before it obsolete. Events after it are kept.
+     * <p>
+     * @throws Exception
+     */
+    public void testRemoveAllDropsPendingEvents()
+        throws Exception
+    {
+        // DO WORK
+        queue.addPutEvent( element( "block", "0" ) );
+        SleepUtil.sleepAtLeast( 100 );
+
+        queue.addPutEvent( element( "x", "1" ) );
+        queue.addRemoveEvent( "y" );
+        queue.addRemoveAllEvent();
+        queue.addPutEvent( element( "x", "2" ) );
+        queue.addDisposeEvent();
+
+        releaseAndWait( 4 );
+
+        // VERIFY
+        assertEquals( Arrays.asList( "put block=0", "removeAll", "put x=2", "dispose" ), events );
+    }
+
+    /**
+     * Many updates of a few hot keys must not grow the queue beyond the number of keys.
+     * <p>
+     * @throws Exception
+     */
+    public void testQueueIsBoundedByKeys()
+        throws Exception
+    {
+        // DO WORK
+        queue.addPutEvent( element( "block", "0" ) );
+        SleepUtil.sleepAtLeast( 100 );
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            queue.addPutEvent( element( "hot" + ( i % 10 ), "value" + i ) );
+        }
+
+        final int size = queue.size();
+        final IStats stats = queue.getStatistics();
+        releaseAndWait( 11 );
+
+        // VERIFY
+        assertEquals( "Wrong number of pending events", 10, size );
+        assertEquals( "Wrong number of delivered events", 11, events.size() );
+        for ( int k = 0; k < 10; k++ )
+        {
+            assertEquals( "put hot" + k + "=value" + ( 990 + k ), events.get( k + 1 ) );
+        }
+
+        Object coalesced = null;
+        for ( final IStatElement<?> element : stats.getStatElements() )
+        {
+            if ( "Coalesced Events".equals( element.getName() ) )
+            {
+                coalesced = element.getData();
+            }
+        }
+        assertEquals( "Coalesced events should be reported", Long.valueOf( 990 ), coalesced );
+    }
+
+    /**
+     * With a maximum batch size, consecutive puts are delivered in one call. Other events end a
+     * batch.
+     * <p>
+     * @throws Exception
+     */
+    public void testConsecutivePutsAreBatched()
+        throws Exception
+    {
+        // SETUP
+        queue.setMaxBatchSize( 4 );
+
+        // DO WORK
+        queue.addPutEvent( element( "block", "0" ) );
+        SleepUtil.sleepAtLeast( 100 );
+
+        for ( final String key : new String[] { "a", "b", "c", "d", "e", "f" } )
+        {
+            queue.addPutEvent( element( key, "1" ) );
+        }
+        queue.addRemoveEvent( "x" );
+        queue.addPutEvent( element( "g", "1" ) );
+
+        releaseAndWait( 12 );
+
+        // VERIFY
+        assertEquals( Arrays.asList( "put block=0",
+                "batch 4", "put a=1", "put b=1", "put c=1", "put d=1",
+                "batch 2", "put e=1", "put f=1",
+                "remove x", "put g=1" ), events );
+    }
+}
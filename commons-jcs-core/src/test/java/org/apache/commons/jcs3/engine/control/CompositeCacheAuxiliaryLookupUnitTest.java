@@ -0,0 +1,330 @@
+package org.apache.commons.jcs3.engine.control;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.jcs3.auxiliary.MockAuxiliaryCache;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.CompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.ElementAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheType.CacheType;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes.AuxiliaryLookupPattern;
+import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the PARALLEL and HEDGED lookup patterns of the auxiliary caches.
+ */
+public class CompositeCacheAuxiliaryLookupUnitTest
+    extends TestCase
+{
+    /** Region name */
+    private static final String cacheName = "testAuxiliaryLookup";
+
+    /**
+     * The slow first auxiliary must not hold up the hit in the fast second one.
+     * <p>
+     * @throws IOException
+     */
+    public void testParallelTakesFastestHit()
+        throws IOException
+    {
+        final DelayedAuxiliaryCache slow = new DelayedAuxiliaryCache( CacheType.DISK_CACHE, 1000 );
+        final DelayedAuxiliaryCache fast = new DelayedAuxiliaryCache( CacheType.REMOTE_CACHE, 0 );
+        slow.put( "key", "slow" );
+        fast.put( "key", "fast" );
+
+        final CompositeCache<String, String> cache = createCache( AuxiliaryLookupPattern.PARALLEL, slow, fast );
+
+        final long start = System.currentTimeMillis();
+        final ICacheElement<String, String> element = cache.get( "key" );
+        final long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals( "fast", element.getVal() );
+        assertTrue( "Waited for the slow auxiliary: " + elapsed, elapsed < 800 );
+        assertEquals( 1, fast.getCount.get() );
+        assertEquals( 1, cache.getHitCountAux() );
+
+        // copied to memory
+        assertNotNull( cache.getMemoryCache().getQuiet( "key" ) );
+    }
+
+    /**
+     * With a hedged lookup the second auxiliary is only asked after the delay.
+     */
+    public void testHedgedAsksNextTierAfterDelay()
+    {
+        final DelayedAuxiliaryCache slow = new DelayedAuxiliaryCache( CacheType.DISK_CACHE, 1000 );
+        final DelayedAuxiliaryCache fast = new DelayedAuxiliaryCache( CacheType.REMOTE_CACHE, 0 );
+        slow.put( "key", "slow" );
+        fast.put( "key", "fast" );
+
+        final CompositeCache<String, String> cache = createCache( AuxiliaryLookupPattern.HEDGED, slow, fast );
+        cache.getCacheAttributes().setAuxiliaryHedgeDelayMillis( 50 );
+
+        final long start = System.currentTimeMillis();
+        final ICacheElement<String, String> element = cache.get( "key" );
+        final long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals( "fast", element.getVal() );
+        assertTrue( "Did not wait for the hedge delay: " + elapsed, elapsed >= 50 );
+        assertTrue( "Waited for the slow auxiliary: " + elapsed, elapsed < 800 );
+    }
+
+    /**
+     * With a hedged lookup the second auxiliary is not asked if the first one answers in time.
+     */
+    public void testHedgedFirstTierHit()
+    {
+        final DelayedAuxiliaryCache first = new DelayedAuxiliaryCache( CacheType.DISK_CACHE, 0 );
+        final DelayedAuxiliaryCache second = new DelayedAuxiliaryCache( CacheType.REMOTE_CACHE, 0 );
+        first.put( "key", "first" );
+        second.put( "key", "second" );
+
+        final CompositeCache<String, String> cache = createCache( AuxiliaryLookupPattern.HEDGED, first, second );
+        cache.getCacheAttributes().setAuxiliaryHedgeDelayMillis( 1000 );
+
+        assertEquals( "first", cache.get( "key" ).getVal() );
+        assertEquals( 0, second.getCount.get() );
+    }
+
+    /**
+     * A miss in the first tier starts the next one right away.
+     */
+    public void testHedgedMissDoesNotWaitForDelay()
+    {
+        final DelayedAuxiliaryCache first = new DelayedAuxiliaryCache( CacheType.DISK_CACHE, 0 );
+        final DelayedAuxiliaryCache second = new DelayedAuxiliaryCache( CacheType.REMOTE_CACHE, 0 );
+        second.put( "key", "second" );
+
+        final CompositeCache<String, String> cache = createCache( AuxiliaryLookupPattern.HEDGED, first, second );
+        cache.getCacheAttributes().setAuxiliaryHedgeDelayMillis( 5000 );
+
+        final long start = System.currentTimeMillis();
+        assertEquals( "second", cache.get( "key" ).getVal() );
+        assertTrue( "Waited for the hedge delay", System.currentTimeMillis() - start < 4000 );
+
+        assertNull( cache.get( "nothere" ) );
+        assertEquals( 1, cache.getMissCountNotFound() );
+    }
+
+    /**
+     * An expired element in one auxiliary must not hide a valid one in another.
+     * <p>
+     * @throws Exception
+     */
+    public void testParallelSkipsExpiredElement()
+        throws Exception
+    {
+        final DelayedAuxiliaryCache first = new DelayedAuxiliaryCache( CacheType.DISK_CACHE, 0 );
+        final DelayedAuxiliaryCache second = new DelayedAuxiliaryCache( CacheType.REMOTE_CACHE, 100 );
+
+        final IElementAttributes expiring = new ElementAttributes();
+        expiring.setIsEternal( false );
+        expiring.setTimeFactorForMilliseconds( 1 );
+        expiring.setMaxLife( 1 );
+        final ICacheElement<String, String> old = new CacheElement<>( cacheName, "key", "old" );
+        old.setElementAttributes( expiring );
+        first.elements.put( "key", old );
+        second.put( "key", "new" );
+        Thread.sleep( 10 );
+
+        final CompositeCache<String, String> cache = createCache( AuxiliaryLookupPattern.PARALLEL, first, second );
+
+        assertEquals( "new", cache.get( "key" ).getVal() );
+        assertEquals( 0, cache.getMissCountExpired() );
+        assertEquals( 0, first.removeCount.get() );
+    }
+
+    /**
+     * Verify getMultiple collects the keys from all auxiliaries.
+     */
+    public void testParallelGetMultiple()
+    {
+        final DelayedAuxiliaryCache first = new DelayedAuxiliaryCache( CacheType.DISK_CACHE, 0 );
+        final DelayedAuxiliaryCache second = new DelayedAuxiliaryCache( CacheType.REMOTE_CACHE, 0 );
+        first.put( "a", "first a" );
+        second.put( "b", "second b" );
+
+        final CompositeCache<String, String> cache = createCache( AuxiliaryLookupPattern.PARALLEL, first, second );
+
+        final Set<String> keys = new HashSet<>( Arrays.asList( "a", "b", "c" ) );
+        final Map<String, ICacheElement<String, String>> elements = cache.getMultiple( keys );
+
+        assertEquals( 2, elements.size() );
+        assertEquals( "first a", elements.get( "a" ).getVal() );
+        assertEquals( "second b", elements.get( "b" ).getVal() );
+        assertEquals( 1, cache.getMissCountNotFound() );
+        assertEquals( 2, cache.getHitCountAux() );
+    }
+
+    /**
+     * Local gets must still skip the remote auxiliaries.
+     */
+    public void testParallelLocalOnly()
+    {
+        final DelayedAuxiliaryCache disk = new DelayedAuxiliaryCache( CacheType.DISK_CACHE, 0 );
+        final DelayedAuxiliaryCache remote = new DelayedAuxiliaryCache( CacheType.REMOTE_CACHE, 0 );
+        remote.put( "key", "remote" );
+
+        final CompositeCache<String, String> cache = createCache( AuxiliaryLookupPattern.PARALLEL, disk, remote );
+
+        assertNull( cache.localGet( "key" ) );
+        assertEquals( 1, disk.getCount.get() );
+        assertEquals( 0, remote.getCount.get() );
+    }
+
+    /**
+     * The default still asks the auxiliaries one after the other.
+     */
+    public void testSequentialIsDefault()
+    {
+        final DelayedAuxiliaryCache first = new DelayedAuxiliaryCache( CacheType.DISK_CACHE, 0 );
+        final DelayedAuxiliaryCache second = new DelayedAuxiliaryCache( CacheType.REMOTE_CACHE, 0 );
+        first.put( "key", "first" );
+        second.put( "key", "second" );
+
+        final CompositeCache<String, String> cache = createCache( null, first, second );
+        assertEquals( AuxiliaryLookupPattern.SEQUENTIAL, cache.getCacheAttributes().getAuxiliaryLookupPattern() );
+
+        assertEquals( "first", cache.get( "key" ).getVal() );
+        assertEquals( 0, second.getCount.get() );
+    }
+
+    /**
+     * @param pattern the lookup pattern, null for the default
+     * @param auxiliaries the auxiliaries in order
+     * @return the region
+     */
+    private CompositeCache<String, String> createCache( final AuxiliaryLookupPattern pattern,
+            final DelayedAuxiliaryCache... auxiliaries )
+    {
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName( cacheName );
+        cattr.setMaxObjects( 100 );
+        // slow lookups of other tests may still occupy a shared pool
+        cattr.setAuxiliaryLookupThreadPoolName( getName() );
+        if ( pattern != null )
+        {
+            cattr.setAuxiliaryLookupPattern( pattern );
+        }
+
+        final CompositeCache<String, String> cache = new CompositeCache<>( cattr, new ElementAttributes() );
+        cache.setAuxCaches( Arrays.asList( auxiliaries ) );
+        return cache;
+    }
+
+    /**
+     * An auxiliary that answers after a delay.
+     */
+    private static class DelayedAuxiliaryCache
+        extends MockAuxiliaryCache<String, String>
+    {
+        /** Time to answer a get */
+        private final long delayMillis;
+
+        /** The contents */
+        final Map<String, ICacheElement<String, String>> elements = new ConcurrentHashMap<>();
+
+        /** Number of gets */
+        final AtomicInteger getCount = new AtomicInteger();
+
+        /** Number of removes */
+        final AtomicInteger removeCount = new AtomicInteger();
+
+        /**
+         * @param cacheType the type of the auxiliary
+         * @param delayMillis time to answer a get
+         */
+        DelayedAuxiliaryCache( final CacheType cacheType, final long delayMillis )
+        {
+            this.cacheType = cacheType;
+            this.delayMillis = delayMillis;
+        }
+
+        /**
+         * @param key
+         * @param value
+         */
+        void put( final String key, final String value )
+        {
+            elements.put( key, new CacheElement<>( cacheName, key, value ) );
+        }
+
+        @Override
+        public ICacheElement<String, String> get( final String key )
+            throws IOException
+        {
+            getCount.incrementAndGet();
+            if ( delayMillis > 0 )
+            {
+                try
+                {
+                    Thread.sleep( delayMillis );
+                }
+                catch ( final InterruptedException e )
+                {
+                    throw new IOException( e );
+                }
+            }
+            return elements.get( key );
+        }
+
+        @Override
+        public Map<String, ICacheElement<String, String>> getMultiple( final Set<String> keys )
+        {
+            final Map<String, ICacheElement<String, String>> result = new HashMap<>();
+            try
+            {
+                for ( final String key : keys )
+                {
+                    final ICacheElement<String, String> element = get( key );
+                    if ( element != null )
+                    {
+                        result.put( key, element );
+                    }
+                }
+            }
+            catch ( final IOException e )
+            {
+                fail( e.getMessage() );
+            }
+            return result;
+        }
+
+        @Override
+        public boolean remove( final String key )
+        {
+            removeCount.incrementAndGet();
+            return elements.remove( key ) != null;
+        }
+    }
+}
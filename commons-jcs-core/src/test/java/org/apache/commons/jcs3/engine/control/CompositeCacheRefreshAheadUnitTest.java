@@ -0,0 +1,199 @@
+package org.apache.commons.jcs3.engine.control;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.jcs3.access.CacheAccess;
+import org.apache.commons.jcs3.engine.CompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.ElementAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the refresh-ahead of elements close to their max life.
+ */
+public class CompositeCacheRefreshAheadUnitTest
+    extends TestCase
+{
+    /** Max life of the elements in milliseconds */
+    private static final long maxLife = 400;
+
+    /** The region */
+    private CompositeCache<String, String> cache;
+
+    /** Access to the region */
+    private CacheAccess<String, String> access;
+
+    /**
+     * Set up a region whose elements live 400 ms and are refreshed after half of that.
+     */
+    @Override
+    public void setUp()
+    {
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName( "testRefreshAhead" );
+        cattr.setMaxObjects( 100 );
+
+        final IElementAttributes attr = new ElementAttributes();
+        attr.setIsEternal( false );
+        attr.setTimeFactorForMilliseconds( 1 );
+        attr.setMaxLife( maxLife );
+        attr.setRefreshAheadPercent( 50 );
+
+        cache = new CompositeCache<>( cattr, attr );
+        access = new CacheAccess<>( cache );
+    }
+
+    /**
+     * A read after the refresh point returns the current value and reloads it in the background,
+     * so the key does not expire.
+     * <p>
+     * @throws Exception
+     */
+    public void testReadAfterRefreshPointReloads()
+        throws Exception
+    {
+        final CountDownLatch loaded = new CountDownLatch( 1 );
+        access.setRefreshAheadLoader( key -> {
+            loaded.countDown();
+            return "new " + key;
+        } );
+
+        access.put( "key", "old" );
+
+        assertEquals( "old", access.get( "key" ) );
+        assertEquals( "Reloaded before the refresh point", 1, loaded.getCount() );
+
+        Thread.sleep( maxLife * 3 / 4 );
+
+        assertEquals( "Should get the current value", "old", access.get( "key" ) );
+        assertTrue( "Not reloaded", loaded.await( 10, TimeUnit.SECONDS ) );
+        waitForValue( "new key" );
+        assertEquals( 1, cache.getRefreshAheadCount() );
+
+        // past the max life of the first element
+        Thread.sleep( maxLife / 2 );
+        assertEquals( "new key", access.get( "key" ) );
+        assertEquals( 0, cache.getMissCountExpired() );
+    }
+
+    /**
+     * Concurrent reads of a key due for refresh reload it only once.
+     * <p>
+     * @throws Exception
+     */
+    public void testConcurrentReadsReloadOnce()
+        throws Exception
+    {
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final AtomicInteger loads = new AtomicInteger();
+        access.setRefreshAheadLoader( key -> {
+            loads.incrementAndGet();
+            try
+            {
+                release.await();
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+            return "new";
+        } );
+
+        access.put( "key", "old" );
+        Thread.sleep( maxLife * 3 / 4 );
+
+        for ( int i = 0; i < 20; i++ )
+        {
+            assertEquals( "old", access.get( "key" ) );
+        }
+
+        release.countDown();
+        waitForValue( "new" );
+
+        assertEquals( 1, loads.get() );
+        assertEquals( "new", access.get( "key" ) );
+    }
+
+    /**
+     * If the loader has nothing, the element expires as usual.
+     * <p>
+     * @throws Exception
+     */
+    public void testLoaderReturnsNull()
+        throws Exception
+    {
+        access.setRefreshAheadLoader( key -> null );
+
+        access.put( "key", "old" );
+        Thread.sleep( maxLife * 3 / 4 );
+        assertEquals( "old", access.get( "key" ) );
+
+        Thread.sleep( maxLife / 2 );
+        assertNull( access.get( "key" ) );
+        assertEquals( 1, cache.getRefreshAheadCount() );
+        assertEquals( 1, cache.getMissCountExpired() );
+    }
+
+    /**
+     * Without a loader nothing is reloaded.
+     * <p>
+     * @throws Exception
+     */
+    public void testNoLoader()
+        throws Exception
+    {
+        access.put( "key", "old" );
+        Thread.sleep( maxLife * 3 / 4 );
+        assertEquals( "old", access.get( "key" ) );
+
+        Thread.sleep( maxLife / 2 );
+        assertNull( access.get( "key" ) );
+        assertEquals( 0, cache.getRefreshAheadCount() );
+    }
+
+    /**
+     * Wait until the memory cache has the value, without triggering another refresh.
+     * <p>
+     * @param value the expected value
+     * @throws Exception
+     */
+    private void waitForValue( final String value )
+        throws Exception
+    {
+        final long end = System.currentTimeMillis() + 10000;
+        while ( System.currentTimeMillis() < end )
+        {
+            final ICacheElement<String, String> element = cache.getMemoryCache().getQuiet( "key" );
+            if ( element != null && value.equals( element.getVal() ) )
+            {
+                return;
+            }
+            Thread.sleep( 5 );
+        }
+        fail( "Value was not reloaded: " + value );
+    }
+}
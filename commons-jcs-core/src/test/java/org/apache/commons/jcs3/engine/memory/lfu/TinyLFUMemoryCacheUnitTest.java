@@ -0,0 +1,222 @@
+package org.apache.commons.jcs3.engine.memory.lfu;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+
+import org.apache.commons.jcs3.JCS;
+import org.apache.commons.jcs3.access.CacheAccess;
+import org.apache.commons.jcs3.access.exception.CacheException;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.control.CompositeCacheManager;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the TinyLFUMemoryCache.
+ */
+public class TinyLFUMemoryCacheUnitTest
+    extends TestCase
+{
+    /** Test setup */
+    @Override
+    public void setUp()
+    {
+        JCS.setConfigFilename( "/TestTinyLFUCache.ccf" );
+    }
+
+    /**
+     * Verify that the TinyLFU memory cache gets used by a non-defined region when it is set as
+     * the default in the default region.
+     * <p>
+     * @throws CacheException
+     */
+    public void testLoadFromCCF()
+        throws CacheException
+    {
+        final CacheAccess<String, String> cache = JCS.getInstance( "testLoadFromCCF" );
+        final String memoryCacheName = cache.getCacheAttributes().getMemoryCacheName();
+        assertTrue( "Cache name should have TinyLFU in it.", memoryCacheName.indexOf( "TinyLFUMemoryCache" ) != -1 );
+    }
+
+    /**
+     * Put twice as many as the max through the hub. The memory cache must never grow beyond its
+     * limit and every item still present must have the right value.
+     * <p>
+     * @throws CacheException
+     */
+    public void testPutGetThroughHub()
+        throws CacheException
+    {
+        final CacheAccess<String, String> cache = JCS.getInstance( "testPutGetThroughHub" );
+
+        final int max = cache.getCacheAttributes().getMaxObjects();
+        final int items = max * 2;
+
+        for ( int i = 0; i < items; i++ )
+        {
+            cache.put( i + ":key", "myregion" + " data " + i );
+        }
+
+        int found = 0;
+        for ( int i = 0; i < items; i++ )
+        {
+            final String value = cache.get( i + ":key" );
+            if ( value != null )
+            {
+                assertEquals( "myregion" + " data " + i, value );
+                found++;
+            }
+        }
+
+        assertEquals( "Wrong number of items in memory", max, found );
+    }
+
+    /**
+     * A scan of keys that are seen only once must not push out a frequently used working set.
+     * <p>
+     * @throws Exception
+     */
+    public void testScanResistance()
+        throws Exception
+    {
+        final CompositeCache<String, String> cache =
+            CompositeCacheManager.getInstance( "/TestTinyLFUCache.ccf" ).getCache( "testScanResistance" );
+        final TinyLFUMemoryCache<String, String> lfu = new TinyLFUMemoryCache<>();
+        lfu.initialize( cache );
+
+        // hot working set, half of the cache, requested several times
+        for ( int i = 0; i < 50; i++ )
+        {
+            lfu.update( createElement( cache, "hot" + i ) );
+        }
+        for ( int round = 0; round < 5; round++ )
+        {
+            for ( int i = 0; i < 50; i++ )
+            {
+                assertNotNull( lfu.get( "hot" + i ) );
+            }
+        }
+
+        // one-off scan of ten times the cache size
+        for ( int i = 0; i < 1000; i++ )
+        {
+            lfu.update( createElement( cache, "cold" + i ) );
+        }
+
+        for ( int i = 0; i < 50; i++ )
+        {
+            assertNotNull( "Hot item was evicted by the scan: hot" + i, lfu.get( "hot" + i ) );
+        }
+        assertTrue( "Cache is too large: " + lfu.getSize(), lfu.getSize() <= 100 );
+
+        final List<List<String>> segments = lfu.getSegmentKeys();
+        assertTrue( "Window is too large", segments.get( 0 ).size() <= 1 );
+        for ( int i = 0; i < 50; i++ )
+        {
+            assertTrue( "Hot item should be protected: hot" + i, segments.get( 2 ).contains( "hot" + i ) );
+        }
+        assertEquals( "Map and segments out of sync", lfu.getSize(),
+                segments.get( 0 ).size() + segments.get( 1 ).size() + segments.get( 2 ).size() );
+    }
+
+    /**
+     * Verify removal and freeElements keep the segments consistent.
+     * <p>
+     * @throws Exception
+     */
+    public void testRemoveAndFree()
+        throws Exception
+    {
+        final CompositeCache<String, String> cache =
+            CompositeCacheManager.getInstance( "/TestTinyLFUCache.ccf" ).getCache( "testRemoveAndFree" );
+        final TinyLFUMemoryCache<String, String> lfu = new TinyLFUMemoryCache<>();
+        lfu.initialize( cache );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            lfu.update( createElement( cache, i + ":key" ) );
+        }
+        assertNotNull( lfu.get( "5:key" ) );
+
+        assertTrue( lfu.remove( "5:key" ) );
+        assertNull( lfu.get( "5:key" ) );
+        assertEquals( 99, lfu.getSize() );
+
+        assertEquals( 10, lfu.freeElements( 10 ) );
+        assertEquals( 89, lfu.getSize() );
+
+        final List<List<String>> segments = lfu.getSegmentKeys();
+        assertEquals( "Map and segments out of sync", lfu.getSize(),
+                segments.get( 0 ).size() + segments.get( 1 ).size() + segments.get( 2 ).size() );
+
+        lfu.removeAll();
+        assertEquals( 0, lfu.getSize() );
+        assertEquals( 0, lfu.freeElements( 10 ) );
+    }
+
+    /**
+     * Verify that the hit ratio is reported.
+     * <p>
+     * @throws Exception
+     */
+    public void testStatistics()
+        throws Exception
+    {
+        final CompositeCache<String, String> cache =
+            CompositeCacheManager.getInstance( "/TestTinyLFUCache.ccf" ).getCache( "testStatistics" );
+        final TinyLFUMemoryCache<String, String> lfu = new TinyLFUMemoryCache<>();
+        lfu.initialize( cache );
+
+        lfu.update( createElement( cache, "a" ) );
+        lfu.get( "a" );
+        lfu.get( "a" );
+        lfu.get( "a" );
+        lfu.get( "b" );
+
+        final IStats stats = lfu.getStatistics();
+        Object hitRatio = null;
+        for ( final IStatElement<?> element : stats.getStatElements() )
+        {
+            if ( "Hit Ratio".equals( element.getName() ) )
+            {
+                hitRatio = element.getData();
+            }
+        }
+
+        assertEquals( "Wrong hit ratio", Double.valueOf( 0.75 ), hitRatio );
+    }
+
+    /**
+     * @param cache the region
+     * @param key the key
+     * @return a cache element for the region
+     */
+    private ICacheElement<String, String> createElement( final CompositeCache<String, String> cache, final String key )
+    {
+        final ICacheElement<String, String> ice = new CacheElement<>( cache.getCacheName(), key, "data " + key );
+        ice.setElementAttributes( cache.getElementAttributes() );
+        return ice;
+    }
+}
@@ -0,0 +1,249 @@
+package org.apache.commons.jcs3.engine.memory.lru;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.control.CompositeCacheManager;
+import org.apache.commons.jcs3.engine.memory.AbstractMemoryCache;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the BufferedLRUMemoryCache from several threads and compares its read throughput with the
+ * LRUMemoryCache for an increasing number of threads.
+ */
+public class BufferedLRUMemoryCacheConcurrentUnitTest
+    extends TestCase
+{
+    /** Number of items to cache, twice the configured maxObjects for the memory cache regions. */
+    private static final int items = 200;
+
+    /** Gets per thread in the throughput test */
+    private static final int getsPerThread = 200000;
+
+    /** The region */
+    private CompositeCache<String, String> cache;
+
+    /**
+     * Test setup
+     */
+    @Override
+    public void setUp()
+    {
+        final CompositeCacheManager cacheMgr = CompositeCacheManager.getUnconfiguredInstance();
+        cacheMgr.configure( "/TestDiskCache.ccf" );
+        cache = cacheMgr.getCache( "testRegion1" );
+    }
+
+    /**
+     * Adds items to cache, gets them, and removes them. The item count is more than the size of
+     * the memory cache, so items should be dumped.
+     * <p>
+     * @throws Exception
+     */
+    public void testBufferedLRUMemoryCache()
+        throws Exception
+    {
+        final BufferedLRUMemoryCache<String, String> lru = new BufferedLRUMemoryCache<>();
+        lru.initialize( cache );
+
+        for ( int i = 0; i < items; i++ )
+        {
+            lru.update( createElement( i ) );
+        }
+
+        // Test that initial items have been purged
+        for ( int i = 0; i < 100; i++ )
+        {
+            assertNull( "Should not have " + i + ":key", lru.get( i + ":key" ) );
+        }
+
+        // Test that last items are in cache
+        for ( int i = 100; i < items; i++ )
+        {
+            assertEquals( "testRegion1 data " + i, lru.get( i + ":key" ).getVal() );
+        }
+
+        final Set<String> keys = new HashSet<>();
+        for ( int i = 0; i < items; i++ )
+        {
+            keys.add( i + ":key" );
+        }
+
+        final Map<String, ICacheElement<String, String>> elements = lru.getMultiple( keys );
+        assertEquals( "Wrong number of elements", items - 100, elements.size() );
+
+        for ( int i = 0; i < items; i++ )
+        {
+            lru.remove( i + ":key" );
+        }
+
+        for ( int i = 0; i < items; i++ )
+        {
+            assertNull( "Removed key should be null: " + i + ":key", lru.get( i + ":key" ) );
+        }
+        assertEquals( "Map should be empty", 0, lru.getSize() );
+    }
+
+    /**
+     * Verify that buffered reads still protect recently used items from eviction.
+     * <p>
+     * @throws Exception
+     */
+    public void testRecentlyReadItemsSurviveEviction()
+        throws Exception
+    {
+        final BufferedLRUMemoryCache<String, String> lru = new BufferedLRUMemoryCache<>();
+        lru.initialize( cache );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            lru.update( createElement( i ) );
+        }
+
+        // touch the oldest items
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertNotNull( lru.get( i + ":key" ) );
+        }
+
+        // push out 50 items
+        for ( int i = 100; i < 150; i++ )
+        {
+            lru.update( createElement( i ) );
+        }
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertNotNull( "Recently read item was evicted " + i + ":key", lru.get( i + ":key" ) );
+        }
+        for ( int i = 10; i < 60; i++ )
+        {
+            assertNull( "Should not have " + i + ":key", lru.get( i + ":key" ) );
+        }
+    }
+
+    /**
+     * Runs concurrent gets against both implementations with 1 to N threads and prints the
+     * throughput. Checks only the correctness of the results.
+     * <p>
+     * @throws Exception
+     */
+    public void testReadThroughputScaling()
+        throws Exception
+    {
+        final int maxThreads = Math.max( 2, Runtime.getRuntime().availableProcessors() );
+
+        for ( int threads = 1; threads <= maxThreads; threads *= 2 )
+        {
+            final LRUMemoryCache<String, String> lru = new LRUMemoryCache<>();
+            lru.initialize( cache );
+            final BufferedLRUMemoryCache<String, String> buffered = new BufferedLRUMemoryCache<>();
+            buffered.initialize( cache );
+
+            final long lruOps = runGets( lru, threads );
+            final long bufferedOps = runGets( buffered, threads );
+
+            System.out.println( "threads = " + threads
+                    + ", LRUMemoryCache gets/ms = " + lruOps
+                    + ", BufferedLRUMemoryCache gets/ms = " + bufferedOps );
+
+            assertEquals( "All items should still be in memory", 100, buffered.getSize() );
+        }
+    }
+
+    /**
+     * Fill the memory cache and run gets from the given number of threads.
+     * <p>
+     * @param mc the memory cache
+     * @param threads number of threads
+     * @return gets per millisecond
+     * @throws Exception
+     */
+    private long runGets( final AbstractMemoryCache<String, String> mc, final int threads )
+        throws Exception
+    {
+        for ( int i = 0; i < 100; i++ )
+        {
+            mc.update( createElement( i ) );
+        }
+
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final AtomicInteger misses = new AtomicInteger();
+        final List<Thread> workers = new ArrayList<>();
+
+        for ( int t = 0; t < threads; t++ )
+        {
+            final int offset = t;
+            final Thread worker = new Thread( () -> {
+                try
+                {
+                    start.await();
+                    for ( int i = 0; i < getsPerThread; i++ )
+                    {
+                        if ( mc.get( ( ( i + offset ) % 100 ) + ":key" ) == null )
+                        {
+                            misses.incrementAndGet();
+                        }
+                    }
+                }
+                catch ( final Exception e )
+                {
+                    misses.incrementAndGet();
+                }
+            } );
+            worker.start();
+            workers.add( worker );
+        }
+
+        final long begin = System.nanoTime();
+        start.countDown();
+        for ( final Thread worker : workers )
+        {
+            worker.join();
+        }
+        final long millis = Math.max( 1, ( System.nanoTime() - begin ) / 1000000 );
+
+        assertEquals( "Should not have missed", 0, misses.get() );
+        return (long) threads * getsPerThread / millis;
+    }
+
+    /**
+     * @param i index
+     * @return a cache element for the region
+     */
+    private ICacheElement<String, String> createElement( final int i )
+    {
+        final ICacheElement<String, String> ice =
+            new CacheElement<>( cache.getCacheName(), i + ":key", "testRegion1 data " + i );
+        ice.setElementAttributes( cache.getElementAttributes() );
+        return ice;
+    }
+}
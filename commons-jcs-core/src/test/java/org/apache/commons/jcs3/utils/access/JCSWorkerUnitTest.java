@@ -21,6 +21,9 @@ package org.apache.commons.jcs3.utils.access;
  * under the License.
  */
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import junit.framework.TestCase;
 
 /**
@@ -68,4 +71,71 @@ public class JCSWorkerUnitTest
         assertEquals( "Called the wrong number of times", Long.valueOf( 1 ), result2 );
     }
 
+
+    /**
+     * Verify that two workers for the same region share the work for the same key and that
+     * exceptions of the helper are passed through.
+     *
+     * @throws Exception
+     */
+    public void testConcurrentWorkersShareWork()
+        throws Exception
+    {
+        final JCSWorker<String, Long> worker1 = new JCSWorker<>( "example region" );
+        final JCSWorker<String, Long> worker2 = new JCSWorker<>( "example region" );
+        final AtomicInteger timesCalled = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch( 1 );
+
+        final JCSWorkerHelper<Long> slowHelper = new AbstractJCSWorkerHelper<Long>()
+        {
+            @Override
+            public Long doWork()
+                throws Exception
+            {
+                started.countDown();
+                Thread.sleep( 200 );
+                return Long.valueOf( timesCalled.incrementAndGet() );
+            }
+        };
+
+        final Long[] results = new Long[2];
+        final Thread t1 = new Thread( () -> {
+            try
+            {
+                results[0] = worker1.getResult( "shared", slowHelper );
+            }
+            catch ( final Exception e )
+            {
+                // checked below
+            }
+        } );
+        t1.start();
+        started.await();
+        results[1] = worker2.getResult( "shared", slowHelper );
+        t1.join();
+
+        assertEquals( "Helper should be called once", 1, timesCalled.get() );
+        assertEquals( Long.valueOf( 1 ), results[0] );
+        assertEquals( Long.valueOf( 1 ), results[1] );
+
+        final JCSWorkerHelper<Long> failingHelper = new AbstractJCSWorkerHelper<Long>()
+        {
+            @Override
+            public Long doWork()
+                throws Exception
+            {
+                throw new Exception( "expected" );
+            }
+        };
+
+        try
+        {
+            worker1.getResult( "failing", failingHelper );
+            fail( "Should have thrown the exception of the helper" );
+        }
+        catch ( final Exception e )
+        {
+            assertEquals( "expected", e.getMessage() );
+        }
+    }
 }
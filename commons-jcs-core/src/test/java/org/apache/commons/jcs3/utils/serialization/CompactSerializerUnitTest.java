@@ -0,0 +1,408 @@
+package org.apache.commons.jcs3.utils.serialization;
+
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCommand;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralElementDescriptor;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.CacheElementSerialized;
+import org.apache.commons.jcs3.engine.ElementAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the compact serializer.
+ */
+public class CompactSerializerUnitTest
+    extends TestCase
+{
+    /** The serializer under test */
+    private final CompactSerializer serializer = new CompactSerializer();
+
+    /**
+     * @param before the value
+     * @return the value after a round trip
+     * @throws Exception
+     */
+    private <T> T roundTrip( final T before )
+        throws Exception
+    {
+        return serializer.deSerialize( serializer.serialize( before ), null );
+    }
+
+    /**
+     * Strings, boxed primitives and byte arrays survive the round trip.
+     * <p>
+     * @throws Exception
+     */
+    public void testSimpleTypesBackAndForth()
+        throws Exception
+    {
+        // DO WORK & VERIFY
+        assertNull( roundTrip( null ) );
+        assertEquals( "", roundTrip( "" ) );
+        assertEquals( "umlaut \u00e4 and \u4e2d", roundTrip( "umlaut \u00e4 and \u4e2d" ) );
+        assertEquals( Integer.valueOf( Integer.MIN_VALUE ), roundTrip( Integer.valueOf( Integer.MIN_VALUE ) ) );
+        assertEquals( Integer.valueOf( -1 ), roundTrip( Integer.valueOf( -1 ) ) );
+        assertEquals( Long.valueOf( Long.MAX_VALUE ), roundTrip( Long.valueOf( Long.MAX_VALUE ) ) );
+        assertEquals( Short.valueOf( (short) -300 ), roundTrip( Short.valueOf( (short) -300 ) ) );
+        assertEquals( Byte.valueOf( (byte) -7 ), roundTrip( Byte.valueOf( (byte) -7 ) ) );
+        assertEquals( Boolean.TRUE, roundTrip( Boolean.TRUE ) );
+        assertEquals( Boolean.FALSE, roundTrip( Boolean.FALSE ) );
+        assertEquals( Character.valueOf( '\uffff' ), roundTrip( Character.valueOf( '\uffff' ) ) );
+        assertEquals( Float.valueOf( 1.5f ), roundTrip( Float.valueOf( 1.5f ) ) );
+        assertEquals( Double.valueOf( Double.NaN ), roundTrip( Double.valueOf( Double.NaN ) ) );
+        assertTrue( Arrays.equals( new byte[] { 1, 2, 3 }, roundTrip( new byte[] { 1, 2, 3 } ) ) );
+    }
+
+    /**
+     * Collections keep their type and content.
+     * <p>
+     * @throws Exception
+     */
+    public void testCollectionsBackAndForth()
+        throws Exception
+    {
+        // SETUP
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put( "list", new ArrayList<>( Arrays.asList( "a", null, Long.valueOf( 3 ) ) ) );
+        map.put( "set", new HashSet<>( Arrays.asList( "x", "y" ) ) );
+        map.put( "map", new HashMap<>() );
+
+        // DO WORK
+        final Map<String, Object> after = roundTrip( map );
+
+        // VERIFY
+        assertEquals( "Should be equal", map, after );
+        assertEquals( LinkedHashMap.class, after.getClass() );
+        assertEquals( "Should keep the order", Arrays.asList( "list", "set", "map" ), new ArrayList<>( after.keySet() ) );
+    }
+
+    /**
+     * Cache elements keep their attributes.
+     * <p>
+     * @throws Exception
+     */
+    public void testCacheElementBackAndForth()
+        throws Exception
+    {
+        // SETUP
+        final ElementAttributes attributes = new ElementAttributes();
+        attributes.setIsEternal( false );
+        attributes.setIsLateral( false );
+        attributes.setMaxLife( 60 );
+        attributes.setIdleTime( 30 );
+        attributes.setSize( 12 );
+        attributes.setCreateTime( 1234567L );
+        attributes.setLastAccessTime( 2345678L );
+        final CacheElement<String, String> before = new CacheElement<>( "region", "key", "value", attributes );
+
+        // DO WORK
+        final ICacheElement<String, String> after = roundTrip( before );
+        final CacheElementSerialized<String, String> serialized =
+            roundTrip( new CacheElementSerialized<>( "region", "key", new byte[] { 4, 5 }, attributes ) );
+
+        // VERIFY
+        assertEquals( "region", after.getCacheName() );
+        assertEquals( "key", after.getKey() );
+        assertEquals( "value", after.getVal() );
+        assertFalse( after.getElementAttributes().getIsEternal() );
+        assertFalse( after.getElementAttributes().getIsLateral() );
+        assertTrue( after.getElementAttributes().getIsSpool() );
+        assertEquals( 60, after.getElementAttributes().getMaxLife() );
+        assertEquals( 30, after.getElementAttributes().getIdleTime() );
+        assertEquals( 12, after.getElementAttributes().getSize() );
+        assertEquals( 1234567L, after.getElementAttributes().getCreateTime() );
+        assertEquals( 2345678L, after.getElementAttributes().getLastAccessTime() );
+        assertTrue( Arrays.equals( new byte[] { 4, 5 }, serialized.getSerializedValue() ) );
+    }
+
+    /**
+     * Lateral descriptors keep their fields.
+     * <p>
+     * @throws Exception
+     */
+    public void testLateralElementDescriptorBackAndForth()
+        throws Exception
+    {
+        // SETUP
+        final LateralElementDescriptor<String, String> before =
+            new LateralElementDescriptor<>( new CacheElement<>( "region", "key", "value" ), LateralCommand.GET, 77 );
+        before.valHashCode = -5;
+        before.requestId = 123456789L;
+
+        // DO WORK
+        final LateralElementDescriptor<String, String> after = roundTrip( before );
+
+        // VERIFY
+        assertEquals( LateralCommand.GET, after.getCommand() );
+        assertEquals( 77, after.getRequesterId() );
+        assertEquals( -5, after.getValHashCode() );
+        assertEquals( 123456789L, after.getRequestId() );
+        assertEquals( "value", after.getPayload().getVal() );
+    }
+
+    /**
+     * Types the format does not know are written with Java serialization.
+     * <p>
+     * @throws Exception
+     */
+    public void testUnknownTypeFallsBackToJavaSerialization()
+        throws Exception
+    {
+        // SETUP
+        final List<Object> list = new ArrayList<>();
+        list.add( new Point( 3, 4 ) );
+
+        // DO WORK
+        final List<Object> after = roundTrip( list );
+
+        // VERIFY
+        assertEquals( "Should be equal", list, after );
+    }
+
+    /**
+     * Deeply nested values are still written.
+     * <p>
+     * @throws Exception
+     */
+    public void testDeepNesting()
+        throws Exception
+    {
+        // SETUP
+        List<Object> before = new ArrayList<>();
+        for ( int i = 0; i < 200; i++ )
+        {
+            final List<Object> outer = new ArrayList<>();
+            outer.add( before );
+            before = outer;
+        }
+
+        // DO WORK & VERIFY
+        assertEquals( "Should be equal", before, roundTrip( before ) );
+    }
+
+    /**
+     * Data written by the standard serializer can still be read.
+     * <p>
+     * @throws Exception
+     */
+    public void testReadsStandardSerializerData()
+        throws Exception
+    {
+        // SETUP
+        final CacheElement<String, String> before = new CacheElement<>( "region", "key", "value" );
+        final byte[] legacy = new StandardSerializer().serialize( before );
+
+        // DO WORK
+        final ICacheElement<String, String> after = serializer.deSerialize( legacy, null );
+
+        // VERIFY
+        assertEquals( "value", after.getVal() );
+    }
+
+    /**
+     * Common values are much smaller than with Java serialization.
+     * <p>
+     * @throws Exception
+     */
+    public void testSmallerThanStandardSerializer()
+        throws Exception
+    {
+        // SETUP
+        final StandardSerializer standard = new StandardSerializer();
+        final CacheElement<String, Long> element = new CacheElement<>( "region", "key", Long.valueOf( 42 ) );
+
+        // DO WORK
+        final int compactLong = serializer.serialize( Long.valueOf( 42 ) ).length;
+        final int compactElement = serializer.serialize( element ).length;
+
+        // VERIFY
+        assertEquals( "Tag and one byte", 2, compactLong );
+        assertTrue( "Should be smaller than " + standard.serialize( Long.valueOf( 42 ) ).length,
+                compactLong * 10 < standard.serialize( Long.valueOf( 42 ) ).length );
+        assertTrue( "Should be smaller than " + standard.serialize( element ).length + ", was " + compactElement,
+                compactElement * 5 < standard.serialize( element ).length );
+    }
+
+    /**
+     * Truncated data is rejected.
+     * <p>
+     * @throws Exception
+     */
+    public void testTruncatedDataIsRejected()
+        throws Exception
+    {
+        // SETUP
+        final byte[] data = serializer.serialize( "a longer string" );
+
+        // DO WORK
+        try
+        {
+            serializer.deSerialize( Arrays.copyOf( data, 5 ), null );
+            fail( "Should reject the data" );
+        }
+        catch ( final EOFException e )
+        {
+            // VERIFY
+            // expected
+        }
+    }
+
+    /**
+     * Malformed data is rejected with an IOException, not with an error or a runtime exception.
+     * <p>
+     * @throws Exception
+     */
+    public void testMalformedDataIsRejected()
+        throws Exception
+    {
+        // a varint of ten bytes with bit 63 set
+        final byte[] negative = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+            (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01 };
+        final byte[] nested = new byte[400];
+        for ( int i = 0; i < nested.length; i += 2 )
+        {
+            // array lists with one entry each
+            nested[i] = 16;
+            nested[i + 1] = 1;
+        }
+
+        final byte[][] inputs = {
+            // byte array of negative length
+            concat( new byte[] { 11 }, negative ),
+            // string of negative length
+            concat( new byte[] { 1 }, negative ),
+            // hash set of negative size
+            concat( new byte[] { 17 }, negative ),
+            // lateral descriptor with a negative command
+            concat( new byte[] { 15, 0 }, negative ),
+            // cache element with a string as attributes
+            { 12, 2, 'r', 0, 0, 1, 2, 'x' },
+            // serialized cache element with a string as value
+            { 13, 2, 'r', 0, 1, 2, 'x', 0 },
+            // lateral descriptor with a string as element
+            { 15, 1, 2, 'x', 0, 0, 0, 0 },
+            nested
+        };
+
+        for ( final byte[] input : inputs )
+        {
+            assertRejected( input );
+        }
+
+        final Random random = new Random( 42 );
+        for ( int i = 0; i < 20000; i++ )
+        {
+            final byte[] input = new byte[1 + random.nextInt( 32 )];
+            random.nextBytes( input );
+            // a valid tag up front reaches more of the reader
+            input[0] = (byte) random.nextInt( 22 );
+            try
+            {
+                serializer.deSerialize( input, null );
+            }
+            catch ( final IOException | ClassNotFoundException e )
+            {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * @param input the malformed data
+     * @throws Exception
+     */
+    private void assertRejected( final byte[] input )
+        throws Exception
+    {
+        try
+        {
+            serializer.deSerialize( input, null );
+            fail( "Should reject " + Arrays.toString( input ) );
+        }
+        catch ( final IOException e )
+        {
+            // expected
+        }
+    }
+
+    /**
+     * @param a the first bytes
+     * @param b the following bytes
+     * @return both
+     */
+    private static byte[] concat( final byte[] a, final byte[] b )
+    {
+        final byte[] result = Arrays.copyOf( a, a.length + b.length );
+        System.arraycopy( b, 0, result, a.length, b.length );
+        return result;
+    }
+
+    /**
+     * A type the compact format does not know.
+     */
+    private static class Point
+        implements Serializable
+    {
+        /** Don't change */
+        private static final long serialVersionUID = 1L;
+
+        /** Coordinates */
+        private final int x, y;
+
+        /**
+         * @param x
+         * @param y
+         */
+        Point( final int x, final int y )
+        {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            return obj instanceof Point && ( (Point) obj ).x == x && ( (Point) obj ).y == y;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * x + y;
+        }
+    }
+}
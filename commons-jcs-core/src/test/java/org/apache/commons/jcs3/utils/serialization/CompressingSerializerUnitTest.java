@@ -21,6 +21,13 @@ import java.io.IOException;
  * under the License.
  */
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.jcs3.utils.zip.CompressionUtil;
+
 import junit.framework.TestCase;
 
 /**
@@ -112,4 +119,131 @@ public class CompressingSerializerUnitTest
         assertTrue( "Compressed should be smaller. compressed size = " + compressed.length + "nonCompressed size = "
             + nonCompressed.length, compressed.length < nonCompressed.length );
     }
+
+    /**
+     * Small values are stored uncompressed.
+     * <p>
+     * @throws Exception on error
+     */
+    public void testSmallValueIsStored()
+        throws Exception
+    {
+        // DO WORK
+        final byte[] serialized = serializer.serialize( "small" );
+        final byte[] plain = new StandardSerializer().serialize( "small" );
+
+        // VERIFY
+        assertEquals( "Should only add the format byte", plain.length + 1, serialized.length );
+        assertEquals( "small", serializer.deSerialize( serialized, null ) );
+    }
+
+    /**
+     * Every codec and level reads back what it wrote.
+     * <p>
+     * @throws Exception on error
+     */
+    public void testCodecsAndLevels()
+        throws Exception
+    {
+        // SETUP
+        final List<String> before = new ArrayList<>();
+        for ( int i = 0; i < 200; i++ )
+        {
+            before.add( "value " + i );
+        }
+        final int plain = new StandardSerializer().serialize( before ).length;
+
+        for ( final CompressingSerializer.Codec codec : CompressingSerializer.Codec.values() )
+        {
+            for ( int level = 1; level <= 9; level += 4 )
+            {
+                serializer.setCodec( codec );
+                serializer.setCompressionLevel( level );
+
+                // DO WORK
+                final byte[] serialized = serializer.serialize( before );
+                final List<String> after = serializer.deSerialize( serialized, null );
+
+                // VERIFY
+                assertEquals( codec + " level " + level, before, after );
+                assertTrue( codec + " should compress", serialized.length < plain / 2 );
+            }
+        }
+    }
+
+    /**
+     * Values written as plain deflate streams by older versions are still read.
+     * <p>
+     * @throws Exception on error
+     */
+    public void testReadsLegacyFormat()
+        throws Exception
+    {
+        // SETUP
+        final String before = "adsfdsafdsafdsafdsafdsafdsafdsagfdsafdsafdsfdsafdsafsa333 31231";
+        final byte[] legacy = CompressionUtil.compressByteArray( new StandardSerializer().serialize( before ) );
+
+        // DO WORK
+        final String after = serializer.deSerialize( legacy, null );
+
+        // VERIFY
+        assertEquals( "Before and after should be the same.", before, after );
+    }
+
+    /**
+     * Values that do not get smaller are stored uncompressed.
+     * <p>
+     * @throws Exception on error
+     */
+    public void testIncompressibleValueIsStored()
+        throws Exception
+    {
+        // SETUP
+        final byte[] before = new byte[1000];
+        new Random( 42 ).nextBytes( before );
+        final int plain = new StandardSerializer().serialize( before ).length;
+
+        for ( final CompressingSerializer.Codec codec : CompressingSerializer.Codec.values() )
+        {
+            serializer.setCodec( codec );
+
+            // DO WORK
+            final byte[] serialized = serializer.serialize( before );
+
+            // VERIFY
+            assertEquals( codec + " should store the value", plain + 1, serialized.length );
+            assertTrue( Arrays.equals( before, (byte[]) serializer.deSerialize( serialized, null ) ) );
+        }
+    }
+
+    /**
+     * A header that claims more than the compressed bytes can expand to is rejected before the
+     * buffer is allocated.
+     * <p>
+     * @throws Exception on error
+     */
+    public void testCorruptLengthIsRejected()
+        throws Exception
+    {
+        final byte[] before = new byte[10000];
+
+        for ( final CompressingSerializer.Codec codec : CompressingSerializer.Codec.values() )
+        {
+            serializer.setCodec( codec );
+            final byte[] serialized = serializer.serialize( before );
+            serialized[1] = 0x7f;
+
+            // DO WORK
+            try
+            {
+                serializer.deSerialize( serialized, null );
+                fail( codec + " should reject the length" );
+            }
+            catch ( final IOException e )
+            {
+                // VERIFY
+                assertTrue( e.getMessage(), e.getMessage().contains( "Invalid uncompressed length" ) );
+            }
+        }
+    }
 }
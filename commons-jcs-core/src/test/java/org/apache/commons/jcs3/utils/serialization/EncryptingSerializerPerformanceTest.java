@@ -0,0 +1,122 @@
+package org.apache.commons.jcs3.utils.serialization;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the throughput of the encrypting serializer with the standard serializer it wraps.
+ * Each thread serializes and de-serializes small cache elements, the typical load of a lateral
+ * cache.
+ */
+public class EncryptingSerializerPerformanceTest
+    extends TestCase
+{
+    /** Number of elements per thread */
+    private static final int items = 5000;
+
+    /** Number of threads */
+    private static final int threads = 4;
+
+    /**
+     * Runs the workload for both serializers and prints the results.
+     * <p>
+     * @throws Exception
+     */
+    public void testEncryptingVsStandard()
+        throws Exception
+    {
+        final EncryptingSerializer ecb = new EncryptingSerializer();
+        ecb.setPreSharedKey( "my_secret_key" );
+        final EncryptingSerializer gcm = new EncryptingSerializer();
+        gcm.setPreSharedKey( "my_secret_key" );
+        gcm.setAesCipherTransformation( "AES/GCM/NoPadding" );
+        final StandardSerializer plain = new StandardSerializer();
+
+        // warm up
+        runWorkload( plain );
+        runWorkload( ecb );
+        runWorkload( gcm );
+
+        final long plainMillis = runWorkload( plain );
+        final long ecbMillis = runWorkload( ecb );
+        final long gcmMillis = runWorkload( gcm );
+
+        System.out.println( "Standard: " + plainMillis + " ms, Encrypting ECB: " + ecbMillis + " ms, ratio "
+                + (float) ecbMillis / Math.max( 1, plainMillis ) + ", Encrypting GCM: " + gcmMillis + " ms, ratio "
+                + (float) gcmMillis / Math.max( 1, plainMillis ) );
+    }
+
+    /**
+     * @param serializer the serializer
+     * @return the time in milliseconds
+     * @throws Exception
+     */
+    private long runWorkload( final IElementSerializer serializer )
+        throws Exception
+    {
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final AtomicInteger errors = new AtomicInteger();
+        final List<Thread> workers = new ArrayList<>();
+
+        for ( int t = 0; t < threads; t++ )
+        {
+            final Thread worker = new Thread( () -> {
+                try
+                {
+                    start.await();
+                    for ( int i = 0; i < items; i++ )
+                    {
+                        final CacheElement<String, String> element = new CacheElement<>( "region", i + ":key", "data " + i );
+                        final CacheElement<String, String> result =
+                            serializer.deSerialize( serializer.serialize( element ), null );
+                        assertEquals( element.getVal(), result.getVal() );
+                    }
+                }
+                catch ( final Throwable e )
+                {
+                    e.printStackTrace();
+                    errors.incrementAndGet();
+                }
+            } );
+            worker.start();
+            workers.add( worker );
+        }
+
+        final long begin = System.nanoTime();
+        start.countDown();
+        for ( final Thread worker : workers )
+        {
+            worker.join();
+        }
+        final long millis = ( System.nanoTime() - begin ) / 1000000;
+
+        assertEquals( "Workers failed", 0, errors.get() );
+        return millis;
+    }
+}
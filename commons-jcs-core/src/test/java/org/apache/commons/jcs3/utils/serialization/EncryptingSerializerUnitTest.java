@@ -22,6 +22,7 @@ package org.apache.commons.jcs3.utils.serialization;
 import static org.junit.Assert.assertThrows;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import junit.framework.TestCase;
 
@@ -127,4 +128,115 @@ public class EncryptingSerializerUnitTest
         // VERIFY
         assertNull( "Should have nothing. after =" + after, after );
     }
+
+    /**
+     * Values encrypted with GCM share the salt and key until the key is rotated.
+     * <p>
+     * @throws Exception on error
+     */
+    public void testKeyIsSharedUntilRotation()
+        throws Exception
+    {
+        // SETUP
+        serializer.setAesCipherTransformation( "AES/GCM/NoPadding" );
+
+        // DO WORK
+        final byte[] first = serializer.serialize( "first" );
+        final byte[] second = serializer.serialize( "second" );
+        serializer.setKeyRotationSeconds( 1 );
+        Thread.sleep( 1100 );
+        final byte[] third = serializer.serialize( "third" );
+
+        // VERIFY
+        assertTrue( "Should share the salt", Arrays.equals( salt( first ), salt( second ) ) );
+        assertFalse( "Should rotate the salt", Arrays.equals( salt( first ), salt( third ) ) );
+        assertEquals( "first", serializer.deSerialize( first, null ) );
+        assertEquals( "third", serializer.deSerialize( third, null ) );
+    }
+
+    /**
+     * Another serializer with the same pre-shared key reads the values.
+     * <p>
+     * @throws Exception on error
+     */
+    public void testOtherInstanceDecrypts()
+        throws Exception
+    {
+        // SETUP
+        final EncryptingSerializer other = new EncryptingSerializer();
+        other.setPreSharedKey( "my_secret_key" );
+        other.setAesCipherTransformation( "AES/GCM/NoPadding" );
+        serializer.setAesCipherTransformation( "AES/GCM/NoPadding" );
+
+        // DO WORK
+        final byte[] serialized = serializer.serialize( "value" );
+
+        // VERIFY
+        assertEquals( "value", other.deSerialize( serialized, null ) );
+        assertEquals( "value", other.deSerialize( serialized, null ) );
+    }
+
+    /**
+     * Equal values encrypted with ECB, which has no initial vector, do not give equal data.
+     * <p>
+     * @throws Exception on error
+     */
+    public void testEqualValuesDifferWithECB()
+        throws Exception
+    {
+        // DO WORK
+        final byte[] first = serializer.serialize( "same secret value" );
+        final byte[] second = serializer.serialize( "same secret value" );
+
+        // VERIFY
+        assertFalse( "Should not share the salt", Arrays.equals( salt( first ), salt( second ) ) );
+        assertFalse( "Should not share the encrypted data",
+            Arrays.equals( Arrays.copyOfRange( first, 28, first.length ), Arrays.copyOfRange( second, 28, second.length ) ) );
+        assertEquals( "same secret value", serializer.deSerialize( first, null ) );
+        assertEquals( "same secret value", serializer.deSerialize( second, null ) );
+    }
+
+    /**
+     * Reading many values with a salt each does not lose the key of the values encrypted with GCM.
+     * <p>
+     * @throws Exception on error
+     */
+    public void testValuesWithOwnSaltsKeepTheEncryptionKey()
+        throws Exception
+    {
+        // SETUP
+        final EncryptingSerializer ecb = new EncryptingSerializer();
+        ecb.setPreSharedKey( "my_secret_key" );
+        final byte[][] legacy = new byte[150][];
+        for ( int i = 0; i < legacy.length; i++ )
+        {
+            legacy[i] = ecb.serialize( "legacy" + i );
+        }
+        final byte[] before = serializer.serialize( "before" );
+        serializer.setAesCipherTransformation( "AES/GCM/NoPadding" );
+        final byte[] current = serializer.serialize( "current" );
+
+        // DO WORK
+        serializer.setAesCipherTransformation( "AES/ECB/PKCS5Padding" );
+        for ( int i = 0; i < legacy.length; i++ )
+        {
+            assertEquals( "legacy" + i, serializer.deSerialize( legacy[i], null ) );
+        }
+        assertEquals( "before", serializer.deSerialize( before, null ) );
+        serializer.setAesCipherTransformation( "AES/GCM/NoPadding" );
+
+        // VERIFY
+        assertTrue( "Should keep sharing the key",
+            Arrays.equals( salt( current ), salt( serializer.serialize( "next" ) ) ) );
+        assertEquals( "current", serializer.deSerialize( current, null ) );
+    }
+
+    /**
+     * @param serialized the encrypted value
+     * @return the salt stored after the initial vector
+     */
+    private static byte[] salt( final byte[] serialized )
+    {
+        return Arrays.copyOfRange( serialized, 12, 28 );
+    }
 }
@@ -0,0 +1,352 @@
+package org.apache.commons.jcs3.utils.serialization;
+
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.CompletionHandler;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the frame buffer and the serializers writing into it.
+ */
+public class FrameBufferUnitTest
+    extends TestCase
+{
+    /**
+     * Writes two frames and reads them back.
+     * <p>
+     * @param serializer the serializer
+     * @param buffer the buffer to write into
+     * @throws Exception
+     */
+    private static void verifyFrames( final IElementSerializer serializer, final FrameBuffer buffer )
+        throws Exception
+    {
+        // SETUP
+        final CacheElement<String, String> element = new CacheElement<>( "region", "key", "value" );
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        // DO WORK
+        final int first = serializer.serializeTo( element, buffer );
+        final int second = serializer.serializeTo( "second", buffer );
+        buffer.writeTo( Channels.newChannel( baos ) );
+
+        // VERIFY
+        assertEquals( "Wrong size", first + second, buffer.size() );
+        assertEquals( "Wrong size", first + second, baos.size() );
+
+        final ByteArrayInputStream is = new ByteArrayInputStream( baos.toByteArray() );
+        final FrameBuffer readBuffer = new FrameBuffer( buffer.toByteBuffer().isDirect() );
+        final ICacheElement<String, String> after = serializer.deSerializeFrom( readBuffer.readFrom( is ), null );
+        assertEquals( "value", after.getVal() );
+        assertEquals( "second", serializer.deSerializeFrom( readBuffer.readFrom( Channels.newChannel( is ) ), null ) );
+
+        try
+        {
+            readBuffer.readFrom( is );
+            fail( "Should reach the end of the stream" );
+        }
+        catch ( final EOFException e )
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Frames of the standard serializer in heap and direct buffers.
+     * <p>
+     * @throws Exception
+     */
+    public void testStandardSerializerFrames()
+        throws Exception
+    {
+        verifyFrames( new StandardSerializer(), new FrameBuffer() );
+        verifyFrames( new StandardSerializer(), new FrameBuffer( true ) );
+    }
+
+    /**
+     * Frames of the compact serializer in heap and direct buffers.
+     * <p>
+     * @throws Exception
+     */
+    public void testCompactSerializerFrames()
+        throws Exception
+    {
+        verifyFrames( new CompactSerializer(), new FrameBuffer() );
+        verifyFrames( new CompactSerializer(), new FrameBuffer( true ) );
+    }
+
+    /**
+     * Frames of a serializer without a streaming implementation.
+     * <p>
+     * @throws Exception
+     */
+    public void testDefaultFrames()
+        throws Exception
+    {
+        verifyFrames( new CompressingSerializer(), new FrameBuffer() );
+    }
+
+    /**
+     * The frames of the buffer are the same as the frames of the stream methods.
+     * <p>
+     * @throws Exception
+     */
+    public void testSameFramesAsStream()
+        throws Exception
+    {
+        // SETUP
+        final StandardSerializer serializer = new StandardSerializer();
+        final FrameBuffer buffer = new FrameBuffer();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        // DO WORK
+        serializer.serializeTo( "value", buffer );
+        serializer.serializeTo( "value", baos );
+
+        // VERIFY
+        final ByteBuffer frame = buffer.toByteBuffer();
+        final byte[] bytes = new byte[frame.remaining()];
+        frame.get( bytes );
+        assertTrue( "Should be the same frame", Arrays.equals( baos.toByteArray(), bytes ) );
+        assertEquals( "Wrong length prefix", bytes.length - 4, ByteBuffer.wrap( bytes ).getInt() );
+        assertEquals( "value", serializer.deSerializeFrom( new ByteArrayInputStream( bytes ), null ) );
+    }
+
+    /**
+     * A buffer grows for large objects and shrinks back when it is reset.
+     * <p>
+     * @throws Exception
+     */
+    public void testGrowAndShrink()
+        throws Exception
+    {
+        // SETUP
+        final StandardSerializer serializer = new StandardSerializer();
+        final FrameBuffer buffer = new FrameBuffer();
+        final byte[] large = new byte[200000];
+        Arrays.fill( large, (byte) 7 );
+
+        // DO WORK
+        serializer.serializeTo( large, buffer );
+        final ByteBuffer frame = buffer.toByteBuffer();
+        frame.getInt();
+        final byte[] after = serializer.deSerializeFrom( frame, null );
+        buffer.reset();
+
+        // VERIFY
+        assertTrue( "Should be the same", Arrays.equals( large, after ) );
+        assertEquals( "Should be empty", 0, buffer.size() );
+        assertTrue( "Should have shrunk", buffer.toByteBuffer().capacity() < large.length );
+    }
+
+    /**
+     * Released buffers are handed out again.
+     */
+    public void testAcquireRelease()
+    {
+        // DO WORK
+        final FrameBuffer first = FrameBuffer.acquire();
+        final FrameBuffer second = FrameBuffer.acquire();
+        first.release();
+        final FrameBuffer third = FrameBuffer.acquire();
+
+        // VERIFY
+        assertNotSame( "Should not share a buffer in use", first, second );
+        assertSame( "Should reuse the released buffer", first, third );
+
+        second.release();
+        third.release();
+    }
+
+    /**
+     * A negative length prefix is rejected.
+     * <p>
+     * @throws Exception
+     */
+    public void testInvalidLength()
+        throws Exception
+    {
+        // SETUP
+        final byte[] data = { (byte) 0xff, 0, 0, 0 };
+
+        // DO WORK
+        try
+        {
+            new FrameBuffer().readFrom( new ByteArrayInputStream( data ) );
+            fail( "Should reject the length" );
+        }
+        catch ( final EOFException e )
+        {
+            fail( "Should not wait for the body" );
+        }
+        catch ( final IOException e )
+        {
+            // VERIFY
+            assertTrue( e.getMessage().contains( "Invalid frame length" ) );
+        }
+    }
+
+    /**
+     * A channel whose operations never complete. It keeps the buffers handed to it.
+     */
+    private static final class StalledChannel
+        implements AsynchronousByteChannel
+    {
+        /** The buffer of the last operation */
+        ByteBuffer pending;
+
+        /** Whether the channel was closed */
+        boolean closed;
+
+        @Override
+        public Future<Integer> read( final ByteBuffer dst )
+        {
+            pending = dst;
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public <A> void read( final ByteBuffer dst, final A attachment,
+                              final CompletionHandler<Integer, ? super A> handler )
+        {
+            pending = dst;
+        }
+
+        @Override
+        public Future<Integer> write( final ByteBuffer src )
+        {
+            pending = src;
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public <A> void write( final ByteBuffer src, final A attachment,
+                               final CompletionHandler<Integer, ? super A> handler )
+        {
+            pending = src;
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return !closed;
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+
+    /**
+     * A write that times out closes the channel, and the next frame does not overwrite the memory
+     * the stalled write may still send.
+     * <p>
+     * @throws Exception
+     */
+    public void testWriteTimeoutDropsMemory()
+        throws Exception
+    {
+        // SETUP
+        final IElementSerializer serializer = new StandardSerializer();
+        final FrameBuffer buffer = new FrameBuffer();
+        final StalledChannel channel = new StalledChannel();
+        serializer.serializeTo( "first", buffer );
+
+        // DO WORK
+        try
+        {
+            buffer.writeTo( channel, 10 );
+            fail( "Should time out" );
+        }
+        catch ( final IOException e )
+        {
+            // expected
+        }
+        final ByteBuffer pending = channel.pending.duplicate();
+        final byte[] before = new byte[pending.remaining()];
+        pending.duplicate().get( before );
+
+        buffer.reset();
+        serializer.serializeTo( "second frame, longer than the first", buffer );
+
+        final byte[] after = new byte[pending.remaining()];
+        pending.get( after );
+
+        // VERIFY
+        assertTrue( "Should close the channel", channel.closed );
+        assertTrue( "Should not reuse the memory of the stalled write", Arrays.equals( before, after ) );
+    }
+
+    /**
+     * A read that times out closes the channel, and a pooled buffer is not handed out with memory
+     * the stalled read may still fill.
+     * <p>
+     * @throws Exception
+     */
+    public void testReadTimeoutDropsMemory()
+        throws Exception
+    {
+        // SETUP
+        final FrameBuffer buffer = FrameBuffer.acquire();
+        final StalledChannel channel = new StalledChannel();
+
+        // DO WORK
+        try
+        {
+            buffer.readFrom( channel, 10 );
+            fail( "Should time out" );
+        }
+        catch ( final IOException e )
+        {
+            // expected
+        }
+        buffer.release();
+
+        final FrameBuffer next = FrameBuffer.acquire();
+        new StandardSerializer().serializeTo( "next", next );
+        channel.pending.put( (byte) 0x7f );
+
+        // VERIFY
+        assertTrue( "Should close the channel", channel.closed );
+        assertEquals( "Should not share memory with the stalled read", 0,
+                      next.toByteBuffer().get( 0 ) );
+
+        next.release();
+    }
+}
@@ -0,0 +1,148 @@
+package org.apache.commons.jcs3.utils.zip;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the LZ4 codec.
+ */
+public class LZ4CodecUnitTest
+    extends TestCase
+{
+    /**
+     * @param data the uncompressed data
+     * @return the block
+     */
+    private static byte[] compress( final byte[] data )
+    {
+        final byte[] block = new byte[LZ4Codec.maxCompressedLength( data.length )];
+        final int length = LZ4Codec.compress( data, 0, data.length, block, 0 );
+        return Arrays.copyOf( block, length );
+    }
+
+    /**
+     * @param data the uncompressed data
+     * @return the data after the round trip
+     * @throws IOException
+     */
+    private static byte[] roundTrip( final byte[] data )
+        throws IOException
+    {
+        final byte[] block = compress( data );
+        final byte[] result = new byte[data.length];
+        LZ4Codec.decompress( block, 0, block.length, result, 0, result.length );
+        return result;
+    }
+
+    /**
+     * Repetitive data shrinks and survives the round trip.
+     * <p>
+     * @throws IOException
+     */
+    public void testRepetitiveData()
+        throws IOException
+    {
+        // SETUP
+        final StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            sb.append( "key" ).append( i % 17 ).append( ':' ).append( "aaaaaaaaaaaaaaaaaaaa" );
+        }
+        final byte[] data = sb.toString().getBytes( "UTF-8" );
+
+        // DO WORK
+        final byte[] block = compress( data );
+
+        // VERIFY
+        assertTrue( "Should compress, was " + block.length, block.length * 10 < data.length );
+        assertTrue( Arrays.equals( data, roundTrip( data ) ) );
+    }
+
+    /**
+     * Random data, short data and empty data survive the round trip.
+     * <p>
+     * @throws IOException
+     */
+    public void testOtherData()
+        throws IOException
+    {
+        final Random random = new Random( 42 );
+        for ( final int length : new int[] { 0, 1, 12, 13, 100, 70000 } )
+        {
+            // SETUP
+            final byte[] data = new byte[length];
+            random.nextBytes( data );
+
+            // DO WORK
+            final byte[] result = roundTrip( data );
+
+            // VERIFY
+            assertTrue( "length " + length, Arrays.equals( data, result ) );
+            assertTrue( "length " + length, compress( data ).length <= LZ4Codec.maxCompressedLength( length ) );
+        }
+    }
+
+    /**
+     * Overlapping matches of long runs survive the round trip.
+     * <p>
+     * @throws IOException
+     */
+    public void testLongRun()
+        throws IOException
+    {
+        // SETUP
+        final byte[] data = new byte[100000];
+        Arrays.fill( data, (byte) 'x' );
+        data[50000] = 'y';
+
+        // DO WORK
+        final byte[] result = roundTrip( data );
+
+        // VERIFY
+        assertTrue( Arrays.equals( data, result ) );
+    }
+
+    /**
+     * A truncated block is rejected.
+     */
+    public void testTruncatedBlock()
+    {
+        // SETUP
+        final byte[] data = new byte[1000];
+        Arrays.fill( data, (byte) 'x' );
+        final byte[] block = compress( data );
+
+        // DO WORK
+        try
+        {
+            LZ4Codec.decompress( block, 0, block.length - 3, new byte[data.length], 0, data.length );
+            fail( "Should reject the block" );
+        }
+        catch ( final IOException e )
+        {
+            // expected
+        }
+    }
+}